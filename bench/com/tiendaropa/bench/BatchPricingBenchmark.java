@@ -0,0 +1,95 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.singleton.DiscountManager;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Precios de un lote completo: la línea base llama a Product.getFinalPrice
+ * por cada producto, como se calculaba antes cada precio, frente a las
+ * variantes por lote de DiscountManager, sobre double y sobre long.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchPricingBenchmark {
+
+    @Param({"1024", "65536", "2000000"})
+    public int size;
+
+    private final DiscountManager discountManager = DiscountManager.getInstance();
+    private Product[] products;
+    private double[] prices;
+    private double[] pricesOut;
+    private long[] amounts;
+    private long[] amountsOut;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        products = new Product[size];
+        prices = new double[size];
+        pricesOut = new double[size];
+        amounts = new long[size];
+        amountsOut = new long[size];
+        for (int i = 0; i < size; i++) {
+            amounts[i] = 20000 + random.nextInt(40001);
+            prices[i] = amounts[i];
+            products[i] = new Product("P" + i, "Producto " + i, Money.ofClp(amounts[i]));
+        }
+    }
+
+    @Benchmark
+    public void perElementDouble(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            pricesOut[i] = products[i].getFinalPrice(DiscountType.SEASONAL).toMajor();
+        }
+        blackhole.consume(pricesOut);
+    }
+
+    @Benchmark
+    public void batchDouble(Blackhole blackhole) {
+        discountManager.applyDiscountBatch(prices, DiscountType.SEASONAL, pricesOut);
+        blackhole.consume(pricesOut);
+    }
+
+    @Benchmark
+    public void perElementLong(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            amountsOut[i] = products[i].getFinalPrice(DiscountType.SEASONAL).getAmount();
+        }
+        blackhole.consume(amountsOut);
+    }
+
+    @Benchmark
+    public void batchLong(Blackhole blackhole) {
+        discountManager.applyDiscountBatch(amounts, DiscountType.SEASONAL, amountsOut);
+        blackhole.consume(amountsOut);
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.inventory.StockReservations;
+import com.tiendaropa.model.Cart;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.persistence.FsyncPolicy;
+import com.tiendaropa.persistence.OrderJournal;
+import com.tiendaropa.service.CheckoutPipeline;
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Checkouts por segundo de carros de 1 a 4 productos, con reservas de
+ * stock y journal, según la cantidad de clientes simultáneos: con
+ * CheckoutPipeline y de la forma anterior, llamando a createOrder y luego
+ * a addProductToOrder por cada producto (cada llamada registra y espera
+ * su propio registro del journal). Cada invocación reparte 256 checkouts
+ * entre los clientes. Con ALWAYS se ve el efecto de un fsync por lote; al
+ * terminar cada iteración se imprime cuántos pedidos entraron en cada
+ * lote del pipeline. El directorio temporal se crea en java.io.tmpdir,
+ * que debe estar en el disco que se quiere medir.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CheckoutPipelineBenchmark {
+
+    private static final int CHECKOUTS = 256;
+    private static final int SKUS = 1000;
+    private static final int CARTS = 4096;
+
+    @Param({"1", "8", "64"})
+    public int clients;
+
+    @Param({"NEVER", "ALWAYS"})
+    public FsyncPolicy policy;
+
+    private Path directory;
+    private OrderJournal journal;
+    private OrderService service;
+    private CheckoutPipeline pipeline;
+    private ExecutorService executor;
+    private Cart[] carts;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiendaropa-checkout-bench");
+        journal = new OrderJournal(directory, 0, policy, 10);
+        StockReservations inventory = new StockReservations(TimeUnit.HOURS.toMillis(1));
+        ProductValue[] products = new ProductValue[SKUS];
+        for (int i = 0; i < SKUS; i++) {
+            products[i] = new ProductValue("P" + i, "Producto " + i, null, Money.ofClp(9990L + i * 100L),
+                    i % 2 == 0 ? "Camisetas" : "Pantalones", "M", "Negro", Integer.MAX_VALUE);
+            inventory.register(products[i].getId(), Integer.MAX_VALUE);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        carts = new Cart[CARTS];
+        for (int i = 0; i < CARTS; i++) {
+            carts[i] = new Cart("C" + random.nextInt(10_000), i % 4 == 0 ? "MEMBER" : "NONE");
+            int lines = 1 + random.nextInt(4);
+            for (int line = 0; line < lines; line++) {
+                carts[i].add(products[random.nextInt(SKUS)], 1 + random.nextInt(3));
+            }
+        }
+        service = new OrderService(SnowflakeOrderIdGenerator.getDefault(), journal, inventory);
+        pipeline = new CheckoutPipeline(service, 1024, 256);
+        executor = Executors.newFixedThreadPool(clients);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (pipeline.getPersistBatches() > 0) {
+            System.out.printf("%n  pedidos por lote del pipeline: %.1f%n",
+                    (double) pipeline.getCompleted() / pipeline.getPersistBatches());
+        }
+        pipeline.close();
+        executor.shutdown();
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKOUTS)
+    public int pipeline() throws InterruptedException, ExecutionException {
+        return runClients(cart -> pipeline.checkout(cart).isPlaced());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHECKOUTS)
+    public int perCall() throws InterruptedException, ExecutionException {
+        return runClients(cart -> {
+            Order order = service.createOrder(cart.getCustomerId());
+            if (!"NONE".equals(cart.getDiscountType())) {
+                service.calculateOrderTotal(order.getId(), cart.getDiscountType());
+            }
+            boolean added = true;
+            for (int i = 0; i < cart.getLineCount(); i++) {
+                added &= service.addProductToOrder(order.getId(), cart.getProduct(i), cart.getQuantity(i));
+            }
+            return added;
+        });
+    }
+
+    private int runClients(CartCheckout checkout) throws InterruptedException, ExecutionException {
+        int perClient = CHECKOUTS / clients;
+        List<Callable<Integer>> tasks = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int first = (int) (System.nanoTime() & (CARTS - 1));
+            tasks.add(() -> {
+                int placed = 0;
+                for (int i = 0; i < perClient; i++) {
+                    if (checkout.place(carts[(first + i) & (CARTS - 1)])) {
+                        placed++;
+                    }
+                }
+                return placed;
+            });
+        }
+        int placed = 0;
+        for (Future<Integer> result : executor.invokeAll(tasks)) {
+            placed += result.get();
+        }
+        return placed;
+    }
+
+    @FunctionalInterface
+    private interface CartCheckout {
+
+        boolean place(Cart cart);
+    }
+}
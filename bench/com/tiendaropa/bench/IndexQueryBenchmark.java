@@ -0,0 +1,98 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.service.OrderService;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Consultas por cliente, estado y rango de fechas usando los índices
+ * secundarios, frente a recorrer todos los pedidos.
+ * Con 10 millones de pedidos necesita un heap grande.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+public class IndexQueryBenchmark {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final long START_MILLIS = 1_790_000_000_000L;
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    private OrderService orderService;
+    private int customers;
+
+    @Setup
+    public void setUp() {
+        orderService = new OrderService();
+        customers = Math.max(1, size / 100);
+        List<Order> orders = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            orders.add(new Order("ORD-" + i, "C" + (i % customers), new Date(START_MILLIS + i * 1000L),
+                    STATUSES[i % STATUSES.length], "NONE"));
+        }
+        orderService.restoreOrders(orders);
+    }
+
+    @Benchmark
+    public List<Order> byCustomerIndex() {
+        return orderService.getOrdersByCustomer(randomCustomer());
+    }
+
+    @Benchmark
+    public List<Order> byCustomerScan() {
+        String customerId = randomCustomer();
+        return orderService.streamOrders()
+                .filter(order -> customerId.equals(order.getCustomerId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Pedidos de un minuto cualquiera: 60 resultados.
+     *
+     * @return Pedidos del rango
+     */
+    @Benchmark
+    public List<Order> byDateRangeIndex() {
+        long from = START_MILLIS + ThreadLocalRandom.current().nextLong(size - 60) * 1000L;
+        return orderService.getOrdersByDateRange(new Date(from), new Date(from + 60_000L));
+    }
+
+    @Benchmark
+    public int countByStatusIndex() {
+        return orderService.getOrdersByStatus(OrderStatus.CANCELLED).size();
+    }
+
+    private String randomCustomer() {
+        return "C" + ThreadLocalRandom.current().nextInt(customers);
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.persistence.FsyncPolicy;
+import com.tiendaropa.persistence.OrderJournal;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Registros por segundo del journal de pedidos según la política de fsync,
+ * con uno y con ocho hilos. Con ALWAYS, varios hilos comparten cada fsync
+ * gracias a la escritura agrupada. El directorio temporal se crea en
+ * java.io.tmpdir, que debe estar en el disco que se quiere medir.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+    @Param({"NEVER", "INTERVAL", "ALWAYS"})
+    public FsyncPolicy policy;
+
+    private Path directory;
+    private OrderJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiendaropa-journal-bench");
+        journal = new OrderJournal(directory, 0, policy, 10);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long logStatus() {
+        long sequence = journal.logStatus("ORD-154802341004967936", OrderStatus.SHIPPED);
+        journal.awaitDurable(sequence);
+        return sequence;
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long logStatusConcurrent() {
+        return logStatus();
+    }
+}
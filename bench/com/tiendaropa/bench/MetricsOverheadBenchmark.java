@@ -0,0 +1,138 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.discount.DiscountRule;
+import com.tiendaropa.discount.DiscountRuleSet;
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.metrics.MetricsRegistry;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.singleton.DiscountManager;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de las métricas en las operaciones instrumentadas, con el registro
+ * desactivado y activado. La línea base sin instrumentar de pricing es
+ * uncountedRuleLookup, que hace el mismo trabajo que applyDiscount sin
+ * pasar por el contador. Para las operaciones del servicio, la línea base
+ * es el resultado de esta misma clase con metricsEnabled=false comparado
+ * con el de OrderTotalBenchmark y OrderStoreBenchmark de la versión
+ * anterior; la meta es una diferencia menor a 2%.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean metricsEnabled;
+
+    private OrderService service;
+    private String orderId;
+    private DiscountManager discountManager;
+    private DiscountRuleSet rules;
+    private long amount;
+
+    @Setup
+    public void setUp() {
+        MetricsRegistry.getDefault().setEnabled(metricsEnabled);
+        MetricsRegistry.getDefault().reset();
+        service = new OrderService();
+        Order order = service.createOrder("C1");
+        orderId = order.getId();
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product("P" + i, "Producto " + i, Money.ofClp(9990L + i * 1000L));
+            product.setCategory("Camisetas");
+            service.addProductToOrder(orderId, product);
+        }
+        discountManager = DiscountManager.getInstance();
+        rules = DiscountRuleSet.defaults();
+        amount = 25990L;
+    }
+
+    @TearDown
+    public void tearDown() {
+        MetricsRegistry.getDefault().setEnabled(false);
+    }
+
+    /**
+     * Crea un pedido y lo elimina.
+     *
+     * @return true si se eliminó
+     */
+    @Benchmark
+    public boolean createAndDeleteOrder() {
+        return service.deleteOrder(service.createOrder("C2").getId());
+    }
+
+    /**
+     * Calcula el total de un pedido de cinco productos.
+     *
+     * @return Total con descuento
+     */
+    @Benchmark
+    public Money calculateOrderTotal() {
+        return service.calculateOrderTotal(orderId, "SEASONAL");
+    }
+
+    /**
+     * Crea un pedido, lo paga y lo elimina; los estados no vuelven atrás,
+     * así que cada cambio de estado necesita un pedido nuevo. El costo del
+     * cambio de estado es la diferencia con createAndDeleteOrder.
+     *
+     * @return true si se eliminó
+     */
+    @Benchmark
+    public boolean createPayAndDeleteOrder() {
+        String id = service.createOrder("C2").getId();
+        service.updateOrderStatus(id, OrderStatus.PAID);
+        return service.deleteOrder(id);
+    }
+
+    /**
+     * Precio con descuento a través de DiscountManager, que cuenta la búsqueda.
+     *
+     * @return Precio con descuento en unidades menores
+     */
+    @Benchmark
+    public long applyDiscount() {
+        return discountManager.applyDiscount(amount, "Camisetas", DiscountType.MEMBER);
+    }
+
+    /**
+     * Línea base de applyDiscount: el mismo cálculo directo sobre las reglas.
+     *
+     * @return Precio con descuento en unidades menores
+     */
+    @Benchmark
+    public long uncountedRuleLookup() {
+        DiscountRule rule = rules.find(DiscountType.MEMBER, "Camisetas");
+        return rule != null ? rule.apply(amount, RoundingMode.HALF_UP) : amount;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.service.OrderService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Carga mixta de varios hilos sobre un mismo OrderService.
+ * El grupo "checkout" tiene un hilo que crea pedidos completos y tres que
+ * leen; "mixed" reparte cada operación al azar entre lecturas (70%),
+ * altas de productos (20%) y pedidos nuevos (10%).
+ *
+ * <p>El main de esta clase corre "mixed" con 1, 2, 4, 8 y 16 hilos y
+ * muestra el throughput de cada nivel, para ver cómo escala el servicio
+ * (ant bench-scaling). Desde el jar de JMH los hilos se eligen con -t.</p>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MixedWorkloadBenchmark {
+
+    private static final int ORDERS = 100_000;
+    private static final int SKUS = 1000;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    private OrderService orderService;
+    private String[] ids;
+    private Product[] products;
+
+    @Setup
+    public void setUp() {
+        orderService = new OrderService();
+        products = new Product[SKUS];
+        for (int i = 0; i < SKUS; i++) {
+            products[i] = new Product("P" + i, "Producto " + i, Money.ofClp(20000 + i));
+        }
+        ids = new String[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            ids[i] = orderService.createOrder("C" + (i % 1000)).getId();
+            orderService.addProductToOrder(ids[i], products[i % SKUS]);
+        }
+    }
+
+    @Benchmark
+    @Group("checkout")
+    @GroupThreads(1)
+    public Money checkout() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Order order = orderService.createOrder("C" + random.nextInt(1000));
+        for (int i = 0; i < 3; i++) {
+            orderService.addProductToOrder(order.getId(), products[random.nextInt(SKUS)]);
+        }
+        Money total = orderService.calculateOrderTotal(order.getId(), "MEMBER");
+        orderService.deleteOrder(order.getId());
+        return total;
+    }
+
+    @Benchmark
+    @Group("checkout")
+    @GroupThreads(3)
+    public Order browse() {
+        return orderService.getOrderSnapshot(ids[ThreadLocalRandom.current().nextInt(ORDERS)]);
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int op = random.nextInt(10);
+        String id = ids[random.nextInt(ORDERS)];
+        if (op < 7) {
+            return orderService.getOrderSnapshot(id);
+        }
+        if (op < 9) {
+            // Alta y baja para que el pedido no crezca durante la medición
+            Product product = products[random.nextInt(SKUS)];
+            orderService.addProductToOrder(id, product);
+            return orderService.removeProductFromOrder(id, product.getId());
+        }
+        Order order = orderService.createOrder("C" + random.nextInt(1000));
+        return orderService.deleteOrder(order.getId());
+    }
+
+    /**
+     * Corre la carga "mixed" con cada cantidad de hilos y muestra el
+     * throughput de cada nivel y cuánto escala respecto de un hilo.
+     *
+     * @param args No se usan
+     * @throws RunnerException si JMH no puede ejecutar la medición
+     */
+    public static void main(String[] args) throws RunnerException {
+        Map<Integer, Result<?>> results = new LinkedHashMap<>();
+        for (int threads : THREAD_COUNTS) {
+            Options options = new OptionsBuilder()
+                    .include(MixedWorkloadBenchmark.class.getName() + ".mixed$")
+                    .threads(threads)
+                    .build();
+            for (RunResult run : new Runner(options).run()) {
+                results.put(threads, run.getPrimaryResult());
+            }
+        }
+        double single = results.get(THREAD_COUNTS[0]).getScore();
+        System.out.printf("%n%6s %16s %12s %8s%n", "Hilos", "Ops/s", "Error", "Escala");
+        for (Map.Entry<Integer, Result<?>> entry : results.entrySet()) {
+            Result<?> result = entry.getValue();
+            System.out.printf("%6d %16.0f %12.0f %7.2fx%n", entry.getKey(), result.getScore(),
+                    result.getScoreError(), result.getScore() / single);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.persistence.OrderCodec;
+import com.tiendaropa.persistence.OrderFormat;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Escritura y lectura de un pedido con OrderCodec, con OrderFormat sobre
+ * DataOutputStream y con la serialización de java.io (sobre una copia
+ * Serializable del pedido, porque el modelo no lo es; la copia se cuenta
+ * en el tiempo). Las variantes "stream" usan el diccionario ya cargado por
+ * pedidos anteriores, como en una réplica o una instantánea; las demás
+ * escriben cada pedido de forma independiente. El tamaño en bytes de cada
+ * formato se imprime al preparar la prueba; con -prof gc se ven los bytes
+ * asignados por operación.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCodecBenchmark {
+
+    @Param({"3"})
+    public int lines;
+
+    private Order order;
+    private final OrderCodec writer = new OrderCodec();
+    private final OrderCodec reader = new OrderCodec();
+    private final OrderCodec streamWriter = new OrderCodec();
+    private final OrderCodec streamReader = new OrderCodec();
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+    private ByteBuffer encoded;
+    private ByteBuffer streamEncoded;
+    private byte[] formatEncoded;
+    private byte[] javaEncoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        order = new Order("ORD-154802341004967936", "C48213", new Date(), OrderStatus.PAID, "MEMBER");
+        String[] categories = {"Camisetas", "Pantalones", "Chaquetas"};
+        for (int i = 0; i < lines; i++) {
+            order.addProduct(new ProductValue("SKU-" + (10_000 + i), "Producto " + i, "Algodon, temporada 2026",
+                    Money.ofClp(9990L + i * 1000L), categories[i % categories.length], "M", "Negro", 100), 1 + i % 3);
+        }
+        order.setJournalSequence(123_456L);
+
+        encoded = ByteBuffer.allocate(1 << 16);
+        writer.encodeOrder(encoded, order);
+        encoded.flip();
+        // El primer pedido del stream define los textos; el segundo solo usa códigos
+        ByteBuffer first = ByteBuffer.allocate(1 << 16);
+        streamWriter.encodeOrder(first, order);
+        first.flip();
+        streamReader.decodeOrder(first);
+        streamEncoded = ByteBuffer.allocate(1 << 16);
+        streamWriter.encodeOrder(streamEncoded, order);
+        streamEncoded.flip();
+        formatEncoded = formatEncode();
+        javaEncoded = javaEncode();
+        System.out.println("\nBytes por pedido: OrderCodec=" + encoded.remaining()
+                + " OrderCodec en stream=" + streamEncoded.remaining()
+                + " OrderFormat=" + formatEncoded.length + " java.io=" + javaEncoded.length);
+    }
+
+    @Benchmark
+    public int codecEncode() {
+        buffer.clear();
+        writer.reset();
+        return writer.encodeOrder(buffer, order);
+    }
+
+    @Benchmark
+    public int codecEncodeStream() {
+        buffer.clear();
+        return streamWriter.encodeOrder(buffer, order);
+    }
+
+    @Benchmark
+    public Order codecDecode() {
+        reader.reset();
+        return reader.decodeOrder(encoded.duplicate());
+    }
+
+    @Benchmark
+    public Order codecDecodeStream() {
+        return streamReader.decodeOrder(streamEncoded.duplicate());
+    }
+
+    @Benchmark
+    public byte[] formatEncode() throws IOException {
+        bytes.reset();
+        OrderFormat.writeOrder(new DataOutputStream(bytes), order);
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Order formatDecode() throws IOException {
+        return OrderFormat.readOrder(new DataInputStream(new ByteArrayInputStream(formatEncoded)));
+    }
+
+    @Benchmark
+    public byte[] javaEncode() throws IOException {
+        bytes.reset();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new SerializedOrder(order));
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Order javaDecode() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(javaEncoded))) {
+            return ((SerializedOrder) in.readObject()).toOrder();
+        }
+    }
+
+    private static final class SerializedOrder implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String id;
+        private final String customerId;
+        private final Date orderDate;
+        private final OrderStatus status;
+        private final String discountType;
+        private final long journalSequence;
+        private final ArrayList<SerializedLine> lines;
+
+        SerializedOrder(Order order) {
+            id = order.getId();
+            customerId = order.getCustomerId();
+            orderDate = order.getOrderDate();
+            status = order.getStatus();
+            discountType = order.getDiscountType();
+            journalSequence = order.getJournalSequence();
+            lines = new ArrayList<>(order.getLineCount());
+            for (int i = 0; i < order.getLineCount(); i++) {
+                lines.add(new SerializedLine(order.getLineProduct(i), order.getLineQuantity(i),
+                        order.getLineUnitAmount(i)));
+            }
+        }
+
+        Order toOrder() {
+            Order order = new Order(id, customerId, orderDate, status, discountType);
+            for (SerializedLine line : lines) {
+                ProductValue product = new ProductValue(line.productId, line.name, line.description,
+                        Money.of(line.price, line.currency), line.category, line.size, line.color, line.stock);
+                order.addLine(product, line.quantity, Money.of(line.unitAmount, line.currency));
+            }
+            order.setJournalSequence(journalSequence);
+            return order;
+        }
+    }
+
+    private static final class SerializedLine implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String productId;
+        private final String name;
+        private final String description;
+        private final long price;
+        private final Currency currency;
+        private final String category;
+        private final String size;
+        private final String color;
+        private final int stock;
+        private final int quantity;
+        private final long unitAmount;
+
+        SerializedLine(ProductView product, int quantity, long unitAmount) {
+            productId = product.getId();
+            name = product.getName();
+            description = product.getDescription();
+            price = product.getPrice().getAmount();
+            currency = product.getPrice().getCurrency();
+            category = product.getCategory();
+            size = product.getSize();
+            color = product.getColor();
+            stock = product.getStock();
+            this.quantity = quantity;
+            this.unitAmount = unitAmount;
+        }
+    }
+}
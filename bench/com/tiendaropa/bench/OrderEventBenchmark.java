@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.events.BackpressurePolicy;
+import com.tiendaropa.events.OrderEvent;
+import com.tiendaropa.events.OrderEventBus;
+import com.tiendaropa.events.OrderEventListener;
+import com.tiendaropa.model.Order;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Eventos por segundo del OrderEventBus con 4 hilos publicando y 1, 4 o
+ * 16 suscriptores que procesan por lotes. Con BLOCK el resultado es la
+ * tasa entregada a todos los suscriptores, porque los publicadores
+ * esperan al más lento en awaitPublished; con DROP es lo que aceptan los publicadores sin
+ * esperar nunca, y al terminar se imprime la fracción descartada.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class OrderEventBenchmark {
+
+    private static final int CAPACITY = 1 << 16;
+
+    @Param({"1", "4", "16"})
+    public int subscribers;
+
+    @Param({"BLOCK", "DROP"})
+    public BackpressurePolicy policy;
+
+    private OrderEventBus bus;
+
+    @Setup
+    public void setUp() {
+        bus = new OrderEventBus(CAPACITY, policy);
+        for (int i = 0; i < subscribers; i++) {
+            bus.subscribe("bench-" + i, new BatchingListener());
+        }
+        bus.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.close();
+        if (policy == BackpressurePolicy.DROP) {
+            long total = bus.getPublished() + bus.getDropped();
+            System.out.printf("%ndescartados: %d de %d (%.1f%%)%n", bus.getDropped(), total,
+                    total == 0 ? 0.0 : 100.0 * bus.getDropped() / total);
+        }
+    }
+
+    /**
+     * Pedido propio de cada hilo publicador.
+     */
+    @State(Scope.Thread)
+    public static class ThreadOrder {
+
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        Order order;
+        int quantity;
+
+        @Setup
+        public void setUp() {
+            order = new Order("ORD-" + NEXT.incrementAndGet(), "C1");
+        }
+    }
+
+    @Benchmark
+    public boolean publishItem(ThreadOrder state) {
+        boolean published = bus.publishItem(state.order, "P1", ++state.quantity);
+        // Aquí no hay bloqueo del pedido, así que se espera enseguida como haría OrderService al soltarlo
+        bus.awaitPublished();
+        return published;
+    }
+
+    /**
+     * Suscriptor que acumula el lote y lo "envía" al terminarlo.
+     */
+    private static final class BatchingListener implements OrderEventListener {
+
+        private long pending;
+        private long sent;
+
+        @Override
+        public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+            pending += event.getQuantity();
+            if (endOfBatch) {
+                sent += pending;
+                pending = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.load.RandomOrderFactory;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.ProductCache;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Mide el heap que retienen los pedidos cuando suman un millón de líneas,
+ * con un producto nuevo por línea (como hacía el generador) y con el
+ * producto compartido del ProductCache. ProductFlyweightBenchmark mide la
+ * asignación por línea; esta medición muestra lo que queda vivo.
+ * Para cada modo imprime el heap usado tras un GC y el histograma de
+ * clases de la JVM (lo mismo que jcmd GC.class_histogram), recortado a las
+ * clases con más bytes. No usa JMH, así que se ejecuta con java:
+ * <pre>
+ *   java -Xmx2g -cp build/classes:build/bench-classes \
+ *       com.tiendaropa.bench.OrderFootprintHarness [lineas] [skus] [clases] [lineasPorPedido]
+ * </pre>
+ * Por defecto son 1.000.000 de líneas, 1.000 SKU, 15 clases y pedidos de
+ * 1 a 5 líneas como los del generador. Con lineasPorPedido igual a las
+ * líneas se arma un solo pedido; como las unidades de un SKU repetido se
+ * suman a su línea, entonces hacen falta al menos tantos SKU como líneas.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderFootprintHarness {
+
+    private static final int DEFAULT_LINES = 1_000_000;
+    private static final int DEFAULT_SKUS = 1_000;
+    private static final int DEFAULT_CLASSES = 15;
+    private static final int MAX_RANDOM_LINES = 5;
+
+    private OrderFootprintHarness() {
+    }
+
+    /**
+     * Ejecuta la medición de los dos modos.
+     *
+     * @param args Líneas en total, SKU distintos, clases del histograma y
+     * líneas por pedido (0 para pedidos de 1 a 5 líneas)
+     * @throws JMException si la JVM no ofrece el histograma de clases
+     */
+    public static void main(String[] args) throws JMException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_LINES;
+        int skus = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SKUS;
+        int classes = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CLASSES;
+        int perOrder = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        if (perOrder > skus || (perOrder == 0 && skus < MAX_RANDOM_LINES)) {
+            throw new IllegalArgumentException("Se necesitan al menos tantos SKU como lineas por pedido: " + skus);
+        }
+
+        long empty = usedHeapAfterGc();
+        System.out.println("Heap inicial: " + empty + " bytes");
+        for (boolean cached : new boolean[]{false, true}) {
+            List<Order> orders = buildOrders(lines, skus, perOrder, cached);
+            long used = usedHeapAfterGc() - empty;
+            System.out.printf("%n== %s: %d lineas en %d pedidos, %d SKU ==%n",
+                    cached ? "ProductCache" : "Producto por linea", lines, orders.size(), skus);
+            System.out.printf("Heap retenido: %d bytes (%.1f bytes por linea)%n", used, (double) used / lines);
+            System.out.print(histogram(classes));
+            orders.clear();
+        }
+    }
+
+    // Pedidos de perOrder líneas, o de 1 a 5 si es 0, hasta sumar las líneas pedidas
+    private static List<Order> buildOrders(int lines, int skus, int perOrder, boolean cached) {
+        RandomOrderFactory factory = new RandomOrderFactory(new SplittableRandom(42), skus);
+        ProductCache cache = cached ? new ProductCache(skus) : null;
+        List<Order> orders = new ArrayList<>();
+        int added = 0;
+        while (added < lines) {
+            Order order = new Order("O" + orders.size(), factory.nextCustomerId());
+            int count = Math.min(perOrder > 0 ? perOrder : factory.nextItemCount(), lines - added);
+            while (order.getLineCount() < count) {
+                String sku = factory.nextSku();
+                order.addProduct(cached ? cache.computeIfAbsent(sku, factory::newProduct) : factory.newProduct(sku));
+            }
+            added += count;
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    // Cabecera del histograma más las primeras clases; la última línea es el total
+    private static String histogram(int classes) throws JMException {
+        String output = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                new Object[]{new String[0]}, new String[]{String[].class.getName()});
+        String[] rows = output.split("\n");
+        StringBuilder top = new StringBuilder();
+        for (int i = 0; i < rows.length && i < classes + 2; i++) {
+            top.append(rows[i]).append('\n');
+        }
+        return top.append(rows[rows.length - 1]).append('\n').toString();
+    }
+}
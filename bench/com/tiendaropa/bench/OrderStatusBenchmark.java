@@ -0,0 +1,112 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.service.OrderService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transiciones de estado por segundo con 16 hilos que cambian a la vez el
+ * estado de los mismos pedidos, todos sobre uno solo o repartidos entre
+ * 1.024. Cada hilo lee el estado y pide una transición permitida desde él
+ * con compare-and-set; si otro hilo se adelantó, la transición falla y no
+ * cuenta. Los pedidos que llegan a un estado final se reemplazan por uno
+ * nuevo.
+ * orderTransition usa directamente Order.compareAndSetStatus y
+ * serviceTransition pasa por OrderService, que además mueve el índice por
+ * estado. Que no se pierda ni se duplique ninguna transición lo comprueba
+ * OrderStatusConcurrencyTest.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(16)
+public class OrderStatusBenchmark {
+
+    @Param({"1", "1024"})
+    public int orders;
+
+    private AtomicReferenceArray<Order> slots;
+    private OrderService service;
+    private AtomicReferenceArray<String> serviceSlots;
+
+    @Setup
+    public void setUp() {
+        slots = new AtomicReferenceArray<>(orders);
+        service = new OrderService();
+        serviceSlots = new AtomicReferenceArray<>(orders);
+        for (int i = 0; i < orders; i++) {
+            slots.set(i, new Order("ORD-" + i, "C1"));
+            serviceSlots.set(i, service.createOrder("C1").getId());
+        }
+    }
+
+    @Benchmark
+    public boolean orderTransition() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int slot = random.nextInt(orders);
+        Order order = slots.get(slot);
+        OrderStatus current = order.getStatus();
+        if (current.isFinal()) {
+            // Un estado final ya no cambia, así que reemplazarlo no pisa ninguna transición
+            slots.compareAndSet(slot, order, new Order("ORD-" + slot, "C1"));
+            return false;
+        }
+        return order.compareAndSetStatus(current, nextStatus(current, random));
+    }
+
+    @Benchmark
+    public boolean serviceTransition() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int slot = random.nextInt(orders);
+        String orderId = serviceSlots.get(slot);
+        Order order = service.getOrder(orderId);
+        if (order == null) {
+            return false;
+        }
+        OrderStatus current = order.getStatus();
+        if (current.isFinal()) {
+            String replacement = service.createOrder("C1").getId();
+            service.deleteOrder(serviceSlots.compareAndSet(slot, orderId, replacement) ? orderId : replacement);
+            return false;
+        }
+        return service.updateOrderStatus(orderId, current, nextStatus(current, random));
+    }
+
+    // Una de cada ocho transiciones cancela el pedido si todavía se puede
+    private static OrderStatus nextStatus(OrderStatus current, ThreadLocalRandom random) {
+        switch (current) {
+            case PENDING:
+                return random.nextInt(8) == 0 ? OrderStatus.CANCELLED : OrderStatus.PAID;
+            case PAID:
+                return random.nextInt(8) == 0 ? OrderStatus.CANCELLED : OrderStatus.SHIPPED;
+            default:
+                return OrderStatus.DELIVERED;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.service.OrderService;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Alta, búsqueda, página y baja de pedidos en OrderService con distintas
+ * cantidades de pedidos guardados. Cada alta se compensa con una baja,
+ * así que el tamaño se mantiene durante la medición.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderStoreBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private OrderService orderService;
+    private String[] ids;
+    private int customers;
+
+    @Setup
+    public void setUp() {
+        orderService = new OrderService();
+        ids = new String[size];
+        customers = Math.max(1, size / 10);
+        for (int i = 0; i < size; i++) {
+            ids[i] = orderService.createOrder("C" + (i % customers)).getId();
+        }
+    }
+
+    @Benchmark
+    public boolean createAndDelete() {
+        Order order = orderService.createOrder("C0");
+        return orderService.deleteOrder(order.getId());
+    }
+
+    @Benchmark
+    public Order lookup() {
+        return orderService.getOrder(ids[ThreadLocalRandom.current().nextInt(size)]);
+    }
+
+    @Benchmark
+    public Order lookupMissing() {
+        return orderService.getOrder("ORD-NO-EXISTE");
+    }
+
+    @Benchmark
+    public List<Order> listPage() {
+        return orderService.listOrders(ids[ThreadLocalRandom.current().nextInt(size)], 50);
+    }
+
+    @Benchmark
+    public List<Order> ordersByCustomer() {
+        return orderService.getOrdersByCustomer("C" + ThreadLocalRandom.current().nextInt(customers));
+    }
+}
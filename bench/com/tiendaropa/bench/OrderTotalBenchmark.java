@@ -0,0 +1,116 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de los totales de un pedido según su cantidad de productos:
+ * recálculo completo, cambio de descuento y alta y baja incremental
+ * de un producto. legacyAddAndRemoveProduct es la línea base: el pedido
+ * anterior guardaba una lista de productos y recalculaba el total completo
+ * con getFinalPrice en cada alta y baja.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int items;
+
+    private Order order;
+    private List<Product> legacyItems;
+    private Money legacyTotal;
+    private Product extra;
+    private boolean member;
+
+    @Setup
+    public void setUp() {
+        order = new Order("ORD-1", "C1");
+        order.setDiscountType("SEASONAL");
+        legacyItems = new ArrayList<>(items + 1);
+        for (int i = 0; i < items; i++) {
+            Product product = new Product("P" + i, "Producto " + i, Money.ofClp(20000 + i));
+            product.setCategory("Camisetas");
+            order.addProduct(product);
+            legacyItems.add(product);
+        }
+        extra = new Product("EXTRA", "Producto extra", Money.ofClp(29990));
+    }
+
+    @Benchmark
+    public Money calculateTotal() {
+        order.calculateTotal();
+        return order.getTotalAmount();
+    }
+
+    @Benchmark
+    public Money changeDiscount() {
+        member = !member;
+        order.setDiscountType(member ? "MEMBER" : "SEASONAL");
+        return order.getTotalAmount();
+    }
+
+    /**
+     * Agrega un producto al final y lo quita; la línea se ubica por SKU,
+     * así que no depende del tamaño del pedido.
+     *
+     * @return Total del pedido
+     */
+    @Benchmark
+    public Money addAndRemoveProduct() {
+        order.addProduct(extra);
+        order.removeProduct("EXTRA");
+        return order.getTotalAmount();
+    }
+
+    /**
+     * Lo mismo que addAndRemoveProduct con el cálculo anterior: cada alta y
+     * cada baja vuelven a sumar el precio final de todos los productos.
+     *
+     * @return Total recalculado
+     */
+    @Benchmark
+    public Money legacyAddAndRemoveProduct() {
+        legacyItems.add(extra);
+        legacyRecalculate();
+        legacyItems.remove(legacyItems.size() - 1);
+        legacyRecalculate();
+        return legacyTotal;
+    }
+
+    // El calculateTotal de antes, sobre la lista de productos del pedido
+    private void legacyRecalculate() {
+        Money sum = Money.ofClp(0);
+        for (Product product : legacyItems) {
+            sum = sum.plus(product.getFinalPrice("SEASONAL"));
+        }
+        legacyTotal = sum;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.singleton.DiscountManager;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de calcular el precio con descuento de un producto.
+ * Compara el switch original sobre double con el motor de reglas, tanto
+ * en double como en unidades menores exactas, y con la vía de Product.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingBenchmark {
+
+    @Param({"NONE", "SEASONAL", "SPECIAL"})
+    public String discountType;
+
+    private DiscountManager discountManager;
+    private DiscountType type;
+    private double price;
+    private long amount;
+    private Money money;
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        discountManager = DiscountManager.getInstance();
+        type = DiscountType.fromCode(discountType);
+        price = 25990.0;
+        amount = 25990L;
+        money = Money.ofClp(amount);
+        product = new Product("P1", "Polera", money);
+        product.setCategory("Camisetas");
+    }
+
+    /**
+     * Línea base: el switch sobre texto que tenía DiscountManager antes del motor de reglas.
+     *
+     * @return Precio con descuento
+     */
+    @Benchmark
+    public double switchOnString() {
+        switch (discountType) {
+            case "SEASONAL":
+                return price * 0.8;
+            case "MEMBER":
+                return price * 0.9;
+            case "SPECIAL":
+                return price * 0.7;
+            default:
+                return price;
+        }
+    }
+
+    @Benchmark
+    public double rulesDoubleByCode() {
+        return discountManager.applyDiscount(price, discountType);
+    }
+
+    @Benchmark
+    public double rulesDouble() {
+        return discountManager.applyDiscount(price, null, type);
+    }
+
+    @Benchmark
+    public long rulesLong() {
+        return discountManager.applyDiscount(amount, null, type);
+    }
+
+    @Benchmark
+    public Money rulesMoney() {
+        return discountManager.applyDiscount(money, null, type);
+    }
+
+    @Benchmark
+    public long productFinalAmount() {
+        return product.getFinalAmount(type);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.load.RandomOrderFactory;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.ProductCache;
+import com.tiendaropa.model.ProductView;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo de agregar una línea de pedido con un producto nuevo por línea
+ * (como hacía el generador) o con el producto compartido del ProductCache.
+ * Con -prof gc, gc.alloc.rate.norm muestra los bytes asignados por línea.
+ * Las unidades de un SKU repetido suman cantidad a su línea; el pedido se
+ * renueva cada 100.000 unidades para que sus líneas no crezcan sin límite.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductFlyweightBenchmark {
+
+    private static final int LINES_PER_ORDER = 100_000;
+
+    @Param({"1000", "100000"})
+    public int skus;
+
+    private RandomOrderFactory factory;
+    private ProductCache cache;
+    private Order order;
+    private int lines;
+
+    @Setup
+    public void setUp() {
+        factory = new RandomOrderFactory(new SplittableRandom(42), skus);
+        cache = new ProductCache(skus);
+        order = new Order("O1", "C1");
+    }
+
+    /**
+     * Línea con su propio producto mutable.
+     *
+     * @return Producto agregado
+     */
+    @Benchmark
+    public ProductView newProductPerLine() {
+        return addLine(factory.newProduct(factory.nextSku()));
+    }
+
+    /**
+     * Línea con el producto inmutable compartido del SKU.
+     *
+     * @return Producto agregado
+     */
+    @Benchmark
+    public ProductView cachedProduct() {
+        return addLine(cache.computeIfAbsent(factory.nextSku(), factory::newProduct));
+    }
+
+    private ProductView addLine(ProductView product) {
+        if (++lines == LINES_PER_ORDER) {
+            order = new Order("O1", "C1");
+            lines = 0;
+        }
+        order.addProduct(product);
+        return product;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.catalog.ProductQuery;
+import com.tiendaropa.catalog.ProductSearchIndex;
+import com.tiendaropa.load.RandomOrderFactory;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.model.ProductView;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Búsqueda de productos con ProductSearchIndex sobre un catálogo sintético
+ * de RandomOrderFactory: la búsqueda mientras se escribe (recorriendo
+ * textos a medio escribir, con 10 resultados), las sugerencias, una
+ * búsqueda con filtros de color, talla y precio que deja pocos productos,
+ * una consulta sin resultados que obliga a cruzar las listas completas, y
+ * la actualización de un producto ya indexado.
+ * Con -bm sample se ven los percentiles; el tamaño y la memoria del índice
+ * se imprimen al preparar la prueba.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final String[] TYPED = {"c", "ca", "cam", "cami", "camis", "camiseta m", "camiseta manga l",
+        "pa", "pant", "pantalon va", "pantalones car", "ve", "vest", "vestido de n", "vestido fies",
+        "chaq", "chaqueta de cu", "chaqueta bom", "za", "zapato dep", "zapatos san", "eleg", "elegante ca",
+        "clásico b", "deportivo ne", "formal az", "casual ver", "moderno bl", "rojo", "talla x"};
+    private static final int UPDATES = 1024;
+
+    @Param({"5000000"})
+    public int products;
+
+    private ProductSearchIndex index;
+    private ProductQuery[] typed;
+    private ProductQuery filtered;
+    private ProductQuery empty;
+    private int[] updateDocs;
+    private ProductView[] current;
+    private ProductView[] replacements;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        RandomOrderFactory factory = new RandomOrderFactory(new SplittableRandom(42), products);
+        index = new ProductSearchIndex();
+        updateDocs = new int[UPDATES];
+        current = new ProductView[UPDATES];
+        replacements = new ProductView[UPDATES];
+        int step = products / UPDATES;
+        for (int doc = 0; doc < products; doc++) {
+            ProductView product = factory.newProduct("SKU-" + doc);
+            index.put(doc, null, product);
+            if (doc % step == 0 && doc / step < UPDATES) {
+                updateDocs[doc / step] = doc;
+                current[doc / step] = ProductValue.copyOf(product);
+            }
+        }
+        for (int i = 0; i < UPDATES; i++) {
+            replacements[i] = ProductValue.copyOf(factory.newProduct("SKU-" + updateDocs[i]));
+        }
+        typed = new ProductQuery[TYPED.length];
+        for (int i = 0; i < TYPED.length; i++) {
+            typed[i] = ProductQuery.of(TYPED[i], true);
+        }
+        filtered = new ProductQuery("elegante cami", true, null, "M", "Rojo",
+                Money.ofClp(30000), Money.ofClp(31000));
+        // La palabra polo solo aparece en camisetas
+        empty = ProductQuery.of("vestido po", true);
+        System.out.println("\nProductos: " + index.size() + " palabras: " + index.termCount()
+                + " memoria: " + index.memoryBytes() / (1024 * 1024) + " MB");
+    }
+
+    @Benchmark
+    public int[] typeahead() {
+        ProductQuery query = typed[next++ % typed.length];
+        return index.search(query, 10);
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return index.suggest(TYPED[next++ % TYPED.length], 5);
+    }
+
+    @Benchmark
+    public int[] filteredSearch() {
+        return index.search(filtered, 10);
+    }
+
+    @Benchmark
+    public int[] emptyIntersection() {
+        return index.search(empty, 10);
+    }
+
+    @Benchmark
+    public void update() {
+        int i = next++ % UPDATES;
+        ProductView previous = current[i];
+        index.put(updateDocs[i], previous, replacements[i]);
+        current[i] = replacements[i];
+        replacements[i] = previous;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.RepriceResult;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cambio masivo del descuento de los pedidos pendientes (la mitad del
+ * total, cada uno con tres líneas) con repriceOrders sobre un pool de 1 a
+ * 8 hilos, frente a llamar calculateOrderTotal pedido por pedido. Cada
+ * llamada alterna entre dos descuentos para que todos los pedidos
+ * seleccionados se recalculen. Para la prueba de 5 millones de pedidos:
+ * -p orders=5000000 con un heap de unos 8 GB.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RepriceBenchmark {
+
+    private static final int SKUS = 100;
+
+    @Param({"1000000"})
+    public int orders;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private OrderService service;
+    private ForkJoinPool pool;
+    private boolean member;
+
+    @Setup
+    public void setUp() {
+        ProductValue[] products = new ProductValue[SKUS];
+        for (int i = 0; i < SKUS; i++) {
+            products[i] = new ProductValue("P" + i, "Producto " + i, null, Money.ofClp(9990L + i * 100L),
+                    i % 2 == 0 ? "Camisetas" : "Pantalones", "M", "Negro", 100);
+        }
+        service = new OrderService();
+        List<Order> loaded = new ArrayList<>(orders);
+        Date date = new Date();
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order("ORD-" + i, "C" + (i % 10_000), date,
+                    i % 2 == 0 ? OrderStatus.PENDING : OrderStatus.SHIPPED, "NONE");
+            for (int line = 0; line < 3; line++) {
+                order.addProduct(products[(i + line * 7) % SKUS], 1 + line);
+            }
+            loaded.add(order);
+        }
+        service.restoreOrders(loaded);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public RepriceResult repriceOrders() {
+        member = !member;
+        return service.repriceOrders(order -> order.getStatus() == OrderStatus.PENDING,
+                member ? "MEMBER" : "SEASONAL", null, pool);
+    }
+
+    /**
+     * Forma anterior: recorrer los pedidos del servicio y llamar
+     * calculateOrderTotal uno por uno desde un solo hilo; no depende de threads.
+     *
+     * @return Pedidos recalculados
+     */
+    @Benchmark
+    public int oneByOne() {
+        member = !member;
+        String discountType = member ? "MEMBER" : "SEASONAL";
+        int repriced = 0;
+        Iterator<Order> it = service.iterateOrders();
+        while (it.hasNext()) {
+            Order order = it.next();
+            if (order.getStatus() == OrderStatus.PENDING) {
+                service.calculateOrderTotal(order.getId(), discountType);
+                repriced++;
+            }
+        }
+        return repriced;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.analytics.SalesDimension;
+import com.tiendaropa.analytics.SalesGroup;
+import com.tiendaropa.analytics.SalesMeasure;
+import com.tiendaropa.analytics.SalesStore;
+import com.tiendaropa.model.Money;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Consultas de SalesStore sobre líneas de venta sintéticas repartidas en
+ * un año: total, ventas por categoría, por día y los 10 mejores clientes,
+ * con y sin filtro de un mes. Como referencia, la misma suma por categoría
+ * recorriendo objetos con un HashMap, que es como se haría sobre los
+ * pedidos. Las consultas usan el pool común, con un hilo por núcleo.
+ * Para la prueba de 100 millones de líneas: -p lines=100000000 con un
+ * heap de unos 4 GB (unos 26 bytes por línea).
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SalesAnalyticsBenchmark {
+
+    private static final String[] CATEGORIES = {"Camisetas", "Pantalones", "Chaquetas", "Vestidos",
+        "Zapatos", "Accesorios", "Ropa interior", "Deportiva"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL", "XXL"};
+    private static final String[] COLORS = {"Negro", "Blanco", "Azul", "Rojo", "Verde", "Gris", "Beige"};
+    private static final int CUSTOMERS = 100_000;
+    private static final int DAYS = 365;
+    // Filas de la referencia con objetos; con más no cabrían en el heap
+    private static final int OBJECT_ROWS = 10_000_000;
+
+    @Param({"10000000"})
+    public int lines;
+
+    private SalesStore store;
+    private Row[] objects;
+    private LocalDate first;
+    private LocalDate monthFrom;
+    private LocalDate monthTo;
+
+    @Setup
+    public void setUp() {
+        store = new SalesStore(ZoneOffset.UTC, Money.CLP);
+        first = LocalDate.of(2025, 1, 1);
+        monthFrom = first.plusDays(150);
+        monthTo = monthFrom.plusDays(30);
+        String[] customers = new String[CUSTOMERS];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers[i] = "C" + i;
+        }
+        LocalDate[] days = new LocalDate[DAYS];
+        for (int i = 0; i < DAYS; i++) {
+            days[i] = first.plusDays(i);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        int objectRows = Math.min(lines, OBJECT_ROWS);
+        objects = new Row[objectRows];
+        for (int i = 0; i < lines; i++) {
+            // Filas en orden de fecha, como llegan los pedidos
+            int day = (int) ((long) i * DAYS / lines);
+            String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+            int quantity = 1 + random.nextInt(3);
+            long amount = quantity * (4990L + random.nextInt(50) * 1000L);
+            store.addLine(category, SIZES[random.nextInt(SIZES.length)], COLORS[random.nextInt(COLORS.length)],
+                    customers[random.nextInt(CUSTOMERS)], days[day], quantity, amount);
+            if (i < objectRows) {
+                objects[i] = new Row(category, amount);
+            }
+        }
+    }
+
+    @Benchmark
+    public long totalRevenue() {
+        return store.total(SalesMeasure.REVENUE);
+    }
+
+    @Benchmark
+    public long monthRevenue() {
+        return store.total(SalesMeasure.REVENUE, monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public List<SalesGroup> revenueByCategory() {
+        return store.groupBy(SalesDimension.CATEGORY, SalesMeasure.REVENUE);
+    }
+
+    @Benchmark
+    public List<SalesGroup> monthUnitsByColor() {
+        return store.groupBy(SalesDimension.COLOR, SalesMeasure.UNITS, monthFrom, monthTo);
+    }
+
+    @Benchmark
+    public List<SalesGroup> revenueByDay() {
+        return store.groupBy(SalesDimension.DAY, SalesMeasure.REVENUE);
+    }
+
+    @Benchmark
+    public List<SalesGroup> topCustomers() {
+        return store.topN(SalesDimension.CUSTOMER, SalesMeasure.REVENUE, 10);
+    }
+
+    /**
+     * Suma por categoría sobre un arreglo de objetos con un HashMap, en un
+     * hilo; recorre a lo sumo 10 millones de filas.
+     *
+     * @return Ventas por categoría
+     */
+    @Benchmark
+    public Map<String, Long> objectRevenueByCategory() {
+        Map<String, Long> sums = new HashMap<>();
+        for (Row row : objects) {
+            sums.merge(row.category, row.amount, Long::sum);
+        }
+        return sums;
+    }
+
+    private static final class Row {
+
+        private final String category;
+        private final long amount;
+
+        Row(String category, long amount) {
+            this.category = category;
+            this.amount = amount;
+        }
+    }
+}
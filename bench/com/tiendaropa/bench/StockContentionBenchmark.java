@@ -0,0 +1,86 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.inventory.StockReservations;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Contención de las reservas de stock: 64 hilos reservan y liberan una
+ * unidad, todos sobre un mismo SKU o repartidos entre 10.000.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(64)
+public class StockContentionBenchmark {
+
+    @Param({"1", "10000"})
+    public int skus;
+
+    private StockReservations reservations;
+    private String[] skuIds;
+
+    @Setup
+    public void setUp() {
+        reservations = new StockReservations(TimeUnit.MINUTES.toMillis(10));
+        skuIds = new String[skus];
+        for (int i = 0; i < skus; i++) {
+            skuIds[i] = "P" + i;
+            reservations.register(skuIds[i], 1_000_000_000);
+        }
+    }
+
+    /**
+     * Pedido propio de cada hilo.
+     */
+    @State(Scope.Thread)
+    public static class ThreadOrder {
+
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        String orderId;
+
+        @Setup
+        public void setUp() {
+            orderId = "ORD-" + NEXT.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public int reserveAndRelease(ThreadOrder order) {
+        String sku = skuIds[ThreadLocalRandom.current().nextInt(skus)];
+        reservations.reserve(order.orderId, sku, 1);
+        return reservations.release(order.orderId, sku);
+    }
+
+    @Benchmark
+    public int reserveAndCommit(ThreadOrder order) {
+        String sku = skuIds[ThreadLocalRandom.current().nextInt(skus)];
+        reservations.reserve(order.orderId, sku, 1);
+        return reservations.commit(order.orderId);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.persistence.OrderArchive;
+import com.tiendaropa.repository.OrderRepository;
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * getOrder en un OrderService cuyo repositorio guarda en disco los pedidos
+ * entregados: un pedido abierto (en memoria), uno archivado de un grupo
+ * pequeño que se consulta seguido (resuelto por el caché de lecturas) y uno
+ * archivado cualquiera (casi siempre lectura del archivo, que en la
+ * práctica está en el caché de páginas del sistema). createAndDeliver mide
+ * el ciclo completo de un pedido, incluido su paso a disco.
+ * Con -bm sample se ven los percentiles de la latencia.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TieredStoreBenchmark {
+
+    private static final int OPEN_ORDERS = 10_000;
+    private static final int POPULAR = 1_000;
+
+    @Param({"200000"})
+    public int delivered;
+
+    private Path file;
+    private OrderArchive archive;
+    private OrderService service;
+    private ProductValue product;
+    private String[] open;
+    private String[] archived;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("tiendaropa-cold", ".seg");
+        archive = OrderArchive.open(file, 10_000);
+        service = new OrderService(new SnowflakeOrderIdGenerator(1), null, null, null,
+                new OrderRepository(archive, OPEN_ORDERS));
+        product = new ProductValue("P1", "Polera", null, Money.ofClp(9990L), "Camisetas", "M", "Negro", 100);
+        archived = new String[delivered];
+        for (int i = 0; i < delivered; i++) {
+            archived[i] = deliverNewOrder();
+        }
+        open = new String[OPEN_ORDERS];
+        for (int i = 0; i < OPEN_ORDERS; i++) {
+            open[i] = service.createOrder("C" + i).getId();
+            service.addProductToOrder(open[i], product, 2);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.out.println("\nNiveles: " + service.getTierStats());
+        archive.close();
+        Files.deleteIfExists(file);
+    }
+
+    private String deliverNewOrder() {
+        Order order = service.createOrder("C" + ThreadLocalRandom.current().nextInt(10_000));
+        String orderId = order.getId();
+        service.addProductToOrder(orderId, product, 2);
+        service.updateOrderStatus(orderId, OrderStatus.PAID);
+        service.updateOrderStatus(orderId, OrderStatus.SHIPPED);
+        service.updateOrderStatus(orderId, OrderStatus.DELIVERED);
+        return orderId;
+    }
+
+    @Benchmark
+    public Order hotLookup() {
+        return service.getOrder(open[ThreadLocalRandom.current().nextInt(OPEN_ORDERS)]);
+    }
+
+    @Benchmark
+    public Order popularColdLookup() {
+        return service.getOrder(archived[ThreadLocalRandom.current().nextInt(POPULAR)]);
+    }
+
+    @Benchmark
+    public Order coldLookup() {
+        return service.getOrder(archived[ThreadLocalRandom.current().nextInt(archived.length)]);
+    }
+
+    @Benchmark
+    public String createAndDeliver() {
+        return deliverNewOrder();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.bench;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.Product;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pedido mayorista: muchas unidades de pocos SKU. Los totales se calculan
+ * una vez por línea, así que el costo depende de la cantidad de SKU y no de
+ * las unidades. buildOrder arma el pedido completo por cantidades.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WholesaleOrderBenchmark {
+
+    private static final int SKUS = 10;
+
+    @Param({"100", "10000", "1000000"})
+    public int units;
+
+    private Product[] products;
+    private Order order;
+    private boolean member;
+    private int quantity;
+
+    @Setup
+    public void setUp() {
+        products = new Product[SKUS];
+        for (int i = 0; i < SKUS; i++) {
+            products[i] = new Product("P" + i, "Producto " + i, Money.ofClp(20000 + i));
+            products[i].setCategory("Camisetas");
+        }
+        order = buildOrder();
+    }
+
+    @Benchmark
+    public Order buildOrder() {
+        Order wholesale = new Order("ORD-1", "C1");
+        wholesale.setDiscountType("SEASONAL");
+        for (Product product : products) {
+            wholesale.addProduct(product, units / SKUS);
+        }
+        return wholesale;
+    }
+
+    @Benchmark
+    public Money calculateTotal() {
+        order.calculateTotal();
+        return order.getTotalAmount();
+    }
+
+    @Benchmark
+    public Money changeDiscount() {
+        member = !member;
+        order.setDiscountType(member ? "MEMBER" : "SEASONAL");
+        return order.getTotalAmount();
+    }
+
+    /**
+     * Cambia la cantidad de una línea sin tocar las demás.
+     *
+     * @return Total del pedido
+     */
+    @Benchmark
+    public Money setQuantity() {
+        quantity = quantity == units ? 1 : units;
+        order.setQuantity("P0", quantity);
+        return order.getTotalAmount();
+    }
+}
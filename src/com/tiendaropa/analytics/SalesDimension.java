@@ -0,0 +1,30 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package com.tiendaropa.analytics;
+
+/**
+ * Columnas por las que se pueden agrupar las ventas de SalesStore.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum SalesDimension {
+
+    /** Categoría del producto. */
+    CATEGORY,
+
+    /** Talla del producto. */
+    SIZE,
+
+    /** Color del producto. */
+    COLOR,
+
+    /** Cliente del pedido. */
+    CUSTOMER,
+
+    /** Día del pedido, en la zona horaria del almacén. */
+    DAY
+}
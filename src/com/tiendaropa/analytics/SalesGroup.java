@@ -0,0 +1,47 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.analytics;
+
+/**
+ * Fila del resultado de una consulta agrupada de SalesStore.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class SalesGroup {
+
+    private final String key;
+    private final long value;
+
+    SalesGroup(String key, long value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * Obtiene el valor de la dimensión del grupo.
+     * Los días se entregan en formato ISO (2026-10-17).
+     *
+     * @return Valor de la dimensión; null para las líneas sin ese dato
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Obtiene la suma de la medida consultada en el grupo.
+     *
+     * @return Suma de la medida
+     */
+    public long getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return key + "=" + value;
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package com.tiendaropa.analytics;
+
+/**
+ * Valores que se suman en las consultas de SalesStore.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum SalesMeasure {
+
+    /** Monto de las líneas con descuento, en unidades menores de la moneda del almacén. */
+    REVENUE,
+
+    /** Unidades vendidas. */
+    UNITS,
+
+    /** Cantidad de líneas. */
+    LINES
+}
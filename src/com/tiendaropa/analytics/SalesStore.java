@@ -0,0 +1,553 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.analytics;
+
+import com.tiendaropa.catalog.StringDictionary;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderLine;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.service.OrderService;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Almacén columnar de las líneas de venta para consultas de análisis.
+ * Cada línea de pedido se guarda como una fila repartida en arreglos
+ * primitivos, uno por columna: categoría, talla y color codificados con un
+ * diccionario, cliente también codificado, día del pedido como número de
+ * día desde 1970, unidades y monto en unidades menores. Las filas se
+ * agrupan en bloques de tamaño fijo que guardan además su primer y último
+ * día, así un filtro por fechas salta los bloques que quedan fuera sin
+ * leerlos.
+ * Las consultas (total, groupBy, topN) recorren los bloques en paralelo;
+ * cada tarea suma en su propio arreglo indexado por el código del grupo y
+ * al final los arreglos se combinan, sin mapas ni objetos por fila.
+ * Las filas se agregan desde un solo escritor a la vez y nunca se modifican;
+ * las consultas no se bloquean y ven las filas publicadas al empezar.
+ * Para reflejar cambios posteriores de los pedidos se carga un almacén nuevo.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class SalesStore {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_ROWS = Integer.MAX_VALUE - CHUNK_SIZE;
+    // Los códigos de categoría, talla y color se guardan en un short sin signo
+    private static final int MAX_ATTRIBUTE_CODES = 0xFFFF;
+    private static final int MAX_CUSTOMER_CODES = Integer.MAX_VALUE - 16;
+
+    private final ZoneId zone;
+    private final Currency currency;
+    private final StringDictionary categories = new StringDictionary(MAX_ATTRIBUTE_CODES);
+    private final StringDictionary sizes = new StringDictionary(MAX_ATTRIBUTE_CODES);
+    private final StringDictionary colors = new StringDictionary(MAX_ATTRIBUTE_CODES);
+    private final StringDictionary customers = new StringDictionary(MAX_CUSTOMER_CODES);
+    private volatile Chunk[] chunks = new Chunk[16];
+    // Se escribe después de las filas; quien lo lee ve esas filas completas
+    private volatile int rows;
+    // Solo se amplían, así que los leídos después de rows cubren esas filas
+    private int minDay = Integer.MAX_VALUE;
+    private int maxDay = Integer.MIN_VALUE;
+
+    /**
+     * Crea un almacén vacío en pesos chilenos que agrupa los días en la zona
+     * horaria del sistema.
+     */
+    public SalesStore() {
+        this(ZoneId.systemDefault(), Money.CLP);
+    }
+
+    /**
+     * Crea un almacén vacío.
+     *
+     * @param zone Zona horaria con que se obtiene el día de cada pedido
+     * @param currency Moneda de los montos; las líneas en otra moneda se rechazan
+     */
+    public SalesStore(ZoneId zone, Currency currency) {
+        this.zone = zone;
+        this.currency = currency;
+    }
+
+    /**
+     * Agrega las líneas de todos los pedidos del servicio que no estén
+     * cancelados, leyendo cada pedido bajo su bloqueo.
+     *
+     * @param service Servicio de pedidos
+     * @return Cantidad de líneas agregadas
+     */
+    public long addOrders(OrderService service) {
+        long[] added = new long[1];
+        service.visitOrders(order -> added[0] += addOrder(order));
+        return added[0];
+    }
+
+    /**
+     * Agrega las líneas de un pedido. Los pedidos cancelados se ignoran.
+     *
+     * @param order Pedido
+     * @return Cantidad de líneas agregadas
+     * @throws IllegalArgumentException si el pedido no tiene fecha o sus montos están en otra moneda
+     */
+    public synchronized int addOrder(Order order) {
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            return 0;
+        }
+        Date date = order.getOrderDate();
+        if (date == null) {
+            throw new IllegalArgumentException("El pedido " + order.getId() + " no tiene fecha");
+        }
+        List<OrderLine> lines = order.getLines();
+        for (OrderLine line : lines) {
+            if (!line.getTotalAmount().getCurrency().equals(currency)) {
+                throw new IllegalArgumentException("El pedido " + order.getId() + " no esta en " + currency);
+            }
+        }
+        int day = Math.toIntExact(date.toInstant().atZone(zone).toLocalDate().toEpochDay());
+        int customer = customers.encode(order.getCustomerId());
+        int row = rows;
+        for (OrderLine line : lines) {
+            ProductView product = line.getProduct();
+            write(row++, categories.encode(product.getCategory()), sizes.encode(product.getSize()),
+                    colors.encode(product.getColor()), customer, day, line.getQuantity(),
+                    line.getTotalAmount().getAmount());
+        }
+        rows = row;
+        return lines.size();
+    }
+
+    /**
+     * Agrega una línea de venta suelta, por ejemplo al importar datos
+     * históricos que no están en el servicio.
+     *
+     * @param category Categoría del producto, o null
+     * @param size Talla del producto, o null
+     * @param color Color del producto, o null
+     * @param customerId Identificador del cliente, o null
+     * @param day Día de la venta
+     * @param quantity Unidades vendidas
+     * @param amount Monto de la línea en unidades menores de la moneda del almacén
+     */
+    public synchronized void addLine(String category, String size, String color, String customerId,
+            LocalDate day, int quantity, long amount) {
+        int row = rows;
+        write(row, categories.encode(category), sizes.encode(size), colors.encode(color),
+                customers.encode(customerId), Math.toIntExact(day.toEpochDay()), quantity, amount);
+        rows = row + 1;
+    }
+
+    // Escribe una fila sin publicarla; debe llamarse con el bloqueo del almacén
+    private void write(int row, int category, int size, int color, int customer, int day,
+            int quantity, long amount) {
+        if (row >= MAX_ROWS) {
+            throw new IllegalStateException("El almacen de ventas esta lleno: " + MAX_ROWS + " lineas");
+        }
+        int index = row >>> CHUNK_BITS;
+        Chunk[] current = chunks;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            chunks = current;
+        }
+        Chunk chunk = current[index];
+        if (chunk == null) {
+            chunk = new Chunk();
+            current[index] = chunk;
+        }
+        chunk.set(row & (CHUNK_SIZE - 1), category, size, color, customer, day, quantity, amount);
+        minDay = Math.min(minDay, day);
+        maxDay = Math.max(maxDay, day);
+    }
+
+    /**
+     * Suma una medida sobre todas las líneas.
+     *
+     * @param measure Medida a sumar
+     * @return Suma de la medida
+     */
+    public long total(SalesMeasure measure) {
+        return total(measure, null, null);
+    }
+
+    /**
+     * Suma una medida sobre las líneas de un rango de días.
+     *
+     * @param measure Medida a sumar
+     * @param from Primer día incluido, o null para no limitar
+     * @param to Último día incluido, o null para no limitar
+     * @return Suma de la medida
+     */
+    public long total(SalesMeasure measure, LocalDate from, LocalDate to) {
+        int rowCount = rows;
+        Chunk[] current = chunks;
+        int fromDay = fromDay(from);
+        int toDay = toDay(to);
+        return IntStream.range(0, chunkCount(rowCount))
+                .parallel()
+                .mapToLong(c -> current[c].total(measure, chunkLength(c, rowCount), fromDay, toDay))
+                .sum();
+    }
+
+    /**
+     * Suma una medida por cada valor de una dimensión.
+     *
+     * @param dimension Dimensión por la que se agrupa
+     * @param measure Medida a sumar
+     * @return Grupos con suma distinta de cero, en orden de aparición del valor (por fecha para DAY)
+     */
+    public List<SalesGroup> groupBy(SalesDimension dimension, SalesMeasure measure) {
+        return groupBy(dimension, measure, null, null);
+    }
+
+    /**
+     * Suma una medida por cada valor de una dimensión en un rango de días.
+     *
+     * @param dimension Dimensión por la que se agrupa
+     * @param measure Medida a sumar
+     * @param from Primer día incluido, o null para no limitar
+     * @param to Último día incluido, o null para no limitar
+     * @return Grupos con suma distinta de cero, en orden de aparición del valor (por fecha para DAY)
+     */
+    public List<SalesGroup> groupBy(SalesDimension dimension, SalesMeasure measure, LocalDate from, LocalDate to) {
+        Aggregation aggregation = aggregate(dimension, measure, from, to);
+        List<SalesGroup> groups = new ArrayList<>();
+        long[] sums = aggregation.sums;
+        for (int i = 0; i < sums.length; i++) {
+            if (sums[i] != 0) {
+                groups.add(new SalesGroup(label(dimension, aggregation.base, i), sums[i]));
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Obtiene los valores de una dimensión con mayor suma de una medida.
+     *
+     * @param dimension Dimensión por la que se agrupa
+     * @param measure Medida a sumar
+     * @param limit Cantidad máxima de grupos
+     * @return Hasta limit grupos con suma positiva, de mayor a menor
+     */
+    public List<SalesGroup> topN(SalesDimension dimension, SalesMeasure measure, int limit) {
+        return topN(dimension, measure, limit, null, null);
+    }
+
+    /**
+     * Obtiene los valores de una dimensión con mayor suma de una medida en
+     * un rango de días. Solo se ordenan los mejores limit grupos.
+     *
+     * @param dimension Dimensión por la que se agrupa
+     * @param measure Medida a sumar
+     * @param limit Cantidad máxima de grupos
+     * @param from Primer día incluido, o null para no limitar
+     * @param to Último día incluido, o null para no limitar
+     * @return Hasta limit grupos con suma positiva, de mayor a menor
+     * @throws IllegalArgumentException si limit es negativo
+     */
+    public List<SalesGroup> topN(SalesDimension dimension, SalesMeasure measure, int limit,
+            LocalDate from, LocalDate to) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("El limite no puede ser negativo: " + limit);
+        }
+        Aggregation aggregation = aggregate(dimension, measure, from, to);
+        long[] sums = aggregation.sums;
+        // Montículo con el menor de los mejores en la raíz; a igual suma gana el código menor
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, limit), (a, b) ->
+                sums[a] != sums[b] ? Long.compare(sums[a], sums[b]) : Integer.compare(b, a));
+        for (int i = 0; i < sums.length && limit > 0; i++) {
+            if (sums[i] <= 0) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(i);
+            } else if (sums[i] > sums[best.peek()]) {
+                best.poll();
+                best.add(i);
+            }
+        }
+        SalesGroup[] top = new SalesGroup[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            int code = best.poll();
+            top[i] = new SalesGroup(label(dimension, aggregation.base, code), sums[code]);
+        }
+        return Arrays.asList(top);
+    }
+
+    private Aggregation aggregate(SalesDimension dimension, SalesMeasure measure, LocalDate from, LocalDate to) {
+        int rowCount = rows;
+        Chunk[] current = chunks;
+        int fromDay = fromDay(from);
+        int toDay = toDay(to);
+        int base = 0;
+        int groups;
+        switch (dimension) {
+            case CATEGORY:
+                groups = categories.size() + 1;
+                break;
+            case SIZE:
+                groups = sizes.size() + 1;
+                break;
+            case COLOR:
+                groups = colors.size() + 1;
+                break;
+            case CUSTOMER:
+                groups = customers.size() + 1;
+                break;
+            default:
+                // Un grupo por día entre el primero y el último que pueden aparecer
+                base = Math.max(minDay, fromDay);
+                groups = rowCount == 0 ? 0 : Math.max(0, Math.min(maxDay, toDay) - base + 1);
+                break;
+        }
+        if (groups == 0) {
+            return new Aggregation(base, new long[0]);
+        }
+        int groupCount = groups;
+        int dayBase = base;
+        long[] sums = IntStream.range(0, chunkCount(rowCount))
+                .parallel()
+                .collect(() -> new long[groupCount],
+                        (partial, c) -> current[c].aggregate(partial, dimension, measure, dayBase,
+                                chunkLength(c, rowCount), fromDay, toDay),
+                        (left, right) -> {
+                            for (int i = 0; i < left.length; i++) {
+                                left[i] += right[i];
+                            }
+                        });
+        return new Aggregation(base, sums);
+    }
+
+    private String label(SalesDimension dimension, int base, int index) {
+        switch (dimension) {
+            case CATEGORY:
+                return categories.decode(index);
+            case SIZE:
+                return sizes.decode(index);
+            case COLOR:
+                return colors.decode(index);
+            case CUSTOMER:
+                return customers.decode(index);
+            default:
+                return LocalDate.ofEpochDay((long) base + index).toString();
+        }
+    }
+
+    private static int chunkCount(int rowCount) {
+        return (rowCount + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+    }
+
+    private static int chunkLength(int chunk, int rowCount) {
+        return Math.min(CHUNK_SIZE, rowCount - (chunk << CHUNK_BITS));
+    }
+
+    private static int fromDay(LocalDate from) {
+        return from == null ? Integer.MIN_VALUE : Math.toIntExact(from.toEpochDay());
+    }
+
+    private static int toDay(LocalDate to) {
+        return to == null ? Integer.MAX_VALUE : Math.toIntExact(to.toEpochDay());
+    }
+
+    /**
+     * Obtiene la cantidad de líneas del almacén.
+     *
+     * @return Líneas publicadas
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Obtiene la zona horaria con que se calcula el día de los pedidos.
+     *
+     * @return Zona horaria del almacén
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Obtiene la moneda de los montos.
+     *
+     * @return Moneda del almacén
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Sumas por grupo de una consulta y el día del grupo 0 cuando se agrupa por DAY.
+     */
+    private static final class Aggregation {
+
+        private final int base;
+        private final long[] sums;
+
+        Aggregation(int base, long[] sums) {
+            this.base = base;
+            this.sums = sums;
+        }
+    }
+
+    /**
+     * Bloque de filas consecutivas con una columna por atributo.
+     * Los bucles de suma leen solo las columnas que usa la consulta.
+     */
+    private static final class Chunk {
+
+        private final short[] category = new short[CHUNK_SIZE];
+        private final short[] size = new short[CHUNK_SIZE];
+        private final short[] color = new short[CHUNK_SIZE];
+        private final int[] customer = new int[CHUNK_SIZE];
+        private final int[] day = new int[CHUNK_SIZE];
+        private final int[] quantity = new int[CHUNK_SIZE];
+        private final long[] amount = new long[CHUNK_SIZE];
+        private int minDay = Integer.MAX_VALUE;
+        private int maxDay = Integer.MIN_VALUE;
+
+        void set(int row, int categoryCode, int sizeCode, int colorCode, int customerCode, int dayKey,
+                int units, long lineAmount) {
+            category[row] = (short) categoryCode;
+            size[row] = (short) sizeCode;
+            color[row] = (short) colorCode;
+            customer[row] = customerCode;
+            day[row] = dayKey;
+            quantity[row] = units;
+            amount[row] = lineAmount;
+            minDay = Math.min(minDay, dayKey);
+            maxDay = Math.max(maxDay, dayKey);
+        }
+
+        long total(SalesMeasure measure, int length, int fromDay, int toDay) {
+            if (toDay < minDay || fromDay > maxDay) {
+                return 0L;
+            }
+            long sum = 0L;
+            if (fromDay <= minDay && maxDay <= toDay) {
+                // Bloque completo dentro del rango: sumas sin condición
+                switch (measure) {
+                    case REVENUE:
+                        for (int i = 0; i < length; i++) {
+                            sum += amount[i];
+                        }
+                        return sum;
+                    case UNITS:
+                        for (int i = 0; i < length; i++) {
+                            sum += quantity[i];
+                        }
+                        return sum;
+                    default:
+                        return length;
+                }
+            }
+            switch (measure) {
+                case REVENUE:
+                    for (int i = 0; i < length; i++) {
+                        sum += day[i] >= fromDay && day[i] <= toDay ? amount[i] : 0L;
+                    }
+                    return sum;
+                case UNITS:
+                    for (int i = 0; i < length; i++) {
+                        sum += day[i] >= fromDay && day[i] <= toDay ? quantity[i] : 0;
+                    }
+                    return sum;
+                default:
+                    for (int i = 0; i < length; i++) {
+                        sum += day[i] >= fromDay && day[i] <= toDay ? 1 : 0;
+                    }
+                    return sum;
+            }
+        }
+
+        void aggregate(long[] sums, SalesDimension dimension, SalesMeasure measure, int dayBase, int length,
+                int fromDay, int toDay) {
+            if (toDay < minDay || fromDay > maxDay) {
+                return;
+            }
+            boolean all = fromDay <= minDay && maxDay <= toDay;
+            switch (dimension) {
+                case CATEGORY:
+                    addByCode(sums, category, measure, length, all, fromDay, toDay);
+                    break;
+                case SIZE:
+                    addByCode(sums, size, measure, length, all, fromDay, toDay);
+                    break;
+                case COLOR:
+                    addByCode(sums, color, measure, length, all, fromDay, toDay);
+                    break;
+                case CUSTOMER:
+                    addByKey(sums, customer, 0, measure, length, all, fromDay, toDay);
+                    break;
+                default:
+                    addByKey(sums, day, dayBase, measure, length, all, fromDay, toDay);
+                    break;
+            }
+        }
+
+        private void addByCode(long[] sums, short[] codes, SalesMeasure measure, int length, boolean all,
+                int fromDay, int toDay) {
+            switch (measure) {
+                case REVENUE:
+                    for (int i = 0; i < length; i++) {
+                        if (all || (day[i] >= fromDay && day[i] <= toDay)) {
+                            sums[codes[i] & 0xFFFF] += amount[i];
+                        }
+                    }
+                    break;
+                case UNITS:
+                    for (int i = 0; i < length; i++) {
+                        if (all || (day[i] >= fromDay && day[i] <= toDay)) {
+                            sums[codes[i] & 0xFFFF] += quantity[i];
+                        }
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < length; i++) {
+                        if (all || (day[i] >= fromDay && day[i] <= toDay)) {
+                            sums[codes[i] & 0xFFFF]++;
+                        }
+                    }
+                    break;
+            }
+        }
+
+        private void addByKey(long[] sums, int[] keys, int base, SalesMeasure measure, int length, boolean all,
+                int fromDay, int toDay) {
+            switch (measure) {
+                case REVENUE:
+                    for (int i = 0; i < length; i++) {
+                        if (all || (day[i] >= fromDay && day[i] <= toDay)) {
+                            sums[keys[i] - base] += amount[i];
+                        }
+                    }
+                    break;
+                case UNITS:
+                    for (int i = 0; i < length; i++) {
+                        if (all || (day[i] >= fromDay && day[i] <= toDay)) {
+                            sums[keys[i] - base] += quantity[i];
+                        }
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < length; i++) {
+                        if (all || (day[i] >= fromDay && day[i] <= toDay)) {
+                            sums[keys[i] - base]++;
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.singleton.DiscountManager;
+
+/**
+ * Vista liviana de un registro del catálogo.
+ * Solo guarda el catálogo y la posición del registro; cada getter lee el
+ * valor del archivo mapeado, por lo que siempre refleja el contenido actual.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class CatalogProduct implements ProductView {
+
+    private final ProductCatalog catalog;
+    private final int index;
+
+    CatalogProduct(ProductCatalog catalog, int index) {
+        this.catalog = catalog;
+        this.index = index;
+    }
+
+    @Override
+    public String getId() {
+        return catalog.getString(index, ProductCatalog.ID_OFFSET);
+    }
+
+    @Override
+    public String getName() {
+        return catalog.getString(index, ProductCatalog.NAME_OFFSET);
+    }
+
+    @Override
+    public String getDescription() {
+        return catalog.getString(index, ProductCatalog.DESCRIPTION_OFFSET);
+    }
+
+    @Override
+    public Money getPrice() {
+        return catalog.getPrice(index);
+    }
+
+    @Override
+    public String getCategory() {
+        return catalog.getCode(index, ProductCatalog.CATEGORY_OFFSET);
+    }
+
+    @Override
+    public String getSize() {
+        return catalog.getCode(index, ProductCatalog.SIZE_OFFSET);
+    }
+
+    @Override
+    public String getColor() {
+        return catalog.getCode(index, ProductCatalog.COLOR_OFFSET);
+    }
+
+    @Override
+    public int getStock() {
+        return catalog.getStock(index);
+    }
+
+    @Override
+    public long getFinalAmount(DiscountType discountType) {
+        return DiscountManager.getInstance().applyDiscount(catalog.getPriceAmount(index), getCategory(), discountType);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CatalogProduct)) {
+            return false;
+        }
+        CatalogProduct other = (CatalogProduct) obj;
+        return catalog == other.catalog && index == other.index;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(catalog) + index;
+    }
+
+    @Override
+    public String toString() {
+        return "Product{" + "id=" + getId() + ", name=" + getName() + ", price=" + getPrice() + 
+               ", category=" + getCategory() + ", size=" + getSize() + ", color=" + getColor() + 
+               ", stock=" + getStock() + '}';
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import java.util.Arrays;
+
+/**
+ * Lista comprimida de posiciones de productos, al estilo de los roaring
+ * bitmaps. Las posiciones se reparten en bloques de 65.536 según sus 16
+ * bits altos; cada bloque guarda sus 16 bits bajos como un arreglo
+ * ordenado de char (2 bytes por posición) mientras tiene hasta 4.096
+ * posiciones, y como un mapa de bits de 8 KB cuando tiene más.
+ * Así una palabra rara ocupa unos 2 bytes por producto y una muy común
+ * menos de 1 bit, y agregar o quitar una posición no obliga a reescribir
+ * la lista: solo se mueve, a lo más, un arreglo de 8 KB.
+ * No es segura entre hilos; ProductSearchIndex la protege con su bloqueo.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class PostingList {
+
+    /** Palabras de 64 bits de un bloque guardado como mapa de bits. */
+    static final int BITMAP_WORDS = 1024;
+
+    private static final int ARRAY_MAX = 4096;
+
+    private char[] keys = new char[2];
+    // char[] ordenado o long[] de BITMAP_WORDS palabras
+    private Object[] blocks = new Object[2];
+    private int[] sizes = new int[2];
+    private int blockCount;
+    private int cardinality;
+
+    /**
+     * Agrega una posición.
+     *
+     * @param doc Posición del producto, no negativa
+     * @return true si no estaba en la lista
+     */
+    boolean add(int doc) {
+        char high = (char) (doc >>> 16);
+        char low = (char) doc;
+        int b = blockOf(high);
+        if (b < 0) {
+            b = -b - 1;
+            insertBlock(b, high);
+        }
+        Object block = blocks[b];
+        if (block instanceof long[]) {
+            long[] bits = (long[]) block;
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) != 0) {
+                return false;
+            }
+            bits[low >>> 6] |= mask;
+        } else {
+            char[] values = (char[]) block;
+            int size = sizes[b];
+            // Lo habitual es agregar al final, en orden de catálogo
+            int i = size > 0 && values[size - 1] < low ? -size - 1 : Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            if (size == ARRAY_MAX) {
+                blocks[b] = toBitmap(values, size);
+                ((long[]) blocks[b])[low >>> 6] |= 1L << low;
+            } else {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, size + (size >> 1) + 4));
+                    blocks[b] = values;
+                }
+                System.arraycopy(values, i, values, i + 1, size - i);
+                values[i] = low;
+            }
+        }
+        sizes[b]++;
+        cardinality++;
+        return true;
+    }
+
+    /**
+     * Quita una posición.
+     *
+     * @param doc Posición del producto
+     * @return true si estaba en la lista
+     */
+    boolean remove(int doc) {
+        int b = blockOf((char) (doc >>> 16));
+        if (b < 0) {
+            return false;
+        }
+        char low = (char) doc;
+        Object block = blocks[b];
+        if (block instanceof long[]) {
+            long[] bits = (long[]) block;
+            long mask = 1L << low;
+            if ((bits[low >>> 6] & mask) == 0) {
+                return false;
+            }
+            bits[low >>> 6] &= ~mask;
+            // Vuelve a arreglo con margen, para no convertir en cada alta y baja
+            if (sizes[b] - 1 <= ARRAY_MAX / 2) {
+                blocks[b] = toArray(bits, sizes[b] - 1);
+            }
+        } else {
+            char[] values = (char[]) block;
+            int i = Arrays.binarySearch(values, 0, sizes[b], low);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(values, i + 1, values, i, sizes[b] - i - 1);
+        }
+        sizes[b]--;
+        cardinality--;
+        if (sizes[b] == 0) {
+            removeBlock(b);
+        }
+        return true;
+    }
+
+    /**
+     * Indica si una posición está en la lista.
+     *
+     * @param doc Posición del producto
+     * @return true si está
+     */
+    boolean contains(int doc) {
+        int b = blockOf((char) (doc >>> 16));
+        if (b < 0) {
+            return false;
+        }
+        char low = (char) doc;
+        Object block = blocks[b];
+        if (block instanceof long[]) {
+            return (((long[]) block)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) block, 0, sizes[b], low) >= 0;
+    }
+
+    /**
+     * Obtiene la cantidad de posiciones de la lista.
+     *
+     * @return Número de productos
+     */
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * Estima la memoria que ocupan los bloques de la lista.
+     *
+     * @return Bytes aproximados
+     */
+    long memoryBytes() {
+        long bytes = 48L + keys.length * 2L + blocks.length * 4L + sizes.length * 4L;
+        for (int b = 0; b < blockCount; b++) {
+            bytes += blocks[b] instanceof long[] ? 16L + BITMAP_WORDS * 8L : 16L + ((char[]) blocks[b]).length * 2L;
+        }
+        return bytes;
+    }
+
+    /**
+     * Busca el bloque de un valor de los 16 bits altos de las posiciones.
+     *
+     * @param high Bits altos, entre 0 y 65.535
+     * @return Índice del bloque, o negativo si la lista no tiene posiciones en él
+     */
+    int findBlock(int high) {
+        return blockOf((char) high);
+    }
+
+    /**
+     * Obtiene el mayor valor de bits altos con posiciones en la lista.
+     *
+     * @return Bits altos del último bloque, o -1 si la lista está vacía
+     */
+    int lastHigh() {
+        return blockCount > 0 ? keys[blockCount - 1] : -1;
+    }
+
+    /**
+     * Obtiene el mapa de bits de un bloque.
+     *
+     * @param block Índice entregado por findBlock
+     * @return Mapa de bits de 1.024 palabras, o null si el bloque es un arreglo
+     */
+    long[] bitmap(int block) {
+        return blocks[block] instanceof long[] ? (long[]) blocks[block] : null;
+    }
+
+    /**
+     * Obtiene el arreglo ordenado de bits bajos de un bloque.
+     *
+     * @param block Índice entregado por findBlock
+     * @return Arreglo, válido hasta blockSize(block); null si el bloque es un mapa de bits
+     */
+    char[] array(int block) {
+        return blocks[block] instanceof char[] ? (char[]) blocks[block] : null;
+    }
+
+    /**
+     * Obtiene la cantidad de posiciones de un bloque.
+     *
+     * @param block Índice entregado por findBlock
+     * @return Posiciones del bloque
+     */
+    int blockSize(int block) {
+        return sizes[block];
+    }
+
+    private int blockOf(char high) {
+        // Las altas suelen caer en el último bloque
+        if (blockCount > 0 && keys[blockCount - 1] == high) {
+            return blockCount - 1;
+        }
+        return Arrays.binarySearch(keys, 0, blockCount, high);
+    }
+
+    private void insertBlock(int b, char high) {
+        if (blockCount == keys.length) {
+            int grown = blockCount * 2;
+            keys = Arrays.copyOf(keys, grown);
+            blocks = Arrays.copyOf(blocks, grown);
+            sizes = Arrays.copyOf(sizes, grown);
+        }
+        System.arraycopy(keys, b, keys, b + 1, blockCount - b);
+        System.arraycopy(blocks, b, blocks, b + 1, blockCount - b);
+        System.arraycopy(sizes, b, sizes, b + 1, blockCount - b);
+        keys[b] = high;
+        blocks[b] = new char[4];
+        sizes[b] = 0;
+        blockCount++;
+    }
+
+    private void removeBlock(int b) {
+        System.arraycopy(keys, b + 1, keys, b, blockCount - b - 1);
+        System.arraycopy(blocks, b + 1, blocks, b, blockCount - b - 1);
+        System.arraycopy(sizes, b + 1, sizes, b, blockCount - b - 1);
+        blockCount--;
+        blocks[blockCount] = null;
+    }
+
+    private static long[] toBitmap(char[] values, int size) {
+        long[] bits = new long[BITMAP_WORDS];
+        for (int i = 0; i < size; i++) {
+            bits[values[i] >>> 6] |= 1L << values[i];
+        }
+        return bits;
+    }
+
+    private static char[] toArray(long[] bits, int size) {
+        char[] values = new char[size];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            for (long word = bits[w]; word != 0; word &= word - 1) {
+                values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,482 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.model.ProductView;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * Catálogo de productos guardado fuera del heap en un archivo mapeado en memoria.
+ * Cada SKU ocupa un registro de ancho fijo; la categoría, la talla, el
+ * color y la moneda se guardan como códigos de un StringDictionary, que se
+ * conserva en un archivo de texto junto al catálogo. La búsqueda por SKU
+ * usa una tabla hash de direccionamiento abierto que vive en el mismo
+ * archivo, de modo que abrir el catálogo no recorre los registros.
+ *
+ * <p>Las consultas devuelven vistas livianas que implementan ProductView
+ * y leen directamente del archivo mapeado: el heap no crece con el tamaño
+ * del catálogo. Los registros se mapean en bloques de 1 GB, por lo que
+ * el archivo puede superar los 2 GB.</p>
+ *
+ * <p>Las lecturas no se bloquean. Las altas se serializan y un SKU nuevo
+ * se publica en la tabla solo cuando su registro está completo. Volver a
+ * guardar un SKU existente reescribe su registro en el lugar; un lector
+ * concurrente puede ver ese registro a medio actualizar.</p>
+ *
+ * <p>Con enableSearch el catálogo mantiene además un ProductSearchIndex en
+ * memoria, que put actualiza con cada alta o cambio, para buscar productos
+ * por nombre, descripción y atributos.</p>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ProductCatalog implements Closeable {
+
+    private static final int MAGIC = 0x54524350;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_OFFSET = 20;
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    static final int RECORD_BYTES = 256;
+    static final int ID_OFFSET = 0;
+    static final int ID_BYTES = 32;
+    static final int NAME_OFFSET = 32;
+    static final int NAME_BYTES = 64;
+    static final int DESCRIPTION_OFFSET = 96;
+    static final int DESCRIPTION_BYTES = 128;
+    static final int PRICE_OFFSET = 224;
+    static final int STOCK_OFFSET = 232;
+    static final int CURRENCY_OFFSET = 236;
+    static final int CATEGORY_OFFSET = 238;
+    static final int SIZE_OFFSET = 240;
+    static final int COLOR_OFFSET = 242;
+
+    private static final int CHUNK_SHIFT = 22;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final long CHUNK_BYTES = (long) CHUNK_RECORDS * RECORD_BYTES;
+
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final Path file;
+    private final Path dictionaryFile;
+    private final FileChannel channel;
+    private final MappedByteBuffer table;
+    private final MappedByteBuffer[] chunks;
+    private final int capacity;
+    private final int mask;
+    private final StringDictionary dictionary = new StringDictionary(0xFFFF);
+    private final BufferedWriter dictionaryOut;
+    private final byte[] scratch = new byte[RECORD_BYTES];
+    private final ByteBuffer record = ByteBuffer.wrap(scratch);
+    private volatile ProductSearchIndex searchIndex;
+    private int count;
+
+    private ProductCatalog(Path file, int requestedCapacity) throws IOException {
+        this.file = file;
+        this.dictionaryFile = file.resolveSibling(file.getFileName() + ".dict");
+        boolean exists = Files.exists(file) && Files.size(file) > 0;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int tableSlots;
+            if (exists) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                        || header.getInt(8) != RECORD_BYTES) {
+                    throw new IOException("Archivo de catalogo no valido: " + file);
+                }
+                this.capacity = header.getInt(12);
+                tableSlots = header.getInt(16);
+            } else {
+                if (requestedCapacity <= 0 || requestedCapacity > MAX_CAPACITY) {
+                    throw new IllegalArgumentException("Capacidad no valida: " + requestedCapacity);
+                }
+                this.capacity = requestedCapacity;
+                tableSlots = Integer.highestOneBit(requestedCapacity) << 2;
+            }
+            this.mask = tableSlots - 1;
+            long recordsOffset = align(HEADER_BYTES + (long) tableSlots * 4, 4096);
+            this.table = channel.map(FileChannel.MapMode.READ_WRITE, 0, recordsOffset);
+            this.chunks = new MappedByteBuffer[(capacity + CHUNK_RECORDS - 1) >>> CHUNK_SHIFT];
+            for (int i = 0; i < chunks.length; i++) {
+                long records = Math.min(CHUNK_RECORDS, capacity - (long) i * CHUNK_RECORDS);
+                chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        recordsOffset + i * CHUNK_BYTES, records * RECORD_BYTES);
+            }
+            if (exists) {
+                this.count = table.getInt(COUNT_OFFSET);
+                if (Files.exists(dictionaryFile)) {
+                    for (String value : Files.readAllLines(dictionaryFile, StandardCharsets.UTF_8)) {
+                        dictionary.encode(value);
+                    }
+                }
+            } else {
+                table.putInt(0, MAGIC);
+                table.putInt(4, VERSION);
+                table.putInt(8, RECORD_BYTES);
+                table.putInt(12, capacity);
+                table.putInt(16, tableSlots);
+                table.putInt(COUNT_OFFSET, 0);
+                Files.deleteIfExists(dictionaryFile);
+            }
+            this.dictionaryOut = Files.newBufferedWriter(dictionaryFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Abre un catálogo, creándolo si el archivo no existe.
+     *
+     * @param file Archivo del catálogo; el diccionario se guarda en el mismo
+     *             directorio con la extensión ".dict" agregada
+     * @param capacity Cantidad máxima de SKU; solo se usa al crear el archivo
+     * @return El catálogo abierto
+     * @throws IOException si no se puede abrir o crear el archivo
+     * @throws IllegalArgumentException si la capacidad no es válida
+     */
+    public static ProductCatalog open(Path file, int capacity) throws IOException {
+        return new ProductCatalog(file, capacity);
+    }
+
+    /**
+     * Guarda un producto en el catálogo.
+     * Si el SKU ya existe, su registro se reemplaza.
+     *
+     * @param product Producto a guardar
+     * @return Vista del producto guardado
+     * @throws IllegalArgumentException si un texto no cabe en su campo; el
+     *         catálogo queda como estaba
+     * @throws IllegalStateException si el catálogo o el diccionario están llenos
+     */
+    public synchronized ProductView put(ProductView product) {
+        String id = product.getId();
+        if (id == null) {
+            throw new IllegalArgumentException("El producto no tiene identificador");
+        }
+        int slot = slotOf(id);
+        int existing = (int) INT_VIEW.getAcquire(table, slotOffset(slot));
+        int index = existing != 0 ? existing - 1 : count;
+        if (existing == 0 && count == capacity) {
+            throw new IllegalStateException("Catalogo lleno: " + capacity + " productos");
+        }
+        ProductSearchIndex search = searchIndex;
+        // El índice necesita los datos anteriores para quitar solo lo que cambió
+        ProductView previous = existing != 0 && search != null
+                ? ProductValue.copyOf(new CatalogProduct(this, index)) : null;
+        // El registro se arma completo antes de tocar el archivo: si un texto no
+        // cabe o el diccionario se llena, el registro anterior queda intacto
+        Arrays.fill(scratch, (byte) 0);
+        putString(record, ID_OFFSET, ID_BYTES, id);
+        putString(record, NAME_OFFSET, NAME_BYTES, product.getName());
+        putString(record, DESCRIPTION_OFFSET, DESCRIPTION_BYTES, product.getDescription());
+        Money price = product.getPrice();
+        record.putLong(PRICE_OFFSET, price.getAmount());
+        record.putInt(STOCK_OFFSET, product.getStock());
+        int dictionarySize = dictionary.size();
+        try {
+            record.putShort(CURRENCY_OFFSET, (short) dictionary.encode(price.getCurrency().getCurrencyCode()));
+            record.putShort(CATEGORY_OFFSET, (short) dictionary.encode(product.getCategory()));
+            record.putShort(SIZE_OFFSET, (short) dictionary.encode(product.getSize()));
+            record.putShort(COLOR_OFFSET, (short) dictionary.encode(product.getColor()));
+        } finally {
+            // Los códigos nuevos se guardan aunque el registro no se escriba,
+            // para que el archivo del diccionario siga alineado con los códigos
+            appendDictionary(dictionarySize);
+        }
+        chunkOf(index).put(offsetOf(index), scratch);
+        if (existing == 0) {
+            count++;
+            INT_VIEW.setRelease(table, slotOffset(slot), index + 1);
+            INT_VIEW.setRelease(table, COUNT_OFFSET, count);
+        }
+        if (search != null) {
+            search.put(index, previous, product);
+        }
+        return new CatalogProduct(this, index);
+    }
+
+    /**
+     * Activa la búsqueda de productos: crea el índice con los productos
+     * que ya están en el catálogo y, desde ese momento, put lo mantiene
+     * al día. El índice vive en el heap y se reconstruye en cada apertura.
+     *
+     * @return Índice de búsqueda del catálogo
+     */
+    public synchronized ProductSearchIndex enableSearch() {
+        if (searchIndex == null) {
+            ProductSearchIndex index = new ProductSearchIndex();
+            for (int i = 0; i < count; i++) {
+                index.put(i, null, new CatalogProduct(this, i));
+            }
+            searchIndex = index;
+        }
+        return searchIndex;
+    }
+
+    /**
+     * Obtiene el índice de búsqueda, si está activado.
+     *
+     * @return Índice de búsqueda, o null si no se llamó a enableSearch
+     */
+    public ProductSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * Busca productos del catálogo, en orden de alta.
+     *
+     * @param query Consulta
+     * @param limit Cantidad máxima de resultados, positiva
+     * @return Vistas de hasta limit productos
+     * @throws IllegalStateException si la búsqueda no está activada
+     * @throws IllegalArgumentException si limit no es positivo
+     */
+    public List<ProductView> search(ProductQuery query, int limit) {
+        ProductSearchIndex index = searchIndex;
+        if (index == null) {
+            throw new IllegalStateException("La busqueda del catalogo no esta activada");
+        }
+        int[] found = index.search(query, limit);
+        List<ProductView> products = new ArrayList<>(found.length);
+        for (int doc : found) {
+            products.add(new CatalogProduct(this, doc));
+        }
+        return products;
+    }
+
+    /**
+     * Busca un producto por su SKU.
+     *
+     * @param sku Identificador del producto
+     * @return Vista del producto, o null si no está en el catálogo
+     */
+    public ProductView get(String sku) {
+        int index = indexOf(sku);
+        return index >= 0 ? new CatalogProduct(this, index) : null;
+    }
+
+    /**
+     * Obtiene el producto guardado en una posición del catálogo.
+     *
+     * @param index Posición, entre 0 y size() - 1
+     * @return Vista del producto
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    public ProductView get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Posicion fuera del catalogo: " + index);
+        }
+        return new CatalogProduct(this, index);
+    }
+
+    /**
+     * Obtiene la posición de un SKU en el catálogo.
+     *
+     * @param sku Identificador del producto
+     * @return Posición del producto, o -1 si no está en el catálogo
+     */
+    public int indexOf(String sku) {
+        int slot = slotOf(sku);
+        int entry = (int) INT_VIEW.getAcquire(table, slotOffset(slot));
+        return entry != 0 ? entry - 1 : -1;
+    }
+
+    /**
+     * Obtiene la cantidad de productos del catálogo.
+     *
+     * @return Número de SKU guardados
+     */
+    public int size() {
+        return (int) INT_VIEW.getAcquire(table, COUNT_OFFSET);
+    }
+
+    /**
+     * Obtiene la cantidad máxima de productos del catálogo.
+     *
+     * @return Capacidad fijada al crear el archivo
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Obtiene el diccionario de categorías, tallas, colores y monedas.
+     *
+     * @return Diccionario del catálogo
+     */
+    public StringDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Obtiene la ruta del archivo del catálogo.
+     *
+     * @return Ruta del archivo
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Escribe en disco los cambios del catálogo y de su diccionario.
+     *
+     * @throws IOException si falla la escritura
+     */
+    public synchronized void force() throws IOException {
+        dictionaryOut.flush();
+        table.force();
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Escribe los cambios y cierra el archivo. Las vistas ya entregadas
+     * siguen siendo legibles mientras el proceso las referencie.
+     *
+     * @throws IOException si falla la escritura o el cierre
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            force();
+        } finally {
+            dictionaryOut.close();
+            channel.close();
+        }
+    }
+
+    // Sondeo lineal; termina en el SKU buscado o en la primera ranura vacía.
+    private int slotOf(String sku) {
+        int h = sku.hashCode() * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (true) {
+            int entry = (int) INT_VIEW.getAcquire(table, slotOffset(slot));
+            if (entry == 0 || idEquals(entry - 1, sku)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * 4;
+    }
+
+    // Compara sin crear objetos cuando el SKU es ASCII, que es lo habitual.
+    private boolean idEquals(int index, String sku) {
+        MappedByteBuffer chunk = chunkOf(index);
+        int base = offsetOf(index) + ID_OFFSET;
+        int length = (chunk.get(base) & 0xFF) - 1;
+        if (length != sku.length()) {
+            // En UTF-8 un SKU con caracteres no ASCII ocupa más bytes que caracteres
+            return length > sku.length() && sku.equals(getString(index, ID_OFFSET));
+        }
+        for (int i = 0; i < length; i++) {
+            char c = sku.charAt(i);
+            if (c >= 0x80) {
+                return sku.equals(getString(index, ID_OFFSET));
+            }
+            if (chunk.get(base + 1 + i) != (byte) c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendDictionary(int previousSize) {
+        int size = dictionary.size();
+        if (size == previousSize) {
+            return;
+        }
+        try {
+            for (int code = previousSize + 1; code <= size; code++) {
+                dictionaryOut.write(dictionary.decode(code));
+                dictionaryOut.newLine();
+            }
+            dictionaryOut.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo guardar el diccionario del catalogo", e);
+        }
+    }
+
+    private static void putString(ByteBuffer record, int offset, int width, String value) {
+        if (value == null) {
+            record.put(offset, (byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > width - 1) {
+            throw new IllegalArgumentException("Texto demasiado largo para el catalogo ("
+                    + bytes.length + " de " + (width - 1) + " bytes): " + value);
+        }
+        record.put(offset, (byte) (bytes.length + 1));
+        record.put(offset + 1, bytes);
+    }
+
+    String getString(int index, int field) {
+        MappedByteBuffer chunk = chunkOf(index);
+        int offset = offsetOf(index) + field;
+        int length = (chunk.get(offset) & 0xFF) - 1;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        chunk.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    String getCode(int index, int field) {
+        return dictionary.decode(chunkOf(index).getShort(offsetOf(index) + field) & 0xFFFF);
+    }
+
+    Money getPrice(int index) {
+        return Money.of(getPriceAmount(index), Currency.getInstance(getCode(index, CURRENCY_OFFSET)));
+    }
+
+    long getPriceAmount(int index) {
+        return chunkOf(index).getLong(offsetOf(index) + PRICE_OFFSET);
+    }
+
+    int getStock(int index) {
+        return chunkOf(index).getInt(offsetOf(index) + STOCK_OFFSET);
+    }
+
+    private MappedByteBuffer chunkOf(int index) {
+        return chunks[index >>> CHUNK_SHIFT];
+    }
+
+    private static int offsetOf(int index) {
+        return (index & (CHUNK_RECORDS - 1)) * RECORD_BYTES;
+    }
+
+    private static long align(long value, long alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import com.tiendaropa.model.Money;
+
+/**
+ * Consulta inmutable de la búsqueda de productos.
+ * Un producto cumple la consulta si contiene todas las palabras del texto
+ * (en el nombre, la descripción o sus atributos) y todos los filtros
+ * indicados. Con prefix, la última palabra del texto puede estar a medio
+ * escribir y se busca como comienzo de palabra, que es lo que se usa
+ * mientras el usuario teclea.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ProductQuery {
+
+    private final String text;
+    private final boolean prefix;
+    private final String category;
+    private final String size;
+    private final String color;
+    private final Money minPrice;
+    private final Money maxPrice;
+
+    /**
+     * Constructor que inicializa una consulta con todos sus filtros.
+     *
+     * @param text Palabras buscadas, o null para filtrar solo por atributos
+     * @param prefix true si la última palabra es un prefijo
+     * @param category Categoría exacta, sin distinguir mayúsculas ni tildes; o null
+     * @param size Talla exacta, o null
+     * @param color Color exacto, o null
+     * @param minPrice Precio mínimo incluido, o null
+     * @param maxPrice Precio máximo incluido, o null
+     * @throws IllegalArgumentException si los precios están en monedas
+     *         distintas o el mínimo supera al máximo
+     */
+    public ProductQuery(String text, boolean prefix, String category, String size, String color,
+                        Money minPrice, Money maxPrice) {
+        if (minPrice != null && maxPrice != null) {
+            if (!minPrice.getCurrency().equals(maxPrice.getCurrency())) {
+                throw new IllegalArgumentException("El rango de precios debe estar en una sola moneda");
+            }
+            if (minPrice.getAmount() > maxPrice.getAmount()) {
+                throw new IllegalArgumentException("El precio minimo supera al maximo: " + minPrice + " > " + maxPrice);
+            }
+        }
+        this.text = text;
+        this.prefix = prefix;
+        this.category = category;
+        this.size = size;
+        this.color = color;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Crea una consulta de texto sin filtros.
+     *
+     * @param text Palabras buscadas
+     * @param prefix true si la última palabra es un prefijo
+     * @return La consulta
+     */
+    public static ProductQuery of(String text, boolean prefix) {
+        return new ProductQuery(text, prefix, null, null, null, null, null);
+    }
+
+    /**
+     * Obtiene el texto buscado.
+     *
+     * @return Texto, o null
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Indica si la última palabra del texto se busca como prefijo.
+     *
+     * @return true para búsqueda mientras se escribe
+     */
+    public boolean isPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Obtiene el filtro de categoría.
+     *
+     * @return Categoría, o null
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Obtiene el filtro de talla.
+     *
+     * @return Talla, o null
+     */
+    public String getSize() {
+        return size;
+    }
+
+    /**
+     * Obtiene el filtro de color.
+     *
+     * @return Color, o null
+     */
+    public String getColor() {
+        return color;
+    }
+
+    /**
+     * Obtiene el precio mínimo.
+     *
+     * @return Precio mínimo incluido, o null
+     */
+    public Money getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * Obtiene el precio máximo.
+     *
+     * @return Precio máximo incluido, o null
+     */
+    public Money getMaxPrice() {
+        return maxPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductQuery{text=" + text + ", prefix=" + prefix + ", category=" + category + ", size=" + size
+                + ", color=" + color + ", minPrice=" + minPrice + ", maxPrice=" + maxPrice + "}";
+    }
+}
@@ -0,0 +1,535 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.ProductView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria para buscar productos por palabras del
+ * nombre y la descripción, con filtros por categoría, talla, color y
+ * rango de precio.
+ * Los productos se identifican por su posición (en ProductCatalog, la
+ * posición del SKU, que nunca cambia). Cada palabra, ya normalizada por
+ * SearchTokenizer, tiene una PostingList comprimida con las posiciones de
+ * los productos que la contienen, y las consultas intersectan esas listas
+ * de a un bloque de 65.536 posiciones, sin descomprimirlas: los bloques
+ * que falten en alguna lista se saltan enteros, los arreglos se recorren
+ * buscando en los demás y los mapas de bits se cruzan con AND de palabras.
+ * Las categorías, tallas y colores tienen sus propias listas, de modo que
+ * un filtro cuesta lo mismo que una palabra; el precio se guarda en un
+ * arreglo por posición y se revisa solo en los candidatos.
+ * Para la búsqueda mientras se escribe, los prefijos de hasta tres letras
+ * de cada palabra también tienen lista: un prefijo corto, que coincide con
+ * muchas palabras, es una sola lista, y uno más largo se expande a las
+ * pocas palabras que empiezan con él.
+ * El índice es incremental: put agrega un producto o, con la versión
+ * anterior, corrige solo las listas de lo que cambió.
+ * Las búsquedas se hacen en paralelo entre sí; las altas las bloquean
+ * un momento.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ProductSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, PostingList> terms = new TreeMap<>();
+    private final Map<String, PostingList> grams = new HashMap<>();
+    private final Map<String, PostingList> categories = new HashMap<>();
+    private final Map<String, PostingList> sizes = new HashMap<>();
+    private final Map<String, PostingList> colors = new HashMap<>();
+    private final PostingList all = new PostingList();
+    private final StringDictionary currencies = new StringDictionary(0xFF);
+    private long[] prices = new long[1024];
+    private byte[] priceCurrencies = new byte[1024];
+
+    /**
+     * Agrega un producto al índice o actualiza uno ya indexado.
+     *
+     * @param doc Posición del producto, no negativa
+     * @param previous Datos con que se indexó antes el producto, o null si es nuevo
+     * @param product Datos actuales del producto
+     * @throws IllegalArgumentException si la posición es negativa
+     * @throws IllegalStateException si hay más de 255 monedas distintas
+     */
+    public void put(int doc, ProductView previous, ProductView product) {
+        if (doc < 0) {
+            throw new IllegalArgumentException("Posicion no valida: " + doc);
+        }
+        Set<String> newTerms = termsOf(product);
+        Set<String> newGrams = gramsOf(newTerms);
+        lock.writeLock().lock();
+        try {
+            if (previous != null) {
+                Set<String> oldTerms = termsOf(previous);
+                removeMissing(terms, oldTerms, newTerms, doc);
+                removeMissing(grams, gramsOf(oldTerms), newGrams, doc);
+                removeFacet(categories, previous.getCategory(), product.getCategory(), doc);
+                removeFacet(sizes, previous.getSize(), product.getSize(), doc);
+                removeFacet(colors, previous.getColor(), product.getColor(), doc);
+            }
+            addAll(terms, newTerms, doc);
+            addAll(grams, newGrams, doc);
+            addFacet(categories, product.getCategory(), doc);
+            addFacet(sizes, product.getSize(), doc);
+            addFacet(colors, product.getColor(), doc);
+            all.add(doc);
+            if (doc >= prices.length) {
+                int grown = Math.max(doc + 1, prices.length + (prices.length >> 1));
+                prices = Arrays.copyOf(prices, grown);
+                priceCurrencies = Arrays.copyOf(priceCurrencies, grown);
+            }
+            Money price = product.getPrice();
+            prices[doc] = price != null ? price.getAmount() : 0L;
+            priceCurrencies[doc] = (byte) (price != null ? currencies.encode(price.getCurrency().getCurrencyCode()) : 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice.
+     *
+     * @param doc Posición del producto
+     * @param previous Datos con que se indexó el producto
+     */
+    public void remove(int doc, ProductView previous) {
+        Set<String> oldTerms = termsOf(previous);
+        Set<String> none = new LinkedHashSet<>();
+        lock.writeLock().lock();
+        try {
+            removeMissing(terms, oldTerms, none, doc);
+            removeMissing(grams, gramsOf(oldTerms), none, doc);
+            removeFacet(categories, previous.getCategory(), null, doc);
+            removeFacet(sizes, previous.getSize(), null, doc);
+            removeFacet(colors, previous.getColor(), null, doc);
+            all.remove(doc);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos que cumplen una consulta, en orden de posición.
+     *
+     * @param query Consulta
+     * @param limit Cantidad máxima de resultados, positiva
+     * @return Posiciones de hasta limit productos
+     * @throws IllegalArgumentException si limit no es positivo
+     */
+    public int[] search(ProductQuery query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El limite debe ser positivo: " + limit);
+        }
+        String text = query.getText();
+        int wordStart = query.isPrefix() ? SearchTokenizer.lastWordStart(text) : text != null ? text.length() : 0;
+        Set<String> words = new LinkedHashSet<>(SearchTokenizer.tokens(text != null ? text.substring(0, wordStart) : null));
+        String prefix = text != null && wordStart < text.length()
+                ? SearchTokenizer.stem(SearchTokenizer.normalize(text.substring(wordStart))) : null;
+        lock.readLock().lock();
+        try {
+            List<Source> sources = new ArrayList<>(words.size() + 4);
+            for (String word : words) {
+                if (!addSource(sources, terms.get(word))) {
+                    return new int[0];
+                }
+            }
+            if (prefix != null && !addPrefixSource(sources, prefix)) {
+                return new int[0];
+            }
+            if ((query.getCategory() != null && !addSource(sources, facet(categories, query.getCategory())))
+                    || (query.getSize() != null && !addSource(sources, facet(sizes, query.getSize())))
+                    || (query.getColor() != null && !addSource(sources, facet(colors, query.getColor())))) {
+                return new int[0];
+            }
+            if (sources.isEmpty()) {
+                sources.add(new Source(all));
+            }
+            return intersect(sources, query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sugiere cómo completar la última palabra de un texto que se está
+     * escribiendo: las palabras del índice que empiezan con ella, de la
+     * más frecuente a la menos frecuente.
+     *
+     * @param text Texto escrito hasta ahora
+     * @param limit Cantidad máxima de sugerencias, positiva
+     * @return Palabras normalizadas, sin tildes y en singular
+     * @throws IllegalArgumentException si limit no es positivo
+     */
+    public List<String> suggest(String text, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El limite debe ser positivo: " + limit);
+        }
+        int wordStart = SearchTokenizer.lastWordStart(text);
+        if (text == null || wordStart == text.length()) {
+            return new ArrayList<>();
+        }
+        String prefix = SearchTokenizer.stem(SearchTokenizer.normalize(text.substring(wordStart)));
+        String[] best = new String[limit];
+        int[] counts = new int[limit];
+        int found = 0;
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<String, PostingList> entry : prefixRange(prefix).entrySet()) {
+                int count = entry.getValue().cardinality();
+                if (found == limit && count <= counts[limit - 1]) {
+                    continue;
+                }
+                // Inserción ordenada en el arreglo de las mejores
+                int i = found < limit ? found++ : limit - 1;
+                while (i > 0 && counts[i - 1] < count) {
+                    best[i] = best[i - 1];
+                    counts[i] = counts[i - 1];
+                    i--;
+                }
+                best[i] = entry.getKey();
+                counts[i] = count;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new ArrayList<>(Arrays.asList(best).subList(0, found));
+    }
+
+    /**
+     * Obtiene la cantidad de productos indexados.
+     *
+     * @return Número de productos
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene la cantidad de palabras distintas del índice.
+     *
+     * @return Número de palabras
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estima la memoria que ocupan las listas y los precios del índice.
+     *
+     * @return Bytes aproximados
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = all.memoryBytes() + prices.length * 9L;
+            for (Collection<PostingList> lists : Arrays.asList(terms.values(), grams.values(),
+                    categories.values(), sizes.values(), colors.values())) {
+                for (PostingList list : lists) {
+                    bytes += list.memoryBytes();
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Intersecta bloque a bloque: con algún arreglo se recorre el más corto
+    // y se busca en los demás; si todos son mapas de bits se hace AND de palabras.
+    private int[] intersect(List<Source> sources, ProductQuery query, int limit) {
+        sources.sort(Comparator.comparingLong(source -> source.cost));
+        Source[] lists = sources.toArray(new Source[0]);
+        int lastHigh = Integer.MAX_VALUE;
+        for (Source source : lists) {
+            lastHigh = Math.min(lastHigh, source.lastHigh());
+        }
+        PriceFilter price = new PriceFilter(query);
+        if (price.impossible) {
+            return new int[0];
+        }
+        int[] found = new int[Math.min(limit, 64)];
+        int count = 0;
+        blocks:
+        for (int high = 0; high <= lastHigh; high++) {
+            Source shortest = null;
+            for (Source source : lists) {
+                if (!source.load(high)) {
+                    continue blocks;
+                }
+                if (source.values != null && (shortest == null || source.size < shortest.size)) {
+                    shortest = source;
+                }
+            }
+            int base = high << 16;
+            if (shortest != null) {
+                candidates:
+                for (int i = 0; i < shortest.size; i++) {
+                    int low = shortest.values[i];
+                    for (Source source : lists) {
+                        if (source != shortest && !source.contains(low)) {
+                            continue candidates;
+                        }
+                    }
+                    if (price.accepts(base + low)) {
+                        found = append(found, count, limit, base + low);
+                        if (++count == limit) {
+                            break blocks;
+                        }
+                    }
+                }
+            } else {
+                for (int w = 0; w < PostingList.BITMAP_WORDS; w++) {
+                    long word = -1L;
+                    for (int s = 0; s < lists.length && word != 0; s++) {
+                        word &= lists[s].bits[w];
+                    }
+                    for (; word != 0; word &= word - 1) {
+                        int doc = base + (w << 6) + Long.numberOfTrailingZeros(word);
+                        if (price.accepts(doc)) {
+                            found = append(found, count, limit, doc);
+                            if (++count == limit) {
+                                break blocks;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return count == found.length ? found : Arrays.copyOf(found, count);
+    }
+
+    private static int[] append(int[] found, int count, int limit, int doc) {
+        if (count == found.length) {
+            found = Arrays.copyOf(found, Math.min(limit, count * 2));
+        }
+        found[count] = doc;
+        return found;
+    }
+
+    private boolean addPrefixSource(List<Source> sources, String prefix) {
+        if (prefix.length() <= MAX_GRAM) {
+            return addSource(sources, grams.get(prefix));
+        }
+        Collection<PostingList> matches = prefixRange(prefix).values();
+        if (matches.isEmpty()) {
+            return false;
+        }
+        sources.add(new Source(matches.toArray(new PostingList[0])));
+        return true;
+    }
+
+    private NavigableMap<String, PostingList> prefixRange(String prefix) {
+        return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static boolean addSource(List<Source> sources, PostingList list) {
+        if (list == null) {
+            return false;
+        }
+        sources.add(new Source(list));
+        return true;
+    }
+
+    private static PostingList facet(Map<String, PostingList> lists, String value) {
+        return lists.get(SearchTokenizer.normalize(value));
+    }
+
+    private static Set<String> termsOf(ProductView product) {
+        Set<String> words = new LinkedHashSet<>();
+        words.addAll(SearchTokenizer.tokens(product.getName()));
+        words.addAll(SearchTokenizer.tokens(product.getDescription()));
+        words.addAll(SearchTokenizer.tokens(product.getCategory()));
+        words.addAll(SearchTokenizer.tokens(product.getSize()));
+        words.addAll(SearchTokenizer.tokens(product.getColor()));
+        return words;
+    }
+
+    private static Set<String> gramsOf(Set<String> words) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String word : words) {
+            for (int n = 1; n <= Math.min(MAX_GRAM, word.length()); n++) {
+                prefixes.add(word.substring(0, n));
+            }
+        }
+        return prefixes;
+    }
+
+    private static void addAll(Map<String, PostingList> lists, Set<String> keys, int doc) {
+        for (String key : keys) {
+            lists.computeIfAbsent(key, k -> new PostingList()).add(doc);
+        }
+    }
+
+    private static void removeMissing(Map<String, PostingList> lists, Set<String> oldKeys, Set<String> newKeys, int doc) {
+        for (String key : oldKeys) {
+            if (!newKeys.contains(key)) {
+                removeFrom(lists, key, doc);
+            }
+        }
+    }
+
+    private static void addFacet(Map<String, PostingList> lists, String value, int doc) {
+        if (value != null) {
+            lists.computeIfAbsent(SearchTokenizer.normalize(value), k -> new PostingList()).add(doc);
+        }
+    }
+
+    private static void removeFacet(Map<String, PostingList> lists, String oldValue, String newValue, int doc) {
+        if (oldValue == null) {
+            return;
+        }
+        String key = SearchTokenizer.normalize(oldValue);
+        if (!key.equals(SearchTokenizer.normalize(newValue))) {
+            removeFrom(lists, key, doc);
+        }
+    }
+
+    private static void removeFrom(Map<String, PostingList> lists, String key, int doc) {
+        PostingList list = lists.get(key);
+        if (list != null && list.remove(doc) && list.cardinality() == 0) {
+            lists.remove(key);
+        }
+    }
+
+    /**
+     * Condición de precio de una consulta, revisada en cada candidato.
+     */
+    private final class PriceFilter {
+
+        private final boolean active;
+        private final boolean impossible;
+        private final int currency;
+        private final long min;
+        private final long max;
+
+        PriceFilter(ProductQuery query) {
+            Money bound = query.getMinPrice() != null ? query.getMinPrice() : query.getMaxPrice();
+            active = bound != null;
+            currency = active ? currencies.find(bound.getCurrency().getCurrencyCode()) : 0;
+            impossible = currency < 0;
+            min = query.getMinPrice() != null ? query.getMinPrice().getAmount() : Long.MIN_VALUE;
+            max = query.getMaxPrice() != null ? query.getMaxPrice().getAmount() : Long.MAX_VALUE;
+        }
+
+        boolean accepts(int doc) {
+            return !active || (priceCurrencies[doc] == currency && prices[doc] >= min && prices[doc] <= max);
+        }
+    }
+
+    /**
+     * Una lista de la consulta, o la unión de las listas de las palabras que
+     * empiezan con un prefijo, vista de a un bloque de 65.536 posiciones.
+     */
+    private static final class Source {
+
+        private final PostingList[] lists;
+        private final long cost;
+        private long[] union;
+        // Bloque cargado: mapa de bits, o arreglo ordenado con su largo
+        private long[] bits;
+        private char[] values;
+        private int size;
+        private int position;
+
+        Source(PostingList... lists) {
+            this.lists = lists;
+            long total = 0;
+            for (PostingList list : lists) {
+                total += list.cardinality();
+            }
+            this.cost = total;
+        }
+
+        int lastHigh() {
+            int last = -1;
+            for (PostingList list : lists) {
+                last = Math.max(last, list.lastHigh());
+            }
+            return last;
+        }
+
+        // Carga el bloque; false si ninguna lista tiene posiciones en él
+        boolean load(int high) {
+            bits = null;
+            values = null;
+            position = 0;
+            if (lists.length == 1) {
+                int block = lists[0].findBlock(high);
+                if (block < 0) {
+                    return false;
+                }
+                bits = lists[0].bitmap(block);
+                values = lists[0].array(block);
+                size = lists[0].blockSize(block);
+                return true;
+            }
+            boolean any = false;
+            for (PostingList list : lists) {
+                int block = list.findBlock(high);
+                if (block < 0) {
+                    continue;
+                }
+                if (!any) {
+                    if (union == null) {
+                        union = new long[PostingList.BITMAP_WORDS];
+                    } else {
+                        Arrays.fill(union, 0L);
+                    }
+                    any = true;
+                }
+                long[] listBits = list.bitmap(block);
+                if (listBits != null) {
+                    for (int w = 0; w < PostingList.BITMAP_WORDS; w++) {
+                        union[w] |= listBits[w];
+                    }
+                } else {
+                    char[] listValues = list.array(block);
+                    for (int i = list.blockSize(block) - 1; i >= 0; i--) {
+                        union[listValues[i] >>> 6] |= 1L << listValues[i];
+                    }
+                }
+            }
+            bits = union;
+            return any;
+        }
+
+        // Las consultas llegan en orden creciente dentro del bloque
+        boolean contains(int low) {
+            if (bits != null) {
+                return (bits[low >>> 6] & (1L << low)) != 0;
+            }
+            int i = Arrays.binarySearch(values, position, size, (char) low);
+            position = i >= 0 ? i : -i - 1;
+            return i >= 0;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Separa textos en español en palabras para la búsqueda de productos.
+ * Las palabras se pasan a minúsculas y sin tildes ni diéresis (la ñ se
+ * busca como n), se cortan en todo lo que no sea letra o dígito y se
+ * descartan artículos y preposiciones. Los plurales regulares se llevan
+ * al singular ("camisetas" a "camiseta", "pantalones" a "pantalon"), de
+ * modo que el nombre y la categoría de un producto coinciden con la
+ * misma búsqueda.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class SearchTokenizer {
+
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "a", "al", "con", "de", "del", "e", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "u", "un", "una", "unas", "unos", "y"));
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Separa un texto en palabras normalizadas.
+     *
+     * @param text Texto, o null
+     * @return Palabras en el orden del texto, sin palabras vacías; puede tener repetidas
+     */
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder(16);
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? fold(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                String token = word.toString();
+                word.setLength(0);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(stem(token));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Busca dónde empieza la palabra con que termina el texto, que mientras
+     * el usuario escribe puede estar incompleta.
+     *
+     * @param text Texto de la consulta, o null
+     * @return Posición de la última palabra; el largo del texto si termina
+     *         en un separador o está vacío
+     */
+    static int lastWordStart(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int start = text.length();
+        while (start > 0 && Character.isLetterOrDigit(fold(text.charAt(start - 1)))) {
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * Normaliza un valor completo, como una categoría o un color, sin
+     * separarlo en palabras.
+     *
+     * @param value Valor, o null
+     * @return Valor en minúsculas, sin tildes y sin espacios en los extremos; null si value es null
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        StringBuilder folded = new StringBuilder(trimmed.length());
+        for (int i = 0; i < trimmed.length(); i++) {
+            folded.append(fold(trimmed.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Lleva una palabra normalizada al singular con las reglas regulares
+     * del español. Se aplica igual al indexar y al buscar, por lo que no
+     * necesita acertar siempre con la palabra real.
+     *
+     * @param token Palabra en minúsculas y sin tildes
+     * @return Raíz de la palabra
+     */
+    static String stem(String token) {
+        int n = token.length();
+        if (n > 4 && token.endsWith("es") && "lrndj".indexOf(token.charAt(n - 3)) >= 0) {
+            // "pantalones", "colores", "formales"
+            return token.substring(0, n - 2);
+        }
+        if (n > 3 && token.charAt(n - 1) == 's' && "aeiou".indexOf(token.charAt(n - 2)) >= 0) {
+            return token.substring(0, n - 1);
+        }
+        return token;
+    }
+
+    // Minúscula sin tilde; los caracteres fuera del latín básico quedan en minúscula
+    private static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        char lower = Character.toLowerCase(c);
+        switch (lower) {
+            case 'á':
+            case 'à':
+            case 'â':
+            case 'ä':
+            case 'ã':
+                return 'a';
+            case 'é':
+            case 'è':
+            case 'ê':
+            case 'ë':
+                return 'e';
+            case 'í':
+            case 'ì':
+            case 'î':
+            case 'ï':
+                return 'i';
+            case 'ó':
+            case 'ò':
+            case 'ô':
+            case 'ö':
+            case 'õ':
+                return 'o';
+            case 'ú':
+            case 'ù':
+            case 'û':
+            case 'ü':
+                return 'u';
+            case 'ñ':
+                return 'n';
+            case 'ç':
+                return 'c';
+            default:
+                return lower;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario que asigna un código entero a cada texto distinto.
+ * Se usa para guardar atributos muy repetidos, como categoría, talla y
+ * color, con un código corto en vez del texto completo. El código 0
+ * representa null; los textos reciben códigos consecutivos desde 1 y
+ * nunca cambian de código.
+ * Las lecturas no se bloquean; las altas se serializan.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class StringDictionary {
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private final int maxCodes;
+    private volatile String[] values;
+    private int size;
+
+    /**
+     * Crea un diccionario vacío.
+     *
+     * @param maxCodes Cantidad máxima de textos distintos
+     */
+    public StringDictionary(int maxCodes) {
+        this.maxCodes = maxCodes;
+        this.values = new String[16];
+        this.size = 1;
+    }
+
+    /**
+     * Obtiene el código de un texto, asignándole uno nuevo si no lo tiene.
+     *
+     * @param value Texto, o null
+     * @return Código del texto; 0 si es null
+     * @throws IllegalStateException si el diccionario está lleno
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Obtiene el código de un texto sin asignar uno nuevo.
+     *
+     * @param value Texto, o null
+     * @return Código del texto, 0 si es null o -1 si no está en el diccionario
+     */
+    public int find(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+
+    /**
+     * Obtiene el texto de un código.
+     *
+     * @param code Código entregado por encode
+     * @return Texto del código; null para el código 0
+     * @throws IllegalArgumentException si el código no existe
+     */
+    public String decode(int code) {
+        String[] current = values;
+        if (code < 0 || code >= current.length || (code > 0 && current[code] == null)) {
+            throw new IllegalArgumentException("Codigo de diccionario desconocido: " + code);
+        }
+        return current[code];
+    }
+
+    /**
+     * Obtiene la cantidad de textos del diccionario, sin contar null.
+     *
+     * @return Número de textos
+     */
+    public synchronized int size() {
+        return size - 1;
+    }
+
+    /**
+     * Obtiene los textos en orden de código, a partir del código 1.
+     *
+     * @return Copia de los textos
+     */
+    public synchronized List<String> values() {
+        List<String> list = new ArrayList<>(size - 1);
+        for (int i = 1; i < size; i++) {
+            list.add(values[i]);
+        }
+        return list;
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (size > maxCodes) {
+            throw new IllegalStateException("Diccionario lleno: " + maxCodes + " valores");
+        }
+        String[] current = values;
+        if (size == current.length) {
+            String[] grown = new String[current.length * 2];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            current = grown;
+        }
+        int code = size++;
+        current[code] = value;
+        // El arreglo se publica antes que el código, así quien obtiene el
+        // código desde el mapa siempre puede decodificarlo.
+        values = current;
+        codes.put(value, code);
+        return code;
+    }
+}
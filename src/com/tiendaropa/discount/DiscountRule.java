@@ -0,0 +1,268 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.discount;
+
+import com.tiendaropa.model.Money;
+import java.math.RoundingMode;
+
+/**
+ * Regla de descuento inmutable.
+ * Puede ser un porcentaje, un monto fijo por unidad o una promoción
+ * "lleve X y pague menos" (buy-X-get-Y). Opcionalmente se limita a una
+ * categoría de producto y a una ventana de fechas.
+ * Los montos fijos se expresan en unidades menores de la moneda de la
+ * tienda (pesos para CLP). Además de la forma double, la regla se puede
+ * aplicar sobre montos long sin crear objetos, que es la que usan los
+ * pedidos para que los totales sean exactos.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class DiscountRule {
+
+    /**
+     * Clase de regla de descuento.
+     */
+    public enum Kind {
+        PERCENTAGE,
+        FIXED,
+        BUY_X_GET_Y
+    }
+
+    private static final long BASIS_POINTS = 10000L;
+
+    private final DiscountType type;
+    private final Kind kind;
+    private final double value;
+    private final int buyQuantity;
+    private final int freeQuantity;
+    private final String category;
+    private final long validFrom;
+    private final long validUntil;
+    private final double factor;
+    private final double amount;
+    private final long keptBasisPoints;
+    private final long fixedMinor;
+
+    /**
+     * Constructor que inicializa una regla con todos sus atributos.
+     *
+     * @param type Tipo de descuento al que pertenece la regla
+     * @param kind Clase de regla
+     * @param value Porcentaje (0-100) o monto fijo; no se usa en BUY_X_GET_Y
+     * @param buyQuantity Unidades que se deben llevar en BUY_X_GET_Y
+     * @param freeQuantity Unidades gratis de cada grupo en BUY_X_GET_Y
+     * @param category Categoría a la que se limita la regla, o null para todas
+     * @param validFrom Inicio de vigencia en milisegundos epoch (incluido)
+     * @param validUntil Fin de vigencia en milisegundos epoch (excluido)
+     */
+    public DiscountRule(DiscountType type, Kind kind, double value, int buyQuantity, int freeQuantity,
+                        String category, long validFrom, long validUntil) {
+        if (kind == Kind.PERCENTAGE && (value < 0 || value > 100)) {
+            throw new IllegalArgumentException("Porcentaje fuera de rango: " + value);
+        }
+        if (kind == Kind.FIXED && value < 0) {
+            throw new IllegalArgumentException("Monto fijo negativo: " + value);
+        }
+        if (kind == Kind.BUY_X_GET_Y && (buyQuantity <= 0 || freeQuantity <= 0 || freeQuantity >= buyQuantity)) {
+            throw new IllegalArgumentException("Promocion " + buyQuantity + "x" + freeQuantity + " no valida");
+        }
+        this.type = type;
+        this.kind = kind;
+        this.value = value;
+        this.buyQuantity = buyQuantity;
+        this.freeQuantity = freeQuantity;
+        this.category = category;
+        this.validFrom = validFrom;
+        this.validUntil = validUntil;
+        // Forma lineal precio * factor - monto, común a porcentaje y monto fijo
+        this.factor = kind == Kind.PERCENTAGE ? (100 - value) / 100.0 : 1.0;
+        this.amount = kind == Kind.FIXED ? value : 0.0;
+        // Forma exacta: monto * (10000 - puntos base) / 10000 - monto fijo
+        this.keptBasisPoints = kind == Kind.PERCENTAGE ? BASIS_POINTS - Math.round(value * 100) : BASIS_POINTS;
+        this.fixedMinor = kind == Kind.FIXED ? Math.round(value) : 0L;
+    }
+
+    /**
+     * Crea una regla de porcentaje sin restricciones.
+     *
+     * @param type Tipo de descuento
+     * @param percent Porcentaje de descuento (0-100)
+     * @return La regla creada
+     */
+    public static DiscountRule percentage(DiscountType type, double percent) {
+        return new DiscountRule(type, Kind.PERCENTAGE, percent, 0, 0, null, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Indica si la regla aplica a un producto de la categoría indicada en un instante dado.
+     *
+     * @param productCategory Categoría del producto
+     * @param nowMillis Instante actual en milisegundos epoch
+     * @return true si la regla aplica
+     */
+    public boolean appliesTo(String productCategory, long nowMillis) {
+        return (category == null || category.equals(productCategory))
+                && nowMillis >= validFrom && nowMillis < validUntil;
+    }
+
+    /**
+     * Indica si la regla tiene ventana de fechas.
+     *
+     * @return true si la vigencia está limitada
+     */
+    public boolean isDateWindowed() {
+        return validFrom != Long.MIN_VALUE || validUntil != Long.MAX_VALUE;
+    }
+
+    /**
+     * Aplica la regla al precio de una unidad.
+     * Las promociones BUY_X_GET_Y no cambian el precio unitario; se
+     * aplican por línea con applyToLine.
+     *
+     * @param price Precio unitario
+     * @return Precio con descuento, nunca negativo
+     */
+    public double apply(double price) {
+        double discounted = price * factor - amount;
+        return discounted > 0 ? discounted : 0;
+    }
+
+    /**
+     * Aplica la regla a una línea de varias unidades del mismo producto.
+     *
+     * @param unitPrice Precio unitario
+     * @param quantity Cantidad de unidades
+     * @return Total de la línea con descuento
+     */
+    public double applyToLine(double unitPrice, int quantity) {
+        if (kind == Kind.BUY_X_GET_Y) {
+            return unitPrice * paidUnits(quantity);
+        }
+        return apply(unitPrice) * quantity;
+    }
+
+    /**
+     * Aplica la regla al precio exacto de una unidad.
+     * El descuento porcentual se redondea a la unidad menor con el modo
+     * indicado; el resultado nunca es negativo.
+     *
+     * @param unitAmount Precio unitario en unidades menores
+     * @param mode Modo de redondeo del descuento porcentual
+     * @return Precio con descuento en unidades menores
+     */
+    public long apply(long unitAmount, RoundingMode mode) {
+        long discounted = keptBasisPoints == BASIS_POINTS
+                ? unitAmount
+                : Money.scale(unitAmount, keptBasisPoints, BASIS_POINTS, mode);
+        discounted -= fixedMinor;
+        return discounted > 0 ? discounted : 0L;
+    }
+
+    /**
+     * Aplica la regla al precio exacto de una línea de varias unidades.
+     * El redondeo se hace por unidad, igual que al sumar unidades sueltas.
+     *
+     * @param unitAmount Precio unitario en unidades menores
+     * @param quantity Cantidad de unidades
+     * @param mode Modo de redondeo del descuento porcentual
+     * @return Total de la línea en unidades menores
+     */
+    public long applyToLine(long unitAmount, int quantity, RoundingMode mode) {
+        if (kind == Kind.BUY_X_GET_Y) {
+            return unitAmount * paidUnits(quantity);
+        }
+        return apply(unitAmount, mode) * quantity;
+    }
+
+    private int paidUnits(int quantity) {
+        return quantity - (quantity / buyQuantity) * freeQuantity;
+    }
+
+    /**
+     * Obtiene el tipo de descuento al que pertenece la regla.
+     *
+     * @return Tipo de descuento
+     */
+    public DiscountType getType() {
+        return type;
+    }
+
+    /**
+     * Obtiene la clase de regla.
+     *
+     * @return Clase de regla
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Obtiene el porcentaje o monto fijo de la regla.
+     *
+     * @return Valor de la regla
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Obtiene las unidades que se deben llevar en una promoción BUY_X_GET_Y.
+     *
+     * @return Unidades del grupo
+     */
+    public int getBuyQuantity() {
+        return buyQuantity;
+    }
+
+    /**
+     * Obtiene las unidades gratis de cada grupo en una promoción BUY_X_GET_Y.
+     *
+     * @return Unidades gratis
+     */
+    public int getFreeQuantity() {
+        return freeQuantity;
+    }
+
+    /**
+     * Obtiene el factor multiplicativo de la forma lineal precio * factor - monto.
+     * Para BUY_X_GET_Y vale 1, ya que no cambia el precio unitario.
+     *
+     * @return Factor aplicado al precio
+     */
+    public double getFactor() {
+        return factor;
+    }
+
+    /**
+     * Obtiene el monto restado en la forma lineal precio * factor - monto.
+     *
+     * @return Monto restado al precio
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    /**
+     * Obtiene la categoría a la que se limita la regla.
+     *
+     * @return Categoría, o null si aplica a todas
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Representación en texto de la regla.
+     *
+     * @return Cadena de texto con los datos principales de la regla
+     */
+    @Override
+    public String toString() {
+        return "DiscountRule{" + "type=" + type + ", kind=" + kind + ", value=" + value
+                + ", buy=" + buyQuantity + ", free=" + freeQuantity + ", category=" + category + '}';
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.discount;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conjunto inmutable de reglas de descuento compilado en una tabla de despacho.
+ * La tabla se indexa por el ordinal de DiscountType; cada entrada contiene
+ * primero las reglas limitadas a una categoría y luego las generales, en el
+ * orden del archivo. Se aplica la primera regla vigente que coincida.
+ *
+ * <p>Formato del archivo de reglas, una regla por línea:</p>
+ * <pre>
+ * # tipo[.categoria] = clase valor [desde=AAAA-MM-DD] [hasta=AAAA-MM-DD]
+ * SEASONAL = PERCENTAGE 20
+ * SPECIAL.Zapatos = FIXED 5000 desde=2026-12-01 hasta=2026-12-31
+ * MEMBER.Camisetas = BUY_X_GET_Y 3 1
+ * </pre>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class DiscountRuleSet {
+
+    private static final DiscountRule[] NO_RULES = new DiscountRule[0];
+
+    private final DiscountRule[][] table;
+    private final boolean[] windowed;
+    private final int size;
+
+    private DiscountRuleSet(List<DiscountRule> rules) {
+        int types = DiscountType.values().length;
+        this.table = new DiscountRule[types][];
+        this.windowed = new boolean[types];
+        for (DiscountType type : DiscountType.values()) {
+            List<DiscountRule> ofType = new ArrayList<>();
+            for (DiscountRule rule : rules) {
+                if (rule.getType() == type && rule.getCategory() != null) {
+                    ofType.add(rule);
+                }
+            }
+            for (DiscountRule rule : rules) {
+                if (rule.getType() == type && rule.getCategory() == null) {
+                    ofType.add(rule);
+                }
+            }
+            table[type.ordinal()] = ofType.isEmpty() ? NO_RULES : ofType.toArray(NO_RULES);
+            for (DiscountRule rule : ofType) {
+                windowed[type.ordinal()] |= rule.isDateWindowed();
+            }
+        }
+        this.size = rules.size();
+    }
+
+    /**
+     * Compila un conjunto de reglas.
+     *
+     * @param rules Reglas a compilar
+     * @return Conjunto compilado
+     */
+    public static DiscountRuleSet of(List<DiscountRule> rules) {
+        return new DiscountRuleSet(rules);
+    }
+
+    /**
+     * Obtiene las reglas predeterminadas de la tienda:
+     * SEASONAL 20%, MEMBER 10% y SPECIAL 30%.
+     *
+     * @return Conjunto con las reglas predeterminadas
+     */
+    public static DiscountRuleSet defaults() {
+        List<DiscountRule> rules = new ArrayList<>();
+        rules.add(DiscountRule.percentage(DiscountType.SEASONAL, 20));
+        rules.add(DiscountRule.percentage(DiscountType.MEMBER, 10));
+        rules.add(DiscountRule.percentage(DiscountType.SPECIAL, 30));
+        return new DiscountRuleSet(rules);
+    }
+
+    /**
+     * Carga y compila las reglas de un archivo.
+     *
+     * @param path Ruta del archivo de reglas
+     * @return Conjunto compilado
+     * @throws IOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si una línea no es válida
+     */
+    public static DiscountRuleSet load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Lee y compila reglas en el formato de archivo de reglas.
+     *
+     * @param reader Origen del texto de las reglas
+     * @return Conjunto compilado
+     * @throws IOException si no se puede leer el texto
+     * @throws IllegalArgumentException si una línea no es válida
+     */
+    public static DiscountRuleSet parse(Reader reader) throws IOException {
+        List<DiscountRule> rules = new ArrayList<>();
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(parseRule(line));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Regla no valida en la linea " + lineNumber + ": " + line, e);
+            }
+        }
+        return new DiscountRuleSet(rules);
+    }
+
+    private static DiscountRule parseRule(String line) {
+        int eq = line.indexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("Falta '='");
+        }
+        String key = line.substring(0, eq).trim();
+        String[] parts = line.substring(eq + 1).trim().split("\\s+");
+
+        String category = null;
+        int dot = key.indexOf('.');
+        if (dot >= 0) {
+            category = key.substring(dot + 1);
+            key = key.substring(0, dot);
+        }
+        DiscountType type = DiscountType.valueOf(key);
+        DiscountRule.Kind kind = DiscountRule.Kind.valueOf(parts[0]);
+
+        int next = 1;
+        double value = 0;
+        int buy = 0;
+        int free = 0;
+        if (kind == DiscountRule.Kind.BUY_X_GET_Y) {
+            buy = Integer.parseInt(parts[next++]);
+            free = Integer.parseInt(parts[next++]);
+        } else {
+            value = Double.parseDouble(parts[next++]);
+        }
+
+        long from = Long.MIN_VALUE;
+        long until = Long.MAX_VALUE;
+        for (; next < parts.length; next++) {
+            String option = parts[next];
+            if (option.startsWith("desde=")) {
+                from = startOfDay(option.substring(6), 0);
+            } else if (option.startsWith("hasta=")) {
+                // "hasta" incluye el día completo
+                until = startOfDay(option.substring(6), 1);
+            } else {
+                throw new IllegalArgumentException("Opcion desconocida: " + option);
+            }
+        }
+        return new DiscountRule(type, kind, value, buy, free, category, from, until);
+    }
+
+    private static long startOfDay(String date, int plusDays) {
+        try {
+            return LocalDate.parse(date).plusDays(plusDays)
+                    .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Fecha no valida: " + date, e);
+        }
+    }
+
+    /**
+     * Busca la regla que aplica a un producto.
+     * Para los tipos sin reglas con categoría ni fechas, basta un acceso
+     * a la tabla y la comparación de la primera regla.
+     *
+     * @param type Tipo de descuento
+     * @param category Categoría del producto, o null si no se conoce
+     * @return La regla que aplica o null si ninguna aplica
+     */
+    public DiscountRule find(DiscountType type, String category) {
+        int index = type.ordinal();
+        DiscountRule[] rules = table[index];
+        long now = windowed[index] ? System.currentTimeMillis() : 0L;
+        for (DiscountRule rule : rules) {
+            if (rule.appliesTo(category, now)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene la cantidad de reglas del conjunto.
+     *
+     * @return Número de reglas
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package com.tiendaropa.discount;
+
+/**
+ * Tipos de descuento que puede tener un pedido.
+ * El ordinal de cada tipo se usa como índice en la tabla compilada
+ * de reglas de DiscountRuleSet.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum DiscountType {
+    NONE,
+    SEASONAL,
+    MEMBER,
+    SPECIAL;
+
+    private static final DiscountType[] VALUES = values();
+
+    /**
+     * Obtiene el tipo de descuento a partir de su código de texto.
+     * Los códigos desconocidos o nulos equivalen a NONE, igual que
+     * el caso por defecto del antiguo switch de DiscountManager.
+     *
+     * @param code Código del descuento (por ejemplo "SEASONAL")
+     * @return Tipo de descuento correspondiente
+     */
+    public static DiscountType fromCode(String code) {
+        if (code != null) {
+            for (DiscountType type : VALUES) {
+                if (type.name().equals(code)) {
+                    return type;
+                }
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Obtiene el tipo de descuento a partir de su ordinal.
+     *
+     * @param ordinal Ordinal del tipo
+     * @return Tipo de descuento correspondiente
+     */
+    public static DiscountType fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,24 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package com.tiendaropa.events;
+
+/**
+ * Qué hace OrderEventBus cuando el buffer está lleno porque el suscriptor
+ * más lento no alcanza a los publicadores.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum BackpressurePolicy {
+    /**
+     * El evento espera en una cola de desborde y el publicador espera en
+     * OrderEventBus.awaitPublished, fuera del bloqueo del pedido, a que haya
+     * lugar; ningún suscriptor pierde eventos.
+     */
+    BLOCK,
+    /** El evento se descarta y se cuenta; el publicador nunca espera. */
+    DROP
+}
@@ -0,0 +1,202 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.events;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+
+/**
+ * Cambio de un pedido publicado en el OrderEventBus. Además del tipo de
+ * cambio lleva el estado del pedido justo después de él (estado,
+ * descuento y total), de modo que un suscriptor no necesita volver a
+ * leer el pedido.
+ * Los eventos del buffer se reutilizan: el bus rellena el mismo objeto
+ * con cada vuelta del anillo, así que publicar no crea eventos nuevos.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderEvent {
+
+    private OrderEventType type;
+    private String orderId;
+    private String previousOrderId;
+    private String customerId;
+    private String sku;
+    private int quantity;
+    private OrderStatus status;
+    private String discountType;
+    private Money totalAmount;
+    private long journalSequence;
+    private long timestamp;
+
+    OrderEvent() {
+    }
+
+    // Lo llama el bus bajo el bloqueo del pedido, antes de publicar el evento
+    void set(OrderEventType type, Order order, String sku, int quantity, String previousOrderId) {
+        this.type = type;
+        this.orderId = order.getId();
+        this.previousOrderId = previousOrderId;
+        this.customerId = order.getCustomerId();
+        this.sku = sku;
+        this.quantity = quantity;
+        this.status = order.getStatus();
+        this.discountType = order.getDiscountType();
+        this.totalAmount = order.getTotalAmount();
+        this.journalSequence = order.getJournalSequence();
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    // Copia otro evento en esta posición del anillo
+    void set(OrderEvent other) {
+        this.type = other.type;
+        this.orderId = other.orderId;
+        this.previousOrderId = other.previousOrderId;
+        this.customerId = other.customerId;
+        this.sku = other.sku;
+        this.quantity = other.quantity;
+        this.status = other.status;
+        this.discountType = other.discountType;
+        this.totalAmount = other.totalAmount;
+        this.journalSequence = other.journalSequence;
+        this.timestamp = other.timestamp;
+    }
+
+    /**
+     * Obtiene una copia que se puede guardar después de onEvent.
+     *
+     * @return Copia del evento
+     */
+    public OrderEvent copy() {
+        OrderEvent copy = new OrderEvent();
+        copy.type = type;
+        copy.orderId = orderId;
+        copy.previousOrderId = previousOrderId;
+        copy.customerId = customerId;
+        copy.sku = sku;
+        copy.quantity = quantity;
+        copy.status = status;
+        copy.discountType = discountType;
+        copy.totalAmount = totalAmount;
+        copy.journalSequence = journalSequence;
+        copy.timestamp = timestamp;
+        return copy;
+    }
+
+    /**
+     * Obtiene el tipo de cambio.
+     *
+     * @return Tipo del evento
+     */
+    public OrderEventType getType() {
+        return type;
+    }
+
+    /**
+     * Obtiene el identificador del pedido; en REKEYED, el nuevo.
+     *
+     * @return Identificador del pedido
+     */
+    public String getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Obtiene el identificador anterior del pedido.
+     *
+     * @return Identificador anterior en REKEYED, null en los demás tipos
+     */
+    public String getPreviousOrderId() {
+        return previousOrderId;
+    }
+
+    /**
+     * Obtiene el cliente del pedido.
+     *
+     * @return Identificador del cliente
+     */
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Obtiene el producto que cambió.
+     *
+     * @return SKU en ITEM_CHANGED, null en los demás tipos
+     */
+    public String getSku() {
+        return sku;
+    }
+
+    /**
+     * Obtiene la cantidad del producto después del cambio.
+     *
+     * @return Cantidad en ITEM_CHANGED, 0 si se quitó o en los demás tipos
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Obtiene el estado del pedido después del cambio.
+     *
+     * @return Estado del pedido
+     */
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Obtiene el tipo de descuento del pedido después del cambio.
+     *
+     * @return Código del descuento
+     */
+    public String getDiscountType() {
+        return discountType;
+    }
+
+    /**
+     * Obtiene el total del pedido después del cambio.
+     *
+     * @return Total con descuentos
+     */
+    public Money getTotalAmount() {
+        return totalAmount;
+    }
+
+    /**
+     * Obtiene la secuencia del journal del cambio.
+     *
+     * @return Secuencia del journal, o 0 si el servicio no tiene journal
+     */
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Obtiene el momento en que se publicó el evento.
+     *
+     * @return Milisegundos desde la época
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Representación en texto del evento.
+     *
+     * @return Tipo, pedido y datos del cambio
+     */
+    @Override
+    public String toString() {
+        return "OrderEvent{" + "type=" + type + ", orderId=" + orderId +
+               (previousOrderId != null ? ", previousOrderId=" + previousOrderId : "") +
+               (sku != null ? ", sku=" + sku + ", quantity=" + quantity : "") +
+               ", status=" + status + ", discountType=" + discountType + ", totalAmount=" + totalAmount + '}';
+    }
+}
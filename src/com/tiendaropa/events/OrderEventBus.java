@@ -0,0 +1,488 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.events;
+
+import com.tiendaropa.model.Order;
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bus en memoria de los cambios de pedidos, al estilo del Disruptor de LMAX.
+ * Los eventos viven en un anillo de tamaño fijo que se reutiliza, así que
+ * publicar no crea objetos. Varios hilos publican a la vez sin bloqueos:
+ * cada uno reserva una secuencia con compare-and-set, rellena el evento de
+ * esa posición y lo marca como disponible.
+ * Cada suscriptor tiene su propio hilo y su propia secuencia, y procesa en
+ * un solo lote todos los eventos publicados desde su última pasada; un
+ * suscriptor lento no detiene a los demás. Cuando el anillo se llena porque
+ * el suscriptor más lento quedó una vuelta atrás, la política de
+ * BackpressurePolicy decide si el publicador espera (BLOCK) o si el evento
+ * se descarta y se cuenta (DROP).
+ * publish nunca espera, porque se llama bajo el bloqueo del pedido y esperar
+ * ahí detendría a todos los hilos que usan ese bloqueo, o a un suscriptor
+ * que vuelva a OrderService por un pedido del mismo bin. Con BLOCK, un
+ * evento que no cabe queda en una cola de desborde, y los siguientes van
+ * detrás de él para no adelantar a otro del mismo pedido; el publicador
+ * espera en awaitPublished, ya sin el bloqueo, a que la cola entre al anillo.
+ * Los suscriptores se registran antes de start. Al cerrar el bus, cada
+ * suscriptor termina de procesar los eventos ya publicados.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderEventBus implements Closeable {
+
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long PARK_NANOS = 50_000L;
+
+    private final OrderEvent[] ring;
+    // Vuelta del anillo en que se publicó cada posición; -1 si nunca se publicó
+    private final int[] available;
+    private final int mask;
+    private final int shift;
+    private final BackpressurePolicy policy;
+    // Última secuencia reservada por un publicador
+    private final Sequence cursor = new Sequence(-1L);
+    // Última secuencia mínima leída de los suscriptores, para no recorrerlos en cada publicación
+    private final Sequence gatingCache = new Sequence(-1L);
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    // Eventos que no cupieron en el anillo con BLOCK, en el orden en que se publicaron
+    private final ConcurrentLinkedQueue<OrderEvent> overflow = new ConcurrentLinkedQueue<>();
+    // Un solo hilo a la vez pasa la cola de desborde al anillo, para conservar su orden
+    private final ReentrantLock draining = new ReentrantLock();
+    private volatile Sequence[] gating = new Sequence[0];
+    private volatile Thread[] consumers = new Thread[0];
+    private volatile boolean started;
+    private volatile boolean closed;
+
+    /**
+     * Crea un bus sin suscriptores.
+     *
+     * @param capacity Cantidad de eventos del anillo, potencia de 2
+     * @param policy Qué hacer cuando el anillo está lleno
+     * @throws IllegalArgumentException si la capacidad no es una potencia de 2 mayor que 1
+     */
+    public OrderEventBus(int capacity, BackpressurePolicy policy) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacidad debe ser una potencia de 2: " + capacity);
+        }
+        this.ring = new OrderEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new OrderEvent();
+        }
+        this.available = new int[capacity];
+        Arrays.fill(available, -1);
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfTrailingZeros(capacity);
+        this.policy = policy;
+    }
+
+    /**
+     * Registra un suscriptor, que recibirá los eventos publicados desde ahora.
+     *
+     * @param name Nombre del suscriptor, usado en el nombre de su hilo
+     * @param listener Código que procesa los eventos
+     * @throws IllegalStateException si el bus ya está iniciado
+     */
+    public synchronized void subscribe(String name, OrderEventListener listener) {
+        if (started) {
+            throw new IllegalStateException("El bus ya esta iniciado");
+        }
+        Subscriber subscriber = new Subscriber(name, listener, new Sequence(cursor.get()));
+        subscribers.add(subscriber);
+        Sequence[] current = gating;
+        Sequence[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = subscriber.sequence;
+        gating = next;
+    }
+
+    /**
+     * Inicia un hilo por suscriptor.
+     *
+     * @throws IllegalStateException si el bus ya estaba iniciado
+     */
+    public synchronized void start() {
+        if (started) {
+            throw new IllegalStateException("El bus ya esta iniciado");
+        }
+        started = true;
+        Thread[] threads = new Thread[subscribers.size()];
+        for (int i = 0; i < threads.length; i++) {
+            Subscriber subscriber = subscribers.get(i);
+            subscriber.thread = Thread.ofPlatform().daemon().name("order-events-" + subscriber.name).start(subscriber);
+            threads[i] = subscriber.thread;
+        }
+        consumers = threads;
+    }
+
+    /**
+     * Publica un cambio de un pedido sin producto asociado.
+     * Debe llamarse bajo el bloqueo del pedido para que el evento vea el
+     * pedido tal como quedó tras el cambio. No espera nunca; con BLOCK, el
+     * publicador llama a awaitPublished después de soltar el bloqueo.
+     *
+     * @param type Tipo de cambio
+     * @param order Pedido ya modificado
+     * @return true si se publicó o quedó en la cola de desborde; false si se descartó por falta de lugar o porque el bus está cerrado
+     */
+    public boolean publish(OrderEventType type, Order order) {
+        return publish(type, order, null, 0, null);
+    }
+
+    /**
+     * Publica el cambio de cantidad de un producto de un pedido.
+     *
+     * @param order Pedido ya modificado
+     * @param sku Identificador del producto
+     * @param quantity Cantidad del producto tras el cambio; 0 si se quitó
+     * @return true si se publicó; false si se descartó
+     */
+    public boolean publishItem(Order order, String sku, int quantity) {
+        return publish(OrderEventType.ITEM_CHANGED, order, sku, quantity, null);
+    }
+
+    /**
+     * Publica el cambio de identificador de un pedido.
+     *
+     * @param order Pedido, ya con su nuevo identificador
+     * @param previousOrderId Identificador anterior
+     * @return true si se publicó; false si se descartó
+     */
+    public boolean publishRekey(Order order, String previousOrderId) {
+        return publish(OrderEventType.REKEYED, order, null, 0, previousOrderId);
+    }
+
+    private boolean publish(OrderEventType type, Order order, String sku, int quantity, String previousOrderId) {
+        if (closed) {
+            dropped.increment();
+            return false;
+        }
+        // Si hay eventos en la cola de desborde, el nuevo va detrás para no adelantar a uno del mismo pedido
+        long sequence = overflow.isEmpty() ? claim() : -1L;
+        if (sequence >= 0) {
+            int index = (int) sequence & mask;
+            ring[index].set(type, order, sku, quantity, previousOrderId);
+            AVAILABLE.setRelease(available, index, (int) (sequence >>> shift));
+            return true;
+        }
+        if (policy == BackpressurePolicy.DROP) {
+            dropped.increment();
+            return false;
+        }
+        OrderEvent pending = new OrderEvent();
+        pending.set(type, order, sku, quantity, previousOrderId);
+        overflow.add(pending);
+        return true;
+    }
+
+    /**
+     * Con BLOCK, espera a que los eventos de la cola de desborde entren al
+     * anillo. Los publicadores la llaman después de soltar el bloqueo del
+     * pedido; sin eventos pendientes vuelve enseguida. Desde el hilo de un
+     * suscriptor no espera, porque es ese suscriptor el que tiene que
+     * liberar lugar; la cola la vacían entonces los suscriptores.
+     */
+    public void awaitPublished() {
+        if (!overflow.isEmpty()) {
+            drainOverflow(!isConsumerThread());
+        }
+    }
+
+    // Pasa la cola de desborde al anillo en orden; sin wait se detiene en cuanto no hay lugar
+    private void drainOverflow(boolean wait) {
+        int idle = 0;
+        while (!overflow.isEmpty()) {
+            if (!draining.tryLock()) {
+                if (!wait) {
+                    return;
+                }
+                idle = idle(idle);
+                continue;
+            }
+            try {
+                OrderEvent pending;
+                while ((pending = overflow.peek()) != null) {
+                    long sequence = claim();
+                    if (sequence < 0) {
+                        if (!wait) {
+                            return;
+                        }
+                        idle = idle(idle);
+                        continue;
+                    }
+                    int index = (int) sequence & mask;
+                    ring[index].set(pending);
+                    AVAILABLE.setRelease(available, index, (int) (sequence >>> shift));
+                    // Se quita después de publicarlo, así un evento nuevo no lo adelanta mientras tanto
+                    overflow.poll();
+                    idle = 0;
+                }
+            } finally {
+                draining.unlock();
+            }
+        }
+    }
+
+    private boolean isConsumerThread() {
+        Thread current = Thread.currentThread();
+        for (Thread consumer : consumers) {
+            if (consumer == current) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Reserva la siguiente secuencia; -1 si el anillo está lleno
+    private long claim() {
+        while (true) {
+            long current = cursor.get();
+            long next = current + 1;
+            long wrapPoint = next - ring.length;
+            if (wrapPoint > gatingCache.get()) {
+                long min = minimumSequence(current);
+                gatingCache.set(min);
+                if (wrapPoint > min) {
+                    return -1L;
+                }
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    private long minimumSequence(long defaultValue) {
+        long min = defaultValue;
+        for (Sequence sequence : gating) {
+            min = Math.min(min, sequence.get());
+        }
+        return min;
+    }
+
+    // Última secuencia publicada sin huecos desde from; from - 1 si from aún no se publicó
+    private long highestPublished(long from, long claimed) {
+        for (long sequence = from; sequence <= claimed; sequence++) {
+            if ((int) AVAILABLE.getAcquire(available, (int) sequence & mask) != (int) (sequence >>> shift)) {
+                return sequence - 1;
+            }
+        }
+        return claimed;
+    }
+
+    // Espera activa breve, luego cede el procesador y al final duerme un poco
+    private static int idle(int tries) {
+        if (tries < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (tries < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            return tries;
+        }
+        return tries + 1;
+    }
+
+    /**
+     * Obtiene la cantidad de eventos del anillo.
+     *
+     * @return Capacidad del bus
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * Obtiene la política para cuando el anillo está lleno.
+     *
+     * @return Política del bus
+     */
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Obtiene la cantidad de eventos publicados en el anillo.
+     *
+     * @return Eventos aceptados desde que se creó el bus, sin los que siguen en la cola de desborde
+     */
+    public long getPublished() {
+        return cursor.get() + 1;
+    }
+
+    /**
+     * Obtiene la cantidad de eventos descartados.
+     *
+     * @return Eventos rechazados por falta de lugar o con el bus cerrado
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de eventos que lanzaron una excepción en algún suscriptor.
+     * El suscriptor sigue con el evento siguiente.
+     *
+     * @return Fallos de los suscriptores
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Obtiene cuántos eventos le faltan por procesar al suscriptor más lento.
+     *
+     * @return Eventos pendientes, incluidos los de la cola de desborde
+     */
+    public long getBacklog() {
+        long claimed = cursor.get();
+        return claimed - minimumSequence(claimed) + overflow.size();
+    }
+
+    /**
+     * Obtiene la cantidad de suscriptores.
+     *
+     * @return Número de suscriptores
+     */
+    public synchronized int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Deja de aceptar eventos y espera a que cada suscriptor procese los ya publicados.
+     */
+    @Override
+    public void close() {
+        List<Subscriber> running;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            running = new ArrayList<>(subscribers);
+        }
+        for (Subscriber subscriber : running) {
+            if (subscriber.thread == null) {
+                continue;
+            }
+            try {
+                subscriber.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Suscriptor con su hilo y la secuencia del último evento que procesó.
+     */
+    private final class Subscriber implements Runnable {
+
+        private final String name;
+        private final OrderEventListener listener;
+        private final Sequence sequence;
+        private Thread thread;
+
+        Subscriber(String name, OrderEventListener listener, Sequence sequence) {
+            this.name = name;
+            this.listener = listener;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (true) {
+                if (!overflow.isEmpty()) {
+                    drainOverflow(false);
+                }
+                long claimed = cursor.get();
+                long last = highestPublished(next, claimed);
+                if (last < next) {
+                    // Cerrado y sin eventos por procesar; la cola se mira antes que el cursor, porque un evento sale de ella ya reservado
+                    if (closed && overflow.isEmpty() && next > cursor.get()) {
+                        return;
+                    }
+                    idle = idle(idle);
+                    continue;
+                }
+                for (long current = next; current <= last; current++) {
+                    try {
+                        listener.onEvent(ring[(int) current & mask], current, current == last);
+                    } catch (RuntimeException e) {
+                        if (failures.sum() == 0) {
+                            System.err.println("Error en el suscriptor " + name + ": " + e);
+                        }
+                        failures.increment();
+                    }
+                }
+                // Libera las posiciones procesadas para los publicadores
+                sequence.set(last);
+                next = last + 1;
+                idle = 0;
+            }
+        }
+    }
+
+    /**
+     * Relleno para que el valor de una Sequence no comparta línea de caché con otros datos.
+     */
+    private static class LeftPadding {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private static class SequenceValue extends LeftPadding {
+        volatile long value;
+    }
+
+    /**
+     * Secuencia de 64 bits con relleno a ambos lados.
+     */
+    private static final class Sequence extends SequenceValue {
+
+        private static final VarHandle VALUE;
+
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        long p9, p10, p11, p12, p13, p14, p15;
+
+        Sequence(long initial) {
+            value = initial;
+        }
+
+        long get() {
+            return value;
+        }
+
+        void set(long newValue) {
+            value = newValue;
+        }
+
+        boolean compareAndSet(long expected, long newValue) {
+            return VALUE.compareAndSet(this, expected, newValue);
+        }
+    }
+}
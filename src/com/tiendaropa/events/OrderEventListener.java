@@ -0,0 +1,30 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.tiendaropa.events;
+
+/**
+ * Suscriptor de los eventos de pedidos. Cada suscriptor recibe todos los
+ * eventos en orden, desde su propio hilo, en lotes: todos los eventos
+ * publicados desde la última vez que se le llamó, con endOfBatch en el
+ * último del lote. Así un suscriptor que escribe a un sistema externo
+ * puede acumular el lote y enviarlo de una vez.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public interface OrderEventListener {
+
+    /**
+     * Procesa un evento. El objeto se reutiliza para eventos posteriores,
+     * así que hay que copiar lo que se quiera guardar (por ejemplo con
+     * OrderEvent.copy) antes de volver.
+     *
+     * @param event Evento, válido solo durante la llamada
+     * @param sequence Secuencia del evento en el bus
+     * @param endOfBatch true si es el último evento disponible por ahora
+     */
+    void onEvent(OrderEvent event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,27 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package com.tiendaropa.events;
+
+/**
+ * Tipos de cambio que OrderService publica en el OrderEventBus.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum OrderEventType {
+    /** Se creó el pedido. */
+    CREATED,
+    /** Cambió la cantidad de un producto; 0 si se quitó del pedido. */
+    ITEM_CHANGED,
+    /** Cambió el tipo de descuento del pedido. */
+    DISCOUNT_CHANGED,
+    /** Cambió el estado del pedido. */
+    STATUS_CHANGED,
+    /** Cambió el identificador del pedido. */
+    REKEYED,
+    /** Se eliminó el pedido. */
+    DELETED
+}
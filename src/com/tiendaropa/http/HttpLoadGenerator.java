@@ -0,0 +1,145 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.http;
+
+import com.tiendaropa.metrics.LatencyHistogram;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generador de carga local para OrderHttpServer.
+ * Para cada nivel de concurrencia abre esa cantidad de clientes, cada uno
+ * en un hilo virtual con su propia conexión, que crean pedidos, les agregan
+ * productos y los consultan sin pausa durante el tiempo indicado. Al final
+ * de cada nivel informa peticiones por segundo y los percentiles 50, 99 y
+ * 99.9 de la latencia. Los productos se agregan por SKU entre P1 y P1000,
+ * que el servidor guarda en su catálogo al iniciar con "--http".
+ *
+ * <p>Uso: {@code HttpLoadGenerator [url] [concurrencias] [segundos]}, por
+ * ejemplo {@code http://localhost:8080 1000,10000,50000 10}. Con decenas
+ * de miles de conexiones hay que subir el límite de descriptores de
+ * archivo del sistema (ulimit -n) en el cliente y en el servidor.</p>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class HttpLoadGenerator {
+
+    private static final int REQUESTS_PER_ORDER = 20;
+    private static final int SKUS = 1000;
+
+    private final HttpClient client;
+    private final URI base;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    private HttpLoadGenerator(HttpClient client, URI base) {
+        this.client = client;
+        this.base = base;
+    }
+
+    /**
+     * Ejecuta la carga.
+     *
+     * @param args URL del servidor, concurrencias separadas por coma y segundos por nivel
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public static void main(String[] args) throws InterruptedException {
+        URI base = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        String[] levels = (args.length > 1 ? args[1] : "1000,10000,50000").split(",");
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        for (String level : levels) {
+            int connections = Integer.parseInt(level.trim());
+            HttpLoadGenerator generator = new HttpLoadGenerator(client, base);
+            long start = System.nanoTime();
+            generator.run(connections, seconds);
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("conexiones=%d peticiones=%d req/s=%.0f errores=%d %s%n",
+                    connections, generator.latencies.getCount(),
+                    generator.latencies.getCount() / elapsed, generator.errors.sum(),
+                    generator.latencies.summary());
+        }
+    }
+
+    private void run(int connections, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                int client = i;
+                clients.submit(() -> runClient(client, deadline));
+            }
+        }
+    }
+
+    private void runClient(int clientNumber, long deadline) {
+        SplittableRandom random = new SplittableRandom(clientNumber);
+        String customerId = "L" + clientNumber;
+        String orderId = null;
+        int requests = 0;
+        while (System.nanoTime() < deadline) {
+            if (orderId == null || requests % REQUESTS_PER_ORDER == 0) {
+                String created = send("POST", "/orders", "{\"customerId\":\"" + customerId + "\"}");
+                orderId = created != null ? idOf(created) : null;
+            } else if (requests % 2 == 0) {
+                int sku = random.nextInt(SKUS) + 1;
+                send("POST", "/orders/" + orderId + "/items", "{\"sku\":\"P" + sku + "\",\"quantity\":1}");
+            } else {
+                send("GET", "/orders/" + orderId, null);
+            }
+            requests++;
+        }
+    }
+
+    private String send(String method, String path, String body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(base.resolve(path))
+                .timeout(Duration.ofSeconds(60));
+        if (body != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            latencies.recordSince(start);
+            if (response.statusCode() >= 400) {
+                errors.increment();
+                return null;
+            }
+            return response.body();
+        } catch (IOException e) {
+            errors.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static String idOf(String orderJson) {
+        int start = orderJson.indexOf("\"id\":\"");
+        if (start < 0) {
+            return null;
+        }
+        start += 6;
+        return orderJson.substring(start, orderJson.indexOf('"', start));
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.http;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lector de los cuerpos JSON de las peticiones, sin reflexión.
+ * Solo acepta un objeto plano: cada miembro es un texto, un número, un
+ * valor lógico o null. Los números y valores lógicos se entregan con su
+ * texto original.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class JsonReader {
+
+    private final Reader in;
+    private final int maxChars;
+    private int read;
+    private int peeked = -2;
+
+    private JsonReader(Reader in, int maxChars) {
+        this.in = in;
+        this.maxChars = maxChars;
+    }
+
+    /**
+     * Lee un objeto JSON plano.
+     *
+     * @param in Origen del texto
+     * @param maxChars Largo máximo aceptado
+     * @return Miembros del objeto en el orden en que aparecen
+     * @throws IOException si falla la lectura
+     * @throws IllegalArgumentException si el texto no es un objeto plano válido
+     */
+    public static Map<String, String> readObject(Reader in, int maxChars) throws IOException {
+        JsonReader reader = new JsonReader(in, maxChars);
+        Map<String, String> members = new LinkedHashMap<>();
+        reader.expect('{');
+        if (reader.peekToken() == '}') {
+            reader.next();
+        } else {
+            while (true) {
+                reader.skipWhitespace();
+                reader.expect('"');
+                String name = reader.string();
+                reader.expect(':');
+                members.put(name, reader.value());
+                int c = reader.nextToken();
+                if (c == '}') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("Se esperaba ',' o '}' en JSON");
+                }
+            }
+        }
+        if (reader.nextToken() != -1) {
+            throw new IllegalArgumentException("Texto sobrante despues del objeto JSON");
+        }
+        return members;
+    }
+
+    private String value() throws IOException {
+        int c = nextToken();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("Solo se aceptan objetos JSON planos");
+        }
+        StringBuilder literal = new StringBuilder();
+        while (c != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+            literal.append((char) c);
+            c = peek();
+            if (c != -1 && (Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.')) {
+                next();
+            }
+        }
+        String text = literal.toString();
+        if (text.equals("null")) {
+            return null;
+        }
+        if (text.isEmpty() || !(text.equals("true") || text.equals("false") || isNumber(text))) {
+            throw new IllegalArgumentException("Valor JSON no valido: " + text);
+        }
+        return text;
+    }
+
+    private static boolean isNumber(String text) {
+        try {
+            Double.parseDouble(text);
+            return Character.isDigit(text.charAt(text.length() - 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private String string() throws IOException {
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = next();
+            if (c == -1) {
+                throw new IllegalArgumentException("Texto JSON sin cerrar");
+            }
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append((char) c);
+                continue;
+            }
+            c = next();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    value.append((char) c);
+                    break;
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw new IllegalArgumentException("Escape unicode no valido en JSON");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    value.append((char) code);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Escape no valido en JSON");
+            }
+        }
+    }
+
+    private void expect(char expected) throws IOException {
+        if (nextToken() != expected) {
+            throw new IllegalArgumentException("Se esperaba '" + expected + "' en JSON");
+        }
+    }
+
+    private int nextToken() throws IOException {
+        skipWhitespace();
+        return next();
+    }
+
+    private int peekToken() throws IOException {
+        skipWhitespace();
+        return peek();
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            next();
+        }
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+            if (peeked != -1 && ++read > maxChars) {
+                throw new IllegalArgumentException("Cuerpo JSON demasiado largo");
+            }
+        }
+        return peeked;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        peeked = -2;
+        return c;
+    }
+}
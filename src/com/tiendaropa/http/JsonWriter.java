@@ -0,0 +1,239 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.http;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escritor de JSON por flujo, sin reflexión.
+ * Cada llamada escribe directamente en el Writer de destino, por lo que
+ * nunca se arma el documento completo en memoria. Se encarga de las comas
+ * entre elementos y del escape de los textos; el orden de las llamadas
+ * (nombre antes de cada valor de un objeto) es responsabilidad de quien lo usa.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class JsonWriter {
+
+    private static final int MAX_DEPTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Crea un escritor sobre un destino.
+     *
+     * @param out Destino del JSON; conviene que tenga buffer
+     */
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Abre un objeto.
+     *
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    /**
+     * Cierra el objeto abierto.
+     *
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    /**
+     * Abre un arreglo.
+     *
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    /**
+     * Cierra el arreglo abierto.
+     *
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    /**
+     * Escribe el nombre del siguiente miembro del objeto abierto.
+     *
+     * @param name Nombre del miembro
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Escribe un texto, o null.
+     *
+     * @param value Texto a escribir
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    /**
+     * Escribe un número entero.
+     *
+     * @param value Número a escribir
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Escribe un valor lógico.
+     *
+     * @param value Valor a escribir
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Escribe un miembro de texto del objeto abierto.
+     *
+     * @param name Nombre del miembro
+     * @param value Texto, o null
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter field(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /**
+     * Escribe un miembro numérico del objeto abierto.
+     *
+     * @param name Nombre del miembro
+     * @param value Número
+     * @return Este escritor
+     * @throws IOException si falla la escritura
+     */
+    public JsonWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /**
+     * Vacía el destino.
+     *
+     * @throws IOException si falla la escritura
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private JsonWriter open(char bracket) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON demasiado anidado");
+        }
+        separate();
+        out.write(bracket);
+        hasElements[depth++] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("No hay objeto ni arreglo abierto");
+        }
+        depth--;
+        out.write(bracket);
+        return this;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                out.write(',');
+            }
+            hasElements[depth - 1] = true;
+        }
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            out.write(value, start, i - start);
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+}
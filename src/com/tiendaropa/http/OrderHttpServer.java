@@ -0,0 +1,507 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tiendaropa.catalog.ProductCatalog;
+import com.tiendaropa.catalog.ProductQuery;
+import com.tiendaropa.inventory.StockReservations;
+import com.tiendaropa.metrics.MetricsRegistry;
+import com.tiendaropa.metrics.MetricsSnapshot;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.service.OrderService;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servidor HTTP embebido que expone OrderService como API JSON.
+ * Usa el servidor HTTP del JDK y atiende cada petición en su propio hilo
+ * virtual, de modo que las esperas (por ejemplo el fsync del journal) no
+ * ocupan hilos del sistema operativo. Las respuestas se escriben con
+ * JsonWriter directamente sobre la conexión.
+ * Un cambio de estado no permitido, o uno con "expected" cuando el pedido
+ * ya cambió de estado, responde 409. Las rutas de productos responden 404
+ * si el catálogo no tiene activada la búsqueda.
+ * Los productos se agregan solo por SKU del catálogo, que fija su nombre,
+ * precio y stock; un producto enviado completo o un SKU que el catálogo no
+ * tiene responde 400.
+ *
+ * <pre>
+ * POST   /orders                        {"customerId": "C1"}       crea un pedido
+ * GET    /orders?after=ID&amp;limit=N       pagina de pedidos por identificador
+ * GET    /orders?customerId=C1          pedidos de un cliente, también los archivados
+ * GET    /orders/{id}                   obtiene un pedido
+ * DELETE /orders/{id}                   elimina un pedido
+ * POST   /orders/{id}/items             {"sku": "P1", "quantity": 2}; el SKU debe estar en el catálogo
+ * PUT    /orders/{id}/items/{sku}       {"quantity": 3} cambia la cantidad; 0 lo quita
+ * DELETE /orders/{id}/items/{sku}       quita un producto
+ * PUT    /orders/{id}/discount          {"discountType": "MEMBER"}
+ * PUT    /orders/{id}/status            {"status": "Enviado", "expected": "Pagado"}; expected es opcional
+ * GET    /products?q=cami&amp;prefix=true   busca productos; filtros category, size, color,
+ *                                       minPrice, maxPrice y currency; limit (hasta 100)
+ * GET    /products/suggest?q=cami       completa la ultima palabra; limit (hasta 100)
+ * GET    /metrics                       metricas en formato de texto
+ * </pre>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class OrderHttpServer implements Closeable {
+
+    private static final int MAX_BODY_CHARS = 16 * 1024;
+    private static final int DEFAULT_PAGE = 100;
+    private static final int MAX_PAGE = 1000;
+    private static final int DEFAULT_RESULTS = 20;
+    private static final int MAX_RESULTS = 100;
+
+    private final OrderService orderService;
+    private final ProductCatalog catalog;
+    private final StockReservations inventory;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Crea el servidor sin iniciarlo.
+     *
+     * @param orderService Servicio de pedidos a exponer
+     * @param catalog Catálogo del que salen los productos que se agregan a
+     *                los pedidos; sin él no se pueden agregar productos
+     * @param inventory Reservas de stock del servicio, donde se registra el
+     *                  stock de los SKU del catálogo que llegan en las peticiones; o null
+     */
+    public OrderHttpServer(OrderService orderService, ProductCatalog catalog, StockReservations inventory) {
+        this.orderService = orderService;
+        this.catalog = catalog;
+        this.inventory = inventory;
+    }
+
+    /**
+     * Inicia el servidor.
+     *
+     * @param address Dirección y puerto donde escuchar; puerto 0 elige uno libre
+     * @param backlog Conexiones pendientes de aceptar que admite el sistema operativo
+     * @throws IOException si no se puede abrir el puerto
+     * @throws IllegalStateException si el servidor ya estaba iniciado
+     */
+    public synchronized void start(InetSocketAddress address, int backlog) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("El servidor ya esta iniciado");
+        }
+        // Sin TCP_NODELAY las respuestas por partes esperan el ACK retardado
+        // del cliente (~40 ms). El servidor del JDK lee la propiedad una sola
+        // vez, al crear el primer servidor del proceso.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(address, backlog);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/orders", this::handle);
+        server.createContext("/products", this::handle);
+        server.createContext("/metrics", this::handleMetrics);
+        server.start();
+    }
+
+    /**
+     * Obtiene la dirección en la que escucha el servidor.
+     *
+     * @return Dirección local, o null si no está iniciado
+     */
+    public synchronized InetSocketAddress getAddress() {
+        return server != null ? server.getAddress() : null;
+    }
+
+    /**
+     * Detiene el servidor, esperando hasta un segundo a las peticiones en curso.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(1);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("Error atendiendo " + exchange.getRequestURI() + ": " + e);
+            error(exchange, 500, "Error interno");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                notAllowed(exchange, "GET");
+                return;
+            }
+            MetricsSnapshot snapshot = MetricsRegistry.getDefault().snapshot();
+            exchange.getResponseHeaders().set("Content-Type", MetricsSnapshot.TEXT_CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, 0);
+            try (Writer out = new BufferedWriter(
+                    new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 4096)) {
+                snapshot.writeText(out);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getRawPath().substring(1).split("/");
+        if (path[0].equals("products")) {
+            routeProducts(exchange, method, path);
+            return;
+        }
+        if (path.length == 1) {
+            if (method.equals("POST")) {
+                createOrder(exchange);
+            } else if (method.equals("GET")) {
+                listOrders(exchange);
+            } else {
+                notAllowed(exchange, "GET, POST");
+            }
+            return;
+        }
+        String orderId = decode(path[1]);
+        if (path.length == 2) {
+            if (method.equals("GET")) {
+                getOrder(exchange, orderId);
+            } else if (method.equals("DELETE")) {
+                deleteOrder(exchange, orderId);
+            } else {
+                notAllowed(exchange, "GET, DELETE");
+            }
+            return;
+        }
+        String action = path[2];
+        if (action.equals("items") && path.length == 3) {
+            if (method.equals("POST")) {
+                addItem(exchange, orderId);
+            } else {
+                notAllowed(exchange, "POST");
+            }
+        } else if (action.equals("items") && path.length == 4) {
+            if (method.equals("DELETE")) {
+                removeItem(exchange, orderId, decode(path[3]));
+            } else if (method.equals("PUT")) {
+                setQuantity(exchange, orderId, decode(path[3]));
+            } else {
+                notAllowed(exchange, "DELETE, PUT");
+            }
+        } else if (path.length == 3 && (action.equals("discount") || action.equals("status"))) {
+            if (!method.equals("PUT") && !method.equals("POST")) {
+                notAllowed(exchange, "PUT, POST");
+            } else if (action.equals("discount")) {
+                applyDiscount(exchange, orderId);
+            } else {
+                changeStatus(exchange, orderId);
+            }
+        } else {
+            error(exchange, 404, "Ruta no encontrada");
+        }
+    }
+
+    private void routeProducts(HttpExchange exchange, String method, String[] path) throws IOException {
+        boolean suggest = path.length == 2 && path[1].equals("suggest");
+        if (path.length > 2 || (path.length == 2 && !suggest)) {
+            error(exchange, 404, "Ruta no encontrada");
+        } else if (!method.equals("GET")) {
+            notAllowed(exchange, "GET");
+        } else if (catalog == null || catalog.getSearchIndex() == null) {
+            error(exchange, 404, "La busqueda de productos no esta activada");
+        } else if (suggest) {
+            suggestProducts(exchange);
+        } else {
+            searchProducts(exchange);
+        }
+    }
+
+    private void searchProducts(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        String currencyCode = query.get("currency");
+        Currency currency = currencyCode != null ? Currency.getInstance(currencyCode) : Money.CLP;
+        Money minPrice = query.containsKey("minPrice") ? Money.of(Long.parseLong(query.get("minPrice")), currency) : null;
+        Money maxPrice = query.containsKey("maxPrice") ? Money.of(Long.parseLong(query.get("maxPrice")), currency) : null;
+        ProductQuery search = new ProductQuery(query.get("q"), Boolean.parseBoolean(query.get("prefix")),
+                query.get("category"), query.get("size"), query.get("color"), minPrice, maxPrice);
+        List<ProductView> products = catalog.search(search, resultLimit(query));
+        respond(exchange, 200, json -> {
+            json.beginObject().name("products").beginArray();
+            for (ProductView product : products) {
+                OrderJson.writeProduct(json, product);
+            }
+            json.endArray().endObject();
+        });
+    }
+
+    private void suggestProducts(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<String> suggestions = catalog.getSearchIndex().suggest(query.get("q"), resultLimit(query));
+        respond(exchange, 200, json -> {
+            json.beginObject().name("suggestions").beginArray();
+            for (String suggestion : suggestions) {
+                json.value(suggestion);
+            }
+            json.endArray().endObject();
+        });
+    }
+
+    private static int resultLimit(Map<String, String> query) {
+        if (!query.containsKey("limit")) {
+            return DEFAULT_RESULTS;
+        }
+        int limit = Integer.parseInt(query.get("limit"));
+        if (limit <= 0 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_RESULTS);
+        }
+        return limit;
+    }
+
+    private void createOrder(HttpExchange exchange) throws IOException {
+        String customerId = required(readBody(exchange), "customerId");
+        Order order = orderService.createOrder(customerId);
+        respondOrder(exchange, 201, order.getId());
+    }
+
+    private void listOrders(HttpExchange exchange) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        List<Order> page;
+        String customerId = query.get("customerId");
+        if (customerId != null) {
+            page = orderService.getOrdersByCustomer(customerId);
+        } else {
+            int limit = DEFAULT_PAGE;
+            if (query.containsKey("limit")) {
+                limit = Integer.parseInt(query.get("limit"));
+                if (limit <= 0 || limit > MAX_PAGE) {
+                    throw new IllegalArgumentException("limit debe estar entre 1 y " + MAX_PAGE);
+                }
+            }
+            page = orderService.listOrders(query.get("after"), limit);
+        }
+        respond(exchange, 200, json -> {
+            json.beginObject().name("orders").beginArray();
+            String last = null;
+            for (Order listed : page) {
+                Order order = orderService.getOrderSnapshot(listed.getId());
+                if (order != null) {
+                    OrderJson.writeOrder(json, order);
+                    last = order.getId();
+                }
+            }
+            json.endArray();
+            if (customerId == null) {
+                json.field("next", last);
+            }
+            json.endObject();
+        });
+    }
+
+    private void getOrder(HttpExchange exchange, String orderId) throws IOException {
+        respondOrder(exchange, 200, orderId);
+    }
+
+    private void deleteOrder(HttpExchange exchange, String orderId) throws IOException {
+        if (orderService.deleteOrder(orderId)) {
+            exchange.sendResponseHeaders(204, -1);
+        } else {
+            error(exchange, 404, "Pedido no encontrado: " + orderId);
+        }
+    }
+
+    private void addItem(HttpExchange exchange, String orderId) throws IOException {
+        Map<String, String> body = readBody(exchange);
+        ProductView product = toProduct(body);
+        int quantity = body.get("quantity") != null ? Integer.parseInt(body.get("quantity")) : 1;
+        if (orderService.addProductToOrder(orderId, product, quantity)) {
+            respondOrder(exchange, 200, orderId);
+            return;
+        }
+        Order order = orderService.getOrderSnapshot(orderId);
+        if (order == null) {
+            error(exchange, 404, "Pedido no encontrado: " + orderId);
+        } else if (order.getStatus() != OrderStatus.PENDING) {
+            error(exchange, 409, "El pedido ya no admite cambios: " + order.getStatus());
+        } else {
+            error(exchange, 409, "Sin stock: " + product.getId());
+        }
+    }
+
+    private void removeItem(HttpExchange exchange, String orderId, String sku) throws IOException {
+        if (orderService.removeProductFromOrder(orderId, sku)) {
+            respondOrder(exchange, 200, orderId);
+            return;
+        }
+        Order order = orderService.getOrderSnapshot(orderId);
+        if (order != null && order.getQuantity(sku) > 0 && order.getStatus() != OrderStatus.PENDING) {
+            error(exchange, 409, "El pedido ya no admite cambios: " + order.getStatus());
+        } else {
+            error(exchange, 404, "Producto no encontrado en el pedido: " + sku);
+        }
+    }
+
+    private void setQuantity(HttpExchange exchange, String orderId, String sku) throws IOException {
+        int quantity = Integer.parseInt(required(readBody(exchange), "quantity"));
+        if (orderService.setProductQuantity(orderId, sku, quantity)) {
+            respondOrder(exchange, 200, orderId);
+            return;
+        }
+        Order order = orderService.getOrderSnapshot(orderId);
+        if (order == null) {
+            error(exchange, 404, "Pedido no encontrado: " + orderId);
+        } else if (order.getQuantity(sku) == 0) {
+            error(exchange, 404, "Producto no encontrado en el pedido: " + sku);
+        } else if (order.getStatus() != OrderStatus.PENDING) {
+            error(exchange, 409, "El pedido ya no admite cambios: " + order.getStatus());
+        } else {
+            error(exchange, 409, "Sin stock: " + sku);
+        }
+    }
+
+    private void applyDiscount(HttpExchange exchange, String orderId) throws IOException {
+        String discountType = required(readBody(exchange), "discountType");
+        if (orderService.calculateOrderTotal(orderId, discountType) == null) {
+            error(exchange, 404, "Pedido no encontrado: " + orderId);
+        } else {
+            respondOrder(exchange, 200, orderId);
+        }
+    }
+
+    private void changeStatus(HttpExchange exchange, String orderId) throws IOException {
+        Map<String, String> body = readBody(exchange);
+        OrderStatus status = OrderStatus.fromLabel(required(body, "status"));
+        String expected = body.get("expected");
+        boolean updated;
+        try {
+            updated = expected != null
+                    ? orderService.updateOrderStatus(orderId, OrderStatus.fromLabel(expected), status)
+                    : orderService.updateOrderStatus(orderId, status);
+        } catch (IllegalStateException e) {
+            error(exchange, 409, e.getMessage());
+            return;
+        }
+        if (updated) {
+            respondOrder(exchange, 200, orderId);
+        } else if (orderService.getOrder(orderId) == null) {
+            error(exchange, 404, "Pedido no encontrado: " + orderId);
+        } else {
+            error(exchange, 409, "El pedido ya no esta en el estado " + expected);
+        }
+    }
+
+    private ProductView toProduct(Map<String, String> body) {
+        String sku = body.get("sku");
+        if (sku == null) {
+            // Nombre, precio y stock salen del catálogo, nunca de la petición
+            throw new IllegalArgumentException("Los productos se agregan por sku del catalogo");
+        }
+        ProductView product = catalog != null ? catalog.get(sku) : null;
+        if (product == null) {
+            throw new IllegalArgumentException("SKU no encontrado en el catalogo: " + sku);
+        }
+        if (inventory != null) {
+            inventory.register(sku, product.getStock());
+        }
+        return product;
+    }
+
+    private void respondOrder(HttpExchange exchange, int status, String orderId) throws IOException {
+        Order order = orderService.getOrderSnapshot(orderId);
+        if (order == null) {
+            error(exchange, 404, "Pedido no encontrado: " + orderId);
+        } else {
+            respond(exchange, status, json -> OrderJson.writeOrder(json, order));
+        }
+    }
+
+    private static void notAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        error(exchange, 405, "Metodo no permitido");
+    }
+
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        respond(exchange, status, json -> json.beginObject().field("error", message).endObject());
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        try (Writer out = new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 4096)) {
+            body.write(new JsonWriter(out));
+        }
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        try (Reader in = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return JsonReader.readObject(in, MAX_BODY_CHARS);
+        }
+    }
+
+    private static String required(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Falta el campo " + name);
+        }
+        return value;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(decode(pair.substring(0, eq)), decode(pair.substring(eq + 1)));
+            }
+        }
+        return query;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escritura del cuerpo de una respuesta.
+     */
+    @FunctionalInterface
+    private interface JsonBody {
+
+        void write(JsonWriter json) throws IOException;
+    }
+}
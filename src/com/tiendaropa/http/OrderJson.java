@@ -0,0 +1,92 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.http;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderLine;
+import com.tiendaropa.model.ProductView;
+import java.io.IOException;
+
+/**
+ * Representación JSON de pedidos y productos.
+ * Los montos se escriben como enteros en unidades menores de la moneda,
+ * junto con el código de la moneda, para no perder exactitud.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderJson {
+
+    private OrderJson() {
+    }
+
+    /**
+     * Escribe un pedido con sus líneas. Cada elemento de "items" es el
+     * producto de una línea más su cantidad, su precio unitario y su total.
+     *
+     * @param json Escritor de destino
+     * @param order Pedido a escribir; no debe modificarse mientras se escribe
+     * @throws IOException si falla la escritura
+     */
+    public static void writeOrder(JsonWriter json, Order order) throws IOException {
+        Money total = order.getTotalAmount();
+        json.beginObject()
+                .field("id", order.getId())
+                .field("customerId", order.getCustomerId())
+                .field("orderDate", order.getOrderDate() != null ? order.getOrderDate().getTime() : 0L)
+                .field("status", order.getStatus().getLabel())
+                .field("discountType", order.getDiscountType())
+                .field("currency", total.getCurrency().getCurrencyCode())
+                .field("baseAmount", order.getBaseAmount().getAmount())
+                .field("totalAmount", total.getAmount())
+                .name("items").beginArray();
+        for (OrderLine line : order.getLines()) {
+            writeLine(json, line);
+        }
+        json.endArray().endObject();
+    }
+
+    /**
+     * Escribe un producto.
+     *
+     * @param json Escritor de destino
+     * @param product Producto a escribir
+     * @throws IOException si falla la escritura
+     */
+    public static void writeProduct(JsonWriter json, ProductView product) throws IOException {
+        json.beginObject();
+        writeProductFields(json, product);
+        json.endObject();
+    }
+
+    /**
+     * Escribe una línea de pedido.
+     *
+     * @param json Escritor de destino
+     * @param line Línea a escribir
+     * @throws IOException si falla la escritura
+     */
+    public static void writeLine(JsonWriter json, OrderLine line) throws IOException {
+        json.beginObject();
+        writeProductFields(json, line.getProduct());
+        json.field("quantity", line.getQuantity())
+                .field("unitPrice", line.getUnitPrice().getAmount())
+                .field("lineAmount", line.getTotalAmount().getAmount())
+                .endObject();
+    }
+
+    private static void writeProductFields(JsonWriter json, ProductView product) throws IOException {
+        Money price = product.getPrice();
+        json.field("id", product.getId())
+                .field("name", product.getName())
+                .field("price", price.getAmount())
+                .field("currency", price.getCurrency().getCurrencyCode())
+                .field("category", product.getCategory())
+                .field("size", product.getSize())
+                .field("color", product.getColor());
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.inventory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador de unidades disponibles de un SKU, sin bloqueos.
+ * Mientras no haya contención las unidades viven en un único contador que
+ * se actualiza con CAS. Cuando un CAS falla por contención, el contador se
+ * reparte en franjas, cada una en su propia línea de caché, y cada hilo
+ * descuenta primero de su franja; así un SKU muy vendido no serializa
+ * todas las compras. Nunca se descuentan más unidades de las que hay.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class SkuStock {
+
+    // 16 enteros por franja: 64 bytes, una línea de caché
+    private static final int PAD = 16;
+    private static final int STRIPES =
+            Math.min(64, Integer.highestOneBit(Math.max(2, Runtime.getRuntime().availableProcessors()) * 2 - 1));
+
+    private final AtomicInteger base;
+    private volatile AtomicIntegerArray cells;
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder sold = new LongAdder();
+
+    SkuStock(int available) {
+        this.base = new AtomicInteger(available);
+    }
+
+    /**
+     * Descuenta unidades si hay suficientes.
+     *
+     * @param quantity Unidades a descontar, positivas
+     * @return true si se descontaron, false si no alcanzaban
+     */
+    boolean take(int quantity) {
+        AtomicIntegerArray current = cells;
+        if (current == null) {
+            int available = base.get();
+            if (available < quantity) {
+                current = cells;
+                if (current == null) {
+                    return false;
+                }
+            } else if (base.compareAndSet(available, available - quantity)) {
+                return true;
+            } else {
+                inflate();
+                current = cells;
+            }
+        }
+        int stripes = current.length() / PAD;
+        int start = probe() & (stripes - 1);
+        int taken = 0;
+        for (int i = 0; i < stripes && taken < quantity; i++) {
+            taken += take(current, ((start + i) & (stripes - 1)) * PAD, quantity - taken);
+        }
+        if (taken < quantity) {
+            taken += take(base, quantity - taken);
+        }
+        if (taken < quantity) {
+            give(taken);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve unidades al contador, en la franja del hilo actual.
+     *
+     * @param quantity Unidades a devolver
+     */
+    void give(int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        AtomicIntegerArray current = cells;
+        if (current == null) {
+            base.addAndGet(quantity);
+        } else {
+            current.addAndGet((probe() & (current.length() / PAD - 1)) * PAD, quantity);
+        }
+    }
+
+    /**
+     * Suma las unidades de todas las franjas. Con actualizaciones
+     * concurrentes el valor es aproximado.
+     *
+     * @return Unidades disponibles
+     */
+    int available() {
+        int sum = base.get();
+        AtomicIntegerArray current = cells;
+        if (current != null) {
+            for (int i = 0; i < current.length(); i += PAD) {
+                sum += current.get(i);
+            }
+        }
+        return sum;
+    }
+
+    LongAdder reserved() {
+        return reserved;
+    }
+
+    LongAdder sold() {
+        return sold;
+    }
+
+    // Las unidades del contador base se reparten entre las franjas. Mientras
+    // se reparten, una reserva concurrente puede no verlas y fallar aunque
+    // alcancen; ocurre una sola vez por SKU.
+    private synchronized void inflate() {
+        if (cells != null) {
+            return;
+        }
+        AtomicIntegerArray created = new AtomicIntegerArray(STRIPES * PAD);
+        cells = created;
+        int moved = base.getAndSet(0);
+        int share = moved / STRIPES;
+        for (int i = 0; i < STRIPES; i++) {
+            created.addAndGet(i * PAD, i == 0 ? moved - share * (STRIPES - 1) : share);
+        }
+    }
+
+    private static int take(AtomicInteger counter, int wanted) {
+        while (true) {
+            int available = counter.get();
+            if (available <= 0) {
+                return 0;
+            }
+            int taken = Math.min(available, wanted);
+            if (counter.compareAndSet(available, available - taken)) {
+                return taken;
+            }
+        }
+    }
+
+    private static int take(AtomicIntegerArray counters, int index, int wanted) {
+        while (true) {
+            int available = counters.get(index);
+            if (available <= 0) {
+                return 0;
+            }
+            int taken = Math.min(available, wanted);
+            if (counters.compareAndSet(index, available, available - taken)) {
+                return taken;
+            }
+        }
+    }
+
+    private static int probe() {
+        int h = (int) Thread.currentThread().threadId() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
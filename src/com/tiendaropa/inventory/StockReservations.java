@@ -0,0 +1,410 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.inventory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservas de stock por pedido.
+ * Una reserva descuenta unidades del SKU en el momento en que se agrega
+ * el producto al pedido, por lo que dos pedidos nunca pueden llevarse la
+ * misma unidad. Luego la reserva se confirma (la venta se concreta) o se
+ * libera (las unidades vuelven a estar disponibles); una venta confirmada
+ * que se anula vuelve al stock con refund. Las reservas que no
+ * se confirman antes de su TTL vencen y liberan sus unidades; antes de
+ * confirmar, reserveMissing vuelve a tomar las que falten o rechaza la
+ * confirmación si otro pedido ya se las llevó.
+ *
+ * <p>El stock de cada SKU es un SkuStock sin bloqueos; las reservas de un
+ * pedido se modifican bajo el bloqueo de su clave en un mapa concurrente,
+ * de modo que pedidos distintos no se esperan entre sí.</p>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class StockReservations {
+
+    private final ConcurrentHashMap<String, SkuStock> stocks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Reservation> reservations = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private ScheduledExecutorService expirer;
+
+    /**
+     * Crea el registro de reservas.
+     *
+     * @param ttlMillis Tiempo que dura una reserva sin confirmar, en milisegundos
+     * @throws IllegalArgumentException si el TTL no es positivo
+     */
+    public StockReservations(long ttlMillis) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("El TTL debe ser positivo");
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Empieza a controlar el stock de un SKU.
+     *
+     * @param sku Identificador del producto
+     * @param quantity Unidades disponibles
+     * @return true si el SKU era nuevo, false si ya se controlaba
+     */
+    public boolean register(String sku, int quantity) {
+        checkQuantity(quantity, true);
+        return stocks.putIfAbsent(sku, new SkuStock(quantity)) == null;
+    }
+
+    /**
+     * Agrega unidades al stock de un SKU, registrándolo si no existía.
+     *
+     * @param sku Identificador del producto
+     * @param quantity Unidades a agregar
+     */
+    public void restock(String sku, int quantity) {
+        checkQuantity(quantity, true);
+        SkuStock stock = stocks.get(sku);
+        if (stock == null) {
+            stock = stocks.computeIfAbsent(sku, k -> new SkuStock(0));
+        }
+        stock.give(quantity);
+    }
+
+    /**
+     * Reserva unidades de un SKU para un pedido y renueva el vencimiento
+     * de todas las reservas del pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param sku Identificador del producto
+     * @param quantity Unidades a reservar, positivas
+     * @return true si se reservaron; false si el SKU no se controla o no hay stock
+     * @throws IllegalArgumentException si la cantidad no es positiva
+     */
+    public boolean reserve(String orderId, String sku, int quantity) {
+        checkQuantity(quantity, false);
+        SkuStock stock = stocks.get(sku);
+        if (stock == null || !stock.take(quantity)) {
+            return false;
+        }
+        stock.reserved().add(quantity);
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        reservations.compute(orderId, (id, reservation) -> {
+            Reservation held = reservation != null ? reservation : new Reservation();
+            held.quantities.merge(sku, quantity, Integer::sum);
+            held.expiresAt = expiresAt;
+            return held;
+        });
+        return true;
+    }
+
+    /**
+     * Asegura que un pedido tenga reservadas las unidades indicadas de cada
+     * SKU, tomando del stock las que falten, por ejemplo porque su reserva
+     * venció. Es todo o nada: si no hay stock para alguno de los SKU, no se
+     * toma ninguna unidad. Los SKU que no se controlan se ignoran. Renueva
+     * el vencimiento de las reservas del pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param skus Identificadores de los productos
+     * @param quantities Unidades que deben quedar reservadas de cada producto
+     * @return true si quedaron reservadas todas; false si falta stock de alguno
+     */
+    public boolean reserveMissing(String orderId, String[] skus, int[] quantities) {
+        boolean[] covered = {true};
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        reservations.compute(orderId, (id, reservation) -> {
+            Reservation held = reservation != null ? reservation : new Reservation();
+            int[] taken = new int[skus.length];
+            for (int i = 0; i < skus.length; i++) {
+                SkuStock stock = stocks.get(skus[i]);
+                int missing = quantities[i] - held.quantities.getOrDefault(skus[i], 0);
+                if (stock == null || missing <= 0) {
+                    continue;
+                }
+                if (!stock.take(missing)) {
+                    for (int j = 0; j < i; j++) {
+                        if (taken[j] > 0) {
+                            stocks.get(skus[j]).give(taken[j]);
+                        }
+                    }
+                    covered[0] = false;
+                    return reservation;
+                }
+                taken[i] = missing;
+            }
+            for (int i = 0; i < skus.length; i++) {
+                if (taken[i] > 0) {
+                    stocks.get(skus[i]).reserved().add(taken[i]);
+                    held.quantities.merge(skus[i], taken[i], Integer::sum);
+                }
+            }
+            held.expiresAt = expiresAt;
+            return held.quantities.isEmpty() ? reservation : held;
+        });
+        return covered[0];
+    }
+
+    /**
+     * Confirma todas las reservas de un pedido: las unidades pasan a vendidas.
+     *
+     * @param orderId Identificador del pedido
+     * @return Unidades confirmadas; 0 si el pedido no tenía reservas o ya vencieron
+     */
+    public int commit(String orderId) {
+        Reservation reservation = reservations.remove(orderId);
+        if (reservation == null) {
+            return 0;
+        }
+        int units = 0;
+        for (Map.Entry<String, Integer> entry : reservation.quantities.entrySet()) {
+            SkuStock stock = stocks.get(entry.getKey());
+            int quantity = entry.getValue();
+            stock.reserved().add(-quantity);
+            stock.sold().add(quantity);
+            units += quantity;
+        }
+        return units;
+    }
+
+    /**
+     * Devuelve al stock unidades ya vendidas, por ejemplo las de un pedido
+     * pagado que se cancela. Los SKU que no se controlan se ignoran.
+     *
+     * @param skus Identificadores de los productos
+     * @param quantities Unidades vendidas de cada producto
+     * @return Unidades devueltas al stock
+     */
+    public int refund(String[] skus, int[] quantities) {
+        int units = 0;
+        for (int i = 0; i < skus.length; i++) {
+            SkuStock stock = stocks.get(skus[i]);
+            if (stock == null || quantities[i] <= 0) {
+                continue;
+            }
+            stock.sold().add(-quantities[i]);
+            stock.give(quantities[i]);
+            units += quantities[i];
+        }
+        return units;
+    }
+
+    /**
+     * Libera todas las reservas de un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @return Unidades devueltas al stock
+     */
+    public int release(String orderId) {
+        Reservation reservation = reservations.remove(orderId);
+        return reservation != null ? giveBack(reservation) : 0;
+    }
+
+    /**
+     * Libera las unidades de un SKU reservadas por un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param sku Identificador del producto
+     * @return Unidades devueltas al stock
+     */
+    public int release(String orderId, String sku) {
+        return release(orderId, sku, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Libera parte de las unidades de un SKU reservadas por un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param sku Identificador del producto
+     * @param quantity Unidades a liberar como máximo
+     * @return Unidades devueltas al stock
+     */
+    public int release(String orderId, String sku, int quantity) {
+        int[] released = new int[1];
+        reservations.computeIfPresent(orderId, (id, reservation) -> {
+            Integer held = reservation.quantities.get(sku);
+            if (held == null) {
+                return reservation;
+            }
+            released[0] = Math.min(held, quantity);
+            if (held > released[0]) {
+                reservation.quantities.put(sku, held - released[0]);
+            } else {
+                reservation.quantities.remove(sku);
+            }
+            return reservation.quantities.isEmpty() ? null : reservation;
+        });
+        if (released[0] > 0) {
+            SkuStock stock = stocks.get(sku);
+            stock.reserved().add(-released[0]);
+            stock.give(released[0]);
+        }
+        return released[0];
+    }
+
+    /**
+     * Pasa las reservas de un pedido a su nuevo identificador.
+     *
+     * @param oldOrderId Identificador anterior del pedido
+     * @param newOrderId Identificador nuevo del pedido
+     */
+    public void rekey(String oldOrderId, String newOrderId) {
+        Reservation moved = reservations.remove(oldOrderId);
+        if (moved == null) {
+            return;
+        }
+        reservations.merge(newOrderId, moved, (current, added) -> {
+            added.quantities.forEach((sku, quantity) -> current.quantities.merge(sku, quantity, Integer::sum));
+            current.expiresAt = Math.max(current.expiresAt, added.expiresAt);
+            return current;
+        });
+    }
+
+    /**
+     * Libera las reservas vencidas.
+     *
+     * @return Cantidad de pedidos cuyas reservas vencieron
+     */
+    public int expire() {
+        long now = System.currentTimeMillis();
+        List<Reservation> expired = new ArrayList<>();
+        for (String orderId : reservations.keySet()) {
+            reservations.computeIfPresent(orderId, (id, reservation) -> {
+                if (reservation.expiresAt > now) {
+                    return reservation;
+                }
+                expired.add(reservation);
+                return null;
+            });
+        }
+        for (Reservation reservation : expired) {
+            giveBack(reservation);
+        }
+        return expired.size();
+    }
+
+    /**
+     * Inicia un hilo en segundo plano que libera las reservas vencidas.
+     * Si ya estaba iniciado no hace nada.
+     *
+     * @param periodMillis Intervalo entre revisiones, en milisegundos
+     */
+    public synchronized void startExpiry(long periodMillis) {
+        if (expirer != null) {
+            return;
+        }
+        expirer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stock-reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expirer.scheduleWithFixedDelay(this::expire, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Detiene el hilo que libera las reservas vencidas.
+     */
+    public synchronized void stopExpiry() {
+        if (expirer != null) {
+            expirer.shutdownNow();
+            expirer = null;
+        }
+    }
+
+    /**
+     * Obtiene las unidades disponibles de un SKU.
+     *
+     * @param sku Identificador del producto
+     * @return Unidades que se pueden reservar; 0 si el SKU no se controla
+     */
+    public int getAvailable(String sku) {
+        SkuStock stock = stocks.get(sku);
+        return stock != null ? stock.available() : 0;
+    }
+
+    /**
+     * Obtiene las unidades de un SKU reservadas y aún no confirmadas.
+     *
+     * @param sku Identificador del producto
+     * @return Unidades reservadas
+     */
+    public long getReserved(String sku) {
+        SkuStock stock = stocks.get(sku);
+        return stock != null ? stock.reserved().sum() : 0;
+    }
+
+    /**
+     * Obtiene las unidades vendidas de un SKU.
+     *
+     * @param sku Identificador del producto
+     * @return Unidades confirmadas
+     */
+    public long getSold(String sku) {
+        SkuStock stock = stocks.get(sku);
+        return stock != null ? stock.sold().sum() : 0;
+    }
+
+    /**
+     * Indica si se controla el stock de un SKU.
+     *
+     * @param sku Identificador del producto
+     * @return true si el SKU está registrado
+     */
+    public boolean isTracked(String sku) {
+        return stocks.containsKey(sku);
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos con reservas pendientes.
+     *
+     * @return Número de pedidos
+     */
+    public int getPendingOrders() {
+        return reservations.size();
+    }
+
+    /**
+     * Obtiene el tiempo que dura una reserva sin confirmar.
+     *
+     * @return TTL en milisegundos
+     */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    private int giveBack(Reservation reservation) {
+        int units = 0;
+        for (Map.Entry<String, Integer> entry : reservation.quantities.entrySet()) {
+            SkuStock stock = stocks.get(entry.getKey());
+            int quantity = entry.getValue();
+            stock.reserved().add(-quantity);
+            stock.give(quantity);
+            units += quantity;
+        }
+        return units;
+    }
+
+    private static void checkQuantity(int quantity, boolean zeroAllowed) {
+        if (quantity < 0 || (quantity == 0 && !zeroAllowed)) {
+            throw new IllegalArgumentException("Cantidad no valida: " + quantity);
+        }
+    }
+
+    /**
+     * Unidades reservadas por un pedido. Solo se modifica bajo el bloqueo
+     * de la clave del pedido en el mapa de reservas.
+     */
+    private static final class Reservation {
+
+        private final Map<String, Integer> quantities = new HashMap<>(4);
+        private long expiresAt;
+    }
+}
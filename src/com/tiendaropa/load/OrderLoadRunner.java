@@ -0,0 +1,212 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.load;
+
+import com.tiendaropa.inventory.StockReservations;
+import com.tiendaropa.metrics.LatencyHistogram;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.model.ProductCache;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.service.OrderService;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Carga sintética y sin interacción sobre OrderService.
+ * Varios productores (hilos de plataforma o virtuales) crean pedidos como
+ * los del menú: entre 1 y 5 productos aleatorios, un descuento y, en parte
+ * de los pedidos, un cambio de estado. Los productos de un mismo SKU se
+ * crean una sola vez y se comparten entre todas sus líneas (ProductCache).
+ * Con una tasa objetivo cada productor
+ * sigue un calendario fijo y la latencia se mide desde el instante en que
+ * debía empezar cada pedido, de modo que las demoras acumuladas no se
+ * ocultan; también se informa el tiempo de servicio puro.
+ * Al terminar informa pedidos por segundo, histogramas de latencia,
+ * recolecciones de basura y bytes asignados.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class OrderLoadRunner {
+
+    private static final int SKUS = 1000;
+
+    private final OrderService orderService;
+    private final StockReservations inventory;
+    private final int producers;
+    private final double ordersPerSecond;
+    private final long durationNanos;
+    private final long seed;
+    private final boolean virtualThreads;
+    private final int stockPerSku;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram serviceTime = new LatencyHistogram();
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder rejectedItems = new LongAdder();
+    private final ProductCache products = new ProductCache(SKUS);
+
+    /**
+     * Configura una carga.
+     *
+     * @param orderService Servicio sobre el que se genera la carga
+     * @param inventory Reservas de stock del servicio, o null; los SKU
+     *                  generados se registran con stockPerSku unidades
+     * @param producers Cantidad de productores
+     * @param ordersPerSecond Pedidos por segundo entre todos los productores; 0 sin límite
+     * @param durationSeconds Duración de la carga en segundos
+     * @param seed Semilla del generador aleatorio
+     * @param virtualThreads true para usar hilos virtuales
+     * @param stockPerSku Unidades con que se registra cada SKU
+     * @throws IllegalArgumentException si un parámetro no es válido
+     */
+    public OrderLoadRunner(OrderService orderService, StockReservations inventory, int producers,
+            double ordersPerSecond, double durationSeconds, long seed, boolean virtualThreads, int stockPerSku) {
+        if (producers <= 0 || ordersPerSecond < 0 || durationSeconds <= 0) {
+            throw new IllegalArgumentException("Parametros de carga no validos");
+        }
+        this.orderService = orderService;
+        this.inventory = inventory;
+        this.producers = producers;
+        this.ordersPerSecond = ordersPerSecond;
+        this.durationNanos = (long) (durationSeconds * 1e9);
+        this.seed = seed;
+        this.virtualThreads = virtualThreads;
+        this.stockPerSku = stockPerSku;
+    }
+
+    /**
+     * Ejecuta la carga y escribe el informe.
+     *
+     * @param report Destino del informe
+     * @throws InterruptedException si se interrumpe la espera de los productores
+     */
+    public void run(PrintStream report) throws InterruptedException {
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        long[] gcCounts = new long[collectors.size()];
+        long[] gcMillis = new long[collectors.size()];
+        for (int i = 0; i < collectors.size(); i++) {
+            gcCounts[i] = collectors.get(i).getCollectionCount();
+            gcMillis[i] = collectors.get(i).getCollectionTime();
+        }
+        long allocatedBefore = allocatedBytes();
+
+        RandomOrderFactory root = new RandomOrderFactory(new SplittableRandom(seed), SKUS);
+        long intervalNanos = ordersPerSecond > 0 ? (long) (1e9 * producers / ordersPerSecond) : 0;
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        List<Thread> threads = new ArrayList<>(producers);
+        for (int i = 0; i < producers; i++) {
+            RandomOrderFactory factory = root.split();
+            // Los productores empiezan desfasados para repartir la tasa en el intervalo
+            long first = start + (intervalNanos * i) / producers;
+            Runnable producer = () -> produce(factory, first, intervalNanos, deadline);
+            Thread.Builder builder = virtualThreads ? Thread.ofVirtual() : Thread.ofPlatform().daemon(true);
+            threads.add(builder.name("load-producer-" + i).start(producer));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        long allocated = allocatedBytes() - allocatedBefore;
+        long count = orders.sum();
+        report.println("=== RESULTADO DE LA CARGA ===");
+        report.printf("Productores: %d (%s), tasa objetivo: %s, duracion: %.1f s, semilla: %d%n",
+                producers, virtualThreads ? "virtuales" : "plataforma",
+                ordersPerSecond > 0 ? String.format("%.0f pedidos/s", ordersPerSecond) : "sin limite",
+                elapsed, seed);
+        report.printf("Pedidos: %d (%.0f pedidos/s), productos: %d, rechazados sin stock: %d%n",
+                count, count / elapsed, items.sum(), rejectedItems.sum());
+        report.println("Latencia:  " + latency.summary());
+        report.println("Servicio:  " + serviceTime.summary());
+        for (int i = 0; i < collectors.size(); i++) {
+            GarbageCollectorMXBean collector = collectors.get(i);
+            report.printf("GC %s: %d recolecciones, %d ms%n", collector.getName(),
+                    collector.getCollectionCount() - gcCounts[i], collector.getCollectionTime() - gcMillis[i]);
+        }
+        if (allocatedBefore >= 0) {
+            report.printf("Asignado: %.1f MB (%.0f MB/s, %d bytes/pedido)%n",
+                    allocated / 1e6, allocated / 1e6 / elapsed, count > 0 ? allocated / count : 0);
+        }
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        report.printf("Heap usado: %.1f MB%n", memory.getHeapMemoryUsage().getUsed() / 1e6);
+    }
+
+    private void produce(RandomOrderFactory factory, long first, long intervalNanos, long deadline) {
+        long intended = first;
+        while (true) {
+            long now = System.nanoTime();
+            if (intervalNanos > 0 && now < intended) {
+                LockSupport.parkNanos(intended - now);
+                now = System.nanoTime();
+            }
+            if (now >= deadline) {
+                return;
+            }
+            long begin = intervalNanos > 0 ? intended : now;
+            placeOrder(factory);
+            long end = System.nanoTime();
+            latency.record(end - begin);
+            serviceTime.record(end - now);
+            orders.increment();
+            intended += intervalNanos;
+        }
+    }
+
+    private Product newProduct(RandomOrderFactory factory, String sku) {
+        if (inventory != null) {
+            inventory.register(sku, stockPerSku);
+        }
+        return factory.newProduct(sku);
+    }
+
+    private void placeOrder(RandomOrderFactory factory) {
+        Order order = orderService.createOrder(factory.nextCustomerId());
+        String orderId = order.getId();
+        int count = factory.nextItemCount();
+        for (int i = 0; i < count; i++) {
+            ProductView product = products.computeIfAbsent(factory.nextSku(), sku -> newProduct(factory, sku));
+            if (orderService.addProductToOrder(orderId, product)) {
+                items.increment();
+            } else {
+                rejectedItems.increment();
+            }
+        }
+        orderService.calculateOrderTotal(orderId, factory.nextDiscountType());
+        int outcome = factory.nextInt(10);
+        if (outcome < 5) {
+            orderService.updateOrderStatus(orderId, OrderStatus.PAID);
+            orderService.updateOrderStatus(orderId, OrderStatus.SHIPPED);
+            orderService.updateOrderStatus(orderId, OrderStatus.DELIVERED);
+        } else if (outcome == 5) {
+            orderService.updateOrderStatus(orderId, OrderStatus.CANCELLED);
+        }
+    }
+
+    // Total de bytes asignados en el heap desde el arranque, según la JVM;
+    // -1 si la JVM no lo mide.
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getTotalThreadAllocatedBytes();
+            }
+        }
+        return -1;
+    }
+}
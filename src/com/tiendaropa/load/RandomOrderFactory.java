@@ -0,0 +1,154 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.load;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Product;
+import java.util.SplittableRandom;
+
+/**
+ * Generador de clientes y productos aleatorios pero realistas.
+ * Es el generador del menú interactivo, llevado a una clase para que
+ * también lo use el modo de carga. Con la misma semilla produce siempre
+ * la misma secuencia. No es seguro para varios hilos: cada hilo usa su
+ * propia instancia, creada con split().
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class RandomOrderFactory {
+
+    /** Tipos de descuento que ofrece la tienda. */
+    public static final String[] DISCOUNT_TYPES = {"NONE", "SEASONAL", "MEMBER", "SPECIAL"};
+
+    private static final String[] PRODUCT_CATEGORIES = {"Camisetas", "Pantalones", "Vestidos", "Chaquetas", "Zapatos"};
+    private static final String[] PRODUCT_COLORS = {"Rojo", "Azul", "Negro", "Blanco", "Verde"};
+    private static final String[] PRODUCT_SIZES = {"XS", "S", "M", "L", "XL"};
+    private static final String[] PREFIXES = {"Elegante", "Casual", "Moderno", "Clasico", "Deportivo", "Formal"};
+    private static final String[] SHIRT_TYPES = {"Polo", "Manga corta", "Manga larga", "Estampada", "Basica"};
+    private static final String[] TROUSER_TYPES = {"Vaquero", "Chino", "Deportivo", "Formal", "Cargo"};
+    private static final String[] DRESS_TYPES = {"Cocktail", "Casual", "Noche", "Verano", "Fiesta"};
+    private static final String[] JACKET_TYPES = {"Cuero", "Vaquera", "Bomber", "Acolchada", "Impermeable"};
+    private static final String[] SHOE_TYPES = {"Deportivos", "Formales", "Casuales", "Botas", "Sandalias"};
+
+    private final SplittableRandom random;
+    private final int skus;
+
+    /**
+     * Crea un generador.
+     *
+     * @param random Fuente de aleatoriedad
+     * @param skus Cantidad de SKU distintos que se generan
+     */
+    public RandomOrderFactory(SplittableRandom random, int skus) {
+        this.random = random;
+        this.skus = skus;
+    }
+
+    /**
+     * Crea un generador independiente para otro hilo.
+     *
+     * @return Generador con una fuente de aleatoriedad derivada de esta
+     */
+    public RandomOrderFactory split() {
+        return new RandomOrderFactory(random.split(), skus);
+    }
+
+    /**
+     * Elige un cliente entre C1 y C100.
+     *
+     * @return Identificador del cliente
+     */
+    public String nextCustomerId() {
+        return "C" + (random.nextInt(100) + 1);
+    }
+
+    /**
+     * Elige cuántos productos lleva un pedido, entre 1 y 5.
+     *
+     * @return Cantidad de productos
+     */
+    public int nextItemCount() {
+        return random.nextInt(5) + 1;
+    }
+
+    /**
+     * Elige un tipo de descuento.
+     *
+     * @return Código del tipo de descuento
+     */
+    public String nextDiscountType() {
+        return DISCOUNT_TYPES[random.nextInt(DISCOUNT_TYPES.length)];
+    }
+
+    /**
+     * Elige un SKU entre P1 y el número de SKU del generador.
+     *
+     * @return Identificador del producto
+     */
+    public String nextSku() {
+        return "P" + (random.nextInt(skus) + 1);
+    }
+
+    /**
+     * Obtiene un número entero aleatorio.
+     *
+     * @param bound Límite superior, excluido
+     * @return Número entre 0 y bound - 1
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Genera un producto con características aleatorias.
+     *
+     * @param id Identificador que tendrá el producto
+     * @return Producto generado
+     */
+    public Product newProduct(String id) {
+        String category = PRODUCT_CATEGORIES[random.nextInt(PRODUCT_CATEGORIES.length)];
+        String name = newProductName(category);
+        Money price = Money.ofClp(20000 + random.nextInt(40001)); // Entre 20.000 y 60.000 CLP
+        String color = PRODUCT_COLORS[random.nextInt(PRODUCT_COLORS.length)];
+        String size = PRODUCT_SIZES[random.nextInt(PRODUCT_SIZES.length)];
+        int stock = random.nextInt(100) + 1;
+
+        Product product = new Product(id, name, price);
+        product.setCategory(category);
+        product.setColor(color);
+        product.setSize(size);
+        product.setStock(stock);
+        product.setDescription("Producto de " + category + " en color " + color + ", talla " + size);
+        return product;
+    }
+
+    /**
+     * Genera un nombre de producto basado en su categoría.
+     *
+     * @param category Categoría del producto
+     * @return Nombre generado para el producto
+     */
+    public String newProductName(String category) {
+        String prefix = PREFIXES[random.nextInt(PREFIXES.length)];
+        String singular = category.substring(0, category.length() - 1);
+
+        switch (category) {
+            case "Camisetas":
+                return prefix + " " + singular + " " + SHIRT_TYPES[random.nextInt(SHIRT_TYPES.length)];
+            case "Pantalones":
+                return prefix + " " + singular + " " + TROUSER_TYPES[random.nextInt(TROUSER_TYPES.length)];
+            case "Vestidos":
+                return prefix + " " + singular + " de " + DRESS_TYPES[random.nextInt(DRESS_TYPES.length)];
+            case "Chaquetas":
+                return prefix + " " + singular + " de " + JACKET_TYPES[random.nextInt(JACKET_TYPES.length)];
+            case "Zapatos":
+                return prefix + " " + category + " " + SHOE_TYPES[random.nextInt(SHOE_TYPES.length)];
+            default:
+                return prefix + " " + category;
+        }
+    }
+}
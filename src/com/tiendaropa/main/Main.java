@@ -4,12 +4,44 @@
  */
 package com.tiendaropa.main;
 
+import com.tiendaropa.analytics.SalesDimension;
+import com.tiendaropa.analytics.SalesGroup;
+import com.tiendaropa.analytics.SalesMeasure;
+import com.tiendaropa.analytics.SalesStore;
+import com.tiendaropa.catalog.ProductCatalog;
+import com.tiendaropa.catalog.ProductSearchIndex;
+import com.tiendaropa.http.OrderHttpServer;
+import com.tiendaropa.inventory.StockReservations;
+import com.tiendaropa.load.OrderLoadRunner;
+import com.tiendaropa.load.RandomOrderFactory;
+import com.tiendaropa.metrics.MetricsRegistry;
+import com.tiendaropa.model.Money;
 import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderLine;
+import com.tiendaropa.model.OrderStatus;
 import com.tiendaropa.model.Product;
+import com.tiendaropa.model.ProductCache;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.persistence.FsyncPolicy;
+import com.tiendaropa.persistence.OrderArchive;
+import com.tiendaropa.persistence.OrderJournal;
+import com.tiendaropa.persistence.OrderPersistence;
+import com.tiendaropa.repository.OrderRepository;
+import com.tiendaropa.repository.TierStats;
 import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.RepriceResult;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
 import com.tiendaropa.singleton.DiscountManager;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase principal que inicia la aplicacion y demuestra el uso del patron Singleton
@@ -23,18 +55,33 @@ public class Main {
 
     private static final Scanner scanner = new Scanner(System.in);
     private static final Random random = new Random();
-    private static final OrderService orderService = new OrderService();
+    private static final StockReservations inventory = new StockReservations(15 * 60 * 1000L);
+    private static OrderService orderService =
+            new OrderService(SnowflakeOrderIdGenerator.getDefault(), null, inventory);
+    private static OrderPersistence persistence;
+    private static OrderArchive archivoFrio;
+    private static ProductCatalog catalog;
     private static final String[] DISCOUNT_TYPES = {"NONE", "SEASONAL", "MEMBER", "SPECIAL"};
-    private static final String[] PRODUCT_CATEGORIES = {"Camisetas", "Pantalones", "Vestidos", "Chaquetas", "Zapatos"};
-    private static final String[] PRODUCT_COLORS = {"Rojo", "Azul", "Negro", "Blanco", "Verde"};
-    private static final String[] PRODUCT_SIZES = {"XS", "S", "M", "L", "XL"};
+    private static final RandomOrderFactory productFactory = new RandomOrderFactory(new SplittableRandom(), 1000);
+    private static final ProductCache productCache = new ProductCache(1000);
 
     /**
      * Metodo principal que inicia la aplicacion con un menu interactivo.
+     * Con el argumento "--http" inicia en cambio la API HTTP, y con
+     * "--load" ejecuta una carga sintetica sin interaccion.
      *
      * @param args Argumentos de linea de comandos
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--http")) {
+            iniciarServidorHttp();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--load")) {
+            ejecutarCarga(args);
+            return;
+        }
+
         System.out.println("=== SISTEMA DE TIENDA DE ROPA ONLINE ===");
         System.out.println("Demostracion del patron Singleton");
 
@@ -49,6 +96,10 @@ public class Main {
         System.out.println("\nPresione Enter para continuar...");
         scanner.nextLine();
 
+        abrirPersistencia();
+        abrirCatalogo();
+        inventory.startExpiry(60 * 1000L);
+
         int opcion;
         do {
             mostrarMenu();
@@ -84,10 +135,317 @@ public class Main {
 
         } while (opcion != 6);
 
+        cerrarPersistencia();
+        cerrarCatalogo();
         System.out.println("Gracias por utilizar el Sistema de Tienda de Ropa Online");
         scanner.close();
     }
 
+    /**
+     * Ejecuta una carga sintetica sobre el servicio de pedidos y muestra el
+     * resultado. Las opciones van despues de "--load" como clave=valor:
+     * productores (4), tasa en pedidos por segundo (0, sin limite),
+     * segundos (30), semilla (42), virtuales (false), stock por SKU
+     * (1000000), metricas (la propiedad "tiendaropa.metrics"), reprecio
+     * (ninguno) y analitica (false); con las metricas activadas se muestran
+     * al final en formato de texto, con reprecio se aplica ese descuento a
+     * todas las ordenes pendientes al terminar la carga, mostrando el avance,
+     * y con analitica se muestra un resumen de las ventas.
+     * Ejemplo: --load productores=8 tasa=20000 segundos=60 metricas=true reprecio=MEMBER analitica=true
+     *
+     * @param args Argumentos de linea de comandos
+     */
+    private static void ejecutarCarga(String[] args) {
+        int productores = 4;
+        double tasa = 0;
+        double segundos = 30;
+        long semilla = 42;
+        boolean virtuales = false;
+        int stock = 1_000_000;
+        String reprecio = null;
+        boolean analitica = false;
+        MetricsRegistry metricas = MetricsRegistry.getDefault();
+        try {
+            for (int i = 1; i < args.length; i++) {
+                int eq = args[i].indexOf('=');
+                String clave = eq > 0 ? args[i].substring(0, eq) : args[i];
+                String valor = eq > 0 ? args[i].substring(eq + 1) : "";
+                switch (clave) {
+                    case "productores":
+                        productores = Integer.parseInt(valor);
+                        break;
+                    case "tasa":
+                        tasa = Double.parseDouble(valor);
+                        break;
+                    case "segundos":
+                        segundos = Double.parseDouble(valor);
+                        break;
+                    case "semilla":
+                        semilla = Long.parseLong(valor);
+                        break;
+                    case "virtuales":
+                        virtuales = Boolean.parseBoolean(valor);
+                        break;
+                    case "stock":
+                        stock = Integer.parseInt(valor);
+                        break;
+                    case "metricas":
+                        metricas.setEnabled(Boolean.parseBoolean(valor));
+                        break;
+                    case "reprecio":
+                        reprecio = valor;
+                        break;
+                    case "analitica":
+                        analitica = Boolean.parseBoolean(valor);
+                        break;
+                    default:
+                        System.out.println("Opcion de carga desconocida: " + args[i]);
+                        return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Valor de carga no valido: " + e.getMessage());
+            return;
+        }
+
+        abrirPersistencia();
+        inventory.startExpiry(60 * 1000L);
+        try {
+            new OrderLoadRunner(orderService, inventory, productores, tasa, segundos,
+                    semilla, virtuales, stock).run(System.out);
+            if (reprecio != null) {
+                reprecioMasivo(reprecio);
+            }
+            if (analitica) {
+                resumenDeVentas();
+            }
+            if (metricas.isEnabled()) {
+                System.out.print(metricas.snapshot().toText());
+            }
+            TierStats niveles = orderService.getTierStats();
+            if (niveles != null) {
+                System.out.println("Niveles: " + niveles);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inventory.stopExpiry();
+            cerrarPersistencia();
+        }
+    }
+
+    /**
+     * Inicia la API HTTP de pedidos en el puerto de la propiedad de sistema
+     * "tiendaropa.http.port" (8080 por omision). El servidor sigue atendiendo
+     * hasta que se detiene el proceso; al detenerlo se guarda el estado.
+     * La API solo agrega productos por SKU del catalogo, asi que los SKU P1
+     * a P1000 que usa HttpLoadGenerator se guardan en el catalogo si no
+     * estan, con las unidades de la propiedad "tiendaropa.http.stock"
+     * (1000000 por omision). Sin "tiendaropa.catalog.file" el catalogo va
+     * al archivo "http-catalog.dat" del directorio temporal.
+     */
+    private static void iniciarServidorHttp() {
+        abrirPersistencia();
+        abrirCatalogo();
+        try {
+            if (catalog == null) {
+                catalog = ProductCatalog.open(
+                        Paths.get(System.getProperty("java.io.tmpdir"), "http-catalog.dat"), 1000);
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir el catalogo: " + e.getMessage());
+            cerrarPersistencia();
+            return;
+        }
+        int stock = Integer.getInteger("tiendaropa.http.stock", 1_000_000);
+        for (int i = 1; i <= 1000; i++) {
+            if (catalog.get("P" + i) == null) {
+                Product product = new Product("P" + i, "Producto " + i, Money.ofClp(20000 + i));
+                product.setStock(stock);
+                catalog.put(product);
+            }
+        }
+        inventory.startExpiry(60 * 1000L);
+        OrderHttpServer server = new OrderHttpServer(orderService, catalog, inventory);
+        try {
+            server.start(new InetSocketAddress(Integer.getInteger("tiendaropa.http.port", 8080)), 8192);
+        } catch (IOException e) {
+            System.out.println("No se pudo iniciar el servidor HTTP: " + e.getMessage());
+            cerrarPersistencia();
+            cerrarCatalogo();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            cerrarPersistencia();
+            cerrarCatalogo();
+        }, "tiendaropa-shutdown"));
+        System.out.println("API HTTP escuchando en " + server.getAddress());
+    }
+
+    /**
+     * Abre la persistencia de pedidos si se indico un directorio de datos
+     * con la propiedad de sistema "tiendaropa.data.dir", y recupera los
+     * pedidos guardados. Con la propiedad "tiendaropa.hot.orders" los
+     * pedidos entregados o cancelados que excedan esa cantidad en memoria
+     * pasan al archivo "cold-orders.seg", con su indice "cold-orders.seg.idx",
+     * del directorio de datos (o del directorio temporal si no hay uno).
+     */
+    private static void abrirPersistencia() {
+        String dataDir = System.getProperty("tiendaropa.data.dir");
+        String calientes = System.getProperty("tiendaropa.hot.orders");
+        try {
+            if (calientes != null) {
+                Path carpeta = Paths.get(dataDir != null ? dataDir : System.getProperty("java.io.tmpdir"));
+                archivoFrio = OrderArchive.open(carpeta.resolve("cold-orders.seg"), 10_000);
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir el archivo de ordenes: " + e.getMessage());
+        }
+        if (dataDir == null) {
+            if (archivoFrio != null) {
+                orderService = crearServicio(null, Integer.parseInt(calientes));
+            }
+            return;
+        }
+        try {
+            FsyncPolicy policy = FsyncPolicy.valueOf(System.getProperty("tiendaropa.fsync", "INTERVAL"));
+            persistence = OrderPersistence.open(Paths.get(dataDir), policy, 100);
+            orderService = crearServicio(persistence.getJournal(), archivoFrio != null ? Integer.parseInt(calientes) : 0);
+            orderService.restoreOrders(persistence.getRecoveredOrders());
+            persistence.startPeriodicSnapshots(orderService, 300);
+            System.out.println("Ordenes recuperadas: " + orderService.getOrderCount() +
+                    " (" + persistence.getRecoveryMillis() + " ms)");
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir el directorio de datos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Crea el servicio de pedidos, con el archivo de ordenes si esta abierto.
+     *
+     * @param journal Journal de pedidos, o null
+     * @param calientes Maximo de ordenes en memoria antes de archivar las terminadas
+     * @return El servicio creado
+     */
+    private static OrderService crearServicio(OrderJournal journal, int calientes) {
+        if (archivoFrio == null) {
+            return new OrderService(SnowflakeOrderIdGenerator.getDefault(), journal, inventory);
+        }
+        return new OrderService(SnowflakeOrderIdGenerator.getDefault(), journal, inventory, null,
+                new OrderRepository(archivoFrio, calientes));
+    }
+
+    /**
+     * Toma una instantanea final y cierra la persistencia de pedidos y el
+     * archivo de ordenes.
+     */
+    private static void cerrarPersistencia() {
+        try {
+            if (persistence != null) {
+                persistence.snapshot(orderService);
+                persistence.close();
+            }
+            if (archivoFrio != null) {
+                archivoFrio.close();
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar el estado: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Abre el catalogo de productos si se indico un archivo con la
+     * propiedad de sistema "tiendaropa.catalog.file". Con
+     * "tiendaropa.catalog.search=true" ademas arma el indice de busqueda.
+     */
+    private static void abrirCatalogo() {
+        String catalogFile = System.getProperty("tiendaropa.catalog.file");
+        if (catalogFile == null) {
+            return;
+        }
+        try {
+            catalog = ProductCatalog.open(Paths.get(catalogFile), 5_000_000);
+            System.out.println("Productos en catalogo: " + catalog.size());
+            if (Boolean.getBoolean("tiendaropa.catalog.search")) {
+                long inicio = System.nanoTime();
+                ProductSearchIndex indice = catalog.enableSearch();
+                System.out.println("Indice de busqueda: " + indice.termCount() + " palabras, "
+                        + indice.memoryBytes() / (1024 * 1024) + " MB, "
+                        + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir el catalogo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra el catalogo de productos.
+     */
+    private static void cerrarCatalogo() {
+        if (catalog == null) {
+            return;
+        }
+        try {
+            catalog.close();
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar el catalogo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica un descuento a todas las ordenes pendientes en paralelo y
+     * muestra el avance cada 10% y el resultado.
+     *
+     * @param discountType Tipo de descuento a aplicar
+     */
+    private static void reprecioMasivo(String discountType) {
+        System.out.println("Aplicando " + discountType + " a las ordenes pendientes...");
+        AtomicInteger ultimoDecil = new AtomicInteger();
+        RepriceResult resultado = orderService.repriceOrders(
+                order -> order.getStatus() == OrderStatus.PENDING, discountType, (revisadas, total) -> {
+                    int decil = total > 0 ? (int) Math.min(10, revisadas * 10 / total) : 10;
+                    int anterior = ultimoDecil.get();
+                    if (decil > anterior && ultimoDecil.compareAndSet(anterior, decil)) {
+                        System.out.println("  " + decil * 10 + "% (" + revisadas + " de " + total + ")");
+                    }
+                });
+        System.out.println("Ordenes revisadas: " + resultado.getVisited() + ", pendientes: " +
+                resultado.getMatched() + ", recalculadas: " + resultado.getRepriced() + ", en " +
+                resultado.getElapsedNanos() / 1_000_000 + " ms");
+    }
+
+    /**
+     * Carga las lineas de las ordenes no canceladas en un almacen columnar y
+     * muestra los totales, las categorias y tallas mas vendidas y las ventas
+     * por dia, con el tiempo de cada consulta.
+     */
+    private static void resumenDeVentas() {
+        long inicio = System.nanoTime();
+        SalesStore ventas = new SalesStore();
+        long lineas = ventas.addOrders(orderService);
+        System.out.println("Lineas de venta cargadas: " + lineas + " en " +
+                (System.nanoTime() - inicio) / 1_000_000 + " ms");
+        inicio = System.nanoTime();
+        System.out.println("Ventas: " + Money.ofClp(ventas.total(SalesMeasure.REVENUE)) + ", unidades: " +
+                ventas.total(SalesMeasure.UNITS));
+        System.out.println("Categorias mas vendidas:");
+        for (SalesGroup grupo : ventas.topN(SalesDimension.CATEGORY, SalesMeasure.REVENUE, 5)) {
+            System.out.println("  " + grupo.getKey() + ": " + Money.ofClp(grupo.getValue()));
+        }
+        System.out.println("Tallas mas vendidas:");
+        for (SalesGroup grupo : ventas.topN(SalesDimension.SIZE, SalesMeasure.UNITS, 5)) {
+            System.out.println("  " + grupo.getKey() + ": " + grupo.getValue() + " unidades");
+        }
+        System.out.println("Ventas por dia:");
+        for (SalesGroup grupo : ventas.groupBy(SalesDimension.DAY, SalesMeasure.REVENUE)) {
+            System.out.println("  " + grupo.getKey() + ": " + Money.ofClp(grupo.getValue()));
+        }
+        System.out.println("Consultas en " + (System.nanoTime() - inicio) / 1_000_000 + " ms");
+    }
+
     /**
      * Muestra el menu principal de opciones.
      */
@@ -126,16 +484,18 @@ public class Main {
         // Agregar entre 1 y 5 productos aleatorios
         int numProducts = random.nextInt(5) + 1;
         for (int i = 0; i < numProducts; i++) {
-            Product product = generarProductoAleatorio();
-            orderService.addProductToOrder(order.getId(), product);
+            ProductView product = generarProductoAleatorio();
+            if (!orderService.addProductToOrder(order.getId(), product)) {
+                System.out.println("Sin stock: " + product.getName());
+            }
         }
 
         System.out.println("\n=== ORDEN CREADA ===");
         System.out.println("ID de la orden: " + order.getId());
         System.out.println("Cliente: " + order.getCustomerId());
         System.out.println("Fecha: " + order.getOrderDate());
-        System.out.println("Productos: " + order.getItems().size());
-        System.out.println("Total: $" + String.format("%,.0f", order.getTotalAmount()) + " CLP");
+        System.out.println("Productos: " + order.getItemCount());
+        System.out.println("Total: " + order.getTotalAmount().format());
     }
 
     /**
@@ -149,21 +509,25 @@ public class Main {
             Order order = orderService.createOrder(customerId);
             
             // Modificar el ID para que sea numerico de hasta 6 digitos
-            String nuevoId = String.format("%06d", random.nextInt(1000000));
-            order.setId(nuevoId);
+            String nuevoId;
+            do {
+                nuevoId = String.format("%06d", random.nextInt(1000000));
+            } while (!orderService.changeOrderId(order.getId(), nuevoId));
 
             // Agregar entre 1 y 5 productos aleatorios
             int numProducts = random.nextInt(5) + 1;
             for (int j = 0; j < numProducts; j++) {
-                Product product = generarProductoAleatorio();
-                orderService.addProductToOrder(order.getId(), product);
+                ProductView product = generarProductoAleatorio();
+                if (!orderService.addProductToOrder(order.getId(), product)) {
+                    System.out.println("Sin stock: " + product.getName());
+                }
             }
 
             System.out.println("\nOrden #" + (i+1));
             System.out.println("ID: " + order.getId());
             System.out.println("Cliente: " + order.getCustomerId());
-            System.out.println("Productos: " + order.getItems().size());
-            System.out.println("Total: $" + String.format("%,.0f", order.getTotalAmount()) + " CLP");
+            System.out.println("Productos: " + order.getItemCount());
+            System.out.println("Total: " + order.getTotalAmount().format());
         }
     }
 
@@ -173,27 +537,27 @@ public class Main {
     private static void mostrarTodasLasOrdenes() {
         System.out.println("\n=== TODAS LAS ORDENES ===");
 
-        if (orderService.getAllOrders().isEmpty()) {
+        if (orderService.hasNoOrders()) {
             System.out.println("No hay ordenes en el sistema.");
             return;
         }
 
-        for (Order order : orderService.getAllOrders()) {
+        orderService.streamOrders().forEach(order -> {
             System.out.println("\nID: " + order.getId());
             System.out.println("Cliente: " + order.getCustomerId());
             System.out.println("Fecha: " + order.getOrderDate());
             System.out.println("Estado: " + order.getStatus());
             System.out.println("Tipo de descuento: " + order.getDiscountType());
-            System.out.println("Productos: " + order.getItems().size());
-            System.out.println("Total: $" + String.format("%,.0f", order.getTotalAmount()) + " CLP");
+            System.out.println("Productos: " + order.getItemCount());
+            System.out.println("Total: " + order.getTotalAmount().format());
 
             // Mostrar productos de la orden
             System.out.println("Productos:");
-            for (Product product : order.getItems()) {
-                System.out.println("  - " + product.getName() + " ($" +
-                        String.format("%,.0f", product.getPrice()) + " CLP)");
+            for (OrderLine line : order.getLines()) {
+                System.out.println("  - " + line.getProduct().getName() + " x" + line.getQuantity()
+                        + " (" + line.getUnitPrice().format() + " c/u, total " + line.getTotalAmount().format() + ")");
             }
-        }
+        });
     }
 
     /**
@@ -202,17 +566,16 @@ public class Main {
     private static void aplicarDescuentoAOrden() {
         System.out.println("\n=== APLICAR DESCUENTO A ORDEN ===");
 
-        if (orderService.getAllOrders().isEmpty()) {
+        if (orderService.hasNoOrders()) {
             System.out.println("No hay ordenes en el sistema.");
             return;
         }
 
         // Mostrar IDs de ordenes disponibles
         System.out.println("Ordenes disponibles:");
-        for (Order order : orderService.getAllOrders()) {
-            System.out.println("- " + order.getId() + " (Cliente: " + order.getCustomerId() +
-                    ", Total actual: $" + String.format("%,.0f", order.getTotalAmount()) + " CLP)");
-        }
+        orderService.streamOrders().forEach(order ->
+                System.out.println("- " + order.getId() + " (Cliente: " + order.getCustomerId() +
+                        ", Total actual: " + order.getTotalAmount().format() + ")"));
 
         System.out.print("\nIngrese el ID de la orden: ");
         String orderId = scanner.nextLine();
@@ -244,14 +607,18 @@ public class Main {
         }
 
         String discountType = DISCOUNT_TYPES[discountOption - 1];
-        double originalTotal = order.getTotalAmount();
-        double discountedTotal = orderService.calculateOrderTotal(orderId, discountType);
+        Money originalTotal = order.getTotalAmount();
+        Money discountedTotal = orderService.calculateOrderTotal(orderId, discountType);
+        if (discountedTotal == null) {
+            System.out.println("Orden no encontrada.");
+            return;
+        }
 
         System.out.println("\nDescuento aplicado correctamente:");
         System.out.println("Tipo de descuento: " + discountType);
-        System.out.println("Total original: $" + String.format("%,.0f", originalTotal) + " CLP");
-        System.out.println("Total con descuento: $" + String.format("%,.0f", discountedTotal) + " CLP");
-        System.out.println("Ahorro: $" + String.format("%,.0f", (originalTotal - discountedTotal)) + " CLP");
+        System.out.println("Total original: " + originalTotal.format());
+        System.out.println("Total con descuento: " + discountedTotal.format());
+        System.out.println("Ahorro: " + originalTotal.minus(discountedTotal).format());
     }
 
     /**
@@ -260,17 +627,16 @@ public class Main {
     private static void cambiarEstadoDeOrden() {
         System.out.println("\n=== CAMBIAR ESTADO DE ORDEN ===");
 
-        if (orderService.getAllOrders().isEmpty()) {
+        if (orderService.hasNoOrders()) {
             System.out.println("No hay ordenes en el sistema.");
             return;
         }
 
         // Mostrar IDs de ordenes disponibles
         System.out.println("Ordenes disponibles:");
-        for (Order order : orderService.getAllOrders()) {
-            System.out.println("- " + order.getId() + " (Cliente: " + order.getCustomerId() +
-                    ", Estado actual: " + order.getStatus() + ")");
-        }
+        orderService.streamOrders().forEach(order ->
+                System.out.println("- " + order.getId() + " (Cliente: " + order.getCustomerId() +
+                        ", Estado actual: " + order.getStatus() + ")"));
 
         System.out.print("\nIngrese el ID de la orden: ");
         String orderId = scanner.nextLine();
@@ -281,19 +647,29 @@ public class Main {
             return;
         }
 
-        // Mostrar estados disponibles
-        System.out.println("\nEstados disponibles:");
-        System.out.println("1. Pendiente");
-        System.out.println("2. Procesando");
-        System.out.println("3. Enviado");
-        System.out.println("4. Entregado");
-        System.out.println("5. Cancelado");
+        // Mostrar solo los estados a los que puede pasar la orden
+        OrderStatus currentStatus = order.getStatus();
+        List<OrderStatus> estados = new ArrayList<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            if (currentStatus.canTransitionTo(status)) {
+                estados.add(status);
+            }
+        }
+        if (estados.isEmpty()) {
+            System.out.println("La orden esta en un estado final (" + currentStatus + "). No se puede cambiar.");
+            return;
+        }
 
-        System.out.print("Seleccione un nuevo estado (1-5): ");
+        System.out.println("\nEstados disponibles desde " + currentStatus + ":");
+        for (int i = 0; i < estados.size(); i++) {
+            System.out.println((i + 1) + ". " + estados.get(i));
+        }
+
+        System.out.print("Seleccione un nuevo estado (1-" + estados.size() + "): ");
         int statusOption;
         try {
             statusOption = Integer.parseInt(scanner.nextLine());
-            if (statusOption < 1 || statusOption > 5) {
+            if (statusOption < 1 || statusOption > estados.size()) {
                 System.out.println("Opcion no valida. No se cambio el estado.");
                 return;
             }
@@ -302,10 +678,13 @@ public class Main {
             return;
         }
 
-        String[] estados = {"Pendiente", "Procesando", "Enviado", "Entregado", "Cancelado"};
-        String newStatus = estados[statusOption - 1];
+        OrderStatus newStatus = estados.get(statusOption - 1);
 
-        orderService.updateOrderStatus(orderId, newStatus);
+        // Solo se cambia si nadie cambio el estado mientras se elegia
+        if (!orderService.updateOrderStatus(orderId, currentStatus, newStatus)) {
+            System.out.println("La orden cambio de estado mientras tanto. No se cambio el estado.");
+            return;
+        }
         System.out.println("\nEstado actualizado correctamente:");
         System.out.println("Orden: " + orderId);
         System.out.println("Nuevo estado: " + newStatus);
@@ -313,60 +692,29 @@ public class Main {
 
     /**
      * Genera un producto con caracteristicas aleatorias.
+     * Un SKU que ya aparecio se reutiliza: desde el catalogo si hay uno
+     * abierto, o si no desde el cache de productos inmutables, de modo que
+     * todas las lineas del SKU comparten el mismo producto. El stock del
+     * SKU se registra en las reservas la primera vez que aparece.
      *
      * @return Producto generado aleatoriamente
      */
-    private static Product generarProductoAleatorio() {
-        String id = "P" + (random.nextInt(1000) + 1);
-        String category = PRODUCT_CATEGORIES[random.nextInt(PRODUCT_CATEGORIES.length)];
-        String name = generarNombreProducto(category);
-        double price = 20000 + random.nextInt(40001); // Entre 20.000 y 60.000 CLP
-        String color = PRODUCT_COLORS[random.nextInt(PRODUCT_COLORS.length)];
-        String size = PRODUCT_SIZES[random.nextInt(PRODUCT_SIZES.length)];
-        int stock = random.nextInt(100) + 1;
-
-        Product product = new Product(id, name, price);
-        product.setCategory(category);
-        product.setColor(color);
-        product.setSize(size);
-        product.setStock(stock);
-        product.setDescription("Producto de " + category + " en color " + color + ", talla " + size);
-
-        return product;
-    }
-
-    /**
-     * Genera un nombre de producto basado en su categoria.
-     *
-     * @param category Categoria del producto
-     * @return Nombre generado para el producto
-     */
-    private static String generarNombreProducto(String category) {
-        String[] prefijos = {"Elegante", "Casual", "Moderno", "Clasico", "Deportivo", "Formal"};
-        String prefijo = prefijos[random.nextInt(prefijos.length)];
-
-        switch (category) {
-            case "Camisetas":
-                String[] tiposCamiseta = {"Polo", "Manga corta", "Manga larga", "Estampada", "Basica"};
-                return prefijo + " " + category.substring(0, category.length() - 1) + " " +
-                        tiposCamiseta[random.nextInt(tiposCamiseta.length)];
-            case "Pantalones":
-                String[] tiposPantalon = {"Vaquero", "Chino", "Deportivo", "Formal", "Cargo"};
-                return prefijo + " " + category.substring(0, category.length() - 1) + " " +
-                        tiposPantalon[random.nextInt(tiposPantalon.length)];
-            case "Vestidos":
-                String[] tiposVestido = {"Cocktail", "Casual", "Noche", "Verano", "Fiesta"};
-                return prefijo + " " + category.substring(0, category.length() - 1) + " de " +
-                        tiposVestido[random.nextInt(tiposVestido.length)];
-            case "Chaquetas":
-                String[] tiposChaqueta = {"Cuero", "Vaquera", "Bomber", "Acolchada", "Impermeable"};
-                return prefijo + " " + category.substring(0, category.length() - 1) + " de " +
-                        tiposChaqueta[random.nextInt(tiposChaqueta.length)];
-            case "Zapatos":
-                String[] tiposZapato = {"Deportivos", "Formales", "Casuales", "Botas", "Sandalias"};
-                return prefijo + " " + category + " " + tiposZapato[random.nextInt(tiposZapato.length)];
-            default:
-                return prefijo + " " + category;
+    private static ProductView generarProductoAleatorio() {
+        String id = productFactory.nextSku();
+        if (catalog == null) {
+            return productCache.computeIfAbsent(id, sku -> {
+                Product product = productFactory.newProduct(sku);
+                inventory.register(sku, product.getStock());
+                return product;
+            });
+        }
+        ProductView existing = catalog.get(id);
+        if (existing != null) {
+            inventory.register(id, existing.getStock());
+            return existing;
         }
+        Product product = productFactory.newProduct(id);
+        inventory.register(id, product.getStock());
+        return catalog.put(product);
     }
-}
\ No newline at end of file
+}
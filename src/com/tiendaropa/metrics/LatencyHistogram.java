@@ -0,0 +1,176 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en nanosegundos, seguro para varios hilos y sin bloqueos.
+ * Los valores se agrupan en cubetas log-lineales: cada potencia de dos se
+ * divide en 128 cubetas iguales, por lo que el error relativo de un
+ * percentil es menor a 1%. Registrar un valor es un incremento atómico,
+ * sin crear objetos.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Registra una latencia.
+     *
+     * @param nanos Latencia en nanosegundos; los valores negativos cuentan como 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde un instante de System.nanoTime.
+     *
+     * @param startNanos Instante inicial
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Obtiene la latencia bajo la cual está el porcentaje pedido de los registros.
+     *
+     * @param percentile Percentil entre 0 y 100, por ejemplo 99.9
+     * @return Latencia en nanosegundos; 0 si no hay registros
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Obtiene la cantidad de latencias registradas.
+     *
+     * @return Número de registros
+     */
+    public long getCount() {
+        return total.sum();
+    }
+
+    /**
+     * Obtiene la suma de las latencias registradas.
+     *
+     * @return Suma en nanosegundos
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Obtiene la latencia media.
+     *
+     * @return Media en nanosegundos; 0 si no hay registros
+     */
+    public double getMean() {
+        long count = total.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Obtiene la mayor latencia registrada.
+     *
+     * @return Máximo en nanosegundos
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Suma los registros de otro histograma a este.
+     *
+     * @param other Histograma a sumar
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        total.add(other.total.sum());
+        sum.add(other.sum.sum());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * Borra todos los registros. Los registros concurrentes con el borrado
+     * pueden quedar o no.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Resume el histograma en microsegundos.
+     *
+     * @return Texto con cantidad, media, p50, p99, p99.9 y máximo
+     */
+    public String summary() {
+        return String.format("n=%d media=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                getCount(), getMean() / 1000.0,
+                getValueAtPercentile(50) / 1000.0, getValueAtPercentile(99) / 1000.0,
+                getValueAtPercentile(99.9) / 1000.0, getMax() / 1000.0);
+    }
+
+    // Valores menores a 2 * SUB_BUCKETS tienen cubeta propia; desde ahí, cada
+    // potencia de dos se divide en SUB_BUCKETS cubetas.
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = index - ((long) shift << SUB_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro de las métricas de la tienda: operaciones con latencia y
+ * contadores simples. Las métricas se crean una vez (normalmente en campos
+ * estáticos) y se leen por demanda con snapshot, que se puede exportar en
+ * formato de texto.
+ * El registro compartido está desactivado salvo que se inicie con la
+ * propiedad de sistema "tiendaropa.metrics=true"; también se puede activar
+ * y desactivar en tiempo de ejecución con setEnabled.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry DEFAULT = new MetricsRegistry(Boolean.getBoolean("tiendaropa.metrics"));
+
+    private final ConcurrentHashMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    /**
+     * Crea un registro vacío.
+     *
+     * @param enabled true para empezar a registrar de inmediato
+     */
+    public MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Obtiene el registro compartido por el servicio de pedidos y el
+     * gestor de descuentos.
+     *
+     * @return Registro compartido
+     */
+    public static MetricsRegistry getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Indica si se están registrando métricas.
+     *
+     * @return true si el registro está activado
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Activa o desactiva el registro. Los valores acumulados se conservan.
+     *
+     * @param enabled true para registrar
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Obtiene las métricas de una operación, creándolas la primera vez.
+     *
+     * @param name Nombre de la operación
+     * @return Métricas de la operación
+     */
+    public OperationMetrics operation(String name) {
+        return operations.computeIfAbsent(name, n -> new OperationMetrics(this, n));
+    }
+
+    /**
+     * Obtiene un contador, creándolo la primera vez.
+     * El contador no revisa isEnabled; quien lo incrementa debe hacerlo.
+     *
+     * @param name Nombre del contador, con etiquetas opcionales en el
+     *             formato de texto, por ejemplo discount_lookups{type="MEMBER"}
+     * @return Contador
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Toma una instantánea de todas las métricas.
+     * Cada valor se lee sin detener a los hilos que registran, por lo que
+     * valores de una misma operación pueden diferir en las llamadas en curso.
+     *
+     * @return Instantánea ordenada por nombre
+     */
+    public MetricsSnapshot snapshot() {
+        List<MetricsSnapshot.Operation> ops = new ArrayList<>();
+        for (OperationMetrics op : new TreeMap<>(operations).values()) {
+            ops.add(new MetricsSnapshot.Operation(op));
+        }
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+        return new MetricsSnapshot(System.currentTimeMillis(), enabled, ops, values);
+    }
+
+    /**
+     * Pone en cero todas las métricas.
+     */
+    public void reset() {
+        for (OperationMetrics op : operations.values()) {
+            op.reset();
+        }
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+    }
+}
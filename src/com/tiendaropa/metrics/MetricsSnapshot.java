@@ -0,0 +1,288 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Instantánea inmutable de las métricas de un MetricsRegistry.
+ * Se puede escribir en el formato de texto de exposición de Prometheus
+ * (versión 0.0.4), con las latencias en segundos:
+ *
+ * <pre>
+ * # TYPE tiendaropa_operation_calls_total counter
+ * tiendaropa_operation_calls_total{operation="createOrder"} 1200
+ * # TYPE tiendaropa_operation_latency_seconds summary
+ * tiendaropa_operation_latency_seconds{operation="createOrder",quantile="0.99"} 0.000021
+ * tiendaropa_discount_lookups_total{type="MEMBER"} 5400
+ * </pre>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class MetricsSnapshot {
+
+    /** Tipo de contenido del formato de texto. */
+    public static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String PREFIX = "tiendaropa_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final long timestamp;
+    private final boolean enabled;
+    private final List<Operation> operations;
+    private final Map<String, Long> counters;
+
+    MetricsSnapshot(long timestamp, boolean enabled, List<Operation> operations, Map<String, Long> counters) {
+        this.timestamp = timestamp;
+        this.enabled = enabled;
+        this.operations = Collections.unmodifiableList(operations);
+        this.counters = Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * Obtiene el instante en que se tomó la instantánea.
+     *
+     * @return Milisegundos epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Indica si el registro estaba activado al tomar la instantánea.
+     *
+     * @return true si estaba activado
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Obtiene las métricas de las operaciones, ordenadas por nombre.
+     *
+     * @return Lista no modificable
+     */
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Busca las métricas de una operación.
+     *
+     * @param name Nombre de la operación
+     * @return Métricas de la operación o null si no existe
+     */
+    public Operation getOperation(String name) {
+        for (Operation op : operations) {
+            if (op.getName().equals(name)) {
+                return op;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene los contadores por nombre.
+     *
+     * @return Mapa no modificable ordenado por nombre
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * Escribe la instantánea en el formato de texto.
+     *
+     * @param out Destino del texto
+     * @throws IOException si no se puede escribir
+     */
+    public void writeText(Appendable out) throws IOException {
+        family(out, "operation_calls_total", "counter");
+        for (Operation op : operations) {
+            sample(out, "operation_calls_total", op.label(), op.getCalls());
+        }
+        family(out, "operation_failures_total", "counter");
+        for (Operation op : operations) {
+            sample(out, "operation_failures_total", op.label(), op.getFailures());
+        }
+        family(out, "operation_latency_seconds", "summary");
+        for (Operation op : operations) {
+            for (int i = 0; i < QUANTILES.length; i++) {
+                sample(out, "operation_latency_seconds",
+                        op.label() + ",quantile=\"" + QUANTILES[i] + "\"", seconds(op.quantiles[i]));
+            }
+            sample(out, "operation_latency_seconds_sum", op.label(), seconds(op.getLatencySumNanos()));
+            sample(out, "operation_latency_seconds_count", op.label(), op.getLatencyCount());
+        }
+        family(out, "operation_latency_max_seconds", "gauge");
+        for (Operation op : operations) {
+            sample(out, "operation_latency_max_seconds", op.label(), seconds(op.getMaxNanos()));
+        }
+        String family = null;
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            String key = entry.getKey();
+            int brace = key.indexOf('{');
+            String name = (brace >= 0 ? key.substring(0, brace) : key) + "_total";
+            if (!name.equals(family)) {
+                family(out, name, "counter");
+                family = name;
+            }
+            out.append(PREFIX).append(name).append(brace >= 0 ? key.substring(brace) : "")
+                    .append(' ').append(Long.toString(entry.getValue())).append('\n');
+        }
+    }
+
+    /**
+     * Obtiene la instantánea en el formato de texto.
+     *
+     * @return Texto de exposición
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder(1024);
+        try {
+            writeText(text);
+        } catch (IOException e) {
+            // StringBuilder no lanza IOException
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+
+    private static void family(Appendable out, String name, String type) throws IOException {
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(Appendable out, String name, String labels, long value) throws IOException {
+        out.append(PREFIX).append(name).append('{').append(labels).append("} ")
+                .append(Long.toString(value)).append('\n');
+    }
+
+    private static void sample(Appendable out, String name, String labels, String value) throws IOException {
+        out.append(PREFIX).append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * Métricas de una operación dentro de la instantánea.
+     */
+    public static final class Operation {
+
+        private final String name;
+        private final long calls;
+        private final long failures;
+        private final long latencyCount;
+        private final long latencySumNanos;
+        private final long maxNanos;
+        private final long[] quantiles = new long[QUANTILES.length];
+
+        Operation(OperationMetrics metrics) {
+            LatencyHistogram latency = metrics.getLatency();
+            this.name = metrics.getName();
+            this.calls = metrics.getCalls();
+            this.failures = metrics.getFailures();
+            this.latencyCount = latency.getCount();
+            this.latencySumNanos = latency.getSum();
+            this.maxNanos = latency.getMax();
+            for (int i = 0; i < QUANTILES.length; i++) {
+                quantiles[i] = latency.getValueAtPercentile(QUANTILES[i] * 100);
+            }
+        }
+
+        /**
+         * Obtiene el nombre de la operación.
+         *
+         * @return Nombre
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Obtiene la cantidad de llamadas.
+         *
+         * @return Número de llamadas
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        /**
+         * Obtiene la cantidad de llamadas que no tuvieron efecto.
+         *
+         * @return Número de fallos
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Obtiene la cantidad de latencias registradas.
+         *
+         * @return Número de registros del histograma
+         */
+        public long getLatencyCount() {
+            return latencyCount;
+        }
+
+        /**
+         * Obtiene la suma de las latencias.
+         *
+         * @return Suma en nanosegundos
+         */
+        public long getLatencySumNanos() {
+            return latencySumNanos;
+        }
+
+        /**
+         * Obtiene la mayor latencia.
+         *
+         * @return Máximo en nanosegundos
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Obtiene la latencia mediana.
+         *
+         * @return p50 en nanosegundos
+         */
+        public long getP50Nanos() {
+            return quantiles[0];
+        }
+
+        /**
+         * Obtiene el percentil 99 de la latencia.
+         *
+         * @return p99 en nanosegundos
+         */
+        public long getP99Nanos() {
+            return quantiles[2];
+        }
+
+        /**
+         * Obtiene el percentil 99.9 de la latencia.
+         *
+         * @return p99.9 en nanosegundos
+         */
+        public long getP999Nanos() {
+            return quantiles[3];
+        }
+
+        private String label() {
+            return "operation=\"" + name + "\"";
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de una operación: cantidad de llamadas, cantidad de fallos e
+ * histograma de latencias. Se usa alrededor de la operación así:
+ *
+ * <pre>
+ * long start = metrics.start();
+ * boolean ok = ...;
+ * metrics.stop(start, ok);
+ * </pre>
+ *
+ * Con el registro desactivado, start devuelve 0 sin leer el reloj y stop
+ * no hace nada, por lo que el costo es una lectura volátil y un salto.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OperationMetrics {
+
+    private final MetricsRegistry registry;
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(MetricsRegistry registry, String name) {
+        this.registry = registry;
+        this.name = name;
+    }
+
+    /**
+     * Marca el inicio de una llamada.
+     *
+     * @return Instante de System.nanoTime, o 0 si el registro está desactivado
+     */
+    public long start() {
+        // El bit bajo en 1 evita que un instante 0 se confunda con "desactivado"
+        return registry.isEnabled() ? System.nanoTime() | 1L : 0L;
+    }
+
+    /**
+     * Registra el fin de una llamada iniciada con start.
+     *
+     * @param start Valor devuelto por start
+     * @param success false si la operación no tuvo efecto (por ejemplo, el pedido no existe)
+     */
+    public void stop(long start, boolean success) {
+        if (start == 0L) {
+            return;
+        }
+        latency.record(System.nanoTime() - start);
+        calls.increment();
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Obtiene el nombre de la operación.
+     *
+     * @return Nombre, por ejemplo "createOrder"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Obtiene la cantidad de llamadas registradas.
+     *
+     * @return Número de llamadas
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de llamadas que no tuvieron efecto.
+     *
+     * @return Número de fallos
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * Obtiene el histograma de latencias de la operación.
+     *
+     * @return Histograma en nanosegundos
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    void reset() {
+        calls.reset();
+        failures.reset();
+        latency.reset();
+    }
+}
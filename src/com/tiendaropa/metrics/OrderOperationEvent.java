@@ -0,0 +1,90 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento de JDK Flight Recorder para una operación del servicio de pedidos.
+ * Viene desactivado; se activa al iniciar una grabación, por ejemplo:
+ *
+ * <pre>
+ * jcmd &lt;pid&gt; JFR.start name=tienda +com.tiendaropa.OrderOperation#enabled=true
+ * </pre>
+ *
+ * Mientras no hay una grabación que lo active, start no crea un evento
+ * nuevo sino que entrega una instancia compartida cuyo finish no hace nada,
+ * así que el camino de las operaciones no asigna memoria por él.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+@Name("com.tiendaropa.OrderOperation")
+@Label("Operacion de pedido")
+@Category("TiendaRopa")
+@Description("Llamada a una operacion de OrderService")
+@Enabled(false)
+@StackTrace(false)
+@Threshold("0 ms")
+public final class OrderOperationEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(OrderOperationEvent.class);
+    // Se entrega mientras el evento está desactivado; nunca se inicia ni se registra
+    private static final OrderOperationEvent DISABLED = new OrderOperationEvent();
+
+    @Label("Operacion")
+    private String operation;
+
+    @Label("Pedido")
+    private String orderId;
+
+    @Label("Exito")
+    private boolean success;
+
+    /**
+     * Crea el evento y marca el inicio de la operación.
+     * Si ninguna grabación activa el evento, no crea nada.
+     *
+     * @return Evento iniciado, o la instancia compartida que no registra nada
+     */
+    public static OrderOperationEvent start() {
+        if (!TYPE.isEnabled()) {
+            return DISABLED;
+        }
+        OrderOperationEvent event = new OrderOperationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Marca el fin de la operación y, si hay una grabación que acepta el
+     * evento, lo registra.
+     *
+     * @param metrics Operación a la que corresponde el evento
+     * @param orderId Identificador del pedido, o null si no se conoce
+     * @param success false si la operación no tuvo efecto
+     */
+    public void finish(OperationMetrics metrics, String orderId, boolean success) {
+        if (this == DISABLED) {
+            return;
+        }
+        end();
+        if (shouldCommit()) {
+            this.operation = metrics.getName();
+            this.orderId = orderId;
+            this.success = success;
+            commit();
+        }
+    }
+}
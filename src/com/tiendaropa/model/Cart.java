@@ -0,0 +1,129 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Carro de compras de un cliente: los productos que quiere comprar, con
+ * su cantidad, y el tipo de descuento que se le aplicará. A diferencia de
+ * un pedido no reserva stock ni calcula totales; eso lo hace el checkout,
+ * que convierte el carro completo en un pedido de una sola vez.
+ * Agregar un producto que ya está en el carro suma a su cantidad.
+ * No es seguro entre hilos y no se debe modificar mientras se procesa
+ * su checkout.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class Cart {
+
+    private final String customerId;
+    private final String discountType;
+    private final List<ProductView> products = new ArrayList<>();
+    private int[] quantities = new int[4];
+
+    /**
+     * Constructor que inicializa un carro vacío.
+     *
+     * @param customerId Identificador del cliente
+     * @param discountType Tipo de descuento del pedido que resultará
+     */
+    public Cart(String customerId, String discountType) {
+        this.customerId = customerId;
+        this.discountType = discountType;
+    }
+
+    /**
+     * Constructor que inicializa un carro vacío sin descuento.
+     *
+     * @param customerId Identificador del cliente
+     */
+    public Cart(String customerId) {
+        this(customerId, "NONE");
+    }
+
+    /**
+     * Agrega unidades de un producto al carro.
+     *
+     * @param product Producto, propio o vista del catálogo
+     * @param quantity Cantidad de unidades, positiva
+     * @throws IllegalArgumentException si la cantidad no es positiva
+     */
+    public void add(ProductView product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser positiva: " + quantity);
+        }
+        for (int i = 0; i < products.size(); i++) {
+            if (products.get(i).getId().equals(product.getId())) {
+                quantities[i] = Math.addExact(quantities[i], quantity);
+                return;
+            }
+        }
+        if (products.size() == quantities.length) {
+            quantities = Arrays.copyOf(quantities, quantities.length * 2);
+        }
+        quantities[products.size()] = quantity;
+        products.add(product);
+    }
+
+    /**
+     * Obtiene el identificador del cliente.
+     *
+     * @return Identificador del cliente
+     */
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * Obtiene el tipo de descuento del carro.
+     *
+     * @return Tipo de descuento
+     */
+    public String getDiscountType() {
+        return discountType;
+    }
+
+    /**
+     * Obtiene la cantidad de productos distintos del carro.
+     *
+     * @return Número de líneas
+     */
+    public int getLineCount() {
+        return products.size();
+    }
+
+    /**
+     * Obtiene el producto de una línea del carro.
+     *
+     * @param index Posición de la línea, entre 0 y getLineCount() - 1
+     * @return Producto de la línea
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    public ProductView getProduct(int index) {
+        return products.get(index);
+    }
+
+    /**
+     * Obtiene la cantidad de una línea del carro.
+     *
+     * @param index Posición de la línea, entre 0 y getLineCount() - 1
+     * @return Unidades de la línea
+     * @throws IndexOutOfBoundsException si la posición no existe
+     */
+    public int getQuantity(int index) {
+        return quantities[Objects.checkIndex(index, products.size())];
+    }
+
+    @Override
+    public String toString() {
+        return "Cart{customerId=" + customerId + ", discountType=" + discountType + ", lines=" + products.size() + "}";
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Valor monetario exacto guardado como un long en unidades menores
+ * de la moneda (pesos para CLP, centavos para USD) junto con su moneda.
+ * Las sumas son exactas; el redondeo solo ocurre al aplicar un
+ * porcentaje, con las reglas de scale.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class Money implements Comparable<Money> {
+
+    /** Peso chileno, la moneda de la tienda. */
+    public static final Currency CLP = Currency.getInstance("CLP");
+
+    /** Cero pesos chilenos. */
+    public static final Money ZERO_CLP = new Money(0, CLP);
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L};
+
+    private final long amount;
+    private final Currency currency;
+
+    private Money(long amount, Currency currency) {
+        this.amount = amount;
+        this.currency = currency;
+    }
+
+    /**
+     * Crea un valor a partir de unidades menores.
+     *
+     * @param amount Monto en unidades menores de la moneda
+     * @param currency Moneda del monto
+     * @return El valor creado
+     */
+    public static Money of(long amount, Currency currency) {
+        return new Money(amount, currency);
+    }
+
+    /**
+     * Crea un valor en pesos chilenos.
+     *
+     * @param pesos Monto en pesos
+     * @return El valor creado
+     */
+    public static Money ofClp(long pesos) {
+        return new Money(pesos, CLP);
+    }
+
+    /**
+     * Crea un valor a partir de un monto en unidades mayores, redondeando
+     * a la unidad menor más cercana (mitades hacia arriba).
+     * Solo se usa al convertir datos que todavía vienen como double.
+     *
+     * @param major Monto en unidades mayores
+     * @param currency Moneda del monto
+     * @return El valor creado
+     */
+    public static Money ofMajor(double major, Currency currency) {
+        return new Money(Math.round(major * minorUnitsPerMajor(currency)), currency);
+    }
+
+    /**
+     * Obtiene cuántas unidades menores tiene una unidad mayor de la moneda.
+     *
+     * @param currency Moneda
+     * @return 1 para CLP, 100 para USD, etc.
+     */
+    public static long minorUnitsPerMajor(Currency currency) {
+        return POWERS_OF_TEN[Math.max(currency.getDefaultFractionDigits(), 0)];
+    }
+
+    /**
+     * Multiplica un monto por numerator / denominator y redondea el
+     * resultado a unidades menores sin crear objetos.
+     * Se admiten los modos HALF_UP, HALF_EVEN, HALF_DOWN, UP y DOWN,
+     * que se aplican sobre el valor absoluto (simétricos respecto del cero).
+     *
+     * @param amount Monto en unidades menores
+     * @param numerator Numerador de la fracción
+     * @param denominator Denominador de la fracción, positivo
+     * @param mode Modo de redondeo
+     * @return El monto escalado y redondeado
+     * @throws IllegalArgumentException si el modo no está soportado
+     */
+    public static long scale(long amount, long numerator, long denominator, RoundingMode mode) {
+        long product = Math.multiplyExact(amount, numerator);
+        long magnitude = Math.abs(product);
+        long quotient = magnitude / denominator;
+        long remainder = magnitude % denominator;
+        if (remainder != 0) {
+            long twice = remainder * 2;
+            switch (mode) {
+                case HALF_UP:
+                    if (twice >= denominator) {
+                        quotient++;
+                    }
+                    break;
+                case HALF_DOWN:
+                    if (twice > denominator) {
+                        quotient++;
+                    }
+                    break;
+                case HALF_EVEN:
+                    if (twice > denominator || (twice == denominator && (quotient & 1) == 1)) {
+                        quotient++;
+                    }
+                    break;
+                case UP:
+                    quotient++;
+                    break;
+                case DOWN:
+                    break;
+                default:
+                    throw new IllegalArgumentException("Modo de redondeo no soportado: " + mode);
+            }
+        }
+        return product < 0 ? -quotient : quotient;
+    }
+
+    /**
+     * Suma otro valor de la misma moneda.
+     *
+     * @param other Valor a sumar
+     * @return La suma
+     * @throws IllegalArgumentException si las monedas son distintas
+     */
+    public Money plus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.addExact(amount, other.amount), currency);
+    }
+
+    /**
+     * Resta otro valor de la misma moneda.
+     *
+     * @param other Valor a restar
+     * @return La diferencia
+     * @throws IllegalArgumentException si las monedas son distintas
+     */
+    public Money minus(Money other) {
+        checkCurrency(other);
+        return new Money(Math.subtractExact(amount, other.amount), currency);
+    }
+
+    /**
+     * Multiplica el valor por una cantidad entera.
+     *
+     * @param quantity Cantidad
+     * @return El producto
+     */
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(amount, quantity), currency);
+    }
+
+    private void checkCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Monedas distintas: " + currency + " y " + other.currency);
+        }
+    }
+
+    /**
+     * Obtiene el monto en unidades menores.
+     *
+     * @return Monto en unidades menores de la moneda
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Obtiene la moneda del valor.
+     *
+     * @return Moneda
+     */
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Convierte el valor a unidades mayores como double.
+     * Solo para mostrar o para interoperar con código que usa double.
+     *
+     * @return Monto en unidades mayores
+     */
+    public double toMajor() {
+        return (double) amount / minorUnitsPerMajor(currency);
+    }
+
+    /**
+     * Formatea el valor para mostrarlo al usuario, por ejemplo "$25,990 CLP".
+     *
+     * @return Texto con el monto y la moneda
+     */
+    public String format() {
+        int digits = Math.max(currency.getDefaultFractionDigits(), 0);
+        if (digits == 0) {
+            return "$" + String.format("%,d", amount) + " " + currency.getCurrencyCode();
+        }
+        return "$" + String.format("%,." + digits + "f", toMajor()) + " " + currency.getCurrencyCode();
+    }
+
+    /**
+     * Compara dos valores de la misma moneda.
+     *
+     * @param other Valor a comparar
+     * @return Negativo, cero o positivo según el orden de los montos
+     */
+    @Override
+    public int compareTo(Money other) {
+        checkCurrency(other);
+        return Long.compare(amount, other.amount);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Money)) {
+            return false;
+        }
+        Money other = (Money) obj;
+        return amount == other.amount && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(amount) + currency.hashCode();
+    }
+
+    /**
+     * Representación en texto del valor.
+     *
+     * @return Monto en unidades menores seguido del código de moneda
+     */
+    @Override
+    public String toString() {
+        return amount + " " + currency.getCurrencyCode();
+    }
+}
@@ -4,14 +4,36 @@
  */
 package com.tiendaropa.model;
 
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
+import com.tiendaropa.singleton.DiscountManager;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Clase que representa un pedido en la tienda de ropa online.
  * Contiene información sobre los productos solicitados, cliente,
  * fechas y estado del pedido.
+ * Los productos se agrupan en una línea por SKU con su cantidad, el
+ * precio unitario que tenían al agregarse y el total de la línea, de modo
+ * que diez unidades del mismo producto son una sola línea. Las líneas se
+ * buscan por SKU en tiempo constante.
+ * El total se mantiene de forma incremental: agregar, quitar o cambiar la
+ * cantidad de un producto solo recalcula su línea, y el recálculo completo
+ * se hace únicamente al cambiar el tipo de descuento. Los descuentos se
+ * aplican por línea, por lo que las promociones BUY_X_GET_Y cuentan las
+ * unidades de cada SKU.
+ * Los totales se guardan como long en unidades menores de la moneda del
+ * pedido, por lo que las sumas son exactas y no crean objetos.
+ * El estado sigue el ciclo de OrderStatus y cambia con compare-and-set:
+ * dos hilos que intentan transiciones a la vez no se pisan, y una
+ * transición no permitida desde el estado actual se rechaza sin bloqueos.
  *
  * @author Equipo TiendaRopa
  * @version 1.0
@@ -19,13 +41,28 @@ import java.util.List;
  */
 public class Order {
     
+    private static final VarHandle STATUS;
+
+    static {
+        try {
+            STATUS = MethodHandles.lookup().findVarHandle(Order.class, "status", OrderStatus.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
     private String id;
-    private String customerId;
-    private Date orderDate;
-    private List<Product> items;
-    private String status;
-    private double totalAmount;
+    private final String customerId;
+    private final Date orderDate;
+    private final OrderLines lines;
+    private volatile OrderStatus status;
+    private Currency currency;
+    private long baseAmount;
+    private long totalAmount;
+    private long itemCount;
+    private long journalSequence;
     private String discountType;
+    private DiscountType discount;
     
     /**
      * Constructor que inicializa un pedido con todos sus atributos.
@@ -33,69 +70,192 @@ public class Order {
      * @param id Identificador único del pedido
      * @param customerId Identificador del cliente que realizó el pedido
      * @param orderDate Fecha en que se realizó el pedido
-     * @param status Estado actual del pedido (pendiente, enviado, entregado, etc.)
+     * @param status Estado actual del pedido
      * @param discountType Tipo de descuento aplicado al pedido
      */
-    public Order(String id, String customerId, Date orderDate, String status, String discountType) {
+    public Order(String id, String customerId, Date orderDate, OrderStatus status, String discountType) {
         this.id = id;
         this.customerId = customerId;
-        this.orderDate = orderDate;
+        this.orderDate = orderDate != null ? new Date(orderDate.getTime()) : null;
         this.status = status;
         this.discountType = discountType;
-        this.items = new ArrayList<>();
-        this.totalAmount = 0.0;
+        this.discount = DiscountType.fromCode(discountType);
+        this.lines = new OrderLines();
+        this.currency = Money.CLP;
+        this.baseAmount = 0L;
+        this.totalAmount = 0L;
     }
     
     /**
      * Constructor básico que inicializa un pedido solo con el ID del cliente.
      * Establece valores predeterminados para los demás atributos.
+     * El identificador se obtiene del generador Snowflake compartido.
      * 
      * @param customerId Identificador del cliente que realiza el pedido
      */
     public Order(String customerId) {
-        this.id = "ORD-" + System.currentTimeMillis();
-        this.customerId = customerId;
-        this.orderDate = new Date();
-        this.status = "Pendiente";
-        this.discountType = "NONE";
-        this.items = new ArrayList<>();
-        this.totalAmount = 0.0;
+        this(SnowflakeOrderIdGenerator.getDefault().nextOrderId(), customerId);
     }
     
     /**
-     * Añade un producto al pedido y recalcula el total.
+     * Constructor que inicializa un pedido nuevo con un identificador ya asignado.
+     * Establece valores predeterminados para los demás atributos.
+     * 
+     * @param id Identificador único del pedido
+     * @param customerId Identificador del cliente que realiza el pedido
+     */
+    public Order(String id, String customerId) {
+        this(id, customerId, new Date(), OrderStatus.PENDING, "NONE");
+    }
+    
+    /**
+     * Añade una unidad de un producto al pedido y actualiza el total en tiempo constante.
+     * 
+     * El pedido guarda la referencia recibida, que puede ser una vista
+     * del catálogo de productos.
      * 
      * @param product Producto a añadir al pedido
+     * @throws IllegalArgumentException si el precio está en otra moneda que el pedido
      */
-    public void addProduct(Product product) {
-        items.add(product);
-        calculateTotal();
+    public void addProduct(ProductView product) {
+        addProduct(product, 1);
     }
     
     /**
-     * Elimina un producto del pedido y recalcula el total.
+     * Añade unidades de un producto al pedido en tiempo constante.
+     * Si el SKU ya está en el pedido se suma a su línea, que conserva el
+     * precio unitario con que se agregó; si no, se crea una línea con el
+     * precio actual del producto.
+     * 
+     * @param product Producto a añadir al pedido
+     * @param quantity Cantidad de unidades, positiva
+     * @throws IllegalArgumentException si la cantidad no es positiva o si el
+     *         precio está en otra moneda que el pedido
+     */
+    public void addProduct(ProductView product, int quantity) {
+        addLine(product, quantity, product.getPrice());
+    }
+    
+    /**
+     * Restaura una línea con el precio unitario que tenía al guardarse.
+     * Se usa al leer pedidos del disco; si el SKU ya está en el pedido,
+     * la cantidad se suma a su línea.
+     * 
+     * @param product Producto de la línea
+     * @param quantity Cantidad de unidades, positiva
+     * @param unitPrice Precio unitario guardado
+     * @throws IllegalArgumentException si la cantidad no es positiva o si el
+     *         precio está en otra moneda que el pedido
+     */
+    public void addLine(ProductView product, int quantity, Money unitPrice) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser positiva: " + quantity);
+        }
+        checkCurrency(unitPrice);
+        int index = lines.indexOf(product.getId());
+        if (index < 0) {
+            index = lines.append(product);
+            lines.set(index, 0, unitPrice.getAmount(), 0L);
+        }
+        updateLine(index, Math.addExact(lines.quantity(index), quantity), lines.unitAmount(index));
+    }
+    
+    private void checkCurrency(Money price) {
+        if (lines.size() == 0) {
+            currency = price.getCurrency();
+        } else if (!currency.equals(price.getCurrency())) {
+            throw new IllegalArgumentException("El pedido esta en " + currency + " y el producto en " + price.getCurrency());
+        }
+    }
+    
+    // Recalcula una línea con el descuento del pedido y ajusta los totales
+    private void updateLine(int index, int quantity, long unitAmount) {
+        long oldBase = lines.unitAmount(index) * lines.quantity(index);
+        long oldLine = lines.lineAmount(index);
+        long base = Math.multiplyExact(unitAmount, (long) quantity);
+        long line = DiscountManager.getInstance().applyDiscountToLine(
+                unitAmount, quantity, lines.product(index).getCategory(), discount);
+        itemCount += quantity - lines.quantity(index);
+        lines.set(index, quantity, unitAmount, line);
+        baseAmount += base - oldBase;
+        totalAmount += line - oldLine;
+    }
+    
+    /**
+     * Cambia la cantidad de un producto del pedido en tiempo constante.
+     * 
+     * @param productId ID del producto
+     * @param quantity Nueva cantidad; 0 quita el producto del pedido
+     * @return true si el producto estaba en el pedido, false si no
+     * @throws IllegalArgumentException si la cantidad es negativa
+     */
+    public boolean setQuantity(String productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + quantity);
+        }
+        int index = lines.indexOf(productId);
+        if (index < 0) {
+            return false;
+        }
+        if (quantity == 0) {
+            removeLine(index);
+        } else {
+            updateLine(index, quantity, lines.unitAmount(index));
+        }
+        return true;
+    }
+    
+    /**
+     * Obtiene la cantidad de unidades de un producto en el pedido.
+     * 
+     * @param productId ID del producto
+     * @return Cantidad, o 0 si el producto no está en el pedido
+     */
+    public int getQuantity(String productId) {
+        int index = lines.indexOf(productId);
+        return index < 0 ? 0 : lines.quantity(index);
+    }
+    
+    /**
+     * Elimina un producto del pedido (todas sus unidades) y descuenta su línea del total.
      * 
      * @param productId ID del producto a eliminar
      * @return true si el producto fue eliminado, false si no se encontró
      */
     public boolean removeProduct(String productId) {
-        boolean removed = items.removeIf(product -> product.getId().equals(productId));
-        if (removed) {
-            calculateTotal();
+        int index = lines.indexOf(productId);
+        if (index < 0) {
+            return false;
         }
-        return removed;
+        removeLine(index);
+        return true;
+    }
+    
+    private void removeLine(int index) {
+        baseAmount -= lines.unitAmount(index) * lines.quantity(index);
+        totalAmount -= lines.lineAmount(index);
+        itemCount -= lines.quantity(index);
+        lines.remove(index);
     }
     
     /**
      * Calcula el total del pedido aplicando los descuentos correspondientes.
+     * Toma de nuevo el precio actual de cada producto como precio unitario
+     * de su línea, por lo que solo es necesario llamarlo si se modificó el
+     * precio de un producto que ya está en el pedido.
      * Utiliza el Singleton DiscountManager para aplicar el descuento.
      */
     public void calculateTotal() {
-        double sum = 0.0;
-        for (Product product : items) {
-            sum += product.getFinalPrice(discountType);
+        for (int i = 0; i < lines.size(); i++) {
+            updateLine(i, lines.quantity(i), lines.product(i).getPrice().getAmount());
+        }
+    }
+    
+    // Recalcula todas las líneas con sus precios unitarios guardados
+    private void recalculateLines() {
+        for (int i = 0; i < lines.size(); i++) {
+            updateLine(i, lines.quantity(i), lines.unitAmount(i));
         }
-        this.totalAmount = sum;
     }
     
     // Getters y Setters
@@ -111,6 +271,8 @@ public class Order {
 
     /**
      * Establece el identificador del pedido.
+     * Para pedidos ya guardados en OrderService se debe usar
+     * OrderService.changeOrderId, que además actualiza la clave del pedido.
      * 
      * @param id Nuevo identificador para el pedido
      */
@@ -128,76 +290,222 @@ public class Order {
     }
 
     /**
-     * Establece el identificador del cliente.
+     * Obtiene la fecha del pedido.
+     * El cliente y la fecha no cambian después de crear el pedido: son
+     * claves de los índices de OrderRepository. Por eso la fecha se
+     * entrega como copia.
      * 
-     * @param customerId Nuevo identificador del cliente
+     * @return Fecha en que se realizó el pedido
      */
-    public void setCustomerId(String customerId) {
-        this.customerId = customerId;
+    public Date getOrderDate() {
+        return orderDate != null ? new Date(orderDate.getTime()) : null;
     }
 
     /**
-     * Obtiene la fecha del pedido.
+     * Obtiene las líneas del pedido, una por SKU.
+     * Es una copia: los cambios posteriores del pedido no la afectan.
      * 
-     * @return Fecha en que se realizó el pedido
+     * @return Lista de líneas; al quitar una línea, la última toma su lugar
      */
-    public Date getOrderDate() {
-        return orderDate;
+    public List<OrderLine> getLines() {
+        List<OrderLine> copy = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            copy.add(new OrderLine(lines.product(i), lines.quantity(i), lines.unitAmount(i),
+                    lines.lineAmount(i), currency));
+        }
+        return copy;
     }
 
     /**
-     * Establece la fecha del pedido.
+     * Reemplaza las líneas del pedido, conservando sus precios unitarios,
+     * y recalcula el total con el descuento del pedido.
      * 
-     * @param orderDate Nueva fecha para el pedido
+     * @param newLines Nuevas líneas, por ejemplo las de otro pedido
+     * @throws IllegalArgumentException si las líneas están en monedas distintas
      */
-    public void setOrderDate(Date orderDate) {
-        this.orderDate = orderDate;
+    public void setLines(List<OrderLine> newLines) {
+        clearLines();
+        try {
+            for (OrderLine line : newLines) {
+                addLine(line.getProduct(), line.getQuantity(), line.getUnitPrice());
+            }
+        } catch (IllegalArgumentException e) {
+            clearLines();
+            throw e;
+        }
     }
 
     /**
-     * Obtiene la lista de productos en el pedido.
+     * Obtiene la lista de productos en el pedido, con un elemento por unidad.
+     * La lista se arma en cada llamada; para pedidos con muchas unidades
+     * conviene getLines.
      * 
-     * @return Lista de productos que componen el pedido
+     * @return Lista no modificable de productos que componen el pedido
      */
-    public List<Product> getItems() {
-        return items;
+    public List<ProductView> getItems() {
+        List<ProductView> items = new ArrayList<>((int) Math.min(itemCount, Integer.MAX_VALUE - 8));
+        for (int i = 0; i < lines.size(); i++) {
+            for (int q = lines.quantity(i); q > 0; q--) {
+                items.add(lines.product(i));
+            }
+        }
+        return Collections.unmodifiableList(items);
     }
 
     /**
-     * Establece la lista de productos del pedido y recalcula el total.
+     * Establece los productos del pedido, una unidad por elemento, y recalcula el total.
+     * Los elementos con el mismo SKU se agrupan en una línea.
      * 
      * @param items Nueva lista de productos para el pedido
+     * @throws IllegalArgumentException si los productos están en monedas distintas
+     */
+    public void setItems(List<ProductView> items) {
+        for (int i = 1; i < items.size(); i++) {
+            if (!items.get(i).getPrice().getCurrency().equals(items.get(0).getPrice().getCurrency())) {
+                throw new IllegalArgumentException("Todos los productos del pedido deben estar en la misma moneda");
+            }
+        }
+        clearLines();
+        for (ProductView product : items) {
+            addProduct(product);
+        }
+    }
+
+    private void clearLines() {
+        lines.clear();
+        baseAmount = 0L;
+        totalAmount = 0L;
+        itemCount = 0L;
+    }
+
+    /**
+     * Obtiene la cantidad de líneas (SKU distintos) del pedido.
+     * 
+     * @return Número de líneas
+     */
+    public int getLineCount() {
+        return lines.size();
+    }
+
+    /**
+     * Obtiene el producto de una línea sin copiar las líneas.
+     *
+     * @param index Posición de la línea, entre 0 y getLineCount() - 1
+     * @return Producto de la línea
+     */
+    public ProductView getLineProduct(int index) {
+        Objects.checkIndex(index, lines.size());
+        return lines.product(index);
+    }
+
+    /**
+     * Obtiene la cantidad de unidades de una línea sin copiar las líneas.
+     *
+     * @param index Posición de la línea, entre 0 y getLineCount() - 1
+     * @return Cantidad de la línea
+     */
+    public int getLineQuantity(int index) {
+        Objects.checkIndex(index, lines.size());
+        return lines.quantity(index);
+    }
+
+    /**
+     * Obtiene el precio unitario de una línea, en unidades menores de la
+     * moneda del pedido, sin copiar las líneas ni crear objetos.
+     *
+     * @param index Posición de la línea, entre 0 y getLineCount() - 1
+     * @return Precio unitario guardado en la línea
+     */
+    public long getLineUnitAmount(int index) {
+        Objects.checkIndex(index, lines.size());
+        return lines.unitAmount(index);
+    }
+
+    /**
+     * Obtiene la cantidad total de unidades del pedido.
+     * 
+     * @return Suma de las cantidades de todas las líneas
      */
-    public void setItems(List<Product> items) {
-        this.items = items;
-        calculateTotal();
+    public long getItemCount() {
+        return itemCount;
     }
 
     /**
      * Obtiene el estado actual del pedido.
      * 
-     * @return Estado del pedido (pendiente, enviado, entregado, etc.)
+     * @return Estado del pedido
      */
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
     /**
-     * Establece el estado del pedido.
+     * Establece el estado del pedido sin validar la transición.
+     * Solo debe usarse al restaurar un pedido guardado; los cambios de
+     * estado normales pasan por transitionTo o compareAndSetStatus.
      * 
-     * @param status Nuevo estado para el pedido
+     * @param status Estado restaurado
      */
-    public void setStatus(String status) {
+    public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
+    /**
+     * Cambia el estado solo si el pedido sigue en el estado esperado.
+     * 
+     * @param expected Estado que el llamador vio por última vez
+     * @param next Nuevo estado
+     * @return true si se cambió; false si otro hilo cambió antes el estado
+     * @throws IllegalStateException si la transición de expected a next no está permitida
+     */
+    public boolean compareAndSetStatus(OrderStatus expected, OrderStatus next) {
+        if (!expected.canTransitionTo(next)) {
+            throw new IllegalStateException("Transicion de estado no permitida: " + expected + " -> " + next);
+        }
+        return STATUS.compareAndSet(this, expected, next);
+    }
+
+    /**
+     * Lleva el pedido a un nuevo estado desde el que tenga en este momento.
+     * Si otro hilo cambia el estado entre la lectura y el cambio, se vuelve
+     * a validar la transición con el estado nuevo, de modo que nunca se
+     * pisa una transición ajena. Pedir el estado que ya tiene no hace nada.
+     * 
+     * @param next Nuevo estado
+     * @return Estado anterior; igual a next si el pedido ya estaba en ese estado
+     * @throws IllegalStateException si la transición desde el estado actual no está permitida
+     */
+    public OrderStatus transitionTo(OrderStatus next) {
+        while (true) {
+            OrderStatus current = status;
+            if (current == next) {
+                return current;
+            }
+            if (!current.canTransitionTo(next)) {
+                throw new IllegalStateException("Transicion de estado no permitida: " + current + " -> " + next);
+            }
+            if (STATUS.compareAndSet(this, current, next)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Obtiene el monto del pedido antes de aplicar descuentos.
+     * 
+     * @return Suma de los precios base de los productos
+     */
+    public Money getBaseAmount() {
+        return Money.of(baseAmount, currency);
+    }
+
     /**
      * Obtiene el monto total del pedido con descuentos aplicados.
      * 
      * @return Monto total del pedido
      */
-    public double getTotalAmount() {
-        return totalAmount;
+    public Money getTotalAmount() {
+        return Money.of(totalAmount, currency);
     }
 
     /**
@@ -211,12 +519,37 @@ public class Order {
 
     /**
      * Establece el tipo de descuento y recalcula el total.
+     * Si el tipo no cambia, el total ya está al día y no se recalcula.
      * 
      * @param discountType Nuevo tipo de descuento a aplicar
      */
     public void setDiscountType(String discountType) {
+        if (discountType.equals(this.discountType)) {
+            return;
+        }
         this.discountType = discountType;
-        calculateTotal();
+        this.discount = DiscountType.fromCode(discountType);
+        recalculateLines();
+    }
+    
+    /**
+     * Obtiene la secuencia del último registro del journal aplicado al pedido.
+     * La usa la recuperación para no aplicar dos veces un cambio que ya
+     * está incluido en una instantánea.
+     * 
+     * @return Secuencia del journal, o 0 si el pedido no se ha registrado
+     */
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Establece la secuencia del último registro del journal aplicado al pedido.
+     * 
+     * @param journalSequence Secuencia del journal
+     */
+    public void setJournalSequence(long journalSequence) {
+        this.journalSequence = journalSequence;
     }
     
     /**
@@ -228,6 +561,6 @@ public class Order {
     public String toString() {
         return "Order{" + "id=" + id + ", customerId=" + customerId + 
                ", orderDate=" + orderDate + ", status=" + status + 
-               ", totalAmount=" + totalAmount + ", items=" + items.size() + "}";
+               ", totalAmount=" + getTotalAmount() + ", lines=" + lines.size() + "}";
     }
 }
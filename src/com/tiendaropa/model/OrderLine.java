@@ -0,0 +1,108 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import java.util.Currency;
+
+/**
+ * Línea de un pedido: un producto (SKU) con su cantidad, el precio
+ * unitario que tenía al agregarse al pedido y el total de la línea con el
+ * descuento del pedido aplicado. Es una copia inmutable tomada del pedido;
+ * los cambios posteriores del pedido no la modifican.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderLine {
+
+    private final ProductView product;
+    private final int quantity;
+    private final long unitAmount;
+    private final long totalAmount;
+    private final Currency currency;
+
+    OrderLine(ProductView product, int quantity, long unitAmount, long totalAmount, Currency currency) {
+        this.product = product;
+        this.quantity = quantity;
+        this.unitAmount = unitAmount;
+        this.totalAmount = totalAmount;
+        this.currency = currency;
+    }
+
+    /**
+     * Obtiene el SKU de la línea.
+     *
+     * @return Identificador del producto
+     */
+    public String getSku() {
+        return product.getId();
+    }
+
+    /**
+     * Obtiene el producto de la línea.
+     *
+     * @return Producto, propio o vista del catálogo
+     */
+    public ProductView getProduct() {
+        return product;
+    }
+
+    /**
+     * Obtiene la cantidad de unidades.
+     *
+     * @return Cantidad, siempre positiva
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Obtiene el precio unitario que tenía el producto al agregarse al pedido.
+     *
+     * @return Precio unitario sin descuento
+     */
+    public Money getUnitPrice() {
+        return Money.of(unitAmount, currency);
+    }
+
+    /**
+     * Obtiene el monto de la línea antes de descuentos.
+     *
+     * @return Precio unitario por cantidad
+     */
+    public Money getBaseAmount() {
+        return Money.of(unitAmount * quantity, currency);
+    }
+
+    /**
+     * Obtiene el total de la línea con el descuento del pedido aplicado.
+     *
+     * @return Total de la línea
+     */
+    public Money getTotalAmount() {
+        return Money.of(totalAmount, currency);
+    }
+
+    /**
+     * Obtiene el descuento aplicado a la línea.
+     *
+     * @return Monto base menos total
+     */
+    public Money getDiscountAmount() {
+        return Money.of(unitAmount * quantity - totalAmount, currency);
+    }
+
+    /**
+     * Representación en texto de la línea.
+     *
+     * @return SKU, cantidad, precio unitario y total
+     */
+    @Override
+    public String toString() {
+        return "OrderLine{" + "sku=" + getSku() + ", quantity=" + quantity + ", unitPrice=" + getUnitPrice() +
+               ", totalAmount=" + getTotalAmount() + '}';
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import java.util.Arrays;
+
+/**
+ * Líneas de un pedido guardadas en arreglos paralelos: producto, SKU,
+ * cantidad, precio unitario y total de la línea, estos tres últimos como
+ * primitivos. Cada línea ocupa unos 30 bytes además del producto, que se
+ * comparte entre pedidos.
+ * Desde INDEX_THRESHOLD líneas se mantiene además una tabla hash de
+ * direccionamiento abierto (SKU a posición), con lo que buscar, agregar y
+ * quitar una línea toma tiempo constante; los pedidos chicos solo
+ * recorren los SKU. Al quitar una línea, la última ocupa su lugar.
+ * No es segura para varios hilos; la protege el bloqueo del pedido.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class OrderLines {
+
+    private static final int INDEX_THRESHOLD = 8;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private ProductView[] products = new ProductView[INITIAL_CAPACITY];
+    private String[] skus = new String[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private long[] unitAmounts = new long[INITIAL_CAPACITY];
+    private long[] lineAmounts = new long[INITIAL_CAPACITY];
+    private int size;
+    // Posición + 1 de cada línea; 0 es una casilla libre. null mientras hay pocas líneas.
+    private int[] table;
+
+    int size() {
+        return size;
+    }
+
+    ProductView product(int index) {
+        return products[index];
+    }
+
+    String sku(int index) {
+        return skus[index];
+    }
+
+    int quantity(int index) {
+        return quantities[index];
+    }
+
+    long unitAmount(int index) {
+        return unitAmounts[index];
+    }
+
+    long lineAmount(int index) {
+        return lineAmounts[index];
+    }
+
+    void set(int index, int quantity, long unitAmount, long lineAmount) {
+        quantities[index] = quantity;
+        unitAmounts[index] = unitAmount;
+        lineAmounts[index] = lineAmount;
+    }
+
+    /**
+     * Busca la línea de un SKU.
+     *
+     * @param sku Identificador del producto
+     * @return Posición de la línea o -1 si no existe
+     */
+    int indexOf(String sku) {
+        if (table == null) {
+            for (int i = 0; i < size; i++) {
+                if (skus[i].equals(sku)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        int mask = table.length - 1;
+        for (int slot = hash(sku) & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (skus[entry - 1].equals(sku)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Agrega una línea vacía al final. El SKU no debe estar ya en las líneas.
+     *
+     * @param product Producto de la línea
+     * @return Posición de la nueva línea
+     */
+    int append(ProductView product) {
+        if (size == products.length) {
+            int capacity = size * 2;
+            products = Arrays.copyOf(products, capacity);
+            skus = Arrays.copyOf(skus, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            unitAmounts = Arrays.copyOf(unitAmounts, capacity);
+            lineAmounts = Arrays.copyOf(lineAmounts, capacity);
+        }
+        int index = size++;
+        products[index] = product;
+        skus[index] = product.getId();
+        if (table != null && size * 2 <= table.length) {
+            insert(index);
+        } else if (table != null || size >= INDEX_THRESHOLD) {
+            rebuild(Integer.highestOneBit(size) << 2);
+        }
+        return index;
+    }
+
+    /**
+     * Quita una línea en tiempo constante moviendo la última a su lugar.
+     *
+     * @param index Posición de la línea
+     */
+    void remove(int index) {
+        int last = size - 1;
+        if (table != null) {
+            delete(index);
+            if (index != last) {
+                table[slotOf(last)] = index + 1;
+            }
+        }
+        if (index != last) {
+            products[index] = products[last];
+            skus[index] = skus[last];
+            quantities[index] = quantities[last];
+            unitAmounts[index] = unitAmounts[last];
+            lineAmounts[index] = lineAmounts[last];
+        }
+        products[last] = null;
+        skus[last] = null;
+        size = last;
+    }
+
+    void clear() {
+        Arrays.fill(products, 0, size, null);
+        Arrays.fill(skus, 0, size, null);
+        size = 0;
+        table = null;
+    }
+
+    private static int hash(String sku) {
+        int h = sku.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void rebuild(int slots) {
+        table = new int[slots];
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+    }
+
+    private void insert(int index) {
+        int mask = table.length - 1;
+        int slot = hash(skus[index]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = index + 1;
+    }
+
+    private int slotOf(int index) {
+        int mask = table.length - 1;
+        int slot = hash(skus[index]) & mask;
+        while (table[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Borrado con desplazamiento hacia atrás: las entradas siguientes del
+    // mismo grupo que quedarían inalcanzables se mueven al hueco.
+    private void delete(int index) {
+        int mask = table.length - 1;
+        int hole = slotOf(index);
+        for (int slot = (hole + 1) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int home = hash(skus[table[slot] - 1]) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+}
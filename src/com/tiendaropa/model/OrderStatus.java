@@ -0,0 +1,107 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package com.tiendaropa.model;
+
+/**
+ * Estados del ciclo de vida de un pedido y las transiciones permitidas
+ * entre ellos:
+ * <pre>
+ * PENDING -&gt; PAID -&gt; SHIPPED -&gt; DELIVERED
+ *    |         |
+ *    +---------+----&gt; CANCELLED
+ * </pre>
+ * Un pedido solo se puede cancelar antes de enviarse; DELIVERED y
+ * CANCELLED son estados finales. Cada estado tiene una etiqueta en
+ * español, que es la que se muestra y la que se guarda en disco.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum OrderStatus {
+    PENDING("Pendiente"),
+    PAID("Pagado"),
+    SHIPPED("Enviado"),
+    DELIVERED("Entregado"),
+    CANCELLED("Cancelado");
+
+    private static final OrderStatus[] VALUES = values();
+
+    private final String label;
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Obtiene la etiqueta en español del estado.
+     *
+     * @return Etiqueta, por ejemplo "Pendiente"
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Indica si un pedido en este estado puede pasar directamente a otro.
+     *
+     * @param next Estado de destino
+     * @return true si la transición está permitida
+     */
+    public boolean canTransitionTo(OrderStatus next) {
+        switch (this) {
+            case PENDING:
+                return next == PAID || next == CANCELLED;
+            case PAID:
+                return next == SHIPPED || next == CANCELLED;
+            case SHIPPED:
+                return next == DELIVERED;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Indica si el estado es final, es decir, si ya no admite transiciones.
+     *
+     * @return true para DELIVERED y CANCELLED
+     */
+    public boolean isFinal() {
+        return this == DELIVERED || this == CANCELLED;
+    }
+
+    /**
+     * Obtiene el estado a partir de su etiqueta o de su nombre, sin
+     * distinguir mayúsculas. La etiqueta "Procesando" de versiones
+     * anteriores equivale a PAID.
+     *
+     * @param text Etiqueta ("Enviado") o nombre ("SHIPPED") del estado
+     * @return Estado correspondiente
+     * @throws IllegalArgumentException si el texto no corresponde a ningún estado
+     */
+    public static OrderStatus fromLabel(String text) {
+        if (text != null) {
+            for (OrderStatus status : VALUES) {
+                if (status.label.equalsIgnoreCase(text) || status.name().equalsIgnoreCase(text)) {
+                    return status;
+                }
+            }
+            if (text.equalsIgnoreCase("Procesando")) {
+                return PAID;
+            }
+        }
+        throw new IllegalArgumentException("Estado de pedido desconocido: " + text);
+    }
+
+    /**
+     * Representación en texto del estado.
+     *
+     * @return Etiqueta en español
+     */
+    @Override
+    public String toString() {
+        return label;
+    }
+}
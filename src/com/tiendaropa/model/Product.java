@@ -4,21 +4,26 @@
  */
 package com.tiendaropa.model;
 
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.singleton.DiscountManager;
+
 /**
  * Clase que representa un producto de la tienda de ropa online.
  * Contiene los atributos básicos de un producto como id, nombre, 
  * precio, categoría, etc.
+ * El precio es un valor Money exacto en unidades menores de su moneda.
+ * Es la implementación mutable en el heap de ProductView.
  *
  * @author Equipo TiendaRopa
  * @version 1.0
  * @since 2025-08-16
  */
-public class Product {
+public class Product implements ProductView {
     
     private String id;
     private String name;
     private String description;
-    private double price;
+    private Money price;
     private String category;
     private String size;
     private String color;
@@ -30,7 +35,7 @@ public class Product {
      * @param id Identificador único del producto
      * @param name Nombre del producto
      * @param description Descripción detallada del producto
-     * @param price Precio base del producto antes de descuentos
+     * @param price Precio base del producto antes de descuentos, en pesos chilenos
      * @param category Categoría a la que pertenece (ej: camiseta, pantalón)
      * @param size Talla del producto
      * @param color Color del producto
@@ -38,6 +43,23 @@ public class Product {
      */
     public Product(String id, String name, String description, double price, 
                   String category, String size, String color, int stock) {
+        this(id, name, description, Money.ofMajor(price, Money.CLP), category, size, color, stock);
+    }
+    
+    /**
+     * Constructor que inicializa un producto con todos sus atributos y un precio exacto.
+     * 
+     * @param id Identificador único del producto
+     * @param name Nombre del producto
+     * @param description Descripción detallada del producto
+     * @param price Precio base del producto antes de descuentos
+     * @param category Categoría a la que pertenece (ej: camiseta, pantalón)
+     * @param size Talla del producto
+     * @param color Color del producto
+     * @param stock Cantidad disponible en inventario
+     */
+    public Product(String id, String name, String description, Money price, 
+                  String category, String size, String color, int stock) {
         this.id = id;
         this.name = name;
         this.description = description;
@@ -53,9 +75,20 @@ public class Product {
      * 
      * @param id Identificador único del producto
      * @param name Nombre del producto
-     * @param price Precio base del producto
+     * @param price Precio base del producto en pesos chilenos
      */
     public Product(String id, String name, double price) {
+        this(id, name, Money.ofMajor(price, Money.CLP));
+    }
+    
+    /**
+     * Constructor mínimo para crear un producto con un precio exacto.
+     * 
+     * @param id Identificador único del producto
+     * @param name Nombre del producto
+     * @param price Precio base del producto
+     */
+    public Product(String id, String name, Money price) {
         this.id = id;
         this.name = name;
         this.price = price;
@@ -73,8 +106,32 @@ public class Product {
      * @param discountType Tipo de descuento a aplicar
      * @return Precio con descuento aplicado
      */
-    public double getFinalPrice(String discountType) {
-        return com.tiendaropa.singleton.DiscountManager.getInstance().applyDiscount(price, discountType);
+    public Money getFinalPrice(String discountType) {
+        return getFinalPrice(DiscountType.fromCode(discountType));
+    }
+    
+    /**
+     * Calcula el precio final aplicando el descuento correspondiente.
+     * Las reglas limitadas a una categoría se evalúan con la categoría del producto.
+     * 
+     * @param discountType Tipo de descuento a aplicar
+     * @return Precio con descuento aplicado
+     */
+    @Override
+    public Money getFinalPrice(DiscountType discountType) {
+        return Money.of(getFinalAmount(discountType), price.getCurrency());
+    }
+    
+    /**
+     * Calcula el precio final en unidades menores sin crear objetos.
+     * Es la forma que usan los pedidos al mantener sus totales.
+     * 
+     * @param discountType Tipo de descuento a aplicar
+     * @return Precio con descuento en unidades menores de la moneda del producto
+     */
+    @Override
+    public long getFinalAmount(DiscountType discountType) {
+        return DiscountManager.getInstance().applyDiscount(price.getAmount(), category, discountType);
     }
     
     // Getters y Setters
@@ -84,6 +141,7 @@ public class Product {
      * 
      * @return Identificador único del producto
      */
+    @Override
     public String getId() {
         return id;
     }
@@ -102,6 +160,7 @@ public class Product {
      * 
      * @return Nombre del producto
      */
+    @Override
     public String getName() {
         return name;
     }
@@ -120,6 +179,7 @@ public class Product {
      * 
      * @return Descripción detallada del producto
      */
+    @Override
     public String getDescription() {
         return description;
     }
@@ -138,7 +198,8 @@ public class Product {
      * 
      * @return Precio sin descuentos
      */
-    public double getPrice() {
+    @Override
+    public Money getPrice() {
         return price;
     }
 
@@ -147,7 +208,7 @@ public class Product {
      * 
      * @param price Nuevo precio para el producto
      */
-    public void setPrice(double price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
 
@@ -156,6 +217,7 @@ public class Product {
      * 
      * @return Categoría a la que pertenece el producto
      */
+    @Override
     public String getCategory() {
         return category;
     }
@@ -174,6 +236,7 @@ public class Product {
      * 
      * @return Talla del producto
      */
+    @Override
     public String getSize() {
         return size;
     }
@@ -192,6 +255,7 @@ public class Product {
      * 
      * @return Color del producto
      */
+    @Override
     public String getColor() {
         return color;
     }
@@ -210,6 +274,7 @@ public class Product {
      * 
      * @return Cantidad disponible en inventario
      */
+    @Override
     public int getStock() {
         return stock;
     }
@@ -0,0 +1,173 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Caché acotado de productos inmutables por SKU (patrón Flyweight).
+ * Todas las líneas de pedido de un mismo SKU comparten un solo ProductValue
+ * en lugar de tener cada una su copia. Es seguro para varios hilos y las
+ * lecturas no toman bloqueos.
+ * Al llenarse se descarta el SKU más antiguo (FIFO); como los productos son
+ * inmutables, las líneas que aún usan ese producto siguen siendo válidas y solo
+ * dejan de compartirse con las nuevas. Con varios hilos insertando a la
+ * vez el tamaño puede superar la capacidad en unas pocas entradas.
+ * La cola de inserción guarda cada instancia guardada, no su SKU, así que
+ * un SKU invalidado y vuelto a cargar no se desaloja por su entrada vieja.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ProductCache {
+
+    private final ConcurrentHashMap<String, ProductValue> products;
+    private final ConcurrentLinkedQueue<ProductValue> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int capacity;
+
+    /**
+     * Crea un caché vacío.
+     *
+     * @param capacity Cantidad máxima de SKU guardados
+     * @throws IllegalArgumentException si capacity no es positiva
+     */
+    public ProductCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + capacity);
+        }
+        this.capacity = capacity;
+        this.products = new ConcurrentHashMap<>(Math.min(capacity, 1 << 16));
+    }
+
+    /**
+     * Obtiene el producto guardado de un SKU.
+     *
+     * @param sku Identificador del producto
+     * @return El producto o null si no está en el caché
+     */
+    public ProductValue get(String sku) {
+        return products.get(sku);
+    }
+
+    /**
+     * Obtiene el producto de un SKU, creándolo la primera vez.
+     * La función se llama a lo más una vez por SKU mientras este siga en el caché.
+     *
+     * @param sku Identificador del producto
+     * @param loader Crea el producto cuando no está en el caché
+     * @return Producto compartido del SKU
+     */
+    public ProductValue computeIfAbsent(String sku, Function<String, ? extends ProductView> loader) {
+        ProductValue cached = products.get(sku);
+        if (cached != null) {
+            return cached;
+        }
+        evictIfFull();
+        return products.computeIfAbsent(sku, id -> {
+            ProductValue value = ProductValue.copyOf(loader.apply(id));
+            enqueue(value);
+            return value;
+        });
+    }
+
+    /**
+     * Obtiene la instancia compartida de un producto.
+     * Si el caché ya tiene el SKU con los mismos datos se devuelve esa
+     * instancia; si no, se guarda una copia inmutable, que reemplaza a la
+     * anterior cuando los datos del SKU cambiaron.
+     *
+     * @param product Producto de cualquier implementación
+     * @return Producto compartido con los mismos datos
+     */
+    public ProductValue intern(ProductView product) {
+        ProductValue cached = products.get(product.getId());
+        if (cached != null && cached.sameAs(product)) {
+            return cached;
+        }
+        ProductValue value = ProductValue.copyOf(product);
+        if (cached == null) {
+            evictIfFull();
+        }
+        products.put(value.getId(), value);
+        enqueue(value);
+        return value;
+    }
+
+    /**
+     * Quita un SKU del caché, por ejemplo cuando cambia su precio.
+     *
+     * @param sku Identificador del producto
+     */
+    public void invalidate(String sku) {
+        if (products.remove(sku) != null) {
+            purgeIfStale();
+        }
+    }
+
+    /**
+     * Vacía el caché.
+     */
+    public void clear() {
+        products.clear();
+        insertionOrder.clear();
+        queued.set(0);
+    }
+
+    /**
+     * Obtiene la cantidad de SKU guardados.
+     *
+     * @return Número de productos
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Obtiene la capacidad del caché.
+     *
+     * @return Cantidad máxima de SKU
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void enqueue(ProductValue value) {
+        insertionOrder.add(value);
+        queued.incrementAndGet();
+        purgeIfStale();
+    }
+
+    // Las entradas que ya no están en el mapa se saltan al desalojar; si se
+    // juntan demasiadas (SKU invalidados o reemplazados) se limpian de una vez
+    private void purgeIfStale() {
+        if (queued.get() > 2 * capacity) {
+            insertionOrder.removeIf(value -> {
+                if (products.get(value.getId()) != value) {
+                    queued.decrementAndGet();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    // Solo se quita la misma instancia que se encoló, nunca una que la
+    // reemplazó después
+    private void evictIfFull() {
+        while (products.size() >= capacity) {
+            ProductValue oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            products.computeIfPresent(oldest.getId(), (id, value) -> value == oldest ? null : value);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import com.tiendaropa.catalog.StringDictionary;
+import java.util.Objects;
+
+/**
+ * Producto inmutable, pensado para compartirse entre todas las líneas de
+ * pedido del mismo SKU (ver ProductCache).
+ * La categoría, la talla y el color se guardan como códigos de 16 bits de
+ * un diccionario común a todos los productos: cada texto distinto existe
+ * una sola vez en memoria y el objeto ocupa 40 bytes más sus textos propios
+ * (identificador, nombre y descripción).
+ * El stock guardado es el del momento en que se creó el valor; el stock
+ * vigente lo llevan las reservas de inventario.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class ProductValue implements ProductView {
+
+    private static final StringDictionary ATTRIBUTES = new StringDictionary(0xFFFF);
+
+    private final String id;
+    private final String name;
+    private final String description;
+    private final Money price;
+    private final short category;
+    private final short size;
+    private final short color;
+    private final int stock;
+
+    /**
+     * Crea un producto inmutable.
+     *
+     * @param id Identificador (SKU) del producto
+     * @param name Nombre del producto
+     * @param description Descripción del producto, o null
+     * @param price Precio base antes de descuentos
+     * @param category Categoría, o null
+     * @param size Talla, o null
+     * @param color Color, o null
+     * @param stock Stock disponible al crear el valor
+     * @throws IllegalArgumentException si id es null
+     * @throws IllegalStateException si el diccionario de atributos está lleno
+     */
+    public ProductValue(String id, String name, String description, Money price,
+                        String category, String size, String color, int stock) {
+        if (id == null) {
+            throw new IllegalArgumentException("El producto necesita un identificador");
+        }
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.category = (short) ATTRIBUTES.encode(category);
+        this.size = (short) ATTRIBUTES.encode(size);
+        this.color = (short) ATTRIBUTES.encode(color);
+        this.stock = stock;
+    }
+
+    /**
+     * Obtiene una copia inmutable de cualquier producto.
+     *
+     * @param product Producto a copiar
+     * @return El mismo producto si ya es un ProductValue, o una copia
+     */
+    public static ProductValue copyOf(ProductView product) {
+        if (product instanceof ProductValue) {
+            return (ProductValue) product;
+        }
+        return new ProductValue(product.getId(), product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), product.getSize(), product.getColor(), product.getStock());
+    }
+
+    /**
+     * Obtiene el diccionario donde se codifican categorías, tallas y colores.
+     *
+     * @return Diccionario compartido por todos los ProductValue
+     */
+    public static StringDictionary getAttributeDictionary() {
+        return ATTRIBUTES;
+    }
+
+    /**
+     * Indica si otro producto tiene exactamente los mismos datos que este.
+     *
+     * @param other Producto a comparar, de cualquier implementación
+     * @return true si todos los atributos coinciden
+     */
+    public boolean sameAs(ProductView other) {
+        if (other instanceof ProductValue) {
+            return equals(other);
+        }
+        return other != null
+                && id.equals(other.getId())
+                && Objects.equals(name, other.getName())
+                && Objects.equals(description, other.getDescription())
+                && Objects.equals(price, other.getPrice())
+                && Objects.equals(getCategory(), other.getCategory())
+                && Objects.equals(getSize(), other.getSize())
+                && Objects.equals(getColor(), other.getColor())
+                && stock == other.getStock();
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public Money getPrice() {
+        return price;
+    }
+
+    @Override
+    public String getCategory() {
+        return ATTRIBUTES.decode(category & 0xFFFF);
+    }
+
+    @Override
+    public String getSize() {
+        return ATTRIBUTES.decode(size & 0xFFFF);
+    }
+
+    @Override
+    public String getColor() {
+        return ATTRIBUTES.decode(color & 0xFFFF);
+    }
+
+    @Override
+    public int getStock() {
+        return stock;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ProductValue)) {
+            return false;
+        }
+        ProductValue other = (ProductValue) obj;
+        return id.equals(other.id)
+                && Objects.equals(name, other.name)
+                && Objects.equals(description, other.description)
+                && Objects.equals(price, other.price)
+                && category == other.category
+                && size == other.size
+                && color == other.color
+                && stock == other.stock;
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    /**
+     * Representación en texto del producto, con el mismo formato que Product.
+     *
+     * @return Cadena de texto con los datos principales del producto
+     */
+    @Override
+    public String toString() {
+        return "Product{" + "id=" + id + ", name=" + name + ", price=" + price +
+               ", category=" + getCategory() + ", size=" + getSize() + ", color=" + getColor() +
+               ", stock=" + stock + '}';
+    }
+}
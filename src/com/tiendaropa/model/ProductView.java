@@ -0,0 +1,98 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.singleton.DiscountManager;
+
+/**
+ * API de lectura de un producto.
+ * La implementan tanto Product como las vistas livianas del catálogo,
+ * de modo que un pedido puede referirse a un SKU del catálogo sin
+ * copiar sus datos en el heap.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public interface ProductView {
+
+    /**
+     * Obtiene el identificador (SKU) del producto.
+     *
+     * @return Identificador único del producto
+     */
+    String getId();
+
+    /**
+     * Obtiene el nombre del producto.
+     *
+     * @return Nombre del producto
+     */
+    String getName();
+
+    /**
+     * Obtiene la descripción del producto.
+     *
+     * @return Descripción detallada del producto
+     */
+    String getDescription();
+
+    /**
+     * Obtiene el precio base del producto.
+     *
+     * @return Precio sin descuentos
+     */
+    Money getPrice();
+
+    /**
+     * Obtiene la categoría del producto.
+     *
+     * @return Categoría a la que pertenece el producto
+     */
+    String getCategory();
+
+    /**
+     * Obtiene la talla del producto.
+     *
+     * @return Talla del producto
+     */
+    String getSize();
+
+    /**
+     * Obtiene el color del producto.
+     *
+     * @return Color del producto
+     */
+    String getColor();
+
+    /**
+     * Obtiene el stock disponible del producto.
+     *
+     * @return Cantidad disponible en inventario
+     */
+    int getStock();
+
+    /**
+     * Calcula el precio final en unidades menores sin crear objetos.
+     * Las reglas limitadas a una categoría se evalúan con la categoría del producto.
+     *
+     * @param discountType Tipo de descuento a aplicar
+     * @return Precio con descuento en unidades menores de la moneda del producto
+     */
+    default long getFinalAmount(DiscountType discountType) {
+        return DiscountManager.getInstance().applyDiscount(getPrice().getAmount(), getCategory(), discountType);
+    }
+
+    /**
+     * Calcula el precio final aplicando el descuento correspondiente.
+     *
+     * @param discountType Tipo de descuento a aplicar
+     * @return Precio con descuento aplicado
+     */
+    default Money getFinalPrice(DiscountType discountType) {
+        return Money.of(getFinalAmount(discountType), getPrice().getCurrency());
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+import com.tiendaropa.model.OrderStatus;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Índice de OrderArchive guardado fuera del heap, en un archivo mapeado en
+ * memoria. Cada pedido archivado ocupa una entrada de ancho fijo con su
+ * identificador, la ubicación de su registro en el segmento y su cliente,
+ * estado y fecha. Dos tablas hash de direccionamiento abierto, en el mismo
+ * archivo, llevan del hash del identificador a su entrada y de cada
+ * cliente, estado y día a la última entrada con esa clave; cada entrada
+ * enlaza con la anterior de la misma clave, así una consulta recorre solo
+ * la cadena de su clave. Quitar un pedido marca su entrada como borrada;
+ * la entrada sigue en las cadenas, que la saltan, hasta cerrar el archivo.
+ *
+ * <p>El heap no crece con la cantidad de pedidos: las entradas se mapean
+ * en bloques de 8 MB y, cuando una tabla se llena, se rehace al doble en
+ * una región nueva al final del archivo. El archivo no es durable: se crea
+ * vacío al abrir y se borra al cerrar.</p>
+ *
+ * <p>No es seguro entre hilos; OrderArchive lo usa bajo su bloqueo.</p>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class ArchiveIndex implements Closeable {
+
+    static final int CUSTOMER = 1;
+    static final int STATUS = 2;
+    static final int DAY = 3;
+    static final long NO_DATE = Long.MIN_VALUE;
+    static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final int ENTRY_BYTES = 128;
+    private static final int LOCATION_OFFSET = 0;
+    private static final int HASH_OFFSET = 8;
+    private static final int DATE_OFFSET = 16;
+    private static final int STATUS_OFFSET = 24;
+    // Anterior + 1 de cada cadena: cliente, estado y día
+    private static final int NEXT_OFFSET = 28;
+    private static final int ID_OFFSET = 40;
+    private static final int ID_BYTES = ENTRY_BYTES - ID_OFFSET;
+    private static final int ENTRY_SHIFT = 16;
+    private static final int ENTRIES_PER_CHUNK = 1 << ENTRY_SHIFT;
+    private static final int SLOT_BYTES = 16;
+    private static final int SLOT_SHIFT = 16;
+    private static final int MAX_SLOTS = 1 << 30;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> entries = new ArrayList<>();
+    // Hash del identificador a entrada + 1; 0 es un hueco, -1 un borrado
+    private Table ids;
+    // Clave de cliente, estado o día a la última entrada + 1 con esa clave
+    private Table heads;
+    private long fileEnd;
+    private int count;
+    private int live;
+    private int usedIds;
+    private int usedHeads;
+
+    private ArchiveIndex(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.ids = allocateTable(1024);
+        this.heads = allocateTable(1024);
+    }
+
+    /**
+     * Crea un índice vacío, reemplazando uno anterior.
+     *
+     * @param file Ruta del archivo del índice
+     * @return El índice abierto
+     * @throws IOException si no se puede crear el archivo
+     */
+    static ArchiveIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new ArchiveIndex(file, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Codifica un identificador para guardarlo en una entrada.
+     *
+     * @param orderId Identificador del pedido
+     * @return Identificador en UTF-8
+     * @throws IOException si no cabe en la entrada
+     */
+    static byte[] encodeId(String orderId) throws IOException {
+        byte[] bytes = orderId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > ID_BYTES - 1) {
+            throw new IOException("Identificador demasiado largo para el archivo de pedidos ("
+                    + bytes.length + " de " + (ID_BYTES - 1) + " bytes): " + orderId);
+        }
+        return bytes;
+    }
+
+    /**
+     * Busca la entrada viva de un identificador.
+     *
+     * @param orderId Identificador del pedido
+     * @return Número de entrada, o -1 si no está
+     */
+    int find(String orderId) {
+        long hash = hash(orderId);
+        Table table = ids;
+        for (int slot = (int) hash & table.mask; table.value(slot) != 0L; slot = (slot + 1) & table.mask) {
+            long value = table.value(slot);
+            if (value > 0L && table.key(slot) == hash && orderId.equals(id((int) value - 1))) {
+                return (int) value - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Agrega la entrada de un pedido y la enlaza en las cadenas de su
+     * cliente, estado y día.
+     *
+     * @param orderId Identificador del pedido, ya validado con encodeId
+     * @param idBytes Identificador codificado con encodeId
+     * @param location Ubicación del registro en el segmento; distinta de 0
+     * @param customerId Cliente del pedido, o null
+     * @param status Estado del pedido, o null
+     * @param date Fecha del pedido, o null
+     * @return Número de la entrada
+     * @throws IOException si no se puede agrandar el archivo
+     */
+    int add(String orderId, byte[] idBytes, long location, String customerId, OrderStatus status, Date date)
+            throws IOException {
+        if (count == Integer.MAX_VALUE - 1) {
+            throw new IOException("El indice de pedidos archivados esta lleno");
+        }
+        if ((count >>> ENTRY_SHIFT) == entries.size()) {
+            entries.add(map((long) ENTRIES_PER_CHUNK * ENTRY_BYTES));
+        }
+        if ((usedIds + 1) * 2 > ids.slots) {
+            ids = rehash(ids, live * 4 > ids.slots ? ids.slots * 2 : ids.slots);
+            usedIds = live;
+        }
+        if ((usedHeads + 3) * 2 > heads.slots) {
+            heads = rehash(heads, heads.slots * 2);
+        }
+        int entry = count;
+        long hash = hash(orderId);
+        MappedByteBuffer chunk = chunkOf(entry);
+        int base = offsetOf(entry);
+        chunk.putLong(base + LOCATION_OFFSET, location);
+        chunk.putLong(base + HASH_OFFSET, hash);
+        chunk.putLong(base + DATE_OFFSET, date != null ? date.getTime() : NO_DATE);
+        chunk.put(base + ID_OFFSET, (byte) (idBytes.length + 1));
+        chunk.put(base + ID_OFFSET + 1, idBytes);
+        chunk.put(base + STATUS_OFFSET, (byte) (status != null ? status.ordinal() + 1 : 0));
+        setNext(entry, CUSTOMER, customerId != null ? push(chainKey(CUSTOMER, hash(customerId)), entry) : 0);
+        setNext(entry, STATUS, status != null ? push(chainKey(STATUS, status.ordinal()), entry) : 0);
+        setNext(entry, DAY, date != null ? push(chainKey(DAY, dayOf(date.getTime())), entry) : 0);
+        int slot = (int) hash & ids.mask;
+        while (ids.value(slot) > 0L) {
+            slot = (slot + 1) & ids.mask;
+        }
+        if (ids.value(slot) == 0L) {
+            usedIds++;
+        }
+        ids.put(slot, hash, entry + 1L);
+        count++;
+        live++;
+        return entry;
+    }
+
+    /**
+     * Marca una entrada como borrada y la quita de la tabla de identificadores.
+     *
+     * @param entry Número de una entrada viva
+     */
+    void remove(int entry) {
+        long hash = chunkOf(entry).getLong(offsetOf(entry) + HASH_OFFSET);
+        Table table = ids;
+        for (int slot = (int) hash & table.mask; table.value(slot) != 0L; slot = (slot + 1) & table.mask) {
+            if (table.value(slot) == entry + 1L) {
+                table.put(slot, hash, -1L);
+                break;
+            }
+        }
+        chunkOf(entry).putLong(offsetOf(entry) + LOCATION_OFFSET, 0L);
+        live--;
+    }
+
+    /**
+     * Obtiene la primera entrada de la cadena de una clave, la más reciente.
+     *
+     * @param kind CUSTOMER, STATUS o DAY
+     * @param key Hash del cliente, ordinal del estado o día desde la época
+     * @return Número de entrada, o -1 si la cadena está vacía
+     */
+    int head(int kind, long key) {
+        long chainKey = chainKey(kind, key);
+        Table table = heads;
+        for (int slot = (int) chainKey & table.mask; table.value(slot) != 0L; slot = (slot + 1) & table.mask) {
+            if (table.key(slot) == chainKey) {
+                return (int) table.value(slot) - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Obtiene la entrada anterior de la misma cadena.
+     *
+     * @param entry Número de entrada
+     * @param kind CUSTOMER, STATUS o DAY
+     * @return Número de entrada, o -1 al final de la cadena
+     */
+    int next(int entry, int kind) {
+        return chunkOf(entry).getInt(offsetOf(entry) + NEXT_OFFSET + (kind - 1) * 4) - 1;
+    }
+
+    /**
+     * Obtiene la ubicación del registro de una entrada.
+     *
+     * @param entry Número de entrada
+     * @return Ubicación en el segmento, o 0 si la entrada está borrada
+     */
+    long location(int entry) {
+        return chunkOf(entry).getLong(offsetOf(entry) + LOCATION_OFFSET);
+    }
+
+    /**
+     * Obtiene el identificador de una entrada.
+     *
+     * @param entry Número de entrada
+     * @return Identificador del pedido
+     */
+    String id(int entry) {
+        MappedByteBuffer chunk = chunkOf(entry);
+        int offset = offsetOf(entry) + ID_OFFSET;
+        byte[] bytes = new byte[(chunk.get(offset) & 0xFF) - 1];
+        chunk.get(offset + 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Obtiene la fecha de una entrada.
+     *
+     * @param entry Número de entrada
+     * @return Milisegundos desde la época, o NO_DATE
+     */
+    long date(int entry) {
+        return chunkOf(entry).getLong(offsetOf(entry) + DATE_OFFSET);
+    }
+
+    /**
+     * Obtiene el estado de una entrada.
+     *
+     * @param entry Número de entrada
+     * @return Ordinal del estado, o -1 si no tenía
+     */
+    int status(int entry) {
+        return chunkOf(entry).get(offsetOf(entry) + STATUS_OFFSET) - 1;
+    }
+
+    /**
+     * Obtiene la cantidad de entradas agregadas, vivas o borradas. Las
+     * entradas están en el orden en que se agregaron, que es el orden de
+     * sus registros en el segmento.
+     *
+     * @return Entradas agregadas
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Obtiene la cantidad de entradas vivas.
+     *
+     * @return Pedidos en el índice
+     */
+    int live() {
+        return live;
+    }
+
+    /**
+     * Obtiene el tamaño del archivo del índice.
+     *
+     * @return Bytes mapeados, incluidas las tablas ya reemplazadas
+     */
+    long fileBytes() {
+        return fileEnd;
+    }
+
+    /**
+     * Cierra y borra el archivo.
+     *
+     * @throws IOException si no se puede borrar
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Calcula el día desde la época de una fecha, la clave de su cadena.
+     *
+     * @param millis Milisegundos desde la época
+     * @return Día
+     */
+    static long dayOf(long millis) {
+        return Math.floorDiv(millis, DAY_MILLIS);
+    }
+
+    /**
+     * Hash de 64 bits de un texto, con la mezcla final de MurmurHash3.
+     *
+     * @param value Texto
+     * @return Hash
+     */
+    static long hash(String value) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    // Nunca 0, que en la tabla de cadenas no distingue una clave de un hueco
+    private static long chainKey(int kind, long key) {
+        long mixed = mix(key * 0x9E3779B97F4A7C15L + kind);
+        return mixed != 0L ? mixed : 1L;
+    }
+
+    // Pone la entrada al frente de la cadena y devuelve la anterior + 1, o 0
+    private int push(long chainKey, int entry) {
+        Table table = heads;
+        int slot = (int) chainKey & table.mask;
+        while (table.value(slot) != 0L && table.key(slot) != chainKey) {
+            slot = (slot + 1) & table.mask;
+        }
+        long previous = table.value(slot);
+        if (previous == 0L) {
+            usedHeads++;
+        }
+        table.put(slot, chainKey, entry + 1L);
+        return (int) previous;
+    }
+
+    private void setNext(int entry, int kind, int next) {
+        chunkOf(entry).putInt(offsetOf(entry) + NEXT_OFFSET + (kind - 1) * 4, next);
+    }
+
+    // Rehace la tabla en una región nueva, sin los borrados
+    private Table rehash(Table old, int slots) throws IOException {
+        if (slots > MAX_SLOTS) {
+            throw new IOException("El indice de pedidos archivados esta lleno");
+        }
+        Table table = allocateTable(slots);
+        for (int i = 0; i < old.slots; i++) {
+            long value = old.value(i);
+            if (value > 0L) {
+                long key = old.key(i);
+                int slot = (int) key & table.mask;
+                while (table.value(slot) != 0L) {
+                    slot = (slot + 1) & table.mask;
+                }
+                table.put(slot, key, value);
+            }
+        }
+        return table;
+    }
+
+    private Table allocateTable(int slots) throws IOException {
+        int perChunk = Math.min(slots, 1 << SLOT_SHIFT);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[slots / perChunk];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = map((long) perChunk * SLOT_BYTES);
+        }
+        return new Table(chunks, slots);
+    }
+
+    // Las regiones nuevas del archivo se leen como ceros
+    private MappedByteBuffer map(long bytes) throws IOException {
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, fileEnd, bytes);
+        fileEnd += bytes;
+        return region;
+    }
+
+    private MappedByteBuffer chunkOf(int entry) {
+        return entries.get(entry >>> ENTRY_SHIFT);
+    }
+
+    private static int offsetOf(int entry) {
+        return (entry & (ENTRIES_PER_CHUNK - 1)) * ENTRY_BYTES;
+    }
+
+    /**
+     * Tabla de ranuras de 16 bytes (clave y valor) repartida en bloques mapeados.
+     */
+    private static final class Table {
+
+        private final MappedByteBuffer[] chunks;
+        private final int slots;
+        private final int mask;
+        private final int chunkShift;
+        private final int chunkMask;
+
+        Table(MappedByteBuffer[] chunks, int slots) {
+            this.chunks = chunks;
+            this.slots = slots;
+            this.mask = slots - 1;
+            int perChunk = slots / chunks.length;
+            this.chunkShift = Integer.numberOfTrailingZeros(perChunk);
+            this.chunkMask = perChunk - 1;
+        }
+
+        long key(int slot) {
+            return chunks[slot >>> chunkShift].getLong((slot & chunkMask) * SLOT_BYTES);
+        }
+
+        long value(int slot) {
+            return chunks[slot >>> chunkShift].getLong((slot & chunkMask) * SLOT_BYTES + 8);
+        }
+
+        void put(int slot, long key, long value) {
+            MappedByteBuffer chunk = chunks[slot >>> chunkShift];
+            chunk.putLong((slot & chunkMask) * SLOT_BYTES, key);
+            chunk.putLong((slot & chunkMask) * SLOT_BYTES + 8, value);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Enum.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+/**
+ * Política de sincronización a disco (fsync) del journal de pedidos.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum FsyncPolicy {
+    /** Cada grupo de registros se sincroniza y el escritor espera a que termine. */
+    ALWAYS,
+    /** Se sincroniza como máximo una vez por intervalo; el escritor no espera. */
+    INTERVAL,
+    /** Nunca se fuerza la sincronización; el sistema operativo decide. */
+    NEVER
+}
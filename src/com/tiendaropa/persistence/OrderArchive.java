@@ -0,0 +1,769 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+import com.tiendaropa.metrics.MetricsRegistry;
+import com.tiendaropa.metrics.OperationMetrics;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductCache;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * Almacén en disco de los pedidos que ya no necesitan estar en memoria.
+ * Los pedidos se agregan al final de un archivo de segmento con el formato
+ * de OrderFormat, cada uno con su largo y su CRC. El identificador, la
+ * posición en el segmento y las claves de cliente, estado y día de cada
+ * pedido van en un ArchiveIndex mapeado en memoria, en el archivo ".idx"
+ * junto al segmento, así que el heap no crece con los pedidos archivados:
+ * las consultas por identificador, cliente, estado y fecha se resuelven
+ * en ese índice y solo se leen del segmento los pedidos del resultado.
+ * Las lecturas pasan por un caché acotado con admisión W-TinyLFU: los
+ * pedidos leídos entran a una ventana LRU pequeña y, al salir de ella,
+ * solo desplazan al menos usado del caché principal si se han leído más
+ * veces, según un sketch de frecuencias que se reduce a la mitad
+ * periódicamente. Así una pasada por muchos pedidos fríos leídos una vez
+ * no vacía el caché de los que se consultan seguido.
+ * Los archivos no son durables: se crean vacíos al abrir y se borran al
+ * cerrar, porque los pedidos siguen guardados en el journal y las instantáneas.
+ * Los registros quitados dejan espacio sin usar hasta el siguiente inicio.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderArchive implements Closeable {
+
+    private static final OperationMetrics COLD_READ = MetricsRegistry.getDefault().operation("readColdOrder");
+    private static final int HEADER_BYTES = 8;
+    private static final int LENGTH_BITS = 24;
+    private static final int MAX_RECORD_BYTES = (1 << LENGTH_BITS) - 1;
+    private static final long MAX_FILE_BYTES = 1L << (63 - LENGTH_BITS);
+    private static final int PRODUCTS = 1 << 16;
+    private static final int SCAN_BATCH = 4096;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ArchiveIndex index;
+    private final ProductCache products = new ProductCache(PRODUCTS);
+    private final ReadCache cache;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+    private final DataOutputStream out = new DataOutputStream(buffer);
+    private final CRC32C writeCrc = new CRC32C();
+    private final LongAdder diskReads = new LongAdder();
+    private long fileBytes;
+    private long deadBytes;
+    private long archived;
+    // Días con pedidos guardados; acotan las cadenas que recorre findByDateRange
+    private long minDay = Long.MAX_VALUE;
+    private long maxDay = Long.MIN_VALUE;
+
+    private OrderArchive(Path file, FileChannel channel, ArchiveIndex index, int cacheCapacity) {
+        this.file = file;
+        this.channel = channel;
+        this.index = index;
+        this.cache = new ReadCache(cacheCapacity);
+    }
+
+    /**
+     * Crea un archivo de pedidos vacío, reemplazando uno anterior.
+     *
+     * @param file Ruta del archivo de segmento; el índice se guarda en el
+     *             mismo directorio con la extensión ".idx" agregada
+     * @param cacheCapacity Cantidad de pedidos leídos que se guardan en memoria; 0 para no guardar
+     * @return El almacén abierto
+     * @throws IOException si no se puede crear el archivo
+     * @throws IllegalArgumentException si la capacidad es negativa
+     */
+    public static OrderArchive open(Path file, int cacheCapacity) throws IOException {
+        if (cacheCapacity < 0) {
+            throw new IllegalArgumentException("La capacidad no puede ser negativa: " + cacheCapacity);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            ArchiveIndex index = ArchiveIndex.open(file.resolveSibling(file.getFileName() + ".idx"));
+            return new OrderArchive(file, channel, index, cacheCapacity);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Agrega un pedido al archivo. Si ya había una versión del mismo
+     * identificador, esta la reemplaza.
+     * Quien llama debe tener el bloqueo del pedido, para que ninguna
+     * lectura vea un pedido a medio mover entre memoria y disco.
+     *
+     * @param order Pedido a guardar
+     * @throws IOException si falla la escritura, o el registro o el identificador son demasiado grandes
+     */
+    public void put(Order order) throws IOException {
+        byte[] idBytes = ArchiveIndex.encodeId(order.getId());
+        synchronized (this) {
+            buffer.reset();
+            OrderFormat.writeOrder(out, order);
+            byte[] bytes = buffer.toByteArray();
+            int length = bytes.length;
+            if (length > MAX_RECORD_BYTES || fileBytes + HEADER_BYTES + length > MAX_FILE_BYTES) {
+                throw new IOException("El pedido " + order.getId() + " no cabe en el archivo de pedidos");
+            }
+            writeCrc.reset();
+            writeCrc.update(bytes, 0, length);
+            ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+            record.putInt(length).putInt((int) writeCrc.getValue()).put(bytes).flip();
+            long position = fileBytes;
+            while (record.hasRemaining()) {
+                channel.write(record, position + record.position());
+            }
+            fileBytes += HEADER_BYTES + length;
+            int previous = index.find(order.getId());
+            index.add(order.getId(), idBytes, position << LENGTH_BITS | length, order.getCustomerId(),
+                    order.getStatus(), order.getOrderDate());
+            // Después de agregar: si el índice no pudo crecer, la versión anterior sigue guardada
+            if (previous >= 0) {
+                unlink(previous);
+            }
+            if (order.getOrderDate() != null) {
+                long day = ArchiveIndex.dayOf(order.getOrderDate().getTime());
+                minDay = Math.min(minDay, day);
+                maxDay = Math.max(maxDay, day);
+            }
+            archived++;
+        }
+        cache.invalidate(order.getId());
+    }
+
+    /**
+     * Lee un pedido guardado, pasando por el caché de lecturas.
+     * El pedido entregado puede ser compartido con otras lecturas y no se
+     * debe modificar.
+     *
+     * @param orderId Identificador del pedido
+     * @return El pedido, o null si no está en el archivo
+     * @throws UncheckedIOException si falla la lectura del disco
+     */
+    public Order get(String orderId) {
+        long location;
+        synchronized (this) {
+            location = locationOf(orderId);
+        }
+        return location != 0L ? load(orderId, location) : null;
+    }
+
+    /**
+     * Quita un pedido del archivo y lo devuelve leído del disco, sin
+     * compartirlo con el caché. Quien llama debe tener el bloqueo del pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @return El pedido quitado, o null si no estaba
+     * @throws UncheckedIOException si falla la lectura del disco
+     */
+    public Order remove(String orderId) {
+        Order order = read(orderId);
+        if (order != null) {
+            discard(orderId);
+        }
+        return order;
+    }
+
+    /**
+     * Lee un pedido guardado sin pasar por el caché ni quitarlo: el pedido
+     * entregado es una copia propia que quien llama puede modificar.
+     *
+     * @param orderId Identificador del pedido
+     * @return El pedido, o null si no está en el archivo
+     * @throws UncheckedIOException si falla la lectura del disco
+     */
+    public Order read(String orderId) {
+        long location;
+        synchronized (this) {
+            location = locationOf(orderId);
+        }
+        return location != 0L ? readTimed(location) : null;
+    }
+
+    /**
+     * Quita un pedido del archivo sin leerlo. Quien llama debe tener el
+     * bloqueo del pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @return true si estaba guardado
+     */
+    public boolean discard(String orderId) {
+        synchronized (this) {
+            int entry = index.find(orderId);
+            if (entry < 0) {
+                return false;
+            }
+            unlink(entry);
+        }
+        cache.invalidate(orderId);
+        return true;
+    }
+
+    /**
+     * Indica si un pedido está en el archivo, sin leer el segmento.
+     *
+     * @param orderId Identificador del pedido
+     * @return true si está guardado
+     */
+    public synchronized boolean contains(String orderId) {
+        return index.find(orderId) >= 0;
+    }
+
+    /**
+     * Obtiene la posición del final del índice. Las consultas con esa
+     * posición como "since" ven solo los pedidos guardados desde ahora, lo
+     * que permite repasar lo archivado durante una consulta más larga.
+     *
+     * @return Posición actual del final del índice
+     */
+    public synchronized int position() {
+        return index.count();
+    }
+
+    /**
+     * Obtiene los identificadores de los pedidos guardados de un cliente,
+     * recorriendo solo la cadena de ese cliente en el índice. Con una
+     * probabilidad despreciable puede incluir pedidos de otro cliente cuyo
+     * identificador comparte el hash de 64 bits; quien los lea debe
+     * comparar el cliente.
+     *
+     * @param customerId Identificador del cliente
+     * @param since Posición desde la que contar, de position(); 0 para todos
+     * @return Identificadores, los archivados más recientemente primero
+     */
+    public List<String> idsByCustomer(String customerId, int since) {
+        return idsOf(chain(ArchiveIndex.CUSTOMER, ArchiveIndex.hash(customerId), since, -1,
+                Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    /**
+     * Obtiene los identificadores de los pedidos guardados que tienen un
+     * estado, recorriendo solo la cadena de ese estado en el índice.
+     *
+     * @param status Estado buscado
+     * @param since Posición desde la que contar, de position(); 0 para todos
+     * @return Identificadores, los archivados más recientemente primero
+     */
+    public List<String> idsByStatus(OrderStatus status, int since) {
+        return idsOf(chain(ArchiveIndex.STATUS, status.ordinal(), since, status.ordinal(),
+                Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    /**
+     * Obtiene los identificadores de los pedidos guardados realizados en un
+     * rango de fechas, recorriendo las cadenas de los días del rango que
+     * tienen pedidos.
+     *
+     * @param fromMillis Inicio del rango en milisegundos epoch (incluido)
+     * @param toMillis Fin del rango en milisegundos epoch (excluido)
+     * @param since Posición desde la que contar, de position(); 0 para todos
+     * @return Identificadores ordenados por fecha y luego por identificador
+     */
+    public List<String> idsByDateRange(long fromMillis, long toMillis, int since) {
+        List<Match> matches = new ArrayList<>();
+        if (fromMillis < toMillis) {
+            long first;
+            long last;
+            synchronized (this) {
+                first = Math.max(ArchiveIndex.dayOf(fromMillis), minDay);
+                last = Math.min(ArchiveIndex.dayOf(toMillis - 1), maxDay);
+            }
+            for (long day = first; day <= last; day++) {
+                matches.addAll(chain(ArchiveIndex.DAY, day, since, -1, fromMillis, toMillis));
+            }
+        }
+        matches.sort(Comparator.comparingLong((Match match) -> match.date).thenComparing(match -> match.id));
+        return idsOf(matches);
+    }
+
+    /**
+     * Obtiene los menores identificadores guardados posteriores a uno dado,
+     * en orden. Recorre las entradas del índice en disco desde since, un
+     * bloque a la vez bajo el bloqueo, y guarda en memoria solo las del
+     * resultado.
+     *
+     * @param afterId Identificador desde el que empezar (excluido), o null
+     * @param limit Cantidad máxima de identificadores
+     * @param since Posición desde la que contar, de position(); 0 para todos
+     * @return Identificadores ordenados
+     */
+    public List<String> idsAfter(String afterId, int limit, int since) {
+        PriorityQueue<String> smallest = new PriorityQueue<>(Comparator.reverseOrder());
+        int next = since;
+        while (true) {
+            synchronized (this) {
+                int end = Math.min(index.count(), next + SCAN_BATCH);
+                if (next >= end) {
+                    break;
+                }
+                for (; next < end; next++) {
+                    if (index.location(next) == 0L) {
+                        continue;
+                    }
+                    String id = index.id(next);
+                    if (afterId != null && id.compareTo(afterId) <= 0) {
+                        continue;
+                    }
+                    if (smallest.size() < limit) {
+                        smallest.add(id);
+                    } else if (id.compareTo(smallest.peek()) < 0) {
+                        smallest.poll();
+                        smallest.add(id);
+                    }
+                }
+            }
+        }
+        List<String> ids = new ArrayList<>(smallest);
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * Obtiene un flujo de todos los pedidos guardados, como stream(0, Integer.MAX_VALUE).
+     *
+     * @return Flujo de pedidos
+     */
+    public Stream<Order> stream() {
+        return stream(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Obtiene un flujo de los pedidos guardados entre dos posiciones del
+     * índice, en orden de posición en el archivo, sin pasar por el caché.
+     * Lee el índice a medida que avanza, así que los pedidos que se agregan
+     * durante el recorrido pueden o no aparecer, y los que se quitan antes
+     * de alcanzarlos no aparecen.
+     *
+     * @param since Posición desde la que recorrer (incluida), de position()
+     * @param until Posición hasta la que recorrer (excluida); Integer.MAX_VALUE para llegar al final
+     * @return Flujo de pedidos
+     */
+    public Stream<Order> stream(int since, int until) {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<Order>(Long.MAX_VALUE,
+                Spliterator.NONNULL) {
+            private int next = since;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Order> action) {
+                long location = 0L;
+                synchronized (OrderArchive.this) {
+                    int end = Math.min(index.count(), until);
+                    while (location == 0L && next < end) {
+                        location = index.location(next++);
+                    }
+                }
+                if (location == 0L) {
+                    return false;
+                }
+                action.accept(read(location));
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Recorre los pedidos guardados en orden de posición en el archivo,
+     * sin pasar por el caché, como stream.
+     *
+     * @param action Acción a ejecutar con cada pedido
+     * @throws UncheckedIOException si falla la lectura del disco
+     */
+    public void forEach(Consumer<Order> action) {
+        stream().forEach(action);
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos guardados.
+     *
+     * @return Pedidos en el archivo
+     */
+    public synchronized int size() {
+        return index.live();
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos escritos en el archivo desde que se abrió.
+     *
+     * @return Pedidos archivados, incluidos los que ya se quitaron
+     */
+    public synchronized long getArchivedCount() {
+        return archived;
+    }
+
+    /**
+     * Obtiene la cantidad de lecturas que no encontraron el pedido en el
+     * caché y tuvieron que ir al disco.
+     *
+     * @return Lecturas del disco
+     */
+    public long getDiskReads() {
+        return diskReads.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de lecturas resueltas por el caché.
+     *
+     * @return Aciertos del caché
+     */
+    public long getCacheHits() {
+        return cache.hits();
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos que salieron del caché por falta de
+     * lugar, incluidos los que la admisión rechazó.
+     *
+     * @return Pedidos desalojados del caché
+     */
+    public long getCacheEvictions() {
+        return cache.evictions();
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos leídos que no entraron al caché
+     * principal porque se leen menos que el que habrían desplazado.
+     *
+     * @return Admisiones rechazadas
+     */
+    public long getCacheRejections() {
+        return cache.rejections();
+    }
+
+    /**
+     * Obtiene el tamaño del archivo de segmento.
+     *
+     * @return Bytes escritos, incluidos los de registros quitados
+     */
+    public synchronized long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * Obtiene el tamaño del archivo del índice.
+     *
+     * @return Bytes del índice, incluidas las tablas ya reemplazadas
+     */
+    public synchronized long getIndexBytes() {
+        return index.fileBytes();
+    }
+
+    /**
+     * Obtiene el espacio del archivo ocupado por registros quitados o reemplazados.
+     *
+     * @return Bytes sin usar
+     */
+    public synchronized long getDeadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Obtiene la ruta del archivo de segmento.
+     *
+     * @return Ruta del archivo
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Cierra y borra el archivo y su índice.
+     *
+     * @throws IOException si no se puede borrar
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } finally {
+            index.close();
+        }
+    }
+
+    // Ubicación del registro de un identificador, o 0; debe llamarse con el bloqueo del almacén
+    private long locationOf(String orderId) {
+        int entry = index.find(orderId);
+        return entry >= 0 ? index.location(entry) : 0L;
+    }
+
+    // Debe llamarse con el bloqueo del almacén
+    private void unlink(int entry) {
+        deadBytes += HEADER_BYTES + (index.location(entry) & MAX_RECORD_BYTES);
+        index.remove(entry);
+    }
+
+    // Entradas vivas de una cadena desde since, con fecha en [from, to) y, si status no es -1, con ese estado.
+    // Las cadenas van de la entrada más nueva a la más vieja, así que se cortan al pasar since.
+    private synchronized List<Match> chain(int kind, long key, int since, int status, long from, long to) {
+        List<Match> matches = new ArrayList<>();
+        for (int entry = index.head(kind, key); entry >= since; entry = index.next(entry, kind)) {
+            long location = index.location(entry);
+            long date = index.date(entry);
+            if (location != 0L && (status < 0 || index.status(entry) == status)
+                    && (kind != ArchiveIndex.DAY || date >= from && date < to)) {
+                matches.add(new Match(index.id(entry), date));
+            }
+        }
+        return matches;
+    }
+
+    private static List<String> idsOf(List<Match> matches) {
+        List<String> ids = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            ids.add(match.id);
+        }
+        return ids;
+    }
+
+    // Lee un registro pasando por el caché; un registro quitado sigue legible hasta cerrar
+    private Order load(String orderId, long location) {
+        Order cached = cache.get(orderId, location);
+        if (cached != null) {
+            return cached;
+        }
+        Order order = readTimed(location);
+        cache.admit(orderId, location, order);
+        return order;
+    }
+
+    private Order readTimed(long location) {
+        long start = COLD_READ.start();
+        boolean ok = false;
+        try {
+            Order order = read(location);
+            ok = true;
+            return order;
+        } finally {
+            COLD_READ.stop(start, ok);
+            diskReads.increment();
+        }
+    }
+
+    private Order read(long location) {
+        try {
+            return decode(location, readRecord(location));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] readRecord(long location) throws IOException {
+        long position = location >>> LENGTH_BITS;
+        int length = (int) (location & MAX_RECORD_BYTES);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + length);
+        while (record.hasRemaining()) {
+            if (channel.read(record, position + record.position()) < 0) {
+                throw new EOFException("Registro incompleto en " + file + " en la posicion " + position);
+            }
+        }
+        record.flip();
+        if (record.getInt() != length) {
+            throw new IOException("Largo de registro no coincide en " + file + " en la posicion " + position);
+        }
+        int storedCrc = record.getInt();
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER_BYTES, length);
+        if ((int) crc.getValue() != storedCrc) {
+            throw new IOException("CRC no coincide en " + file + " en la posicion " + position);
+        }
+        return record.array();
+    }
+
+    private Order decode(long location, byte[] record) throws IOException {
+        int length = (int) (location & MAX_RECORD_BYTES);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record, HEADER_BYTES, length));
+        return OrderFormat.readOrder(in, products, OrderFormat.VERSION);
+    }
+
+    /**
+     * Caché de pedidos leídos del disco con admisión W-TinyLFU.
+     * Cada entrada recuerda la ubicación de la que se leyó, así una versión
+     * reemplazada del pedido nunca se entrega.
+     */
+    private static final class ReadCache {
+
+        private static final int SAMPLE_FACTOR = 10;
+
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+        // Sketch Count-Min de 4 filas con contadores de hasta 15
+        private final byte[] counters;
+        private final int counterMask;
+        private final int sampleSize;
+        private int samples;
+        private long hits;
+        private long evictions;
+        private long rejections;
+
+        ReadCache(int capacity) {
+            this.windowCapacity = capacity == 0 ? 0 : Math.max(1, capacity / 100);
+            this.mainCapacity = capacity - windowCapacity;
+            int width = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1) * 4;
+            this.counters = new byte[width];
+            this.counterMask = width - 1;
+            this.sampleSize = Math.max(16, capacity) * SAMPLE_FACTOR;
+        }
+
+        synchronized Order get(String orderId, long location) {
+            record(orderId);
+            Entry entry = window.get(orderId);
+            if (entry == null) {
+                entry = main.get(orderId);
+            }
+            if (entry == null || entry.location != location) {
+                return null;
+            }
+            hits++;
+            return entry.order;
+        }
+
+        synchronized void admit(String orderId, long location, Order order) {
+            if (windowCapacity == 0) {
+                return;
+            }
+            main.remove(orderId);
+            window.put(orderId, new Entry(location, order));
+            if (window.size() <= windowCapacity) {
+                return;
+            }
+            Map.Entry<String, Entry> candidate = removeEldest(window);
+            if (main.size() < mainCapacity) {
+                main.put(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            String victim = main.keySet().iterator().next();
+            if (frequency(candidate.getKey()) > frequency(victim)) {
+                main.remove(victim);
+                main.put(candidate.getKey(), candidate.getValue());
+            } else {
+                rejections++;
+            }
+            evictions++;
+        }
+
+        synchronized void invalidate(String orderId) {
+            window.remove(orderId);
+            main.remove(orderId);
+        }
+
+        synchronized long hits() {
+            return hits;
+        }
+
+        synchronized long evictions() {
+            return evictions;
+        }
+
+        synchronized long rejections() {
+            return rejections;
+        }
+
+        private static Map.Entry<String, Entry> removeEldest(LinkedHashMap<String, Entry> map) {
+            Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator();
+            Map.Entry<String, Entry> eldest = it.next();
+            Map.Entry<String, Entry> copy = Map.entry(eldest.getKey(), eldest.getValue());
+            it.remove();
+            return copy;
+        }
+
+        private void record(String orderId) {
+            int h = orderId.hashCode() * 0x9E3779B9;
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                int index = slot(h, row);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++samples >= sampleSize) {
+                // Envejecimiento: las lecturas antiguas pesan la mitad
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                samples /= 2;
+            }
+        }
+
+        private int frequency(String orderId) {
+            int h = orderId.hashCode() * 0x9E3779B9;
+            int min = 15;
+            for (int row = 0; row < 4; row++) {
+                min = Math.min(min, counters[slot(h, row)]);
+            }
+            return min;
+        }
+
+        private int slot(int h, int row) {
+            int mixed = h + row * 0x61C88647;
+            mixed ^= mixed >>> 16;
+            return mixed & counterMask;
+        }
+    }
+
+    /**
+     * Entrada del índice que cumple una consulta.
+     */
+    private static final class Match {
+
+        private final String id;
+        private final long date;
+
+        Match(String id, long date) {
+            this.id = id;
+            this.date = date;
+        }
+    }
+
+    /**
+     * Pedido leído y la ubicación de la que se leyó.
+     */
+    private static final class Entry {
+
+        private final long location;
+        private final Order order;
+
+        Entry(long location, Order order) {
+            this.location = location;
+            this.order = order;
+        }
+    }
+}
@@ -0,0 +1,523 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductCache;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.model.ProductView;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Códec binario compacto de pedidos y productos sobre ByteBuffer, pensado
+ * para mover pedidos entre procesos (réplicas, instantáneas, HTTP).
+ * Escribe y lee directamente en buffers que el llamador reutiliza, sin
+ * streams ni arreglos intermedios: al leer solo se crean el pedido, sus
+ * productos y los textos que no vienen del diccionario.
+ * Los enteros van como varint (los que pueden ser negativos en zigzag), los
+ * precios en unidades menores de la moneda (punto fijo, sin double) y el
+ * precio unitario de cada línea como diferencia con el precio del
+ * producto, que casi siempre es 0. Categoría, talla, color, moneda, estado
+ * y tipo de descuento se codifican con un diccionario: la primera vez que
+ * aparece un texto se escribe completo y se le asigna el código siguiente;
+ * después basta su código, normalmente un byte.
+ * Cada pedido, cada línea y cada producto suelto es un registro con su
+ * largo adelante, y los pedidos y productos llevan además la versión con
+ * que se escribieron. Para cambiar el formato solo se agregan campos al
+ * final de un registro y se sube VERSION: un lector antiguo salta los
+ * campos que no conoce, y uno nuevo da valores por omisión a los que
+ * faltan en registros antiguos. Los campos nuevos no deben usar el
+ * diccionario, porque un lector que los salta no vería sus altas.
+ * El diccionario es del códec y no del registro: quien escribe y quien lee
+ * deben procesar los registros en el mismo orden, cada uno con su
+ * instancia, o llamar a reset antes de cada registro para que sea
+ * independiente. No es seguro entre hilos.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderCodec {
+
+    /** Versión del formato que escribe el códec. */
+    public static final int VERSION = 1;
+
+    /** Cantidad de textos del diccionario del constructor sin argumentos. */
+    public static final int DEFAULT_DICTIONARY_CAPACITY = 1024;
+
+    // Marcas de los textos de diccionario; desde FIRST_CODE son códigos
+    private static final int NULL_TEXT = 0;
+    private static final int LITERAL = 1;
+    private static final int DEFINITION = 2;
+    private static final int FIRST_CODE = 3;
+    // Bytes reservados para el largo de cada registro, como varint con relleno
+    private static final int RECORD_LENGTH_BYTES = 3;
+    private static final int LINE_LENGTH_BYTES = 2;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private final int dictionaryCapacity;
+    private final ProductCache products;
+    private final Map<String, Integer> writeCodes = new HashMap<>();
+    // Textos escritos en orden de código, para deshacer las altas de un registro que no cupo
+    private final String[] writeValues;
+    private int writeSize;
+    private final String[] readValues;
+    private int readSize;
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Crea un códec con un diccionario de DEFAULT_DICTIONARY_CAPACITY
+     * textos y sin caché de productos.
+     */
+    public OrderCodec() {
+        this(DEFAULT_DICTIONARY_CAPACITY, null);
+    }
+
+    /**
+     * Crea un códec.
+     *
+     * @param dictionaryCapacity Cantidad máxima de textos del diccionario;
+     *        los que no caben se escriben completos cada vez
+     * @param products Caché donde se comparten los productos leídos, o null
+     *        para crear uno por línea
+     * @throws IllegalArgumentException si la capacidad es negativa
+     */
+    public OrderCodec(int dictionaryCapacity, ProductCache products) {
+        if (dictionaryCapacity < 0) {
+            throw new IllegalArgumentException("La capacidad del diccionario no puede ser negativa: "
+                    + dictionaryCapacity);
+        }
+        this.dictionaryCapacity = dictionaryCapacity;
+        this.products = products;
+        this.writeValues = new String[dictionaryCapacity];
+        this.readValues = new String[dictionaryCapacity];
+    }
+
+    /**
+     * Vacía los diccionarios de escritura y de lectura, de modo que el
+     * siguiente registro no dependa de los anteriores.
+     */
+    public void reset() {
+        writeCodes.clear();
+        Arrays.fill(writeValues, 0, writeSize, null);
+        writeSize = 0;
+        Arrays.fill(readValues, 0, readSize, null);
+        readSize = 0;
+    }
+
+    /**
+     * Escribe un pedido completo con sus líneas a partir de la posición del
+     * buffer. El pedido no debe cambiar mientras se escribe.
+     * Si no cabe, el buffer y el diccionario quedan como estaban, y se
+     * puede reintentar con un buffer más grande.
+     *
+     * @param out Destino
+     * @param order Pedido a escribir
+     * @return Cantidad de bytes escritos
+     * @throws BufferOverflowException si el pedido no cabe en el buffer
+     * @throws IllegalArgumentException si el pedido supera 2 MB o una línea 16 KB
+     */
+    public int encodeOrder(ByteBuffer out, Order order) {
+        int start = out.position();
+        int mark = writeSize;
+        try {
+            int body = reserve(out, RECORD_LENGTH_BYTES);
+            writeVarint(out, VERSION);
+            writeText(out, order.getId());
+            writeText(out, order.getCustomerId());
+            writeSigned(out, order.getOrderDate() != null ? order.getOrderDate().getTime() : NO_DATE);
+            OrderStatus status = order.getStatus();
+            writeDictionary(out, status != null ? status.getLabel() : null);
+            writeDictionary(out, order.getDiscountType());
+            writeSigned(out, order.getJournalSequence());
+            int count = order.getLineCount();
+            writeVarint(out, count);
+            for (int i = 0; i < count; i++) {
+                int line = reserve(out, LINE_LENGTH_BYTES);
+                ProductView product = order.getLineProduct(i);
+                writeVarint(out, order.getLineQuantity(i));
+                writeSigned(out, order.getLineUnitAmount(i) - product.getPrice().getAmount());
+                writeProductFields(out, product);
+                finish(out, line, LINE_LENGTH_BYTES);
+            }
+            finish(out, body, RECORD_LENGTH_BYTES);
+            return out.position() - start;
+        } catch (RuntimeException e) {
+            undo(out, start, mark);
+            throw e;
+        }
+    }
+
+    /**
+     * Lee un pedido escrito con encodeOrder, en esta versión o en otra, y
+     * deja el buffer al final del registro.
+     * Si el buffer no tiene el registro completo no se consume nada, de
+     * modo que quien lee de la red puede esperar más bytes y reintentar.
+     *
+     * @param in Origen
+     * @return El pedido leído, con su total recalculado
+     * @throws BufferUnderflowException si el registro está incompleto
+     * @throws IllegalArgumentException si el registro está mal formado; el
+     *         buffer queda en su posición inicial
+     */
+    public Order decodeOrder(ByteBuffer in) {
+        int start = in.position();
+        int end = recordEnd(in);
+        int limit = in.limit();
+        in.limit(end);
+        try {
+            readVersion(in);
+            String id = readText(in);
+            String customerId = readText(in);
+            long date = readSigned(in);
+            String status = readDictionary(in);
+            String discountType = readDictionary(in);
+            long journalSequence = readSigned(in);
+            int count = readCount(in);
+            Order order = new Order(id, customerId, date != NO_DATE ? new Date(date) : null,
+                    status != null ? OrderStatus.fromLabel(status) : OrderStatus.PENDING, discountType);
+            for (int i = 0; i < count; i++) {
+                int lineEnd = recordEnd(in);
+                in.limit(lineEnd);
+                int quantity = readCount(in);
+                long unitDelta = readSigned(in);
+                ProductValue product = readProductFields(in);
+                Money price = product.getPrice();
+                order.addLine(product, quantity, unitDelta == 0 ? price
+                        : Money.of(Math.addExact(price.getAmount(), unitDelta), price.getCurrency()));
+                // Los campos de línea de versiones posteriores se saltan
+                in.limit(end);
+                in.position(lineEnd);
+            }
+            order.setJournalSequence(journalSequence);
+            in.position(end);
+            return order;
+        } catch (BufferUnderflowException | IllegalArgumentException | ArithmeticException e) {
+            in.limit(limit);
+            in.position(start);
+            throw new IllegalArgumentException("Registro de pedido mal formado: " + e.getMessage(), e);
+        } finally {
+            in.limit(limit);
+        }
+    }
+
+    /**
+     * Escribe un producto suelto a partir de la posición del buffer.
+     * Si no cabe, el buffer y el diccionario quedan como estaban.
+     *
+     * @param out Destino
+     * @param product Producto a escribir
+     * @return Cantidad de bytes escritos
+     * @throws BufferOverflowException si el producto no cabe en el buffer
+     * @throws IllegalArgumentException si el producto supera 2 MB
+     */
+    public int encodeProduct(ByteBuffer out, ProductView product) {
+        int start = out.position();
+        int mark = writeSize;
+        try {
+            int body = reserve(out, RECORD_LENGTH_BYTES);
+            writeVarint(out, VERSION);
+            writeProductFields(out, product);
+            finish(out, body, RECORD_LENGTH_BYTES);
+            return out.position() - start;
+        } catch (RuntimeException e) {
+            undo(out, start, mark);
+            throw e;
+        }
+    }
+
+    /**
+     * Lee un producto escrito con encodeProduct y deja el buffer al final
+     * del registro.
+     *
+     * @param in Origen
+     * @return El producto leído, compartido a través del caché si el códec tiene uno
+     * @throws BufferUnderflowException si el registro está incompleto; no se consume nada
+     * @throws IllegalArgumentException si el registro está mal formado; el
+     *         buffer queda en su posición inicial
+     */
+    public ProductValue decodeProduct(ByteBuffer in) {
+        int start = in.position();
+        int end = recordEnd(in);
+        int limit = in.limit();
+        in.limit(end);
+        try {
+            readVersion(in);
+            ProductValue product = readProductFields(in);
+            in.position(end);
+            return product;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            in.limit(limit);
+            in.position(start);
+            throw new IllegalArgumentException("Registro de producto mal formado: " + e.getMessage(), e);
+        } finally {
+            in.limit(limit);
+        }
+    }
+
+    private void writeProductFields(ByteBuffer out, ProductView product) {
+        writeText(out, product.getId());
+        writeText(out, product.getName());
+        writeText(out, product.getDescription());
+        writeSigned(out, product.getPrice().getAmount());
+        writeDictionary(out, product.getPrice().getCurrency().getCurrencyCode());
+        writeDictionary(out, product.getCategory());
+        writeDictionary(out, product.getSize());
+        writeDictionary(out, product.getColor());
+        writeSigned(out, product.getStock());
+    }
+
+    private ProductValue readProductFields(ByteBuffer in) {
+        String id = readText(in);
+        String name = readText(in);
+        String description = readText(in);
+        long amount = readSigned(in);
+        String currency = readDictionary(in);
+        String category = readDictionary(in);
+        String size = readDictionary(in);
+        String color = readDictionary(in);
+        long stock = readSigned(in);
+        if (currency == null || stock != (int) stock) {
+            throw new IllegalArgumentException("Producto sin moneda o con stock fuera de rango");
+        }
+        ProductValue product = new ProductValue(id, name, description, Money.of(amount, Currency.getInstance(currency)),
+                category, size, color, (int) stock);
+        return products != null ? products.intern(product) : product;
+    }
+
+    private void writeDictionary(ByteBuffer out, String value) {
+        if (value == null) {
+            writeVarint(out, NULL_TEXT);
+            return;
+        }
+        Integer code = writeCodes.get(value);
+        if (code != null) {
+            writeVarint(out, FIRST_CODE + code);
+        } else if (writeSize < dictionaryCapacity) {
+            writeVarint(out, DEFINITION);
+            writeUtf8(out, value);
+            writeCodes.put(value, writeSize);
+            writeValues[writeSize++] = value;
+        } else {
+            writeVarint(out, LITERAL);
+            writeUtf8(out, value);
+        }
+    }
+
+    private String readDictionary(ByteBuffer in) {
+        int tag = readCount(in);
+        switch (tag) {
+            case NULL_TEXT:
+                return null;
+            case LITERAL:
+                return readUtf8(in, readCount(in));
+            case DEFINITION:
+                if (readSize == dictionaryCapacity) {
+                    throw new IllegalArgumentException("Diccionario lleno: " + dictionaryCapacity + " textos");
+                }
+                String value = readUtf8(in, readCount(in));
+                readValues[readSize++] = value;
+                return value;
+            default:
+                int code = tag - FIRST_CODE;
+                if (code >= readSize) {
+                    throw new IllegalArgumentException("Codigo de diccionario desconocido: " + code);
+                }
+                return readValues[code];
+        }
+    }
+
+    // Deshace un registro que no se pudo escribir completo
+    private void undo(ByteBuffer out, int start, int mark) {
+        for (int code = mark; code < writeSize; code++) {
+            writeCodes.remove(writeValues[code]);
+            writeValues[code] = null;
+        }
+        writeSize = mark;
+        out.position(start);
+    }
+
+    // Deja espacio para el largo de un registro y devuelve dónde empieza su cuerpo
+    private static int reserve(ByteBuffer out, int lengthBytes) {
+        if (out.remaining() < lengthBytes) {
+            throw new BufferOverflowException();
+        }
+        out.position(out.position() + lengthBytes);
+        return out.position();
+    }
+
+    // Escribe el largo del cuerpo como varint de ancho fijo, con bytes de continuación de relleno
+    private static void finish(ByteBuffer out, int body, int lengthBytes) {
+        int length = out.position() - body;
+        if (length >= 1 << (7 * lengthBytes)) {
+            throw new IllegalArgumentException("Registro demasiado grande: " + length + " bytes");
+        }
+        for (int i = 0; i < lengthBytes; i++) {
+            int bits = (length >>> (7 * i)) & 0x7F;
+            out.put(body - lengthBytes + i, (byte) (i < lengthBytes - 1 ? bits | 0x80 : bits));
+        }
+    }
+
+    // Lee el largo de un registro y devuelve su fin; si está incompleto no consume nada
+    private static int recordEnd(ByteBuffer in) {
+        int start = in.position();
+        try {
+            int length = readCount(in);
+            if (length > in.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            return in.position() + length;
+        } catch (BufferUnderflowException e) {
+            in.position(start);
+            throw e;
+        }
+    }
+
+    private static int readVersion(ByteBuffer in) {
+        int version = readCount(in);
+        if (version < 1) {
+            throw new IllegalArgumentException("Version de registro desconocida: " + version);
+        }
+        return version;
+    }
+
+    private static void writeText(ByteBuffer out, String value) {
+        if (value == null) {
+            writeVarint(out, 0);
+        } else {
+            writeUtf8(out, value, utf8Length(value), 1);
+        }
+    }
+
+    private String readText(ByteBuffer in) {
+        int length = readCount(in);
+        return length == 0 ? null : readUtf8(in, length - 1);
+    }
+
+    private static void writeUtf8(ByteBuffer out, String value) {
+        writeUtf8(out, value, utf8Length(value), 0);
+    }
+
+    // Escribe el largo (más offset) y los bytes UTF-8 sin pasar por getBytes
+    private static void writeUtf8(ByteBuffer out, String value, int length, int offset) {
+        writeVarint(out, length + offset);
+        if (out.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int chars = value.length();
+        if (length == chars) {
+            for (int i = 0; i < chars; i++) {
+                out.put((byte) value.charAt(i));
+            }
+            return;
+        }
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Igual que String.getBytes: un sustituto sin pareja se escribe como '?'
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int chars = value.length();
+        int length = chars;
+        for (int i = 0; i < chars; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800) {
+                if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    length += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    length += 2;
+                }
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    private String readUtf8(ByteBuffer in, int length) {
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        } else {
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.get(in.position(), scratch, 0, length);
+            value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private static void writeSigned(ByteBuffer out, long value) {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint de mas de 10 bytes");
+    }
+
+    private static long readSigned(ByteBuffer in) {
+        long value = readVarint(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int readCount(ByteBuffer in) {
+        long value = readVarint(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Valor fuera de rango: " + Long.toUnsignedString(value));
+        }
+        return (int) value;
+    }
+}
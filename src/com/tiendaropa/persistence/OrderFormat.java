@@ -0,0 +1,230 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderLine;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.model.ProductCache;
+import com.tiendaropa.model.ProductValue;
+import com.tiendaropa.model.ProductView;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Currency;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Formato binario de pedidos y productos usado por el journal y las
+ * instantáneas. Los textos admiten null y los precios se guardan como
+ * monto long en unidades menores más el código de la moneda.
+ * Los pedidos tienen dos versiones: la 1 guarda un producto por unidad y
+ * la 2 (VERSION, la que se escribe) una línea por SKU con su cantidad y
+ * su precio unitario.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class OrderFormat {
+
+    /** Versión del formato de pedidos que escribe writeOrder. */
+    public static final int VERSION = 2;
+
+    private OrderFormat() {
+    }
+
+    /**
+     * Escribe un pedido completo con sus líneas, en la versión VERSION.
+     *
+     * @param out Destino
+     * @param order Pedido a escribir
+     * @throws IOException si falla la escritura
+     */
+    public static void writeOrder(DataOutput out, Order order) throws IOException {
+        writeString(out, order.getId());
+        writeString(out, order.getCustomerId());
+        out.writeLong(order.getOrderDate() != null ? order.getOrderDate().getTime() : Long.MIN_VALUE);
+        writeStatus(out, order.getStatus());
+        writeString(out, order.getDiscountType());
+        out.writeLong(order.getJournalSequence());
+        List<OrderLine> lines = order.getLines();
+        out.writeInt(lines.size());
+        for (OrderLine line : lines) {
+            writeProduct(out, line.getProduct());
+            out.writeInt(line.getQuantity());
+            out.writeLong(line.getUnitPrice().getAmount());
+        }
+    }
+
+    /**
+     * Lee un pedido completo escrito con writeOrder.
+     *
+     * @param in Origen
+     * @return El pedido leído, con su total recalculado
+     * @throws IOException si falla la lectura
+     */
+    public static Order readOrder(DataInput in) throws IOException {
+        return readOrder(in, null, VERSION);
+    }
+
+    /**
+     * Lee un pedido completo escrito con writeOrder, compartiendo los
+     * productos repetidos a través de un caché.
+     *
+     * @param in Origen
+     * @param products Caché de productos, o null para crear uno por línea
+     * @param version Versión con que se escribió el pedido (1 o VERSION)
+     * @return El pedido leído, con su total recalculado
+     * @throws IOException si falla la lectura o la versión no se conoce
+     */
+    public static Order readOrder(DataInput in, ProductCache products, int version) throws IOException {
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Version de pedido desconocida: " + version);
+        }
+        String id = readString(in);
+        String customerId = readString(in);
+        long date = in.readLong();
+        OrderStatus status = readStatus(in);
+        String discountType = readString(in);
+        long journalSequence = in.readLong();
+        int count = in.readInt();
+        Order order = new Order(id, customerId, date != Long.MIN_VALUE ? new Date(date) : null, status, discountType);
+        for (int i = 0; i < count; i++) {
+            ProductView product = products != null ? readProduct(in, products) : readProduct(in);
+            if (version == 1) {
+                order.addProduct(product);
+            } else {
+                int quantity = in.readInt();
+                long unitAmount = in.readLong();
+                order.addLine(product, quantity, Money.of(unitAmount, product.getPrice().getCurrency()));
+            }
+        }
+        order.setJournalSequence(journalSequence);
+        return order;
+    }
+
+    /**
+     * Escribe un producto.
+     *
+     * @param out Destino
+     * @param product Producto a escribir
+     * @throws IOException si falla la escritura
+     */
+    public static void writeProduct(DataOutput out, ProductView product) throws IOException {
+        writeString(out, product.getId());
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        out.writeLong(product.getPrice().getAmount());
+        out.writeUTF(product.getPrice().getCurrency().getCurrencyCode());
+        writeString(out, product.getCategory());
+        writeString(out, product.getSize());
+        writeString(out, product.getColor());
+        out.writeInt(product.getStock());
+    }
+
+    /**
+     * Lee un producto escrito con writeProduct.
+     *
+     * @param in Origen
+     * @return El producto leído
+     * @throws IOException si falla la lectura
+     */
+    public static Product readProduct(DataInput in) throws IOException {
+        String id = readString(in);
+        String name = readString(in);
+        String description = readString(in);
+        long amount = in.readLong();
+        Currency currency = Currency.getInstance(in.readUTF());
+        String category = readString(in);
+        String size = readString(in);
+        String color = readString(in);
+        int stock = in.readInt();
+        return new Product(id, name, description, Money.of(amount, currency), category, size, color, stock);
+    }
+
+    /**
+     * Lee un producto escrito con writeProduct y obtiene su instancia
+     * compartida del caché.
+     *
+     * @param in Origen
+     * @param products Caché de productos
+     * @return El producto leído, inmutable
+     * @throws IOException si falla la lectura
+     */
+    public static ProductValue readProduct(DataInput in, ProductCache products) throws IOException {
+        String id = readString(in);
+        String name = readString(in);
+        String description = readString(in);
+        long amount = in.readLong();
+        Currency currency = Currency.getInstance(in.readUTF());
+        String category = readString(in);
+        String size = readString(in);
+        String color = readString(in);
+        int stock = in.readInt();
+        return products.intern(new ProductValue(id, name, description, Money.of(amount, currency),
+                category, size, color, stock));
+    }
+
+    /**
+     * Escribe un texto que puede ser null.
+     *
+     * @param out Destino
+     * @param value Texto a escribir
+     * @throws IOException si falla la escritura
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Lee un texto escrito con writeString.
+     *
+     * @param in Origen
+     * @return El texto leído o null
+     * @throws IOException si falla la lectura
+     */
+    public static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Escribe el estado de un pedido como su etiqueta, igual que cuando
+     * el estado era un texto libre.
+     *
+     * @param out Destino
+     * @param status Estado a escribir
+     * @throws IOException si falla la escritura
+     */
+    public static void writeStatus(DataOutput out, OrderStatus status) throws IOException {
+        writeString(out, status != null ? status.getLabel() : null);
+    }
+
+    /**
+     * Lee un estado escrito con writeStatus o un texto de versiones anteriores.
+     * Un estado nulo se lee como PENDING.
+     *
+     * @param in Origen
+     * @return El estado leído
+     * @throws IOException si falla la lectura o el texto no es un estado conocido
+     */
+    public static OrderStatus readStatus(DataInput in) throws IOException {
+        String label = readString(in);
+        if (label == null) {
+            return OrderStatus.PENDING;
+        }
+        try {
+            return OrderStatus.fromLabel(label);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
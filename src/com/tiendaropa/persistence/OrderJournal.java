@@ -0,0 +1,609 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductView;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal de escritura anticipada (write-ahead log) de pedidos.
+ * Cada cambio se codifica en un búfer compartido y un hilo escritor
+ * vuelca los registros acumulados en una sola escritura del FileChannel
+ * (group commit). Con FsyncPolicy.ALWAYS el hilo que registra espera a
+ * que su grupo quede sincronizado; varios hilos comparten el mismo fsync.
+ *
+ * <p>Formato de cada registro:
+ * [int largo][long secuencia][byte tipo][datos][int CRC32C], donde el
+ * largo y el CRC cubren secuencia, tipo y datos. El journal se divide en
+ * segmentos "wal-&lt;primera secuencia&gt;.log"; al tomar una instantánea
+ * se abre un segmento nuevo para poder borrar los anteriores.</p>
+ *
+ * <p>Los métodos log nunca esperan: se llaman bajo el bloqueo del pedido.
+ * Si el escritor se atrasa, quien registra llama antes a awaitCapacity,
+ * sin bloqueos tomados, para esperar a que el búfer baje del límite.</p>
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class OrderJournal implements Closeable {
+
+    static final byte CREATE = 1;
+    static final byte ADD_ITEM = 2;
+    static final byte REMOVE_ITEM = 3;
+    static final byte DISCOUNT = 4;
+    static final byte STATUS = 5;
+    static final byte DELETE = 6;
+    static final byte REKEY = 7;
+    static final byte ADD_LINE = 8;
+    static final byte SET_QUANTITY = 9;
+
+    static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+
+    // Tamaño a partir del cual awaitCapacity espera a que se vacíe el búfer
+    private static final int MAX_PENDING_BYTES = 8 << 20;
+
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final long fsyncIntervalMillis;
+    private final Object lock = new Object();
+    private final Thread writer;
+
+    // Protegidos por lock
+    private RecordBuffer staging = new RecordBuffer();
+    private DataOutputStream stagingOut = new DataOutputStream(staging);
+    private RecordBuffer spare = new RecordBuffer();
+    private long lastSequence;
+    private long stagingFirstSequence;
+    private long writtenSequence;
+    private long durableSequence;
+    private boolean rotateRequested;
+    private boolean forceRequested;
+    private boolean closed;
+    private IOException failure;
+
+    // Solo los usa el hilo escritor
+    private FileChannel channel;
+    private long lastForceMillis;
+
+    /**
+     * Abre el journal en un directorio y comienza un segmento nuevo.
+     *
+     * @param directory Directorio de los segmentos
+     * @param lastSequence Última secuencia ya usada (la recuperada del disco)
+     * @param policy Política de sincronización
+     * @param fsyncIntervalMillis Intervalo de sincronización para FsyncPolicy.INTERVAL
+     * @throws IOException si no se puede crear el segmento
+     */
+    public OrderJournal(Path directory, long lastSequence, FsyncPolicy policy, long fsyncIntervalMillis)
+            throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.fsyncIntervalMillis = Math.max(fsyncIntervalMillis, 1);
+        this.lastSequence = lastSequence;
+        this.writtenSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        Files.createDirectories(directory);
+        this.channel = openSegment(lastSequence + 1);
+        this.lastForceMillis = System.currentTimeMillis();
+        this.writer = new Thread(this::writeLoop, "order-journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Registra la creación de un pedido.
+     *
+     * @param order Pedido creado
+     * @return Secuencia del registro
+     */
+    public long logCreate(Order order) {
+        synchronized (lock) {
+            DataOutputStream out = begin(CREATE);
+            try {
+                OrderFormat.writeString(out, order.getId());
+                OrderFormat.writeString(out, order.getCustomerId());
+                out.writeLong(order.getOrderDate() != null ? order.getOrderDate().getTime() : Long.MIN_VALUE);
+                OrderFormat.writeStatus(out, order.getStatus());
+                OrderFormat.writeString(out, order.getDiscountType());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return end();
+        }
+    }
+
+    /**
+     * Registra la creación de un pedido que ya tiene sus productos, con un
+     * registro de creación y uno por línea, todos seguidos en el journal:
+     * como ningún registro espera, nadie toma el journal entre ellos.
+     * Se usa en el checkout, donde el pedido se arma completo antes de
+     * guardarlo.
+     *
+     * @param order Pedido creado
+     * @return Secuencia del último registro
+     */
+    public long logOrder(Order order) {
+        synchronized (lock) {
+            long sequence = logCreate(order);
+            for (int i = 0; i < order.getLineCount(); i++) {
+                sequence = logAddItem(order.getId(), order.getLineProduct(i), order.getLineQuantity(i));
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Registra que se agregó una unidad de un producto a un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param product Producto agregado
+     * @return Secuencia del registro
+     */
+    public long logAddItem(String orderId, ProductView product) {
+        return logAddItem(orderId, product, 1);
+    }
+
+    /**
+     * Registra que se agregaron unidades de un producto a un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param product Producto agregado
+     * @param quantity Cantidad de unidades agregadas
+     * @return Secuencia del registro
+     */
+    public long logAddItem(String orderId, ProductView product, int quantity) {
+        synchronized (lock) {
+            DataOutputStream out = begin(ADD_LINE);
+            try {
+                OrderFormat.writeString(out, orderId);
+                OrderFormat.writeProduct(out, product);
+                out.writeInt(quantity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return end();
+        }
+    }
+
+    /**
+     * Registra el cambio de cantidad de un producto de un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param productId Identificador del producto
+     * @param quantity Nueva cantidad; 0 si se quitó el producto
+     * @return Secuencia del registro
+     */
+    public long logQuantity(String orderId, String productId, int quantity) {
+        synchronized (lock) {
+            DataOutputStream out = begin(SET_QUANTITY);
+            try {
+                OrderFormat.writeString(out, orderId);
+                OrderFormat.writeString(out, productId);
+                out.writeInt(quantity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return end();
+        }
+    }
+
+    /**
+     * Registra que se quitó un producto de un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param productId Identificador del producto quitado
+     * @return Secuencia del registro
+     */
+    public long logRemoveItem(String orderId, String productId) {
+        return logPair(REMOVE_ITEM, orderId, productId);
+    }
+
+    /**
+     * Registra el cambio del tipo de descuento de un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param discountType Nuevo tipo de descuento
+     * @return Secuencia del registro
+     */
+    public long logDiscount(String orderId, String discountType) {
+        return logPair(DISCOUNT, orderId, discountType);
+    }
+
+    /**
+     * Registra el cambio de estado de un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param status Nuevo estado
+     * @return Secuencia del registro
+     */
+    public long logStatus(String orderId, OrderStatus status) {
+        return logPair(STATUS, orderId, status.getLabel());
+    }
+
+    /**
+     * Registra la eliminación de un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @return Secuencia del registro
+     */
+    public long logDelete(String orderId) {
+        return logPair(DELETE, orderId, null);
+    }
+
+    /**
+     * Registra el cambio de identificador de un pedido.
+     *
+     * @param oldId Identificador anterior
+     * @param newId Identificador nuevo
+     * @return Secuencia del registro
+     */
+    public long logRekey(String oldId, String newId) {
+        return logPair(REKEY, oldId, newId);
+    }
+
+    private long logPair(byte type, String first, String second) {
+        synchronized (lock) {
+            DataOutputStream out = begin(type);
+            try {
+                OrderFormat.writeString(out, first);
+                OrderFormat.writeString(out, second);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return end();
+        }
+    }
+
+    /**
+     * Espera a que el búfer de registros pendientes baje del límite.
+     * Es la contrapresión del journal: se llama antes de tomar el bloqueo
+     * del pedido, una vez por operación, incluso si la operación escribe
+     * varios registros. Los métodos log no esperan, así que el búfer puede
+     * pasar el límite por lo que registren los hilos que ya pasaron por aquí.
+     * Si el journal está cerrado o falló retorna enseguida; el error lo da
+     * el método log.
+     *
+     * @throws IllegalStateException si se interrumpe la espera
+     */
+    public void awaitCapacity() {
+        synchronized (lock) {
+            while (staging.size() > MAX_PENDING_BYTES && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrumpido esperando al journal", e);
+                }
+            }
+        }
+    }
+
+    // Debe llamarse con lock tomado; no espera, para no soltar lock en medio
+    // de logOrder ni demorar a quien tiene el bloqueo de un pedido
+    private DataOutputStream begin(byte type) {
+        checkOpen();
+        long sequence = ++lastSequence;
+        if (staging.size() == 0) {
+            stagingFirstSequence = sequence;
+        }
+        staging.beginRecord();
+        try {
+            stagingOut.writeLong(sequence);
+            stagingOut.writeByte(type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stagingOut;
+    }
+
+    // Debe llamarse con lock tomado
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("El journal esta cerrado");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("El journal fallo", failure);
+        }
+    }
+
+    // Debe llamarse con lock tomado
+    private long end() {
+        staging.endRecord();
+        lock.notifyAll();
+        return lastSequence;
+    }
+
+    /**
+     * Espera, según la política, a que un registro quede en disco.
+     * Con FsyncPolicy.ALWAYS bloquea hasta que el grupo que contiene el
+     * registro se sincronice; con las demás políticas retorna enseguida.
+     * No se debe llamar mientras se tiene el bloqueo de un pedido.
+     *
+     * @param sequence Secuencia devuelta por uno de los métodos log
+     */
+    public void awaitDurable(long sequence) {
+        if (policy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        synchronized (lock) {
+            while (durableSequence < sequence && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("El journal fallo", failure);
+            }
+        }
+    }
+
+    /**
+     * Obtiene la última secuencia asignada.
+     *
+     * @return Última secuencia
+     */
+    public long getLastSequence() {
+        synchronized (lock) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Fuerza a disco todos los registros hechos hasta ahora y espera.
+     *
+     * @throws IOException si la escritura falló
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            long target = lastSequence;
+            while (durableSequence < target && failure == null) {
+                forceRequested = true;
+                lock.notifyAll();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Pide abrir un segmento nuevo con el próximo grupo de registros y
+     * espera a que ocurra. Se usa al tomar una instantánea.
+     *
+     * @throws IOException si la escritura falló
+     */
+    void rotate() throws IOException {
+        synchronized (lock) {
+            rotateRequested = true;
+            lock.notifyAll();
+            while (rotateRequested && failure == null && !closed) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            RecordBuffer batch;
+            long batchFirst;
+            long batchLast;
+            boolean rotate;
+            boolean forceNow;
+            synchronized (lock) {
+                while (staging.size() == 0 && !rotateRequested && !forceRequested && !closed) {
+                    try {
+                        lock.wait(policy == FsyncPolicy.INTERVAL ? fsyncIntervalMillis : 0);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    if (policy == FsyncPolicy.INTERVAL && durableSequence < writtenSequence) {
+                        break;
+                    }
+                }
+                batch = staging;
+                batchFirst = stagingFirstSequence;
+                batchLast = lastSequence;
+                staging = spare;
+                stagingOut = new DataOutputStream(staging);
+                spare = null;
+                stagingFirstSequence = batchLast + 1;
+                rotate = rotateRequested;
+                forceNow = forceRequested;
+                forceRequested = false;
+                if (closed && batch.size() == 0) {
+                    spare = batch;
+                    return;
+                }
+            }
+            try {
+                if (rotate && batch.size() > 0) {
+                    // El grupo completo va al segmento nuevo
+                    channel.force(false);
+                    channel.close();
+                    channel = openSegment(batchFirst);
+                } else if (rotate) {
+                    channel.force(false);
+                    channel.close();
+                    channel = openSegment(batchLast + 1);
+                }
+                if (batch.size() > 0) {
+                    ByteBuffer data = ByteBuffer.wrap(batch.buffer(), 0, batch.size());
+                    while (data.hasRemaining()) {
+                        channel.write(data);
+                    }
+                }
+                long now = System.currentTimeMillis();
+                boolean force = policy == FsyncPolicy.ALWAYS || forceNow || rotate
+                        || (policy == FsyncPolicy.INTERVAL && now - lastForceMillis >= fsyncIntervalMillis);
+                if (force) {
+                    channel.force(false);
+                    lastForceMillis = now;
+                }
+                synchronized (lock) {
+                    writtenSequence = batchLast;
+                    if (force || policy == FsyncPolicy.NEVER) {
+                        durableSequence = batchLast;
+                    }
+                    if (rotate) {
+                        rotateRequested = false;
+                    }
+                    batch.reset();
+                    spare = batch;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(segmentName(firstSequence));
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static String segmentName(long firstSequence) {
+        return String.format("wal-%020d.log", firstSequence);
+    }
+
+    /**
+     * Lista los segmentos del journal de un directorio ordenados por su primera secuencia.
+     *
+     * @param directory Directorio del journal
+     * @return Rutas de los segmentos
+     * @throws IOException si no se puede listar el directorio
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> SEGMENT_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        return segments;
+    }
+
+    /**
+     * Obtiene la primera secuencia de un segmento a partir de su nombre.
+     *
+     * @param segment Ruta del segmento
+     * @return Primera secuencia del segmento
+     */
+    static long firstSequenceOf(Path segment) {
+        Matcher matcher = SEGMENT_NAME.matcher(segment.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("No es un segmento del journal: " + segment);
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Vuelca y sincroniza los registros pendientes y detiene el hilo escritor.
+     *
+     * @throws IOException si la escritura falló
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        synchronized (lock) {
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.force(false);
+        channel.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Búfer de registros que expone su arreglo interno para escribirlo en el
+     * canal sin copiarlo y para completar el largo y el CRC de cada registro.
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        private final CRC32C crc = new CRC32C();
+        private int recordStart;
+
+        RecordBuffer() {
+            super(64 * 1024);
+        }
+
+        void beginRecord() {
+            recordStart = count;
+            write(0);
+            write(0);
+            write(0);
+            write(0);
+        }
+
+        void endRecord() {
+            int bodyStart = recordStart + 4;
+            int length = count - bodyStart;
+            buf[recordStart] = (byte) (length >>> 24);
+            buf[recordStart + 1] = (byte) (length >>> 16);
+            buf[recordStart + 2] = (byte) (length >>> 8);
+            buf[recordStart + 3] = (byte) length;
+            crc.reset();
+            crc.update(buf, bodyStart, length);
+            int value = (int) crc.getValue();
+            write(value >>> 24);
+            write(value >>> 16);
+            write(value >>> 8);
+            write(value);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductCache;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.service.OrderService;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistencia durable de pedidos: instantáneas compactas más el journal.
+ * Al abrirse recupera el estado cargando la instantánea más reciente y
+ * aplicando los registros del journal posteriores a ella; un segmento que
+ * termina en un registro incompleto o dañado se corta en el último
+ * registro válido antes de volver a escribir en el journal. Las instantáneas
+ * se toman sin detener las escrituras: cada pedido guarda la secuencia del
+ * último registro que se le aplicó, y al recuperar se omiten los registros
+ * que la instantánea ya incluye.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class OrderPersistence implements Closeable {
+
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.snap");
+    private static final int SNAPSHOT_MAGIC = 0x54525350; // "TRSP"
+    private static final int SNAPSHOT_VERSION = OrderFormat.VERSION;
+    private static final int MAX_RECORD_BYTES = 64 << 20;
+    private static final int RECOVERY_PRODUCTS = 1 << 16;
+
+    private final Path directory;
+    private final OrderJournal journal;
+    private final Collection<Order> recoveredOrders;
+    private final long recoveryMillis;
+    private final long replayedRecords;
+    private ScheduledExecutorService snapshotter;
+
+    private OrderPersistence(Path directory, OrderJournal journal, Collection<Order> recoveredOrders,
+                             long recoveryMillis, long replayedRecords) {
+        this.directory = directory;
+        this.journal = journal;
+        this.recoveredOrders = recoveredOrders;
+        this.recoveryMillis = recoveryMillis;
+        this.replayedRecords = replayedRecords;
+    }
+
+    /**
+     * Abre la persistencia de un directorio, recupera los pedidos guardados
+     * y abre el journal para registrar los cambios nuevos.
+     *
+     * @param directory Directorio de datos
+     * @param policy Política de sincronización del journal
+     * @param fsyncIntervalMillis Intervalo de sincronización para FsyncPolicy.INTERVAL
+     * @return La persistencia abierta
+     * @throws IOException si no se pueden leer o crear los archivos
+     */
+    public static OrderPersistence open(Path directory, FsyncPolicy policy, long fsyncIntervalMillis)
+            throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Map<String, Order> state = new HashMap<>();
+        // Las líneas recuperadas de un mismo SKU comparten un producto
+        ProductCache products = new ProductCache(RECOVERY_PRODUCTS);
+        long snapshotSequence = loadLatestSnapshot(directory, state, products);
+        long[] counters = {snapshotSequence, 0};
+        for (Path segment : OrderJournal.listSegments(directory)) {
+            replaySegment(segment, snapshotSequence, state, products, counters);
+        }
+        OrderJournal journal = new OrderJournal(directory, counters[0], policy, fsyncIntervalMillis);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new OrderPersistence(directory, journal, state.values(), elapsed, counters[1]);
+    }
+
+    private static long loadLatestSnapshot(Path directory, Map<String, Order> state, ProductCache products)
+            throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> SNAPSHOT_NAME.matcher(p.getFileName().toString()).matches())
+                    .sorted()
+                    .forEach(snapshots::add);
+        }
+        // Se prueba desde la más reciente; una instantánea dañada se descarta
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path snapshot = snapshots.get(i);
+            try {
+                return readSnapshot(snapshot, state, products);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Instantanea descartada " + snapshot + ": " + e.getMessage());
+                state.clear();
+            }
+        }
+        return 0L;
+    }
+
+    private static long readSnapshot(Path snapshot, Map<String, Order> state, ProductCache products)
+            throws IOException {
+        CRC32C crc = new CRC32C();
+        try (InputStream raw = Files.newInputStream(snapshot)) {
+            BufferedInputStream buffered = new BufferedInputStream(raw, 1 << 16);
+            DataInputStream in = new DataInputStream(new CheckedInputStream(buffered, crc));
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Formato de instantanea desconocido");
+            }
+            // La versión de la instantánea es la de sus pedidos; la 1 se sigue leyendo
+            int version = in.readInt();
+            long sequence = in.readLong();
+            while (in.readBoolean()) {
+                Order order = OrderFormat.readOrder(in, products, version);
+                state.put(order.getId(), order);
+            }
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(buffered).readInt() != expected) {
+                throw new IOException("CRC de la instantanea no coincide");
+            }
+            return sequence;
+        }
+    }
+
+    // Aplica los registros de un segmento. Si termina en un registro incompleto
+    // o dañado, lo corta en el último registro válido para que el journal no
+    // escriba detrás de bytes que una próxima recuperación no podría pasar.
+    private static void replaySegment(Path segment, long snapshotSequence, Map<String, Order> state,
+                                      ProductCache products, long[] counters) throws IOException {
+        long valid = readSegment(segment, snapshotSequence, state, products, counters);
+        if (Files.size(segment) > valid) {
+            System.err.println("Segmento " + segment + " cortado en el byte " + valid);
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+                channel.force(true);
+            }
+        }
+    }
+
+    // Devuelve la posición donde termina el último registro válido
+    private static long readSegment(Path segment, long snapshotSequence, Map<String, Order> state,
+                                    ProductCache products, long[] counters) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] body = new byte[1024];
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment), 1 << 16))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return valid;
+                }
+                if (length < 9 || length > MAX_RECORD_BYTES) {
+                    System.err.println("Registro danado en " + segment + "; se ignora el resto del segmento");
+                    return valid;
+                }
+                if (body.length < length) {
+                    body = new byte[Math.max(length, body.length * 2)];
+                }
+                int storedCrc;
+                try {
+                    in.readFully(body, 0, length);
+                    storedCrc = in.readInt();
+                } catch (EOFException e) {
+                    // Escritura incompleta al final del segmento (caída durante el append)
+                    return valid;
+                }
+                crc.reset();
+                crc.update(body, 0, length);
+                if ((int) crc.getValue() != storedCrc) {
+                    System.err.println("CRC no coincide en " + segment + "; se ignora el resto del segmento");
+                    return valid;
+                }
+                valid += 8 + length;
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body, 0, length));
+                long sequence = record.readLong();
+                byte type = record.readByte();
+                counters[0] = Math.max(counters[0], sequence);
+                if (sequence > snapshotSequence) {
+                    apply(sequence, type, record, state, products);
+                    counters[1]++;
+                }
+            }
+        }
+    }
+
+    private static void apply(long sequence, byte type, DataInputStream in, Map<String, Order> state,
+                              ProductCache products) throws IOException {
+        String orderId = OrderFormat.readString(in);
+        if (type == OrderJournal.CREATE) {
+            String customerId = OrderFormat.readString(in);
+            long date = in.readLong();
+            OrderStatus status = OrderFormat.readStatus(in);
+            String discountType = OrderFormat.readString(in);
+            if (!state.containsKey(orderId)) {
+                Order order = new Order(orderId, customerId,
+                        date != Long.MIN_VALUE ? new Date(date) : null, status, discountType);
+                order.setJournalSequence(sequence);
+                state.put(orderId, order);
+            }
+            return;
+        }
+        Order order = state.get(orderId);
+        if (order == null || sequence <= order.getJournalSequence()) {
+            // El pedido ya no existe o la instantánea ya incluye este cambio
+            return;
+        }
+        switch (type) {
+            case OrderJournal.ADD_ITEM:
+                order.addProduct(OrderFormat.readProduct(in, products));
+                break;
+            case OrderJournal.ADD_LINE:
+                ProductView product = OrderFormat.readProduct(in, products);
+                order.addProduct(product, in.readInt());
+                break;
+            case OrderJournal.SET_QUANTITY:
+                order.setQuantity(OrderFormat.readString(in), in.readInt());
+                break;
+            case OrderJournal.REMOVE_ITEM:
+                order.removeProduct(OrderFormat.readString(in));
+                break;
+            case OrderJournal.DISCOUNT:
+                order.setDiscountType(OrderFormat.readString(in));
+                break;
+            case OrderJournal.STATUS:
+                order.setStatus(OrderFormat.readStatus(in));
+                break;
+            case OrderJournal.DELETE:
+                state.remove(orderId);
+                return;
+            case OrderJournal.REKEY:
+                String newId = OrderFormat.readString(in);
+                if (state.containsKey(newId)) {
+                    return;
+                }
+                state.remove(orderId);
+                order.setId(newId);
+                state.put(newId, order);
+                break;
+            default:
+                throw new IOException("Tipo de registro desconocido: " + type);
+        }
+        order.setJournalSequence(sequence);
+    }
+
+    /**
+     * Toma una instantánea de los pedidos del servicio y borra los segmentos
+     * del journal y las instantáneas que ya no son necesarios.
+     * Las escrituras del servicio pueden continuar mientras tanto.
+     *
+     * @param service Servicio cuyos pedidos se guardan
+     * @return Ruta de la instantánea escrita
+     * @throws IOException si falla la escritura
+     */
+    public synchronized Path snapshot(OrderService service) throws IOException {
+        // Un pedido creado hasta esta secuencia ya está en el servicio, así que la instantánea lo incluye
+        long sequence = service.awaitPlacedSequence(journal);
+        journal.rotate();
+        Path target = directory.resolve(String.format("snapshot-%020d.snap", sequence));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BufferedOutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(buffered, crc));
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(sequence);
+            try {
+                service.visitOrders(order -> {
+                    try {
+                        out.writeBoolean(true);
+                        OrderFormat.writeOrder(out, order);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeBoolean(false);
+            out.flush();
+            new DataOutputStream(buffered).writeInt((int) crc.getValue());
+            buffered.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        deleteObsoleteFiles(target, sequence);
+        return target;
+    }
+
+    private void deleteObsoleteFiles(Path latestSnapshot, long sequence) throws IOException {
+        List<Path> segments = OrderJournal.listSegments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            // Un segmento sobra si todos sus registros son anteriores a la instantánea
+            if (OrderJournal.firstSequenceOf(segments.get(i + 1)) <= sequence + 1) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches() && !file.equals(latestSnapshot)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Toma instantáneas periódicas en un hilo demonio.
+     *
+     * @param service Servicio cuyos pedidos se guardan
+     * @param periodSeconds Intervalo entre instantáneas, en segundos
+     */
+    public synchronized void startPeriodicSnapshots(OrderService service, long periodSeconds) {
+        if (snapshotter != null) {
+            return;
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-snapshotter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(service);
+            } catch (IOException e) {
+                System.err.println("No se pudo tomar la instantanea: " + e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Obtiene el journal donde se deben registrar los cambios.
+     *
+     * @return Journal de pedidos
+     */
+    public OrderJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Obtiene los pedidos recuperados al abrir la persistencia.
+     *
+     * @return Pedidos recuperados
+     */
+    public Collection<Order> getRecoveredOrders() {
+        return recoveredOrders;
+    }
+
+    /**
+     * Obtiene el tiempo que tomó la recuperación.
+     *
+     * @return Milisegundos de recuperación
+     */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    /**
+     * Obtiene la cantidad de registros del journal aplicados al recuperar.
+     *
+     * @return Registros aplicados
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * Detiene las instantáneas periódicas y cierra el journal.
+     *
+     * @throws IOException si falla el último volcado del journal
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+            snapshotter = null;
+        }
+        journal.close();
+    }
+}
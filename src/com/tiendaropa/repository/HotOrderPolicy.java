@@ -0,0 +1,178 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.repository;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Política de admisión y desalojo de los pedidos en memoria de un
+ * OrderRepository con archivo, al estilo TinyLFU.
+ * Lleva en una cola los pedidos en estado final que pueden pasar a disco,
+ * los que llegaron antes primero, y un sketch Count-Min con la frecuencia
+ * de acceso de cada pedido que se reduce a la mitad periódicamente, así
+ * los accesos antiguos pesan cada vez menos.
+ * Al desalojar, un candidato que se usa más que el siguiente de la cola
+ * vuelve al final (una segunda oportunidad, hasta unas pocas por
+ * desalojo). Un pedido que vuelve de disco para modificarse se admite al
+ * final de la cola solo si se usa más que el primero; si no, queda primero
+ * y es el próximo en volver a disco, de modo que una pasada por muchos
+ * pedidos viejos no desplaza a los que se consultan seguido.
+ * Los contadores se actualizan sin sincronizar: un incremento que se pisa
+ * con otro se pierde, lo que para comparar frecuencias no importa.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+final class HotOrderPolicy {
+
+    private static final int SAMPLE_FACTOR = 10;
+    private static final int MAX_SECOND_CHANCES = 8;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_COUNTERS = 1 << 24;
+
+    private final ConcurrentLinkedDeque<String> candidates = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // Sketch Count-Min de 4 filas con contadores de hasta 15
+    private final byte[] counters;
+    private final int counterMask;
+    private final int sampleSize;
+    private int samples;
+
+    /**
+     * Crea la política para un máximo de pedidos en memoria.
+     *
+     * @param maxHotOrders Cantidad de pedidos en memoria; dimensiona el sketch
+     */
+    HotOrderPolicy(int maxHotOrders) {
+        int capacity = Math.max(MIN_CAPACITY, Math.min(maxHotOrders, MAX_COUNTERS / 8));
+        int width = Integer.highestOneBit(capacity * 2 - 1) * 4;
+        this.counters = new byte[width];
+        this.counterMask = width - 1;
+        this.sampleSize = capacity * SAMPLE_FACTOR;
+    }
+
+    /**
+     * Cuenta un acceso a un pedido.
+     *
+     * @param orderId Identificador del pedido
+     */
+    void recordAccess(String orderId) {
+        int h = orderId.hashCode() * 0x9E3779B9;
+        boolean added = false;
+        for (int row = 0; row < 4; row++) {
+            int index = slot(h, row);
+            if (counters[index] < 15) {
+                counters[index]++;
+                added = true;
+            }
+        }
+        if (added && ++samples >= sampleSize) {
+            samples = 0;
+            for (int i = 0; i < counters.length; i++) {
+                counters[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Agrega al final de la cola un pedido que llegó a un estado final.
+     *
+     * @param orderId Identificador del pedido
+     */
+    void retired(String orderId) {
+        candidates.addLast(orderId);
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Decide dónde queda en la cola un pedido que volvió de disco.
+     *
+     * @param orderId Identificador del pedido
+     * @return true si se admitió al final de la cola, false si quedó primero
+     */
+    boolean admit(String orderId) {
+        String first = candidates.peekFirst();
+        queued.incrementAndGet();
+        if (first == null || frequency(orderId) > frequency(first)) {
+            candidates.addLast(orderId);
+            return true;
+        }
+        candidates.addFirst(orderId);
+        return false;
+    }
+
+    /**
+     * Saca de la cola el próximo pedido a desalojar.
+     *
+     * @return Identificador del pedido, o null si la cola está vacía
+     */
+    String nextVictim() {
+        for (int chances = 0; ; chances++) {
+            String candidate = candidates.pollFirst();
+            if (candidate == null) {
+                return null;
+            }
+            String next = candidates.peekFirst();
+            if (chances == MAX_SECOND_CHANCES || next == null || frequency(candidate) <= frequency(next)) {
+                queued.decrementAndGet();
+                return candidate;
+            }
+            candidates.addLast(candidate);
+        }
+    }
+
+    /**
+     * Vuelve a poner al final de la cola un pedido que no se pudo desalojar.
+     *
+     * @param orderId Identificador del pedido
+     */
+    void requeue(String orderId) {
+        candidates.addLast(orderId);
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Quita de la cola los pedidos que ya no son candidatos, por ejemplo
+     * los borrados o los que ya están en disco.
+     *
+     * @param stale Indica si un identificador ya no es candidato
+     */
+    void purge(Predicate<String> stale) {
+        candidates.removeIf(orderId -> {
+            if (stale.test(orderId)) {
+                queued.decrementAndGet();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Obtiene la cantidad de identificadores en la cola, repetidos incluidos.
+     *
+     * @return Largo de la cola
+     */
+    int queued() {
+        return queued.get();
+    }
+
+    private int frequency(String orderId) {
+        int h = orderId.hashCode() * 0x9E3779B9;
+        int min = 15;
+        for (int row = 0; row < 4; row++) {
+            min = Math.min(min, counters[slot(h, row)]);
+        }
+        return min;
+    }
+
+    private int slot(int h, int row) {
+        int mixed = h + row * 0x61C88647;
+        mixed ^= mixed >>> 16;
+        return mixed & counterMask;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.repository;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Índices secundarios de pedidos por cliente, estado y fecha.
+ * Cada índice asocia un valor con el conjunto de identificadores de
+ * pedidos que lo tienen. Las consultas recorren solo los identificadores
+ * del resultado, por lo que su costo depende del tamaño del resultado y
+ * no de la cantidad total de pedidos. El índice por fecha es un conjunto
+ * ordenado de pares (fecha, identificador) y permite consultas por rango.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class OrderIndex {
+
+    private final ConcurrentHashMap<String, Set<String>> byCustomer = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<OrderStatus, Set<String>> byStatus = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<DateKey> byDate = new ConcurrentSkipListSet<>();
+
+    /**
+     * Registra un pedido en todos los índices.
+     *
+     * @param order Pedido a registrar
+     */
+    public void add(Order order) {
+        add(order, order.getId());
+    }
+
+    /**
+     * Quita un pedido de todos los índices.
+     *
+     * @param order Pedido a quitar
+     */
+    public void remove(Order order) {
+        remove(order, order.getId());
+    }
+
+    /**
+     * Actualiza los índices cuando cambia el identificador de un pedido.
+     *
+     * @param order Pedido, ya con su nuevo identificador
+     * @param oldId Identificador anterior
+     */
+    public void rekey(Order order, String oldId) {
+        remove(order, oldId);
+        add(order, order.getId());
+    }
+
+    /**
+     * Actualiza el índice por estado cuando cambia el estado de un pedido.
+     *
+     * @param orderId Identificador del pedido
+     * @param oldStatus Estado anterior
+     * @param newStatus Estado nuevo
+     */
+    public void statusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        unlink(byStatus, oldStatus, orderId);
+        link(byStatus, newStatus, orderId);
+    }
+
+    /**
+     * Obtiene los identificadores de los pedidos de un cliente.
+     *
+     * @param customerId Identificador del cliente
+     * @return Vista de los identificadores, vacía si no hay pedidos
+     */
+    public Set<String> idsByCustomer(String customerId) {
+        return view(byCustomer.get(customerId));
+    }
+
+    /**
+     * Obtiene los identificadores de los pedidos con un estado.
+     *
+     * @param status Estado buscado
+     * @return Vista de los identificadores, vacía si no hay pedidos
+     */
+    public Set<String> idsByStatus(OrderStatus status) {
+        return view(byStatus.get(status));
+    }
+
+    /**
+     * Obtiene los identificadores de los pedidos realizados en un rango de fechas.
+     *
+     * @param fromMillis Inicio del rango en milisegundos epoch (incluido)
+     * @param toMillis Fin del rango en milisegundos epoch (excluido)
+     * @return Identificadores en orden de fecha
+     */
+    public List<String> idsByDateRange(long fromMillis, long toMillis) {
+        List<String> ids = new ArrayList<>();
+        if (fromMillis >= toMillis) {
+            return ids;
+        }
+        for (DateKey key : byDate.subSet(new DateKey(fromMillis, ""), new DateKey(toMillis, ""))) {
+            ids.add(key.orderId);
+        }
+        return ids;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos con un estado.
+     *
+     * @param status Estado buscado
+     * @return Número de pedidos
+     */
+    public int countByStatus(OrderStatus status) {
+        return idsByStatus(status).size();
+    }
+
+    private void add(Order order, String id) {
+        link(byCustomer, order.getCustomerId(), id);
+        link(byStatus, order.getStatus(), id);
+        if (order.getOrderDate() != null) {
+            byDate.add(new DateKey(order.getOrderDate().getTime(), id));
+        }
+    }
+
+    private void remove(Order order, String id) {
+        unlink(byCustomer, order.getCustomerId(), id);
+        unlink(byStatus, order.getStatus(), id);
+        if (order.getOrderDate() != null) {
+            byDate.remove(new DateKey(order.getOrderDate().getTime(), id));
+        }
+    }
+
+    // Alta y baja bajo el bloqueo de la clave, para que un conjunto vacío
+    // nunca se elimine mientras otro hilo le agrega un identificador.
+    private static <K> void link(ConcurrentMap<K, Set<String>> index, K key, String id) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (k, ids) -> {
+            Set<String> set = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            set.add(id);
+            return set;
+        });
+    }
+
+    private static <K> void unlink(ConcurrentMap<K, Set<String>> index, K key, String id) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static Set<String> view(Set<String> ids) {
+        return ids != null ? Collections.unmodifiableSet(ids) : Collections.emptySet();
+    }
+
+    /**
+     * Clave del índice por fecha: ordena por fecha y luego por identificador.
+     */
+    private static final class DateKey implements Comparable<DateKey> {
+
+        private final long millis;
+        private final String orderId;
+
+        DateKey(long millis, String orderId) {
+            this.millis = millis;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public int compareTo(DateKey other) {
+            int byMillis = Long.compare(millis, other.millis);
+            return byMillis != 0 ? byMillis : orderId.compareTo(other.orderId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof DateKey && compareTo((DateKey) obj) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(millis) + orderId.hashCode();
+        }
+    }
+}
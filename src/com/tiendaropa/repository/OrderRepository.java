@@ -0,0 +1,774 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.repository;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.persistence.OrderArchive;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio concurrente de pedidos.
+ * Guarda los pedidos en un ConcurrentHashMap, cuyo bloqueo por segmento
+ * (bin) permite que hilos distintos trabajen sobre pedidos distintos sin
+ * esperarse entre sí. Las modificaciones de un mismo pedido se ejecutan
+ * dentro de computeIfPresent, por lo que quedan serializadas y no se
+ * pierden actualizaciones.
+ * Mantiene además un OrderIndex por cliente, estado y fecha; las altas,
+ * bajas y cambios de clave lo actualizan bajo el mismo bloqueo del pedido.
+ * Los identificadores también se guardan ordenados para poder paginar
+ * por clave sin copiar la colección completa.
+ * Opcionalmente tiene un OrderArchive en disco: cuando hay más pedidos en
+ * memoria que el máximo, los que llegaron a un estado final (entregados o
+ * cancelados) pasan al archivo según una HotOrderPolicy, que desaloja
+ * primero los más antiguos y menos usados; los pedidos abiertos nunca
+ * salen de memoria. Un pedido archivado no deja nada en el heap: sale de
+ * OrderIndex y de la paginación, y su identificador, cliente, estado y
+ * fecha pasan al índice en disco del archivo. Las consultas por cliente,
+ * estado y fecha, page, stream, iterator y findAll juntan los dos niveles:
+ * leen el archivo, luego la memoria, y otra vez lo que se archivó entre
+ * medio, así un pedido que cambia de nivel durante la consulta no se
+ * pierde. find y read también leen del archivo, y update, rekey y remove
+ * traen el pedido de vuelta a memoria bajo su bloqueo, así el cambio de
+ * nivel es transparente. Solo values y spliterator recorren únicamente los
+ * pedidos en memoria.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class OrderRepository {
+
+    private final ConcurrentHashMap<String, Order> orders;
+    private final OrderIndex index;
+    private final ConcurrentSkipListSet<String> sortedIds;
+    private final OrderArchive archive;
+    private final int maxHotOrders;
+    // Candidatos a pasar a disco y frecuencia de acceso de los pedidos; null sin archivo
+    private final HotOrderPolicy policy;
+    // Claves antiguas de pedidos que rekey está moviendo; por ellas no se modifica ni se lee el pedido
+    private final Set<String> rekeying = ConcurrentHashMap.newKeySet();
+    // Compartido al mover pedidos entre niveles o claves; exclusivo mientras visit recorre todo
+    private final ReentrantReadWriteLock moves = new ReentrantReadWriteLock();
+    private final LongAdder hotHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder promotions = new LongAdder();
+    private final LongAdder evictionFailures = new LongAdder();
+    private final LongAdder admissionRejections = new LongAdder();
+
+    /**
+     * Constructor que inicializa el almacenamiento de pedidos.
+     */
+    public OrderRepository() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructor de un repositorio que guarda en disco los pedidos en
+     * estado final cuando hay demasiados en memoria.
+     *
+     * @param archive Archivo de pedidos, o null para mantener todo en memoria
+     * @param maxHotOrders Cantidad de pedidos en memoria desde la que se archivan los de estado final
+     * @throws IllegalArgumentException si maxHotOrders es negativo
+     */
+    public OrderRepository(OrderArchive archive, int maxHotOrders) {
+        if (maxHotOrders < 0) {
+            throw new IllegalArgumentException("El maximo de pedidos en memoria no puede ser negativo: " + maxHotOrders);
+        }
+        this.orders = new ConcurrentHashMap<>();
+        this.index = new OrderIndex();
+        this.sortedIds = new ConcurrentSkipListSet<>();
+        this.archive = archive;
+        this.maxHotOrders = maxHotOrders;
+        this.policy = archive != null ? new HotOrderPolicy(maxHotOrders) : null;
+    }
+
+    /**
+     * Guarda un pedido si no existe otro con el mismo identificador.
+     *
+     * @param order Pedido a guardar
+     * @return true si se guardó, false si el identificador ya estaba en uso
+     */
+    public boolean add(Order order) {
+        return add(order, null);
+    }
+
+    /**
+     * Guarda un pedido y ejecuta una acción bajo su bloqueo en el mismo paso,
+     * antes de que otro hilo pueda modificarlo. Si la acción lanza una
+     * excepción, el pedido no se guarda.
+     *
+     * @param order Pedido a guardar
+     * @param whileLocked Acción a ejecutar con el pedido guardado, o null
+     * @return true si se guardó, false si el identificador ya estaba en uso
+     */
+    public boolean add(Order order, Consumer<Order> whileLocked) {
+        String orderId = order.getId();
+        boolean added = orders.computeIfAbsent(orderId, id -> {
+            if (archive != null && archive.contains(id)) {
+                return null;
+            }
+            // Primero la acción: si falla, el pedido no queda guardado ni en los índices
+            if (whileLocked != null) {
+                whileLocked.accept(order);
+            }
+            sortedIds.add(id);
+            index.add(order);
+            return order;
+        }) == order;
+        if (added && archive != null) {
+            if (order.getStatus().isFinal()) {
+                policy.retired(orderId);
+            }
+            evict();
+        }
+        return added;
+    }
+
+    /**
+     * Obtiene un pedido por su identificador.
+     * Un pedido archivado se lee del disco o del caché de lecturas y se
+     * entrega como una copia compartida que no se debe modificar; los
+     * cambios se hacen con update.
+     *
+     * @param orderId Identificador del pedido
+     * @return El pedido o null si no existe
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    public Order find(String orderId) {
+        Order order = orders.get(orderId);
+        if (archive == null) {
+            return order;
+        }
+        policy.recordAccess(orderId);
+        if (order == null) {
+            order = archive.get(orderId);
+            if (order != null) {
+                return order;
+            }
+            // Puede estar volviendo a memoria; esperar su bloqueo lo deja visible
+            order = orders.computeIfPresent(orderId, (id, current) -> current);
+        }
+        if (order != null) {
+            hotHits.increment();
+        }
+        return order;
+    }
+
+    /**
+     * Ejecuta una acción de solo lectura sobre un pedido.
+     * Un pedido en memoria se lee bajo su bloqueo, como en update; uno
+     * archivado se lee del disco sin traerlo de vuelta a memoria.
+     *
+     * @param <R> Tipo del resultado de la acción
+     * @param orderId Identificador del pedido
+     * @param action Acción a ejecutar; no debe modificar el pedido
+     * @return El resultado de la acción o null si el pedido no existe
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R read(String orderId, Function<Order, R> action) {
+        Object[] result = new Object[1];
+        BiFunction<String, Order, Order> locked = (id, order) -> {
+            if (!rekeying.contains(id)) {
+                result[0] = action.apply(order);
+            }
+            return order;
+        };
+        if (archive != null) {
+            policy.recordAccess(orderId);
+        }
+        if (orders.computeIfPresent(orderId, locked) != null || archive == null) {
+            if (archive != null) {
+                hotHits.increment();
+            }
+            return (R) result[0];
+        }
+        Order cold = archive.get(orderId);
+        if (cold != null) {
+            return action.apply(cold);
+        }
+        if (orders.computeIfPresent(orderId, locked) != null) {
+            hotHits.increment();
+        }
+        return (R) result[0];
+    }
+
+    /**
+     * Ejecuta una acción sobre un pedido con una sola búsqueda en el mapa.
+     * La acción se ejecuta bajo el bloqueo del pedido, de modo que dos
+     * acciones sobre el mismo pedido nunca se solapan.
+     * Un pedido archivado vuelve primero a memoria. Un pedido cuyo
+     * identificador está cambiando ya no se encuentra por el anterior.
+     *
+     * @param <R> Tipo del resultado de la acción
+     * @param orderId Identificador del pedido
+     * @param action Acción a ejecutar; no debe modificar otros pedidos del repositorio
+     * @return El resultado de la acción o null si el pedido no existe
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R update(String orderId, Function<Order, R> action) {
+        Object[] result = new Object[1];
+        BiFunction<String, Order, Order> locked = (id, order) -> {
+            if (!rekeying.contains(id)) {
+                result[0] = action.apply(order);
+            }
+            return order;
+        };
+        if (archive != null) {
+            policy.recordAccess(orderId);
+        }
+        while (orders.computeIfPresent(orderId, locked) == null) {
+            if (!promote(orderId)) {
+                return null;
+            }
+        }
+        return (R) result[0];
+    }
+
+    /**
+     * Marca un pedido que llegó a un estado final como candidato a pasar a
+     * disco y archiva pedidos si hay más del máximo en memoria.
+     * Se debe llamar fuera del bloqueo del pedido. Sin archivo no hace nada.
+     *
+     * @param orderId Identificador del pedido
+     */
+    public void retire(String orderId) {
+        if (archive == null) {
+            return;
+        }
+        policy.retired(orderId);
+        evict();
+    }
+
+    // Mueve a disco pedidos en estado final, en el orden de la política, hasta
+    // volver al máximo en memoria. Si visit está recorriendo, se deja para después.
+    private void evict() {
+        if (policy.queued() > 2 * orders.size() + 1024) {
+            // Borrados o ya archivados; sin esto la cola crecería con ellos
+            policy.purge(id -> {
+                Order order = orders.get(id);
+                return order == null || !order.getStatus().isFinal();
+            });
+        }
+        if (orders.size() <= maxHotOrders || !moves.readLock().tryLock()) {
+            return;
+        }
+        try {
+            String candidate;
+            boolean[] failed = new boolean[1];
+            while (orders.size() > maxHotOrders && (candidate = policy.nextVictim()) != null) {
+                orders.computeIfPresent(candidate, (id, order) -> {
+                    if (!order.getStatus().isFinal() || rekeying.contains(id)) {
+                        return order;
+                    }
+                    try {
+                        archive.put(order);
+                    } catch (IOException e) {
+                        failed[0] = true;
+                        return order;
+                    }
+                    // Ya está en el archivo; recién ahora sale de los índices en memoria
+                    sortedIds.remove(id);
+                    index.remove(order);
+                    evictions.increment();
+                    return null;
+                });
+                if (failed[0]) {
+                    // Vuelve a la cola para el próximo intento; seguir ahora fallaría igual
+                    evictionFailures.increment();
+                    policy.requeue(candidate);
+                    break;
+                }
+            }
+        } finally {
+            moves.readLock().unlock();
+        }
+    }
+
+    // Trae un pedido archivado a memoria; false si no está en memoria ni en disco
+    private boolean promote(String orderId) {
+        if (archive == null) {
+            return false;
+        }
+        moves.readLock().lock();
+        try {
+            boolean[] moved = new boolean[1];
+            Order order = orders.computeIfAbsent(orderId, id -> {
+                Order cold = archive.read(id);
+                if (cold == null) {
+                    return null;
+                }
+                // A los índices antes de quitarlo del archivo: las consultas lo ven en uno de los dos
+                sortedIds.add(id);
+                index.add(cold);
+                archive.discard(id);
+                moved[0] = true;
+                return cold;
+            });
+            if (moved[0]) {
+                promotions.increment();
+                // Sigue en estado final; la política decide si vuelve pronto a disco
+                if (!policy.admit(orderId)) {
+                    admissionRejections.increment();
+                }
+            }
+            return order != null;
+        } finally {
+            moves.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cambia el identificador de un pedido guardado y su clave en el repositorio.
+     * Primero se marca la clave antigua bajo el bloqueo del pedido: desde
+     * ese momento update, read y remove ya no lo encuentran por ella. Luego
+     * se publica el pedido bajo la nueva clave, cambiando su identificador
+     * bajo el bloqueo de esa clave, y por último se retira la antigua. Así
+     * el pedido solo se modifica bajo el bloqueo de una de sus dos claves y
+     * la nueva clave nunca pisa a otro pedido.
+     *
+     * @param oldId Identificador actual del pedido
+     * @param newId Nuevo identificador
+     * @return true si se cambió, false si el pedido no existe o la nueva clave ya está en uso
+     */
+    public boolean rekey(String oldId, String newId) {
+        return rekey(oldId, newId, null);
+    }
+
+    /**
+     * Cambia el identificador de un pedido guardado y ejecuta una acción
+     * bajo el bloqueo del pedido en el mismo paso.
+     *
+     * @param oldId Identificador actual del pedido
+     * @param newId Nuevo identificador
+     * @param whileLocked Acción a ejecutar con el pedido ya movido, o null
+     * @return true si se cambió, false si el pedido no existe o la nueva clave ya está en uso
+     */
+    public boolean rekey(String oldId, String newId, Consumer<Order> whileLocked) {
+        // Con el bloqueo de movimientos, visit no ve el pedido bajo las dos claves
+        moves.readLock().lock();
+        try {
+            Order found = orders.get(oldId);
+            if (found == null && promote(oldId)) {
+                found = orders.get(oldId);
+            }
+            if (found == null) {
+                return false;
+            }
+            Order order = found;
+            if (oldId.equals(newId)) {
+                return true;
+            }
+            boolean[] marked = new boolean[1];
+            orders.computeIfPresent(oldId, (id, current) -> {
+                marked[0] = current == order && rekeying.add(id);
+                return current;
+            });
+            if (!marked[0]) {
+                return false;
+            }
+            boolean moved;
+            try {
+                moved = orders.computeIfAbsent(newId, id -> {
+                    if (archive != null && archive.contains(id)) {
+                        return null;
+                    }
+                    order.setId(newId);
+                    sortedIds.add(newId);
+                    sortedIds.remove(oldId);
+                    index.rekey(order, oldId);
+                    if (whileLocked != null) {
+                        whileLocked.accept(order);
+                    }
+                    return order;
+                }) == order;
+                if (moved) {
+                    orders.remove(oldId, order);
+                }
+            } finally {
+                rekeying.remove(oldId);
+            }
+            if (moved && archive != null && order.getStatus().isFinal()) {
+                policy.retired(newId);
+            }
+            return moved;
+        } finally {
+            moves.readLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un pedido.
+     *
+     * @param orderId Identificador del pedido a eliminar
+     * @return El pedido eliminado o null si no existía
+     */
+    public Order remove(String orderId) {
+        return remove(orderId, null);
+    }
+
+    /**
+     * Elimina un pedido y ejecuta una acción bajo su bloqueo en el mismo paso.
+     *
+     * @param orderId Identificador del pedido a eliminar
+     * @param whileLocked Acción a ejecutar con el pedido eliminado, o null
+     * @return El pedido eliminado o null si no existía
+     */
+    public Order remove(String orderId, Consumer<Order> whileLocked) {
+        Order[] removed = new Order[1];
+        BiFunction<String, Order, Order> locked = (id, order) -> {
+            if (order == null) {
+                // Solo con compute: el pedido puede estar archivado, y entonces no está en los índices en memoria
+                order = archive.remove(id);
+                if (order == null) {
+                    return null;
+                }
+            } else if (rekeying.contains(id)) {
+                return order;
+            } else {
+                sortedIds.remove(id);
+                index.remove(order);
+            }
+            if (whileLocked != null) {
+                whileLocked.accept(order);
+            }
+            removed[0] = order;
+            return null;
+        };
+        orders.computeIfPresent(orderId, locked);
+        if (removed[0] == null && archive != null) {
+            // Con el bloqueo de movimientos, visit no ve un pedido archivado a medio borrar
+            moves.readLock().lock();
+            try {
+                orders.compute(orderId, locked);
+            } finally {
+                moves.readLock().unlock();
+            }
+        }
+        return removed[0];
+    }
+
+    /**
+     * Recorre todos los pedidos, en memoria y archivados, ejecutando una
+     * acción con cada uno en un estado consistente: los de memoria bajo su
+     * bloqueo y los archivados recién leídos del disco. Mientras dura el
+     * recorrido ningún pedido pasa de un nivel a otro, así que ninguno se
+     * omite ni se visita dos veces por un traslado.
+     *
+     * @param action Acción a ejecutar; no debe modificar los pedidos
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    public void visit(Consumer<Order> action) {
+        moves.writeLock().lock();
+        try {
+            for (String orderId : orders.keySet()) {
+                orders.computeIfPresent(orderId, (id, order) -> {
+                    action.accept(order);
+                    return order;
+                });
+            }
+            if (archive != null) {
+                archive.forEach(action);
+            }
+        } finally {
+            moves.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Obtiene los índices secundarios de los pedidos en memoria; los de los
+     * archivados están en el índice en disco del archivo.
+     * Quien cambie el estado de un pedido dentro de update debe informarlo
+     * con OrderIndex.statusChanged en la misma acción.
+     *
+     * @return Índices secundarios
+     */
+    public OrderIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Obtiene los contadores de los niveles de memoria y disco.
+     *
+     * @return Contadores actuales, o null si el repositorio no tiene archivo
+     */
+    public TierStats getTierStats() {
+        if (archive == null) {
+            return null;
+        }
+        return new TierStats(orders.size(), archive.size(), hotHits.sum(), archive.getCacheHits(),
+                archive.getDiskReads(), evictions.sum(), promotions.sum(), archive.getCacheEvictions(),
+                archive.getCacheRejections(), archive.getFileBytes(), archive.getDeadBytes(),
+                evictionFailures.sum(), admissionRejections.sum(), archive.getIndexBytes());
+    }
+
+    /**
+     * Obtiene los pedidos de un cliente, en memoria y archivados.
+     *
+     * @param customerId Identificador del cliente
+     * @return Lista con los pedidos del cliente
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    public List<Order> findByCustomer(String customerId) {
+        if (archive == null) {
+            return resolve(index.idsByCustomer(customerId));
+        }
+        List<Order> result = resolve(bothTiers(since -> archive.idsByCustomer(customerId, since),
+                () -> index.idsByCustomer(customerId)));
+        // El índice en disco encadena por hash del cliente
+        result.removeIf(order -> !customerId.equals(order.getCustomerId()));
+        return result;
+    }
+
+    /**
+     * Obtiene los pedidos que tienen un estado, en memoria y archivados.
+     *
+     * @param status Estado buscado
+     * @return Lista con los pedidos en ese estado
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    public List<Order> findByStatus(OrderStatus status) {
+        if (archive == null) {
+            return resolve(index.idsByStatus(status));
+        }
+        return resolve(bothTiers(since -> archive.idsByStatus(status, since), () -> index.idsByStatus(status)));
+    }
+
+    /**
+     * Obtiene los pedidos realizados en un rango de fechas, ordenados por
+     * fecha, en memoria y archivados.
+     *
+     * @param from Inicio del rango (incluido)
+     * @param to Fin del rango (excluido)
+     * @return Lista con los pedidos del rango
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    public List<Order> findByDateRange(Date from, Date to) {
+        long fromMillis = from.getTime();
+        long toMillis = to.getTime();
+        if (archive == null) {
+            return resolve(index.idsByDateRange(fromMillis, toMillis));
+        }
+        List<Order> result = resolve(bothTiers(since -> archive.idsByDateRange(fromMillis, toMillis, since),
+                () -> index.idsByDateRange(fromMillis, toMillis)));
+        result.sort(Comparator.comparing(Order::getOrderDate).thenComparing(Order::getId));
+        return result;
+    }
+
+    /**
+     * Obtiene todos los pedidos, en memoria y archivados, copiados en una
+     * lista nueva. Los archivados se leen del disco.
+     *
+     * @return Lista con todos los pedidos
+     * @throws java.io.UncheckedIOException si falla la lectura del archivo
+     */
+    public List<Order> findAll() {
+        if (archive == null) {
+            return new ArrayList<>(orders.values());
+        }
+        Map<String, Order> all = new LinkedHashMap<>();
+        stream().forEach(order -> all.putIfAbsent(order.getId(), order));
+        return new ArrayList<>(all.values());
+    }
+
+    // Junta los identificadores de una consulta en disco y en memoria: lee el
+    // archivo, luego la memoria, y otra vez lo archivado desde que empezó. Un
+    // pedido que vuelve a memoria entra a los índices antes de salir del
+    // archivo, y uno que pasa a disco entra al archivo antes de salir de los
+    // índices, así ninguno queda fuera por cambiar de nivel a mitad de camino.
+    private Set<String> bothTiers(IntFunction<List<String>> archived, Supplier<Collection<String>> hot) {
+        int since = archive.position();
+        Set<String> ids = new LinkedHashSet<>(archived.apply(0));
+        ids.addAll(hot.get());
+        ids.addAll(archived.apply(since));
+        return ids;
+    }
+
+    private List<Order> resolve(Collection<String> ids) {
+        List<Order> result = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Order order = lookup(id);
+            if (order != null) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    // Como find, sin contar aciertos: las consultas recorren muchos pedidos y distorsionarían TierStats
+    private Order lookup(String orderId) {
+        Order order = orders.get(orderId);
+        if (order != null || archive == null) {
+            return order;
+        }
+        order = archive.get(orderId);
+        if (order != null) {
+            return order;
+        }
+        // Puede estar volviendo a memoria; esperar su bloqueo lo deja visible
+        return orders.computeIfPresent(orderId, (id, current) -> current);
+    }
+
+    /**
+     * Obtiene una vista de los pedidos en memoria, sin los archivados.
+     * La vista es débilmente consistente y no lanza excepciones
+     * si otros hilos modifican el repositorio mientras se recorre.
+     *
+     * @return Colección con los pedidos en memoria
+     */
+    public Collection<Order> values() {
+        return orders.values();
+    }
+
+    /**
+     * Obtiene un flujo que recorre los pedidos, en memoria y archivados,
+     * sin copiarlos. El recorrido es débilmente consistente: puede o no ver
+     * los cambios concurrentes, pero nunca falla por ellos. Con archivo,
+     * recorre los archivados, luego los de memoria y luego los archivados
+     * mientras tanto, leyendo del disco; un pedido que cambia de nivel
+     * durante el recorrido no se pierde, pero puede aparecer dos veces.
+     *
+     * @return Flujo de pedidos
+     */
+    public Stream<Order> stream() {
+        if (archive == null) {
+            return orders.values().stream();
+        }
+        int since = archive.position();
+        // El último tramo se arma al llegar a él, para ver lo archivado hasta ese momento
+        return Stream.concat(Stream.concat(archive.stream(0, since), orders.values().stream()),
+                Stream.of(archive).flatMap(cold -> cold.stream(since, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Obtiene un spliterator débilmente consistente sobre los pedidos en
+     * memoria, sin los archivados.
+     * Se divide por rangos de la tabla hash sin copiar los pedidos, por lo
+     * que sirve para repartir un recorrido completo entre tareas fork-join.
+     *
+     * @return Spliterator de pedidos en memoria
+     */
+    public Spliterator<Order> spliterator() {
+        return orders.values().spliterator();
+    }
+
+    /**
+     * Obtiene un iterador débilmente consistente sobre los pedidos, en
+     * memoria y archivados, como stream.
+     *
+     * @return Iterador de pedidos
+     */
+    public Iterator<Order> iterator() {
+        return archive == null ? orders.values().iterator() : stream().iterator();
+    }
+
+    /**
+     * Obtiene una página de pedidos ordenados por identificador.
+     * La página comienza después de afterId, de modo que el último
+     * identificador de una página sirve como cursor de la siguiente.
+     * De los pedidos en memoria solo se recorren los identificadores de la
+     * página; los archivados se incluyen, buscados en el índice en disco,
+     * que se recorre entero, y leídos del archivo.
+     *
+     * @param afterId Último identificador de la página anterior, o null para empezar
+     * @param limit Cantidad máxima de pedidos de la página
+     * @return Lista con los pedidos de la página
+     */
+    public List<Order> page(String afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El limite debe ser positivo: " + limit);
+        }
+        List<Order> result = new ArrayList<>(Math.min(limit, 64));
+        String cursor = afterId;
+        while (result.size() < limit) {
+            List<String> ids = nextIds(cursor, limit - result.size());
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (String id : ids) {
+                Order order = lookup(id);
+                if (order != null) {
+                    result.add(order);
+                }
+            }
+            cursor = ids.get(ids.size() - 1);
+        }
+        return result;
+    }
+
+    // Los primeros identificadores después del cursor, de los dos niveles
+    private List<String> nextIds(String cursor, int limit) {
+        NavigableSet<String> tail = cursor == null ? sortedIds : sortedIds.tailSet(cursor, false);
+        if (archive == null) {
+            return first(tail, limit);
+        }
+        Set<String> merged = bothTiers(since -> archive.idsAfter(cursor, limit, since), () -> first(tail, limit));
+        return first(new TreeSet<>(merged), limit);
+    }
+
+    private static List<String> first(Collection<String> ids, int limit) {
+        List<String> result = new ArrayList<>(Math.min(limit, 64));
+        for (String id : ids) {
+            result.add(id);
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indica si el repositorio no tiene pedidos.
+     *
+     * @return true si no hay pedidos
+     */
+    public boolean isEmpty() {
+        return orders.isEmpty() && (archive == null || archive.size() == 0);
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos almacenados, en memoria y archivados.
+     *
+     * @return Número de pedidos
+     */
+    public int size() {
+        return archive == null ? orders.size() : orders.size() + archive.size();
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos en memoria, los que recorren values y
+     * spliterator.
+     *
+     * @return Número de pedidos en memoria
+     */
+    public int sizeInMemory() {
+        return orders.size();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.repository;
+
+/**
+ * Contadores de un OrderRepository con archivo en disco, tomados en un
+ * instante. Las lecturas contadas son las de find.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class TierStats {
+
+    private final int hotOrders;
+    private final int archivedOrders;
+    private final long hotHits;
+    private final long coldCacheHits;
+    private final long coldReads;
+    private final long evictions;
+    private final long promotions;
+    private final long cacheEvictions;
+    private final long cacheRejections;
+    private final long fileBytes;
+    private final long deadBytes;
+    private final long evictionFailures;
+    private final long admissionRejections;
+    private final long indexBytes;
+
+    TierStats(int hotOrders, int archivedOrders, long hotHits, long coldCacheHits, long coldReads,
+            long evictions, long promotions, long cacheEvictions, long cacheRejections,
+            long fileBytes, long deadBytes, long evictionFailures, long admissionRejections, long indexBytes) {
+        this.hotOrders = hotOrders;
+        this.archivedOrders = archivedOrders;
+        this.hotHits = hotHits;
+        this.coldCacheHits = coldCacheHits;
+        this.coldReads = coldReads;
+        this.evictions = evictions;
+        this.promotions = promotions;
+        this.cacheEvictions = cacheEvictions;
+        this.cacheRejections = cacheRejections;
+        this.fileBytes = fileBytes;
+        this.deadBytes = deadBytes;
+        this.evictionFailures = evictionFailures;
+        this.admissionRejections = admissionRejections;
+        this.indexBytes = indexBytes;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos en memoria.
+     *
+     * @return Pedidos en memoria
+     */
+    public int getHotOrders() {
+        return hotOrders;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos guardados en disco.
+     *
+     * @return Pedidos archivados
+     */
+    public int getArchivedOrders() {
+        return archivedOrders;
+    }
+
+    /**
+     * Obtiene las lecturas que encontraron el pedido en memoria.
+     *
+     * @return Aciertos en memoria
+     */
+    public long getHotHits() {
+        return hotHits;
+    }
+
+    /**
+     * Obtiene las lecturas de pedidos archivados resueltas por el caché de lecturas.
+     *
+     * @return Aciertos del caché de pedidos archivados
+     */
+    public long getColdCacheHits() {
+        return coldCacheHits;
+    }
+
+    /**
+     * Obtiene las lecturas de pedidos archivados que fueron al disco.
+     *
+     * @return Lecturas del disco
+     */
+    public long getColdReads() {
+        return coldReads;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos movidos de memoria a disco.
+     *
+     * @return Pedidos desalojados
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Obtiene la cantidad de intentos de mover un pedido a disco que
+     * fallaron al escribir el archivo. El pedido queda en memoria y se
+     * vuelve a intentar más adelante.
+     *
+     * @return Desalojos fallidos
+     */
+    public long getEvictionFailures() {
+        return evictionFailures;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos archivados que volvieron a memoria para modificarse.
+     *
+     * @return Pedidos recuperados del disco
+     */
+    public long getPromotions() {
+        return promotions;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos traídos de disco que la admisión dejó
+     * primeros en la cola de desalojo, porque se usan menos que el que
+     * habrían desplazado.
+     *
+     * @return Admisiones rechazadas en memoria
+     */
+    public long getAdmissionRejections() {
+        return admissionRejections;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos que salieron del caché de lecturas.
+     *
+     * @return Desalojos del caché de lecturas
+     */
+    public long getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos que la admisión TinyLFU no dejó entrar
+     * al caché principal.
+     *
+     * @return Admisiones rechazadas
+     */
+    public long getCacheRejections() {
+        return cacheRejections;
+    }
+
+    /**
+     * Obtiene el tamaño del archivo de pedidos.
+     *
+     * @return Bytes del archivo
+     */
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * Obtiene el tamaño del índice en disco de los pedidos archivados.
+     *
+     * @return Bytes del índice
+     */
+    public long getIndexBytes() {
+        return indexBytes;
+    }
+
+    /**
+     * Obtiene el espacio del archivo que ocupan registros ya quitados.
+     *
+     * @return Bytes sin usar
+     */
+    public long getDeadBytes() {
+        return deadBytes;
+    }
+
+    /**
+     * Calcula la fracción de lecturas resueltas sin ir al disco.
+     *
+     * @return Aciertos en memoria o en el caché sobre el total de lecturas; 1 sin lecturas
+     */
+    public double getHitRate() {
+        long hits = hotHits + coldCacheHits;
+        return hits + coldReads == 0 ? 1.0 : (double) hits / (hits + coldReads);
+    }
+
+    /**
+     * Calcula la fracción de lecturas de pedidos archivados resueltas por el caché.
+     *
+     * @return Aciertos del caché sobre las lecturas de pedidos archivados; 1 sin lecturas
+     */
+    public double getCacheHitRate() {
+        return coldCacheHits + coldReads == 0 ? 1.0 : (double) coldCacheHits / (coldCacheHits + coldReads);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("en memoria=%d archivados=%d aciertos=%.1f%% (cache frio %.1f%%) lecturas de disco=%d "
+                + "desalojos=%d (fallidos %d) recuperados=%d (%d sin admitir) desalojos del cache=%d rechazos=%d "
+                + "archivo=%d bytes (%d sin usar) indice=%d bytes",
+                hotOrders, archivedOrders, getHitRate() * 100, getCacheHitRate() * 100, coldReads,
+                evictions, evictionFailures, promotions, admissionRejections, cacheEvictions, cacheRejections,
+                fileBytes, deadBytes, indexBytes);
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.service;
+
+import com.tiendaropa.metrics.MetricsRegistry;
+import com.tiendaropa.metrics.OperationMetrics;
+import com.tiendaropa.model.Cart;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Checkout de carros completos en etapas: validar el carro, reservar su
+ * stock, armar el pedido con sus totales y guardarlo en el servicio,
+ * registrándolo en el journal y publicando sus eventos.
+ * Cada etapa tiene un hilo propio y una cola acotada de entrada. En cada
+ * vuelta toma todos los checkouts que esperan en su cola (hasta maxBatch)
+ * y los procesa como un lote, así que con muchos clientes a la vez el
+ * costo fijo de una etapa se reparte entre ellos: el lote completo se
+ * registra en el journal y espera un solo fsync. Mientras una etapa
+ * procesa un lote, las anteriores ya preparan el siguiente.
+ * Si una cola se llena, la etapa anterior espera, y al final espera
+ * submit: la presión llega hasta los clientes en lugar de acumular
+ * trabajo sin límite.
+ * El pedido se arma de una vez con el descuento del carro, por lo que
+ * cada línea se calcula una sola vez. Se guarda y se registra en el
+ * journal en un mismo paso bajo su bloqueo, como en createOrder, así una
+ * instantánea nunca ve el registro sin el pedido ni un identificador
+ * repetido deja un registro huérfano; si el registro falla a medias, un
+ * DELETE lo anula. El resultado se completa después del fsync del lote.
+ * Si un checkout falla antes de guardar el pedido, la reserva se libera.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class CheckoutPipeline implements Closeable {
+
+    private static final OperationMetrics CHECKOUT = MetricsRegistry.getDefault().operation("checkout");
+    // Marca que close pone al final de la primera cola; cada etapa la pasa a la siguiente
+    private static final Checkout END = new Checkout(null);
+
+    private final OrderService service;
+    private final int maxBatch;
+    private final Stage[] stages;
+    // submit la toma para leer, close para escribir: nada entra después de la marca de fin
+    private final ReentrantReadWriteLock admission = new ReentrantReadWriteLock();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder persistBatches = new LongAdder();
+    private boolean closed;
+
+    /**
+     * Crea el pipeline e inicia los hilos de sus etapas.
+     *
+     * @param service Servicio donde se guardan los pedidos, con su journal,
+     *                reservas de stock y bus de eventos
+     * @param queueCapacity Checkouts que caben en la cola de cada etapa
+     * @param maxBatch Máximo de checkouts que una etapa procesa de una vez
+     * @throws IllegalArgumentException si la capacidad o el lote no son positivos
+     */
+    public CheckoutPipeline(OrderService service, int queueCapacity, int maxBatch) {
+        if (queueCapacity <= 0 || maxBatch <= 0) {
+            throw new IllegalArgumentException("La capacidad y el lote deben ser positivos");
+        }
+        this.service = service;
+        this.maxBatch = maxBatch;
+        this.stages = new Stage[] {
+            new Stage("validate", queueCapacity, this::validate),
+            new Stage("reserve", queueCapacity, this::reserve),
+            new Stage("price", queueCapacity, this::price),
+            new Stage("place", queueCapacity, this::place)
+        };
+        for (int i = 0; i < stages.length; i++) {
+            stages[i].next = i + 1 < stages.length ? stages[i + 1] : null;
+        }
+        for (Stage stage : stages) {
+            stage.thread.start();
+        }
+    }
+
+    /**
+     * Envía un carro al checkout. Si la cola de entrada está llena, espera
+     * a que haya lugar.
+     *
+     * @param cart Carro a convertir en pedido; no se debe modificar hasta que termine
+     * @return Resultado, que se completa cuando el pedido queda guardado o se descarta
+     * @throws IllegalStateException si el pipeline está cerrado o el hilo se
+     *         interrumpe mientras espera lugar
+     */
+    public CompletableFuture<CheckoutResult> submit(Cart cart) {
+        Checkout checkout = new Checkout(cart);
+        admission.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("El checkout esta cerrado");
+            }
+            stages[0].queue.put(checkout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando lugar en el checkout", e);
+        } finally {
+            admission.readLock().unlock();
+        }
+        return checkout.result;
+    }
+
+    /**
+     * Hace el checkout de un carro y espera su resultado.
+     *
+     * @param cart Carro a convertir en pedido
+     * @return Resultado del checkout
+     * @throws IllegalStateException si el pipeline está cerrado
+     */
+    public CheckoutResult checkout(Cart cart) {
+        return submit(cart).join();
+    }
+
+    /**
+     * Obtiene la cantidad de checkouts terminados, con o sin pedido.
+     *
+     * @return Checkouts terminados
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de lotes que la última etapa escribió en el
+     * journal; cada uno espera un solo fsync.
+     *
+     * @return Lotes registrados
+     */
+    public long getPersistBatches() {
+        return persistBatches.sum();
+    }
+
+    /**
+     * Obtiene la cantidad de checkouts que esperan en las colas de las etapas.
+     *
+     * @return Checkouts en espera
+     */
+    public int getBacklog() {
+        int backlog = 0;
+        for (Stage stage : stages) {
+            backlog += stage.queue.size();
+        }
+        return backlog;
+    }
+
+    /**
+     * Deja de aceptar carros y espera a que terminen los checkouts ya enviados.
+     */
+    @Override
+    public void close() {
+        admission.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            admission.writeLock().unlock();
+        }
+        put(stages[0].queue, END);
+        try {
+            for (Stage stage : stages) {
+                stage.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void validate(List<Checkout> batch) {
+        for (Checkout checkout : batch) {
+            Cart cart = checkout.cart;
+            if (cart.getCustomerId() == null || cart.getCustomerId().isEmpty()) {
+                fail(checkout, CheckoutStatus.REJECTED, "El carro no tiene cliente");
+            } else if (cart.getLineCount() == 0) {
+                fail(checkout, CheckoutStatus.REJECTED, "El carro esta vacio");
+            } else if (!singleCurrency(cart)) {
+                fail(checkout, CheckoutStatus.REJECTED, "El carro tiene precios en varias monedas");
+            } else {
+                checkout.orderId = service.nextOrderId();
+            }
+        }
+    }
+
+    private static boolean singleCurrency(Cart cart) {
+        Currency currency = cart.getProduct(0).getPrice().getCurrency();
+        for (int i = 1; i < cart.getLineCount(); i++) {
+            if (!currency.equals(cart.getProduct(i).getPrice().getCurrency())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void reserve(List<Checkout> batch) {
+        for (Checkout checkout : batch) {
+            String missing = service.reserveCart(checkout.orderId, checkout.cart);
+            if (missing != null) {
+                fail(checkout, CheckoutStatus.OUT_OF_STOCK, "Sin stock de " + missing);
+            } else {
+                checkout.reserved = true;
+            }
+        }
+    }
+
+    private void price(List<Checkout> batch) {
+        for (Checkout checkout : batch) {
+            Cart cart = checkout.cart;
+            // Con el descuento desde el principio, cada línea se calcula una vez
+            Order order = new Order(checkout.orderId, cart.getCustomerId(), new Date(), OrderStatus.PENDING,
+                    cart.getDiscountType());
+            try {
+                for (int i = 0; i < cart.getLineCount(); i++) {
+                    order.addProduct(cart.getProduct(i), cart.getQuantity(i));
+                }
+                checkout.order = order;
+            } catch (ArithmeticException | IllegalArgumentException e) {
+                fail(checkout, CheckoutStatus.REJECTED, e.getMessage());
+            }
+        }
+    }
+
+    private void place(List<Checkout> batch) {
+        long last = 0L;
+        for (Checkout checkout : batch) {
+            long sequence;
+            try {
+                sequence = service.placeCheckout(checkout.order);
+            } catch (RuntimeException e) {
+                fail(checkout, CheckoutStatus.FAILED, "No se pudo registrar el pedido: " + e.getMessage());
+                continue;
+            }
+            if (sequence < 0L) {
+                fail(checkout, CheckoutStatus.FAILED, "Identificador de pedido repetido: " + checkout.orderId);
+            } else {
+                last = Math.max(last, sequence);
+            }
+        }
+        // Los que siguen pendientes ya están guardados
+        String failure = null;
+        try {
+            // Un solo fsync para todo el lote; con BLOCK, también espera a que los eventos entren al bus
+            service.awaitDurable(last);
+        } catch (RuntimeException e) {
+            failure = "El pedido quedo guardado pero no se confirmo en el journal: " + e.getMessage();
+        }
+        if (last > 0L) {
+            persistBatches.increment();
+        }
+        for (Checkout checkout : batch) {
+            if (!checkout.result.isDone()) {
+                // Sin fail: el pedido existe y conserva su reserva
+                checkout.complete(new CheckoutResult(failure == null ? CheckoutStatus.PLACED : CheckoutStatus.FAILED,
+                        checkout.order, failure));
+                completed.increment();
+            }
+        }
+    }
+
+    private void fail(Checkout checkout, CheckoutStatus status, String message) {
+        if (checkout.reserved) {
+            service.releaseCart(checkout.orderId);
+        }
+        checkout.complete(new CheckoutResult(status, null, message));
+        completed.increment();
+    }
+
+    // Las etapas son hilos propios que nadie interrumpe; close las detiene con la marca de fin
+    private static void put(BlockingQueue<Checkout> queue, Checkout checkout) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(checkout);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Trabajo de una etapa sobre un lote. Los checkouts que la etapa
+     * descarta se completan con fail; los demás pasan a la siguiente.
+     */
+    @FunctionalInterface
+    private interface StageWork {
+
+        void process(List<Checkout> batch);
+    }
+
+    /**
+     * Hilo y cola de entrada de una etapa.
+     */
+    private final class Stage implements Runnable {
+
+        private final String name;
+        private final BlockingQueue<Checkout> queue;
+        private final StageWork work;
+        private final Thread thread;
+        private Stage next;
+
+        Stage(String name, int capacity, StageWork work) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.work = work;
+            this.thread = new Thread(this, "checkout-" + name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Checkout> batch = new ArrayList<>(maxBatch);
+            List<Checkout> live = new ArrayList<>(maxBatch);
+            boolean end = false;
+            while (!end) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                // La marca de fin es siempre lo último que entra a la cola
+                if (batch.get(batch.size() - 1) == END) {
+                    batch.remove(batch.size() - 1);
+                    end = true;
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        work.process(batch);
+                    } catch (RuntimeException e) {
+                        for (Checkout checkout : batch) {
+                            if (!checkout.result.isDone()) {
+                                fail(checkout, CheckoutStatus.FAILED, "Error en la etapa " + name + ": " + e);
+                            }
+                        }
+                    }
+                    for (Checkout checkout : batch) {
+                        if (!checkout.result.isDone()) {
+                            live.add(checkout);
+                        }
+                    }
+                    for (Checkout checkout : live) {
+                        put(next.queue, checkout);
+                    }
+                }
+                if (end && next != null) {
+                    put(next.queue, END);
+                }
+                batch.clear();
+                live.clear();
+            }
+        }
+    }
+
+    /**
+     * Un carro en camino por las etapas. Cada campo lo escribe una etapa y
+     * lo leen las siguientes; la cola entre ellas hace visibles los cambios.
+     */
+    private static final class Checkout {
+
+        private final Cart cart;
+        private final long start;
+        private final CompletableFuture<CheckoutResult> result = new CompletableFuture<>();
+        private String orderId;
+        private boolean reserved;
+        private Order order;
+
+        Checkout(Cart cart) {
+            this.cart = cart;
+            this.start = CHECKOUT.start();
+        }
+
+        void complete(CheckoutResult outcome) {
+            CHECKOUT.stop(start, outcome.isPlaced());
+            result.complete(outcome);
+        }
+    }
+}
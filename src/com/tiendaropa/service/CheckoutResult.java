@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.service;
+
+import com.tiendaropa.model.Order;
+
+/**
+ * Resultado del checkout de un carro.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class CheckoutResult {
+
+    private final CheckoutStatus status;
+    private final Order order;
+    private final String message;
+
+    CheckoutResult(CheckoutStatus status, Order order, String message) {
+        this.status = status;
+        this.order = order;
+        this.message = message;
+    }
+
+    /**
+     * Obtiene cómo terminó el checkout.
+     *
+     * @return Estado del checkout
+     */
+    public CheckoutStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Indica si se creó el pedido.
+     *
+     * @return true si el estado es PLACED
+     */
+    public boolean isPlaced() {
+        return status == CheckoutStatus.PLACED;
+    }
+
+    /**
+     * Obtiene el pedido creado. Es el pedido guardado en el servicio, por
+     * lo que puede cambiar si otro hilo lo modifica.
+     *
+     * @return Pedido, o null si no llegó a guardarse
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Obtiene el motivo por el que no se creó el pedido.
+     *
+     * @return Mensaje, o null si se creó
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Representación en texto del resultado.
+     *
+     * @return Estado y pedido o motivo
+     */
+    @Override
+    public String toString() {
+        return "CheckoutResult{" + "status=" + status + ", orderId=" + (order != null ? order.getId() : null) +
+               ", message=" + message + '}';
+    }
+}
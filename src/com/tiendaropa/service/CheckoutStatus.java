@@ -0,0 +1,27 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.service;
+
+/**
+ * Cómo terminó el checkout de un carro en CheckoutPipeline.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public enum CheckoutStatus {
+    /** Se creó el pedido, con el stock reservado y registrado en el journal. */
+    PLACED,
+    /** El carro no es válido: vacío, sin cliente o con precios en varias monedas. */
+    REJECTED,
+    /** No había stock para alguno de los productos; no queda nada reservado. */
+    OUT_OF_STOCK,
+    /**
+     * Falló el registro del pedido, o el pipeline se cerró; no queda nada
+     * reservado. Si el pedido alcanzó a guardarse y solo falló el fsync del
+     * journal, getOrder lo entrega y conserva su reserva.
+     */
+    FAILED
+}
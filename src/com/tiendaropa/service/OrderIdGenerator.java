@@ -0,0 +1,33 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.tiendaropa.service;
+
+/**
+ * Generador de identificadores de pedidos.
+ * Permite que OrderService asigne los identificadores sin depender
+ * de una estrategia concreta.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public interface OrderIdGenerator {
+
+    /**
+     * Genera un nuevo identificador numérico único.
+     *
+     * @return Identificador generado
+     */
+    long nextId();
+
+    /**
+     * Genera un nuevo identificador de pedido con el prefijo "ORD-".
+     *
+     * @return Identificador de pedido en formato texto
+     */
+    default String nextOrderId() {
+        return "ORD-" + nextId();
+    }
+}
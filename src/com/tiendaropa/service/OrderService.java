@@ -4,17 +4,78 @@
  */
 package com.tiendaropa.service;
 
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.events.OrderEventBus;
+import com.tiendaropa.events.OrderEventType;
+import com.tiendaropa.inventory.StockReservations;
+import com.tiendaropa.metrics.MetricsRegistry;
+import com.tiendaropa.metrics.OperationMetrics;
+import com.tiendaropa.metrics.OrderOperationEvent;
+import com.tiendaropa.model.Cart;
+import com.tiendaropa.model.Money;
 import com.tiendaropa.model.Order;
-import com.tiendaropa.model.Product;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.ProductView;
+import com.tiendaropa.persistence.OrderJournal;
+import com.tiendaropa.repository.OrderRepository;
+import com.tiendaropa.repository.TierStats;
 import com.tiendaropa.singleton.DiscountManager;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.Serial;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 /**
  * Servicio que gestiona las operaciones relacionadas con pedidos.
  * Utiliza el patrón Singleton DiscountManager para aplicar descuentos.
+ * Es seguro usarlo desde varios hilos a la vez: los pedidos se guardan
+ * en un OrderRepository concurrente.
+ * Los cambios de estado e identificador deben hacerse a través del
+ * servicio para que los índices por cliente, estado y fecha sigan
+ * siendo consistentes.
+ * Si se configura un OrderJournal, cada cambio se registra en él bajo el
+ * bloqueo del pedido, y la espera del fsync ocurre fuera del bloqueo.
+ * Si se configuran StockReservations, agregar un producto reserva las
+ * unidades agregadas de su SKU; la reserva se ajusta al cambiar la cantidad,
+ * se confirma cuando el pedido pasa a PAID y se libera al quitar el
+ * producto, cancelar o eliminar el pedido. Si la reserva venció antes del
+ * pago, pasar a PAID vuelve a reservar las unidades de sus líneas y se
+ * rechaza si ya no queda stock. Las líneas solo cambian mientras el pedido
+ * está PENDING; cancelar un pedido ya pagado devuelve al stock sus
+ * unidades vendidas.
+ * Los cambios de estado siguen las transiciones de OrderStatus y se hacen
+ * con compare-and-set sobre el pedido, por lo que una transición no
+ * permitida o basada en un estado ya superado se rechaza en lugar de
+ * sobrescribir la de otro hilo.
+ * Si se configura un OrderEventBus, cada cambio se publica en él bajo el
+ * bloqueo del pedido, por lo que los eventos de un mismo pedido llegan en
+ * el orden en que ocurrieron los cambios. Publicar no espera bajo el
+ * bloqueo; con BLOCK, la espera por lugar en el bus ocurre después de
+ * soltarlo, así un suscriptor lento no detiene a los demás pedidos.
+ * Los carros completos se convierten en pedidos con CheckoutPipeline, que
+ * agrupa en lotes los pasos de muchos checkouts a la vez.
+ * repriceOrders cambia el descuento de todos los pedidos que cumplen un
+ * filtro en paralelo con fork-join, sin bloqueo global.
+ * Con un repositorio con archivo en disco, los pedidos entregados o
+ * cancelados pueden salir de memoria; getOrder y los cambios los siguen
+ * encontrando por identificador, y las consultas por índice, los listados
+ * y los recorridos los leen del disco. Solo repriceOrders recorre
+ * únicamente los de memoria, porque un pedido archivado ya está en un
+ * estado final.
+ * Las operaciones principales registran llamadas y latencias en el
+ * MetricsRegistry compartido (si está activado) y emiten el evento JFR
+ * OrderOperationEvent (si una grabación lo activa).
  *
  * @author Equipo TiendaRopa
  * @version 1.0
@@ -22,40 +83,353 @@ import java.util.Map;
  */
 public class OrderService {
     
-    private Map<String, Order> orders;
+    private static final MetricsRegistry METRICS = MetricsRegistry.getDefault();
+    private static final OperationMetrics CREATE_ORDER = METRICS.operation("createOrder");
+    private static final OperationMetrics ADD_PRODUCT = METRICS.operation("addProductToOrder");
+    private static final OperationMetrics CALCULATE_TOTAL = METRICS.operation("calculateOrderTotal");
+    private static final OperationMetrics UPDATE_STATUS = METRICS.operation("updateOrderStatus");
+    private static final OperationMetrics DELETE_ORDER = METRICS.operation("deleteOrder");
+    private static final OperationMetrics REPRICE_ORDERS = METRICS.operation("repriceOrders");
+    
+    private final OrderRepository orders;
+    private final OrderIdGenerator idGenerator;
+    private final OrderJournal journal;
+    private final StockReservations inventory;
+    private final OrderEventBus events;
+    // Compartido mientras un pedido nuevo se registra y se guarda; exclusivo al fijar la secuencia de una instantánea
+    private final ReentrantReadWriteLock placing = new ReentrantReadWriteLock();
     
     /**
      * Constructor que inicializa la colección de pedidos.
+     * Usa el generador de identificadores Snowflake compartido.
      */
     public OrderService() {
-        this.orders = new HashMap<>();
+        this(SnowflakeOrderIdGenerator.getDefault());
+    }
+    
+    /**
+     * Constructor que inicializa la colección de pedidos con un generador propio.
+     * 
+     * @param idGenerator Generador de identificadores de pedidos
+     */
+    public OrderService(OrderIdGenerator idGenerator) {
+        this(idGenerator, null);
+    }
+    
+    /**
+     * Constructor que inicializa la colección de pedidos con un generador
+     * propio y un journal donde se registran todos los cambios.
+     * 
+     * @param idGenerator Generador de identificadores de pedidos
+     * @param journal Journal de pedidos, o null para no registrar cambios
+     */
+    public OrderService(OrderIdGenerator idGenerator, OrderJournal journal) {
+        this(idGenerator, journal, null);
+    }
+    
+    /**
+     * Constructor que además reserva stock al agregar productos a los pedidos.
+     * 
+     * @param idGenerator Generador de identificadores de pedidos
+     * @param journal Journal de pedidos, o null para no registrar cambios
+     * @param inventory Reservas de stock, o null para no controlar stock
+     */
+    public OrderService(OrderIdGenerator idGenerator, OrderJournal journal, StockReservations inventory) {
+        this(idGenerator, journal, inventory, null);
+    }
+    
+    /**
+     * Constructor que además publica cada cambio de los pedidos en un bus de eventos.
+     * 
+     * @param idGenerator Generador de identificadores de pedidos
+     * @param journal Journal de pedidos, o null para no registrar cambios
+     * @param inventory Reservas de stock, o null para no controlar stock
+     * @param events Bus de eventos, o null para no publicar cambios
+     */
+    public OrderService(OrderIdGenerator idGenerator, OrderJournal journal, StockReservations inventory,
+                        OrderEventBus events) {
+        this(idGenerator, journal, inventory, events, new OrderRepository());
+    }
+    
+    /**
+     * Constructor que además usa un repositorio propio, por ejemplo uno que
+     * guarda en disco los pedidos terminados.
+     * 
+     * @param idGenerator Generador de identificadores de pedidos
+     * @param journal Journal de pedidos, o null para no registrar cambios
+     * @param inventory Reservas de stock, o null para no controlar stock
+     * @param events Bus de eventos, o null para no publicar cambios
+     * @param repository Repositorio vacío donde se guardan los pedidos
+     */
+    public OrderService(OrderIdGenerator idGenerator, OrderJournal journal, StockReservations inventory,
+                        OrderEventBus events, OrderRepository repository) {
+        this.orders = repository;
+        this.idGenerator = idGenerator;
+        this.journal = journal;
+        this.inventory = inventory;
+        this.events = events;
+    }
+    
+    /**
+     * Carga pedidos recuperados del disco sin registrarlos en el journal.
+     * Con un repositorio con archivo, los pedidos terminados que exceden el
+     * máximo en memoria pasan a disco a medida que se cargan.
+     * 
+     * @param recovered Pedidos recuperados
+     */
+    public void restoreOrders(Collection<Order> recovered) {
+        for (Order order : recovered) {
+            orders.add(order);
+        }
+    }
+    
+    /**
+     * Recorre los pedidos ejecutando una acción bajo el bloqueo de cada uno,
+     * de modo que la acción ve cada pedido en un estado consistente.
+     * Incluye los pedidos archivados en disco. Se usa para tomar instantáneas.
+     * 
+     * @param action Acción a ejecutar; no debe modificar los pedidos
+     */
+    public void visitOrders(Consumer<Order> action) {
+        orders.visit(action);
+    }
+    
+    /**
+     * Obtiene la última secuencia asignada por un journal cuando todos los
+     * pedidos nuevos que ya registraron su creación están guardados.
+     * Espera a que terminen las altas en curso, así que visitOrders ve
+     * todos los pedidos creados hasta esa secuencia. Se usa para fijar la
+     * secuencia de una instantánea.
+     * 
+     * @param journal Journal donde el servicio registra sus cambios
+     * @return Última secuencia del journal
+     */
+    public long awaitPlacedSequence(OrderJournal journal) {
+        placing.writeLock().lock();
+        try {
+            return journal.getLastSequence();
+        } finally {
+            placing.writeLock().unlock();
+        }
+    }
+    
+    // Marca el pedido con la secuencia del registro; debe llamarse bajo su bloqueo
+    private static long stamp(Order order, long sequence) {
+        order.setJournalSequence(sequence);
+        return sequence;
+    }
+    
+    // Se llama antes de tomar el bloqueo del pedido: si el journal se atrasa,
+    // la espera ocurre aquí y no bajo el bloqueo, donde frenaría a los demás
+    private void awaitJournalCapacity() {
+        if (journal != null) {
+            journal.awaitCapacity();
+        }
+    }
+    
+    // Se llama ya sin el bloqueo del pedido: espera a que el registro sea durable
+    // y, con BLOCK, a que los eventos publicados entren al anillo del bus
+    void awaitDurable(Long sequence) {
+        if (journal != null && sequence != null) {
+            journal.awaitDurable(sequence);
+        }
+        if (events != null) {
+            events.awaitPublished();
+        }
     }
     
     /**
      * Crea un nuevo pedido para un cliente específico.
+     * El identificador lo asigna el generador del servicio; si un generador
+     * externo devolviera uno repetido, se pide otro en lugar de sobrescribir.
      * 
      * @param customerId Identificador del cliente
      * @return El pedido creado
      */
     public Order createOrder(String customerId) {
-        Order order = new Order(customerId);
-        orders.put(order.getId(), order);
+        long start = CREATE_ORDER.start();
+        OrderOperationEvent event = OrderOperationEvent.start();
+        Order order;
+        long[] sequence = new long[1];
+        // Se registra bajo el bloqueo del pedido ya aceptado: ningún cambio posterior
+        // queda antes en el journal y un identificador repetido no deja registro
+        Consumer<Order> whileLocked = journal == null && events == null ? null : added -> {
+            if (journal != null) {
+                sequence[0] = stamp(added, journal.logCreate(added));
+            }
+            if (events != null) {
+                events.publish(OrderEventType.CREATED, added);
+            }
+        };
+        awaitJournalCapacity();
+        placing.readLock().lock();
+        try {
+            do {
+                order = new Order(idGenerator.nextOrderId(), customerId);
+            } while (!orders.add(order, whileLocked));
+        } finally {
+            placing.readLock().unlock();
+        }
+        awaitDurable(sequence[0]);
+        CREATE_ORDER.stop(start, true);
+        event.finish(CREATE_ORDER, order.getId(), true);
         return order;
     }
     
     /**
-     * Agrega un producto a un pedido existente.
+     * Cambia el identificador de un pedido existente de forma atómica.
+     * 
+     * @param orderId Identificador actual del pedido
+     * @param newId Nuevo identificador
+     * @return true si se cambió, false si el pedido no existe o el nuevo identificador ya está en uso
+     */
+    public boolean changeOrderId(String orderId, String newId) {
+        if (journal == null && inventory == null && events == null) {
+            return orders.rekey(orderId, newId);
+        }
+        long[] sequence = new long[1];
+        awaitJournalCapacity();
+        boolean moved = orders.rekey(orderId, newId, order -> {
+            if (inventory != null) {
+                inventory.rekey(orderId, newId);
+            }
+            if (journal != null) {
+                sequence[0] = stamp(order, journal.logRekey(orderId, newId));
+            }
+            if (events != null) {
+                events.publishRekey(order, orderId);
+            }
+        });
+        if (moved) {
+            awaitDurable(sequence[0]);
+        }
+        return moved;
+    }
+    
+    /**
+     * Agrega una unidad de un producto a un pedido existente.
      * 
      * @param orderId Identificador del pedido
-     * @param product Producto a añadir
-     * @return true si se añadió correctamente, false si el pedido no existe
+     * @param product Producto a añadir, propio o vista del catálogo
+     * @return true si se añadió correctamente; false si el pedido no existe,
+     *         ya no está PENDING o, con reservas de stock, si no queda stock del producto
      */
-    public boolean addProductToOrder(String orderId, Product product) {
-        if (orders.containsKey(orderId)) {
-            orders.get(orderId).addProduct(product);
-            return true;
+    public boolean addProductToOrder(String orderId, ProductView product) {
+        return addProductToOrder(orderId, product, 1);
+    }
+    
+    /**
+     * Agrega unidades de un producto a un pedido existente. Si el producto
+     * ya estaba en el pedido, se suman a su línea.
+     * 
+     * @param orderId Identificador del pedido
+     * @param product Producto a añadir, propio o vista del catálogo
+     * @param quantity Cantidad de unidades, positiva
+     * @return true si se añadió correctamente; false si el pedido no existe,
+     *         ya no está PENDING o, con reservas de stock, si no queda stock para todas las unidades
+     * @throws IllegalArgumentException si la cantidad no es positiva
+     */
+    public boolean addProductToOrder(String orderId, ProductView product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser positiva: " + quantity);
         }
-        return false;
+        long start = ADD_PRODUCT.start();
+        OrderOperationEvent event = OrderOperationEvent.start();
+        awaitJournalCapacity();
+        Long sequence = orders.update(orderId, order -> {
+            if (order.getStatus() != OrderStatus.PENDING) {
+                return null;
+            }
+            if (inventory != null) {
+                if (!inventory.reserve(orderId, product.getId(), quantity)) {
+                    return null;
+                }
+                try {
+                    order.addProduct(product, quantity);
+                } catch (RuntimeException e) {
+                    inventory.release(orderId, product.getId(), quantity);
+                    throw e;
+                }
+            } else {
+                order.addProduct(product, quantity);
+            }
+            long logged = journal != null ? stamp(order, journal.logAddItem(orderId, product, quantity)) : 0L;
+            if (events != null) {
+                events.publishItem(order, product.getId(), order.getQuantity(product.getId()));
+            }
+            return logged;
+        });
+        awaitDurable(sequence);
+        boolean added = sequence != null;
+        ADD_PRODUCT.stop(start, added);
+        event.finish(ADD_PRODUCT, orderId, added);
+        return added;
+    }
+    
+    /**
+     * Elimina de un pedido todas las unidades de un producto.
+     * 
+     * @param orderId Identificador del pedido
+     * @param productId Identificador del producto a eliminar
+     * @return true si se eliminó, false si el pedido no existe, ya no está PENDING o no tenía el producto
+     */
+    public boolean removeProductFromOrder(String orderId, String productId) {
+        awaitJournalCapacity();
+        Long sequence = orders.update(orderId, order -> {
+            if (order.getStatus() != OrderStatus.PENDING || !order.removeProduct(productId)) {
+                return null;
+            }
+            if (inventory != null) {
+                inventory.release(orderId, productId);
+            }
+            long logged = journal != null ? stamp(order, journal.logRemoveItem(orderId, productId)) : 0L;
+            if (events != null) {
+                events.publishItem(order, productId, 0);
+            }
+            return logged;
+        });
+        awaitDurable(sequence);
+        return sequence != null;
+    }
+    
+    /**
+     * Cambia la cantidad de un producto de un pedido. Con reservas de
+     * stock, aumentar la cantidad reserva las unidades nuevas y reducirla
+     * libera las sobrantes.
+     * 
+     * @param orderId Identificador del pedido
+     * @param productId Identificador del producto
+     * @param quantity Nueva cantidad; 0 quita el producto del pedido
+     * @return true si se cambió; false si el pedido no existe, ya no está PENDING, no tenía el
+     *         producto o, con reservas de stock, si no queda stock suficiente
+     * @throws IllegalArgumentException si la cantidad es negativa
+     */
+    public boolean setProductQuantity(String orderId, String productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("La cantidad no puede ser negativa: " + quantity);
+        }
+        awaitJournalCapacity();
+        Long sequence = orders.update(orderId, order -> {
+            int current = order.getQuantity(productId);
+            if (current == 0 || order.getStatus() != OrderStatus.PENDING) {
+                return null;
+            }
+            int delta = quantity - current;
+            if (inventory != null && delta > 0 && !inventory.reserve(orderId, productId, delta)) {
+                return null;
+            }
+            order.setQuantity(productId, quantity);
+            if (inventory != null && delta < 0) {
+                inventory.release(orderId, productId, -delta);
+            }
+            long logged = journal != null ? stamp(order, journal.logQuantity(orderId, productId, quantity)) : 0L;
+            if (events != null) {
+                events.publishItem(order, productId, quantity);
+            }
+            return logged;
+        });
+        awaitDurable(sequence);
+        return sequence != null;
     }
     
     /**
@@ -64,31 +438,196 @@ public class OrderService {
      * 
      * @param orderId Identificador del pedido
      * @param discountType Tipo de descuento a aplicar
-     * @return El total con descuento o -1 si el pedido no existe
+     * @return El total con descuento o null si el pedido no existe
      */
-    public double calculateOrderTotal(String orderId, String discountType) {
-        if (orders.containsKey(orderId)) {
-            Order order = orders.get(orderId);
-            order.setDiscountType(discountType);
-            order.calculateTotal();
+    public Money calculateOrderTotal(String orderId, String discountType) {
+        long start = CALCULATE_TOTAL.start();
+        OrderOperationEvent event = OrderOperationEvent.start();
+        long[] sequence = new long[1];
+        awaitJournalCapacity();
+        Money total = orders.update(orderId, order -> {
+            if (changeDiscount(order, discountType)) {
+                sequence[0] = order.getJournalSequence();
+            }
             return order.getTotalAmount();
+        });
+        awaitDurable(sequence[0]);
+        CALCULATE_TOTAL.stop(start, total != null);
+        event.finish(CALCULATE_TOTAL, orderId, total != null);
+        return total;
+    }
+    
+    /**
+     * Aplica un tipo de descuento a todos los pedidos que cumplen un filtro,
+     * por ejemplo los pendientes o los de un segmento de clientes, usando el
+     * ForkJoinPool común.
+     * 
+     * @param filter Pedidos a recalcular
+     * @param discountType Tipo de descuento a aplicar
+     * @param progress Recibe el avance, o null
+     * @return Conteos y duración de la operación
+     * @see #repriceOrders(Predicate, String, RepriceProgress, ForkJoinPool)
+     */
+    public RepriceResult repriceOrders(Predicate<Order> filter, String discountType, RepriceProgress progress) {
+        return repriceOrders(filter, discountType, progress, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Aplica un tipo de descuento a todos los pedidos que cumplen un filtro,
+     * repartiendo el trabajo entre los hilos de un ForkJoinPool.
+     * Los pedidos se dividen por rangos de la tabla del repositorio, sin
+     * copiarlos, y cada pedido se cambia bajo su propio bloqueo igual que en
+     * calculateOrderTotal; no hay un bloqueo global, así que las demás
+     * operaciones siguen funcionando mientras tanto. Los pedidos que ya
+     * tienen el descuento no se recalculan ni se registran.
+     * El filtro se evalúa primero sin bloqueo, para descartar rápido, y se
+     * vuelve a evaluar bajo el bloqueo del pedido antes de cambiarlo; debe
+     * ser seguro para hilos. Con journal, se espera una sola vez al final a
+     * que todos los cambios sean durables. Con un repositorio con archivo,
+     * solo recorre los pedidos en memoria.
+     * 
+     * @param filter Pedidos a recalcular
+     * @param discountType Tipo de descuento a aplicar
+     * @param progress Recibe el avance al terminar cada bloque de pedidos, o null
+     * @param pool Pool donde se ejecutan las tareas
+     * @return Conteos y duración de la operación
+     */
+    public RepriceResult repriceOrders(Predicate<Order> filter, String discountType, RepriceProgress progress,
+                                       ForkJoinPool pool) {
+        long start = REPRICE_ORDERS.start();
+        long began = System.nanoTime();
+        RepriceRun run = new RepriceRun(filter, discountType, progress, orders.sizeInMemory());
+        pool.invoke(new RepriceTask(orders.spliterator(), run));
+        awaitDurable(run.lastSequence.get());
+        REPRICE_ORDERS.stop(start, true);
+        return new RepriceResult(run.visited.get(), run.matched.sum(), run.repriced.sum(), System.nanoTime() - began);
+    }
+    
+    // Cambia el descuento de un pedido; debe llamarse bajo su bloqueo.
+    // Devuelve false si el pedido ya tenía ese descuento.
+    private boolean changeDiscount(Order order, String discountType) {
+        if (discountType.equals(order.getDiscountType())) {
+            return false;
+        }
+        if (journal != null) {
+            stamp(order, journal.logDiscount(order.getId(), discountType));
+        }
+        order.setDiscountType(discountType);
+        if (events != null) {
+            events.publish(OrderEventType.DISCOUNT_CHANGED, order);
         }
-        return -1;
+        return true;
     }
     
     /**
-     * Cambia el estado de un pedido.
+     * Lleva un pedido a un nuevo estado desde el que tenga en este momento.
+     * Pedir el estado que el pedido ya tiene no cambia nada.
      * 
      * @param orderId Identificador del pedido
      * @param newStatus Nuevo estado para el pedido
-     * @return true si se actualizó correctamente, false si el pedido no existe
+     * @return true si se actualizó correctamente; false si el pedido no existe
+     *         o, con reservas de stock, si al pagar ya no queda stock para sus líneas
+     * @throws IllegalStateException si la transición desde el estado actual no está permitida
      */
-    public boolean updateOrderStatus(String orderId, String newStatus) {
-        if (orders.containsKey(orderId)) {
-            orders.get(orderId).setStatus(newStatus);
+    public boolean updateOrderStatus(String orderId, OrderStatus newStatus) {
+        return changeStatus(orderId, null, newStatus);
+    }
+    
+    /**
+     * Cambia el estado de un pedido solo si sigue en el estado esperado.
+     * Es la forma de cambiar el estado desde varios hilos sin perder
+     * transiciones: si otro hilo se adelantó, el cambio no se aplica y el
+     * llamador puede volver a leer el estado y decidir.
+     * 
+     * @param orderId Identificador del pedido
+     * @param expected Estado que el llamador vio por última vez
+     * @param newStatus Nuevo estado para el pedido
+     * @return true si se actualizó; false si el pedido no existe, ya no está en
+     *         expected o, con reservas de stock, si al pagar ya no queda stock para sus líneas
+     * @throws IllegalStateException si la transición de expected a newStatus no está permitida
+     */
+    public boolean updateOrderStatus(String orderId, OrderStatus expected, OrderStatus newStatus) {
+        return changeStatus(orderId, expected, newStatus);
+    }
+    
+    private boolean changeStatus(String orderId, OrderStatus expected, OrderStatus newStatus) {
+        long start = UPDATE_STATUS.start();
+        OrderOperationEvent event = OrderOperationEvent.start();
+        Long sequence = null;
+        try {
+            awaitJournalCapacity();
+            sequence = orders.update(orderId, order -> {
+                if (newStatus == OrderStatus.PAID && inventory != null && !reservePaidLines(order, expected)) {
+                    return null;
+                }
+                OrderStatus oldStatus;
+                if (expected == null) {
+                    oldStatus = order.transitionTo(newStatus);
+                } else if (order.compareAndSetStatus(expected, newStatus)) {
+                    oldStatus = expected;
+                } else {
+                    return null;
+                }
+                if (oldStatus == newStatus) {
+                    return 0L;
+                }
+                orders.getIndex().statusChanged(orderId, oldStatus, newStatus);
+                if (inventory != null) {
+                    if (newStatus == OrderStatus.CANCELLED && oldStatus == OrderStatus.PENDING) {
+                        inventory.release(orderId);
+                    } else if (newStatus == OrderStatus.CANCELLED) {
+                        // Ya pagado: sus líneas no cambiaron desde commit, así que son las unidades vendidas
+                        refundLines(order);
+                    } else if (newStatus == OrderStatus.PAID) {
+                        inventory.commit(orderId);
+                    }
+                }
+                long logged = journal != null ? stamp(order, journal.logStatus(orderId, newStatus)) : 0L;
+                if (events != null) {
+                    events.publish(OrderEventType.STATUS_CHANGED, order);
+                }
+                return logged;
+            });
+        } finally {
+            UPDATE_STATUS.stop(start, sequence != null);
+            event.finish(UPDATE_STATUS, orderId, sequence != null);
+        }
+        awaitDurable(sequence);
+        if (sequence != null && newStatus.isFinal()) {
+            orders.retire(orderId);
+        }
+        return sequence != null;
+    }
+    
+    // Devuelve al stock las unidades vendidas de un pedido pagado que se cancela
+    private void refundLines(Order order) {
+        int count = order.getLineCount();
+        String[] skus = new String[count];
+        int[] quantities = new int[count];
+        for (int i = 0; i < count; i++) {
+            skus[i] = order.getLineProduct(i).getId();
+            quantities[i] = order.getLineQuantity(i);
+        }
+        inventory.refund(skus, quantities);
+    }
+    
+    // Antes de pagar, vuelve a reservar las unidades de las líneas cuya reserva
+    // venció; false si falta stock. Debe llamarse bajo el bloqueo del pedido.
+    private boolean reservePaidLines(Order order, OrderStatus expected) {
+        OrderStatus current = order.getStatus();
+        if (current == OrderStatus.PAID || (expected != null && current != expected)
+                || !current.canTransitionTo(OrderStatus.PAID)) {
+            // La transición no ocurre o la rechaza transitionTo
             return true;
         }
-        return false;
+        int count = order.getLineCount();
+        String[] skus = new String[count];
+        int[] quantities = new int[count];
+        for (int i = 0; i < count; i++) {
+            skus[i] = order.getLineProduct(i).getId();
+            quantities[i] = order.getLineQuantity(i);
+        }
+        return inventory.reserveMissing(order.getId(), skus, quantities);
     }
     
     /**
@@ -98,16 +637,131 @@ public class OrderService {
      * @return El pedido o null si no existe
      */
     public Order getOrder(String orderId) {
-        return orders.get(orderId);
+        return orders.find(orderId);
+    }
+    
+    /**
+     * Obtiene una copia de un pedido tomada bajo su bloqueo.
+     * La copia se puede leer sin riesgo mientras otros hilos modifican el
+     * pedido, por ejemplo para serializarla a la red.
+     * 
+     * @param orderId Identificador del pedido
+     * @return Copia del pedido o null si no existe
+     */
+    public Order getOrderSnapshot(String orderId) {
+        return orders.read(orderId, order -> {
+            Order copy = new Order(order.getId(), order.getCustomerId(), order.getOrderDate(),
+                    order.getStatus(), order.getDiscountType());
+            copy.setLines(order.getLines());
+            copy.setJournalSequence(order.getJournalSequence());
+            return copy;
+        });
+    }
+    
+    /**
+     * Obtiene los contadores de los pedidos en memoria y en disco: aciertos,
+     * lecturas del disco y pedidos movidos entre ambos.
+     * 
+     * @return Contadores, o null si el repositorio no tiene archivo
+     */
+    public TierStats getTierStats() {
+        return orders.getTierStats();
     }
     
     /**
-     * Obtiene todos los pedidos almacenados.
+     * Obtiene los pedidos de un cliente usando el índice por cliente,
+     * incluidos los archivados en disco.
+     * 
+     * @param customerId Identificador del cliente
+     * @return Lista con los pedidos del cliente
+     */
+    public List<Order> getOrdersByCustomer(String customerId) {
+        return orders.findByCustomer(customerId);
+    }
+    
+    /**
+     * Obtiene los pedidos que tienen un estado usando el índice por estado,
+     * incluidos los archivados en disco.
+     * 
+     * @param status Estado buscado
+     * @return Lista con los pedidos en ese estado
+     */
+    public List<Order> getOrdersByStatus(OrderStatus status) {
+        return orders.findByStatus(status);
+    }
+    
+    /**
+     * Obtiene los pedidos realizados en un rango de fechas, ordenados por
+     * fecha, incluidos los archivados en disco.
+     * 
+     * @param from Inicio del rango (incluido)
+     * @param to Fin del rango (excluido)
+     * @return Lista con los pedidos del rango
+     */
+    public List<Order> getOrdersByDateRange(Date from, Date to) {
+        return orders.findByDateRange(from, to);
+    }
+    
+    /**
+     * Obtiene todos los pedidos almacenados, en memoria y archivados.
+     * Copia todos los pedidos en una lista nueva; para recorrerlos sin
+     * copiar se deben usar streamOrders, iterateOrders o listOrders.
      * 
      * @return Lista con todos los pedidos
      */
     public List<Order> getAllOrders() {
-        return new ArrayList<>(orders.values());
+        return orders.findAll();
+    }
+    
+    /**
+     * Obtiene un flujo que recorre los pedidos, en memoria y archivados,
+     * sin copiarlos.
+     * Es débilmente consistente y seguro frente a escrituras concurrentes.
+     * 
+     * @return Flujo de pedidos
+     */
+    public Stream<Order> streamOrders() {
+        return orders.stream();
+    }
+    
+    /**
+     * Obtiene un iterador débilmente consistente sobre los pedidos, en
+     * memoria y archivados.
+     * 
+     * @return Iterador de pedidos
+     */
+    public Iterator<Order> iterateOrders() {
+        return orders.iterator();
+    }
+    
+    /**
+     * Obtiene una página de pedidos ordenados por identificador (paginación por clave),
+     * incluidos los archivados en disco.
+     * 
+     * @param afterId Último identificador de la página anterior, o null para la primera página
+     * @param limit Cantidad máxima de pedidos de la página
+     * @return Lista con los pedidos de la página, vacía al llegar al final
+     */
+    public List<Order> listOrders(String afterId, int limit) {
+        return orders.page(afterId, limit);
+    }
+    
+    /**
+     * Indica si hay pedidos en el sistema.
+     * 
+     * @return true si no hay ningún pedido
+     */
+    public boolean hasNoOrders() {
+        return orders.isEmpty();
+    }
+    
+    /**
+     * Obtiene la cantidad de pedidos almacenados.
+     * 
+     * @return Número de pedidos
+     */
+    public int getOrderCount() {
+        return orders.size();
     }
     
     /**
@@ -117,11 +771,97 @@ public class OrderService {
      * @return true si se eliminó correctamente, false si el pedido no existe
      */
     public boolean deleteOrder(String orderId) {
-        if (orders.containsKey(orderId)) {
-            orders.remove(orderId);
-            return true;
+        long start = DELETE_ORDER.start();
+        OrderOperationEvent event = OrderOperationEvent.start();
+        boolean deleted;
+        if (journal == null && inventory == null && events == null) {
+            deleted = orders.remove(orderId) != null;
+        } else {
+            long[] sequence = new long[1];
+            awaitJournalCapacity();
+            Order removed = orders.remove(orderId, order -> {
+                if (inventory != null) {
+                    inventory.release(orderId);
+                }
+                if (journal != null) {
+                    sequence[0] = journal.logDelete(orderId);
+                }
+                if (events != null) {
+                    events.publish(OrderEventType.DELETED, order);
+                }
+            });
+            awaitDurable(sequence[0]);
+            deleted = removed != null;
+        }
+        DELETE_ORDER.stop(start, deleted);
+        event.finish(DELETE_ORDER, orderId, deleted);
+        return deleted;
+    }
+    
+    // Pasos del checkout de un carro, que CheckoutPipeline llama desde sus etapas
+    
+    String nextOrderId() {
+        return idGenerator.nextOrderId();
+    }
+    
+    // Reserva todas las líneas del carro o ninguna; devuelve el SKU sin stock, o null
+    String reserveCart(String orderId, Cart cart) {
+        if (inventory == null) {
+            return null;
+        }
+        for (int i = 0; i < cart.getLineCount(); i++) {
+            String sku = cart.getProduct(i).getId();
+            if (!inventory.reserve(orderId, sku, cart.getQuantity(i))) {
+                inventory.release(orderId);
+                return sku;
+            }
+        }
+        return null;
+    }
+    
+    void releaseCart(String orderId) {
+        if (inventory != null) {
+            inventory.release(orderId);
+        }
+    }
+    
+    // Guarda el pedido armado, lo registra completo en el journal y publica su
+    // creación y sus líneas, todo bajo su bloqueo y sin que una instantánea fije
+    // su secuencia en medio, como createOrder. No espera el fsync: CheckoutPipeline
+    // espera una sola vez por lote. Devuelve la secuencia del último registro
+    // (0 sin journal), o -1 si el identificador ya estaba en uso.
+    long placeCheckout(Order order) {
+        long[] sequence = new long[1];
+        boolean[] logging = new boolean[1];
+        Consumer<Order> whileLocked = added -> {
+            if (journal != null) {
+                logging[0] = true;
+                sequence[0] = stamp(added, journal.logOrder(added));
+            }
+            if (events != null) {
+                events.publish(OrderEventType.CREATED, added);
+                for (int i = 0; i < added.getLineCount(); i++) {
+                    events.publishItem(added, added.getLineProduct(i).getId(), added.getLineQuantity(i));
+                }
+            }
+        };
+        awaitJournalCapacity();
+        placing.readLock().lock();
+        try {
+            return orders.add(order, whileLocked) ? sequence[0] : -1L;
+        } catch (RuntimeException e) {
+            if (logging[0]) {
+                // El pedido no quedó guardado; un DELETE anula lo que alcanzó a registrarse para que la recuperación no lo reviva
+                try {
+                    journal.logDelete(order.getId());
+                } catch (RuntimeException again) {
+                    e.addSuppressed(again);
+                }
+            }
+            throw e;
+        } finally {
+            placing.readLock().unlock();
         }
-        return false;
     }
     
     /**
@@ -136,4 +876,97 @@ public class OrderService {
         // Ejemplo de uso directo del Singleton
         return DiscountManager.getInstance().applyDiscount(price, discountType);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Aplica un descuento específico a un precio exacto.
+     * 
+     * @param price Precio original
+     * @param discountType Tipo de descuento a aplicar
+     * @return Precio con descuento aplicado, en la misma moneda
+     */
+    public Money applyDiscountToPrice(Money price, String discountType) {
+        return DiscountManager.getInstance().applyDiscount(price, null, DiscountType.fromCode(discountType));
+    }
+    
+    /**
+     * Estado compartido por las tareas de un repriceOrders.
+     */
+    private static final class RepriceRun {
+        
+        private final Predicate<Order> filter;
+        private final String discountType;
+        private final RepriceProgress progress;
+        private final long total;
+        private final AtomicLong visited = new AtomicLong();
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder repriced = new LongAdder();
+        private final LongAccumulator lastSequence = new LongAccumulator(Math::max, 0L);
+        
+        RepriceRun(Predicate<Order> filter, String discountType, RepriceProgress progress, long total) {
+            this.filter = filter;
+            this.discountType = discountType;
+            this.progress = progress;
+            this.total = total;
+        }
+    }
+    
+    /**
+     * Tarea fork-join que divide los pedidos en mitades hasta llegar a
+     * bloques de LEAF_SIZE, que recorre de forma secuencial.
+     * Es Serializable solo por heredar de ForkJoinTask; nunca se serializa.
+     */
+    private final class RepriceTask extends RecursiveAction {
+        
+        @Serial
+        private static final long serialVersionUID = 1L;
+        
+        private static final int LEAF_SIZE = 1 << 13;
+        
+        private final transient Spliterator<Order> orderRange;
+        private final transient RepriceRun run;
+        
+        RepriceTask(Spliterator<Order> orderRange, RepriceRun run) {
+            this.orderRange = orderRange;
+            this.run = run;
+        }
+        
+        @Override
+        protected void compute() {
+            Spliterator<Order> half;
+            if (orderRange.estimateSize() > LEAF_SIZE && (half = orderRange.trySplit()) != null) {
+                invokeAll(new RepriceTask(half, run), new RepriceTask(orderRange, run));
+                return;
+            }
+            // visitados, seleccionados, recalculados y última secuencia del journal
+            long[] counts = new long[4];
+            orderRange.forEachRemaining(order -> {
+                counts[0]++;
+                if (!run.filter.test(order)) {
+                    return;
+                }
+                awaitJournalCapacity();
+                Boolean changed = orders.update(order.getId(), current -> {
+                    if (current != order || !run.filter.test(current)) {
+                        return null;
+                    }
+                    boolean repriced = changeDiscount(current, run.discountType);
+                    counts[3] = Math.max(counts[3], current.getJournalSequence());
+                    return repriced;
+                });
+                if (changed != null) {
+                    counts[1]++;
+                    if (changed) {
+                        counts[2]++;
+                    }
+                }
+            });
+            run.matched.add(counts[1]);
+            run.repriced.add(counts[2]);
+            run.lastSequence.accumulate(counts[3]);
+            long visited = run.visited.addAndGet(counts[0]);
+            if (run.progress != null) {
+                run.progress.onProgress(visited, run.total);
+            }
+        }
+    }
+}
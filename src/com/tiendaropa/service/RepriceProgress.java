@@ -0,0 +1,25 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Interface.java to edit this template
+ */
+package com.tiendaropa.service;
+
+/**
+ * Recibe el avance de OrderService.repriceOrders. Se llama desde los hilos
+ * del ForkJoinPool cada vez que termina un bloque de pedidos, posiblemente
+ * desde varios hilos a la vez, por lo que debe ser seguro para hilos y rápido.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public interface RepriceProgress {
+
+    /**
+     * Informa cuántos pedidos se han revisado hasta ahora.
+     *
+     * @param visited Pedidos revisados
+     * @param total Pedidos que había al empezar; es una estimación si otros hilos crean o eliminan pedidos
+     */
+    void onProgress(long visited, long total);
+}
@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.service;
+
+/**
+ * Resultado de OrderService.repriceOrders.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public final class RepriceResult {
+
+    private final long visited;
+    private final long matched;
+    private final long repriced;
+    private final long elapsedNanos;
+
+    RepriceResult(long visited, long matched, long repriced, long elapsedNanos) {
+        this.visited = visited;
+        this.matched = matched;
+        this.repriced = repriced;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos revisados.
+     *
+     * @return Pedidos revisados
+     */
+    public long getVisited() {
+        return visited;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos que cumplieron el filtro.
+     *
+     * @return Pedidos seleccionados
+     */
+    public long getMatched() {
+        return matched;
+    }
+
+    /**
+     * Obtiene la cantidad de pedidos cuyo descuento cambió.
+     * Los seleccionados que ya tenían el descuento no se recalculan.
+     *
+     * @return Pedidos recalculados
+     */
+    public long getRepriced() {
+        return repriced;
+    }
+
+    /**
+     * Obtiene la duración de la operación.
+     *
+     * @return Nanosegundos transcurridos
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Representación en texto del resultado.
+     *
+     * @return Conteos y duración
+     */
+    @Override
+    public String toString() {
+        return "RepriceResult{" + "visited=" + visited + ", matched=" + matched + ", repriced=" + repriced +
+               ", elapsedMillis=" + elapsedNanos / 1_000_000 + '}';
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package com.tiendaropa.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de identificadores de 64 bits al estilo Snowflake.
+ * Cada identificador se compone de 41 bits de milisegundos desde la época
+ * del proyecto, 10 bits de nodo y 12 bits de secuencia. El estado se avanza
+ * con una operación CAS, por lo que es seguro entre hilos sin bloqueos y
+ * los identificadores son estrictamente crecientes dentro de un nodo.
+ *
+ * @author Equipo TiendaRopa
+ * @version 1.0
+ * @since 2026-10-17
+ */
+public class SnowflakeOrderIdGenerator implements OrderIdGenerator {
+
+    /** Época del proyecto: 2025-08-16T00:00:00Z. */
+    public static final long EPOCH_MILLIS = 1755302400000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final SnowflakeOrderIdGenerator DEFAULT =
+            new SnowflakeOrderIdGenerator(Integer.getInteger("tiendaropa.nodeId", 0));
+
+    private final long nodeBits;
+    // Marca de tiempo y secuencia empaquetadas: (milisegundos << 12) | secuencia
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * Constructor que inicializa el generador para un nodo.
+     *
+     * @param nodeId Identificador del nodo, entre 0 y 1023
+     * @throws IllegalArgumentException si el nodo está fuera de rango
+     */
+    public SnowflakeOrderIdGenerator(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("El nodo debe estar entre 0 y " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * Obtiene el generador compartido del proceso.
+     * El nodo se toma de la propiedad de sistema "tiendaropa.nodeId".
+     *
+     * @return Generador por defecto
+     */
+    public static SnowflakeOrderIdGenerator getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Genera un nuevo identificador.
+     * Si se agotan las 4096 secuencias de un milisegundo, o si el reloj
+     * retrocede, se continúa desde el último valor emitido en lugar de
+     * esperar, de modo que nunca se repite un identificador.
+     *
+     * @return Identificador único de 64 bits
+     */
+    @Override
+    public long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            next = now > prev ? now : prev + 1;
+        } while (!state.compareAndSet(prev, next));
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+}
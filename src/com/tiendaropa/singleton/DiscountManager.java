@@ -4,10 +4,41 @@
  */
 package com.tiendaropa.singleton;
 
+import com.tiendaropa.discount.DiscountRule;
+import com.tiendaropa.discount.DiscountRuleSet;
+import com.tiendaropa.discount.DiscountType;
+import com.tiendaropa.metrics.MetricsRegistry;
+import com.tiendaropa.model.Money;
+import java.io.IOException;
+import java.io.Serial;
+import java.math.RoundingMode;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
 /**
  * Implementación del patrón Singleton para la gestión de descuentos.
  * Esta clase es responsable de aplicar diferentes tipos de descuentos
  * a los productos de la tienda de ropa online.
+ * Las reglas se leen de un archivo local (propiedad de sistema
+ * "tiendaropa.discount.rules", por defecto "discount-rules.txt") y se
+ * compilan en un DiscountRuleSet inmutable. Recargar las reglas solo
+ * reemplaza la referencia volátil al conjunto, por lo que los cálculos
+ * de precios en curso nunca se detienen.
+ * Los precios exactos se calculan sobre montos long en unidades menores;
+ * el descuento porcentual se redondea por unidad con el modo configurado
+ * (propiedad "tiendaropa.discount.rounding", por defecto HALF_UP).
+ * Con el MetricsRegistry compartido activado se cuentan las búsquedas de
+ * reglas por tipo de descuento y cuántas encontraron una regla. No se mide
+ * la latencia: leer el reloj costaría más que el propio cálculo.
  * 
  * @author Equipo TiendaRopa
  * @version 1.0
@@ -18,12 +49,32 @@ public class DiscountManager {
     // Instancia única (privada, estática y final)
     private static final DiscountManager instance = new DiscountManager();
     
+    /** Tamaño desde el cual los lotes se reparten entre los núcleos. */
+    public static final int PARALLEL_BATCH_THRESHOLD = 1 << 16;
+    
+    private final Path rulesPath;
+    private volatile DiscountRuleSet rules;
+    private volatile long rulesModified;
+    private volatile RoundingMode roundingMode;
+    private ScheduledExecutorService reloader;
+    private final MetricsRegistry metrics = MetricsRegistry.getDefault();
+    private final LongAdder[] lookups = new LongAdder[DiscountType.values().length];
+    private final LongAdder[] matches = new LongAdder[DiscountType.values().length];
+    
     /**
      * Constructor privado para evitar la instanciación directa de la clase.
      * Parte esencial del patrón Singleton.
      */
     private DiscountManager() {
-        // Inicialización de recursos si es necesario
+        this.rulesPath = Paths.get(System.getProperty("tiendaropa.discount.rules", "discount-rules.txt"));
+        this.rules = DiscountRuleSet.defaults();
+        this.roundingMode = RoundingMode.valueOf(System.getProperty("tiendaropa.discount.rounding", "HALF_UP"));
+        for (DiscountType type : DiscountType.values()) {
+            String label = "{type=\"" + type.name() + "\"}";
+            lookups[type.ordinal()] = metrics.counter("discount_lookups" + label);
+            matches[type.ordinal()] = metrics.counter("discount_matches" + label);
+        }
+        reloadRules();
         System.out.println("DiscountManager inicializado.");
     }
     
@@ -36,6 +87,103 @@ public class DiscountManager {
         return instance;
     }
     
+    /**
+     * Vuelve a leer el archivo de reglas y reemplaza las reglas vigentes.
+     * Si el archivo no existe se mantienen las reglas actuales; si tiene
+     * errores se informa y también se mantienen.
+     * 
+     * @return true si se cargaron reglas nuevas
+     */
+    public synchronized boolean reloadRules() {
+        if (!Files.isRegularFile(rulesPath)) {
+            return false;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(rulesPath).toMillis();
+            DiscountRuleSet loaded = DiscountRuleSet.load(rulesPath);
+            rules = loaded;
+            rulesModified = modified;
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudieron cargar las reglas de descuento de " + rulesPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Reemplaza las reglas vigentes por un conjunto ya compilado.
+     * 
+     * @param newRules Nuevo conjunto de reglas
+     */
+    public void setRules(DiscountRuleSet newRules) {
+        this.rules = newRules;
+    }
+    
+    /**
+     * Obtiene el conjunto de reglas vigente.
+     * 
+     * @return Reglas de descuento vigentes
+     */
+    public DiscountRuleSet getRules() {
+        return rules;
+    }
+    
+    /**
+     * Obtiene el modo de redondeo de los descuentos porcentuales.
+     * 
+     * @return Modo de redondeo vigente
+     */
+    public RoundingMode getRoundingMode() {
+        return roundingMode;
+    }
+    
+    /**
+     * Establece el modo de redondeo de los descuentos porcentuales.
+     * 
+     * @param roundingMode HALF_UP, HALF_EVEN, HALF_DOWN, UP o DOWN
+     */
+    public void setRoundingMode(RoundingMode roundingMode) {
+        Money.scale(1, 1, 2, roundingMode); // valida que el modo esté soportado
+        this.roundingMode = roundingMode;
+    }
+    
+    /**
+     * Revisa periódicamente el archivo de reglas y lo recarga cuando cambia.
+     * La revisión corre en un hilo demonio y no bloquea el cálculo de precios.
+     * 
+     * @param periodSeconds Intervalo entre revisiones, en segundos
+     */
+    public synchronized void startAutoReload(long periodSeconds) {
+        if (reloader != null) {
+            return;
+        }
+        reloader = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "discount-rules-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloader.scheduleWithFixedDelay(() -> {
+            try {
+                if (Files.isRegularFile(rulesPath)
+                        && Files.getLastModifiedTime(rulesPath).toMillis() != rulesModified) {
+                    reloadRules();
+                }
+            } catch (IOException e) {
+                System.err.println("No se pudo revisar " + rulesPath + ": " + e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Detiene la revisión periódica del archivo de reglas.
+     */
+    public synchronized void stopAutoReload() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+    }
+    
     /**
      * Aplica un descuento al precio proporcionado según el tipo de descuento.
      * 
@@ -44,15 +192,252 @@ public class DiscountManager {
      * @return El precio con el descuento aplicado
      */
     public double applyDiscount(double price, String discountType) {
-        switch (discountType) {
-            case "SEASONAL":
-                return price * 0.8; // 20% de descuento
-            case "MEMBER":
-                return price * 0.9; // 10% de descuento
-            case "SPECIAL":
-                return price * 0.7; // 30% de descuento
-            default:
-                return price; // Sin descuento
-        }
-    }
-}
\ No newline at end of file
+        return applyDiscount(price, null, DiscountType.fromCode(discountType));
+    }
+    
+    /**
+     * Aplica un descuento al precio de un producto de una categoría.
+     * 
+     * @param price Precio original del producto
+     * @param category Categoría del producto, o null si no se conoce
+     * @param discountType Tipo de descuento a aplicar
+     * @return El precio con el descuento aplicado
+     */
+    public double applyDiscount(double price, String category, DiscountType discountType) {
+        DiscountRule rule = findRule(discountType, category);
+        return rule != null ? rule.apply(price) : price;
+    }
+    
+    /**
+     * Aplica un descuento a un precio exacto sin crear objetos.
+     * Es la forma que usan los pedidos para mantener sus totales.
+     * 
+     * @param amount Precio original en unidades menores
+     * @param category Categoría del producto, o null si no se conoce
+     * @param discountType Tipo de descuento a aplicar
+     * @return El precio con descuento en unidades menores
+     */
+    public long applyDiscount(long amount, String category, DiscountType discountType) {
+        DiscountRule rule = findRule(discountType, category);
+        return rule != null ? rule.apply(amount, roundingMode) : amount;
+    }
+    
+    /**
+     * Aplica un descuento a un valor monetario.
+     * 
+     * @param price Precio original
+     * @param category Categoría del producto, o null si no se conoce
+     * @param discountType Tipo de descuento a aplicar
+     * @return El precio con descuento en la misma moneda
+     */
+    public Money applyDiscount(Money price, String category, DiscountType discountType) {
+        return Money.of(applyDiscount(price.getAmount(), category, discountType), price.getCurrency());
+    }
+    
+    /**
+     * Aplica un descuento al precio exacto de una línea de varias unidades.
+     * 
+     * @param unitAmount Precio unitario en unidades menores
+     * @param quantity Cantidad de unidades
+     * @param category Categoría del producto, o null si no se conoce
+     * @param discountType Tipo de descuento a aplicar
+     * @return El total de la línea con descuento en unidades menores
+     */
+    public long applyDiscountToLine(long unitAmount, int quantity, String category, DiscountType discountType) {
+        DiscountRule rule = findRule(discountType, category);
+        return rule != null ? rule.applyToLine(unitAmount, quantity, roundingMode) : unitAmount * quantity;
+    }
+    
+    /**
+     * Aplica un descuento a una línea de varias unidades del mismo producto.
+     * A diferencia del precio unitario, aquí sí se aplican las promociones
+     * BUY_X_GET_Y.
+     * 
+     * @param unitPrice Precio unitario del producto
+     * @param quantity Cantidad de unidades
+     * @param category Categoría del producto, o null si no se conoce
+     * @param discountType Tipo de descuento a aplicar
+     * @return El total de la línea con el descuento aplicado
+     */
+    public double applyDiscountToLine(double unitPrice, int quantity, String category, DiscountType discountType) {
+        DiscountRule rule = findRule(discountType, category);
+        return rule != null ? rule.applyToLine(unitPrice, quantity) : unitPrice * quantity;
+    }
+    
+    // Busca la regla vigente y la cuenta si las métricas están activadas
+    private DiscountRule findRule(DiscountType discountType, String category) {
+        DiscountRule rule = rules.find(discountType, category);
+        if (metrics.isEnabled()) {
+            lookups[discountType.ordinal()].increment();
+            if (rule != null) {
+                matches[discountType.ordinal()].increment();
+            }
+        }
+        return rule;
+    }
+    
+    /**
+     * Aplica un descuento a un lote de precios.
+     * La regla se resuelve una sola vez para todo el lote y el cálculo es un
+     * ciclo simple sobre arreglos primitivos que el JIT puede vectorizar.
+     * Los lotes de al menos PARALLEL_BATCH_THRESHOLD precios se reparten
+     * entre los núcleos con fork-join. Como el lote no trae categorías,
+     * solo se usan las reglas generales del tipo de descuento.
+     * 
+     * @param prices Precios originales
+     * @param discountType Tipo de descuento a aplicar
+     * @param out Arreglo donde se escriben los precios con descuento; puede ser el mismo arreglo de entrada
+     * @throws IllegalArgumentException si out es más corto que prices
+     */
+    public void applyDiscountBatch(double[] prices, DiscountType discountType, double[] out) {
+        if (out.length < prices.length) {
+            throw new IllegalArgumentException("El arreglo de salida es mas corto que el de entrada");
+        }
+        DiscountRule rule = findRule(discountType, null);
+        double factor = rule != null ? rule.getFactor() : 1.0;
+        double amount = rule != null ? rule.getAmount() : 0.0;
+        if (prices.length >= PARALLEL_BATCH_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new BatchTask(prices, null, out, null, 0, prices.length, factor, amount));
+        } else {
+            applyLinear(prices, out, 0, prices.length, factor, amount);
+        }
+    }
+    
+    /**
+     * Aplica un descuento a un lote de precios almacenados en buffers.
+     * Se procesan los elementos restantes de prices y se avanzan las
+     * posiciones de ambos buffers. Si los dos buffers tienen arreglo
+     * accesible se usa directamente el ciclo sobre arreglos.
+     * 
+     * @param prices Precios originales
+     * @param discountType Tipo de descuento a aplicar
+     * @param out Buffer donde se escriben los precios con descuento
+     * @throws IllegalArgumentException si out tiene menos espacio que los precios restantes
+     */
+    public void applyDiscountBatch(DoubleBuffer prices, DiscountType discountType, DoubleBuffer out) {
+        int length = prices.remaining();
+        if (out.remaining() < length) {
+            throw new IllegalArgumentException("El buffer de salida tiene menos espacio que el de entrada");
+        }
+        DiscountRule rule = findRule(discountType, null);
+        double factor = rule != null ? rule.getFactor() : 1.0;
+        double amount = rule != null ? rule.getAmount() : 0.0;
+        DoubleBuffer in = prices.slice();
+        DoubleBuffer dst = out.slice();
+        if (length >= PARALLEL_BATCH_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new BatchTask(null, in, null, dst, 0, length, factor, amount));
+        } else {
+            applyLinear(in, dst, 0, length, factor, amount);
+        }
+        prices.position(prices.position() + length);
+        out.position(out.position() + length);
+    }
+    
+    /**
+     * Aplica un descuento a un lote de precios exactos en unidades menores.
+     * Usa el mismo redondeo por unidad que los pedidos. Los lotes grandes
+     * se reparten entre los núcleos igual que la variante double.
+     * 
+     * @param amounts Precios originales en unidades menores
+     * @param discountType Tipo de descuento a aplicar
+     * @param out Arreglo donde se escriben los precios con descuento; puede ser el mismo arreglo de entrada
+     * @throws IllegalArgumentException si out es más corto que amounts
+     */
+    public void applyDiscountBatch(long[] amounts, DiscountType discountType, long[] out) {
+        if (out.length < amounts.length) {
+            throw new IllegalArgumentException("El arreglo de salida es mas corto que el de entrada");
+        }
+        DiscountRule rule = findRule(discountType, null);
+        RoundingMode mode = roundingMode;
+        if (rule == null) {
+            System.arraycopy(amounts, 0, out, 0, amounts.length);
+        } else if (amounts.length >= PARALLEL_BATCH_THRESHOLD) {
+            IntStream.range(0, (amounts.length + BatchTask.LEAF_SIZE - 1) / BatchTask.LEAF_SIZE)
+                    .parallel()
+                    .forEach(block -> {
+                        int from = block * BatchTask.LEAF_SIZE;
+                        int to = Math.min(from + BatchTask.LEAF_SIZE, amounts.length);
+                        for (int i = from; i < to; i++) {
+                            out[i] = rule.apply(amounts[i], mode);
+                        }
+                    });
+        } else {
+            for (int i = 0; i < amounts.length; i++) {
+                out[i] = rule.apply(amounts[i], mode);
+            }
+        }
+    }
+    
+    private static void applyLinear(double[] prices, double[] out, int from, int to, double factor, double amount) {
+        for (int i = from; i < to; i++) {
+            out[i] = Math.max(prices[i] * factor - amount, 0.0);
+        }
+    }
+    
+    private static void applyLinear(DoubleBuffer prices, DoubleBuffer out, int from, int to, double factor, double amount) {
+        if (prices.hasArray() && out.hasArray() && !out.isReadOnly()) {
+            applyLinear(prices.array(), out.array(), from, to, factor, amount,
+                    prices.arrayOffset(), out.arrayOffset());
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            out.put(i, Math.max(prices.get(i) * factor - amount, 0.0));
+        }
+    }
+    
+    private static void applyLinear(double[] prices, double[] out, int from, int to, double factor, double amount,
+                                    int inOffset, int outOffset) {
+        for (int i = from; i < to; i++) {
+            out[outOffset + i] = Math.max(prices[inOffset + i] * factor - amount, 0.0);
+        }
+    }
+    
+    /**
+     * Tarea fork-join que divide un lote en mitades hasta llegar a
+     * bloques que se procesan con el ciclo lineal.
+     * Es Serializable solo por heredar de ForkJoinTask; nunca se serializa.
+     */
+    private static final class BatchTask extends RecursiveAction {
+        
+        @Serial
+        private static final long serialVersionUID = 1L;
+        
+        private static final int LEAF_SIZE = 1 << 14;
+        
+        private final double[] prices;
+        private final transient DoubleBuffer priceBuffer;
+        private final double[] out;
+        private final transient DoubleBuffer outBuffer;
+        private final int from;
+        private final int to;
+        private final double factor;
+        private final double amount;
+        
+        BatchTask(double[] prices, DoubleBuffer priceBuffer, double[] out, DoubleBuffer outBuffer,
+                  int from, int to, double factor, double amount) {
+            this.prices = prices;
+            this.priceBuffer = priceBuffer;
+            this.out = out;
+            this.outBuffer = outBuffer;
+            this.from = from;
+            this.to = to;
+            this.factor = factor;
+            this.amount = amount;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                if (prices != null) {
+                    applyLinear(prices, out, from, to, factor, amount);
+                } else {
+                    applyLinear(priceBuffer, outBuffer, from, to, factor, amount);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(prices, priceBuffer, out, outBuffer, from, mid, factor, amount),
+                    new BatchTask(prices, priceBuffer, out, outBuffer, mid, to, factor, amount));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.catalog;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.model.ProductView;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Pruebas de las altas de ProductCatalog.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class ProductCatalogTest {
+
+    private Path directory;
+    private ProductCatalog catalog;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiendaropa-catalog");
+        catalog = ProductCatalog.open(directory.resolve("catalog.dat"), 16);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        catalog.close();
+        Files.deleteIfExists(directory.resolve("catalog.dat"));
+        Files.deleteIfExists(directory.resolve("catalog.dat.dict"));
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Reemplazar un SKU con un texto que no cabe falla sin tocar el
+     * registro guardado, tampoco los campos anteriores al texto largo.
+     */
+    @Test
+    public void rejectedPutLeavesTheRecordIntact() {
+        Product polera = new Product("SKU-1", "Polera", Money.ofClp(9990));
+        polera.setCategory("Camisetas");
+        catalog.put(polera);
+
+        Product changed = new Product("SKU-1", "Polera nueva", Money.ofClp(12990));
+        changed.setCategory("Poleras");
+        changed.setDescription("x".repeat(ProductCatalog.DESCRIPTION_BYTES));
+        try {
+            catalog.put(changed);
+            fail("La descripcion no cabe en el registro");
+        } catch (IllegalArgumentException expected) {
+            // El registro debe seguir como antes
+        }
+
+        ProductView stored = catalog.get("SKU-1");
+        assertEquals("Polera", stored.getName());
+        assertEquals(Money.ofClp(9990), stored.getPrice());
+        assertEquals("Camisetas", stored.getCategory());
+        assertEquals(1, catalog.size());
+    }
+}
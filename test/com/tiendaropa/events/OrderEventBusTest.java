@@ -0,0 +1,64 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.events;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Pruebas de OrderEventBus publicado desde OrderService.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class OrderEventBusTest {
+
+    private static final int CHANGES = 200;
+
+    /**
+     * Con BLOCK y un anillo mínimo, un suscriptor lento que vuelve a leer
+     * el pedido bajo su bloqueo no traba a quien lo modifica, y recibe
+     * todos los eventos del pedido en orden.
+     */
+    @Test(timeout = 30_000)
+    public void blockingBusDoesNotWaitUnderTheOrderLock() throws Exception {
+        OrderEventBus bus = new OrderEventBus(2, BackpressurePolicy.BLOCK);
+        OrderService service = new OrderService(new SnowflakeOrderIdGenerator(5), null, null, bus);
+        List<Integer> quantities = new ArrayList<>();
+        bus.subscribe("lento", (event, sequence, endOfBatch) -> {
+            if (event.getType() == OrderEventType.ITEM_CHANGED) {
+                assertNotNull(service.getOrderSnapshot(event.getOrderId()));
+                quantities.add(event.getQuantity());
+            }
+            Thread.onSpinWait();
+        });
+        bus.start();
+        Product product = new Product("SKU-1", "Polera", Money.ofClp(9990));
+
+        String orderId = service.createOrder("C1").getId();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < CHANGES; i++) {
+                service.addProductToOrder(orderId, product, 1);
+            }
+        });
+        writer.start();
+        writer.join(10_000);
+        assertFalse("El publicador quedó esperando bajo el bloqueo", writer.isAlive());
+        bus.close();
+
+        assertEquals(0L, bus.getDropped());
+        assertEquals(CHANGES, quantities.size());
+        for (int i = 0; i < CHANGES; i++) {
+            assertEquals(i + 1, (int) quantities.get(i));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prueba de estrés de las transiciones de estado con compare-and-set:
+ * 16 hilos empujan los mismos pedidos por la máquina de estados hasta un
+ * estado final. Cada estado debe abandonarse una sola vez y las
+ * transiciones ganadas deben formar un camino permitido desde PENDING
+ * hasta el estado final del pedido.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class OrderStatusConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ORDERS = 256;
+    private static final int ROUNDS = 200;
+
+    /**
+     * Transición ganada por un hilo.
+     */
+    private static final class Transition {
+
+        private final OrderStatus from;
+        private final OrderStatus to;
+
+        Transition(OrderStatus from, OrderStatus to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Cambiando el estado directamente con Order.compareAndSetStatus.
+     */
+    @Test(timeout = 60_000)
+    public void orderCompareAndSetHasOneWinnerPerTransition() throws Exception {
+        Order[] orders = new Order[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orders[i] = new Order("ORD-" + i, "C1");
+        }
+        List<ConcurrentLinkedQueue<Transition>> won = hammer(ORDERS,
+                (o, from, to) -> orders[o].compareAndSetStatus(from, to),
+                o -> orders[o].getStatus());
+        for (int i = 0; i < ORDERS; i++) {
+            checkPath(orders[i].getStatus(), won.get(i));
+        }
+    }
+
+    /**
+     * Cambiando el estado a través de OrderService, que además mueve el
+     * índice por estado.
+     */
+    @Test(timeout = 60_000)
+    public void serviceTransitionsHaveOneWinnerAndKeepTheIndex() throws Exception {
+        OrderService service = new OrderService(new SnowflakeOrderIdGenerator(4));
+        String[] ids = new String[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            ids[i] = service.createOrder("C1").getId();
+        }
+        List<ConcurrentLinkedQueue<Transition>> won = hammer(ORDERS,
+                (o, from, to) -> service.updateOrderStatus(ids[o], from, to),
+                o -> service.getOrder(ids[o]).getStatus());
+        int indexed = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = service.getOrder(ids[i]);
+            checkPath(order.getStatus(), won.get(i));
+            assertTrue(service.getOrdersByStatus(order.getStatus()).contains(order));
+        }
+        for (OrderStatus status : OrderStatus.values()) {
+            indexed += service.getOrdersByStatus(status).size();
+        }
+        assertEquals(ORDERS, indexed);
+    }
+
+    private interface StatusChange {
+
+        boolean apply(int order, OrderStatus from, OrderStatus to);
+    }
+
+    private interface StatusRead {
+
+        OrderStatus apply(int order);
+    }
+
+    // Cada hilo lee el estado de un pedido al azar y pide una transición
+    // permitida desde él; solo las que ganan el compare-and-set se anotan
+    private static List<ConcurrentLinkedQueue<Transition>> hammer(int orders, StatusChange change, StatusRead read)
+            throws Exception {
+        List<ConcurrentLinkedQueue<Transition>> won = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            won.add(new ConcurrentLinkedQueue<>());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                go.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < orders * ROUNDS; i++) {
+                    int o = random.nextInt(orders);
+                    OrderStatus current = read.apply(o);
+                    if (current.isFinal()) {
+                        continue;
+                    }
+                    OrderStatus next = nextStatus(current, random);
+                    if (change.apply(o, current, next)) {
+                        won.get(o).add(new Transition(current, next));
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        return won;
+    }
+
+    // Los estados abandonados una vez cada uno deben encadenarse desde PENDING hasta el estado actual
+    private static void checkPath(OrderStatus finalStatus, ConcurrentLinkedQueue<Transition> won) {
+        Map<OrderStatus, OrderStatus> next = new EnumMap<>(OrderStatus.class);
+        for (Transition transition : won) {
+            assertTrue("Transicion no permitida " + transition.from + " -> " + transition.to,
+                    transition.from.canTransitionTo(transition.to));
+            assertNull("Dos ganadores al salir de " + transition.from, next.put(transition.from, transition.to));
+        }
+        OrderStatus status = OrderStatus.PENDING;
+        int steps = 0;
+        while (next.containsKey(status)) {
+            status = next.get(status);
+            steps++;
+        }
+        assertEquals(finalStatus, status);
+        assertEquals("Transiciones fuera del camino", won.size(), steps);
+        if (finalStatus == OrderStatus.DELIVERED) {
+            assertEquals(OrderStatus.DELIVERED, next.get(OrderStatus.SHIPPED));
+        }
+    }
+
+    // Una de cada ocho transiciones cancela el pedido si todavía se puede
+    private static OrderStatus nextStatus(OrderStatus current, ThreadLocalRandom random) {
+        switch (current) {
+            case PENDING:
+                return random.nextInt(8) == 0 ? OrderStatus.CANCELLED : OrderStatus.PAID;
+            case PAID:
+                return random.nextInt(8) == 0 ? OrderStatus.CANCELLED : OrderStatus.SHIPPED;
+            default:
+                return OrderStatus.DELIVERED;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.model;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pruebas del desalojo de ProductCache.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class ProductCacheTest {
+
+    /**
+     * Un SKU invalidado y vuelto a cargar se desaloja por su nueva entrada,
+     * no por la vieja, y la cola no crece con las invalidaciones.
+     */
+    @Test
+    public void reloadedSkuIsNotEvictedByItsStaleEntry() {
+        ProductCache cache = new ProductCache(2);
+        cache.intern(new Product("A", "Polera", Money.ofClp(9990)));
+        cache.intern(new Product("B", "Jeans", Money.ofClp(19990)));
+        for (int i = 0; i < 1_000; i++) {
+            cache.invalidate("A");
+            cache.intern(new Product("A", "Polera", Money.ofClp(9990 + i)));
+        }
+        cache.intern(new Product("C", "Chaqueta", Money.ofClp(39990)));
+
+        assertNull(cache.get("B"));
+        assertNotNull(cache.get("A"));
+        assertNotNull(cache.get("C"));
+        assertEquals(2, cache.size());
+    }
+}
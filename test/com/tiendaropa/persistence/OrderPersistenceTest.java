@@ -0,0 +1,156 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.persistence;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de recuperación de OrderPersistence.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class OrderPersistenceTest {
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiendaropa-persistence");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Crea pedidos desde varios hilos mientras otro toma instantáneas sin
+     * parar; al recuperar deben estar todos, sin importar en qué momento
+     * de su alta los alcanzó una instantánea.
+     */
+    @Test(timeout = 60_000)
+    public void ordersCreatedDuringSnapshotsSurviveRecovery() throws Exception {
+        int threads = 4;
+        int perThread = 5_000;
+        Set<String> created = ConcurrentHashMap.newKeySet();
+        OrderPersistence persistence = OrderPersistence.open(directory, FsyncPolicy.NEVER, 100);
+        OrderService service = new OrderService(new SnowflakeOrderIdGenerator(1), persistence.getJournal());
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicBoolean creating = new AtomicBoolean(true);
+        List<Future<?>> creators = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            creators.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < perThread; i++) {
+                    created.add(service.createOrder("C" + thread).getId());
+                }
+                return null;
+            }));
+        }
+        Future<Integer> snapshots = pool.submit(() -> {
+            go.await();
+            int taken = 0;
+            while (creating.get()) {
+                persistence.snapshot(service);
+                taken++;
+            }
+            return taken;
+        });
+        go.countDown();
+        for (Future<?> creator : creators) {
+            creator.get();
+        }
+        creating.set(false);
+        assertTrue(snapshots.get() > 0);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        persistence.close();
+
+        OrderPersistence reopened = OrderPersistence.open(directory, FsyncPolicy.NEVER, 100);
+        try {
+            Set<String> recovered = new HashSet<>();
+            for (Order order : reopened.getRecoveredOrders()) {
+                recovered.add(order.getId());
+            }
+            assertEquals(threads * perThread, created.size());
+            assertEquals(created.size(), recovered.size());
+            assertEquals(created, recovered);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    /**
+     * Una caída a mitad de un registro deja bytes sueltos al final del
+     * segmento que el journal reabre; los pedidos registrados después de
+     * recuperar no se deben perder detrás de ellos.
+     */
+    @Test(timeout = 60_000)
+    public void writesAfterTornTailSurviveNextRecovery() throws Exception {
+        Set<String> created = new HashSet<>();
+        OrderPersistence persistence = OrderPersistence.open(directory, FsyncPolicy.ALWAYS, 100);
+        OrderService service = new OrderService(new SnowflakeOrderIdGenerator(2), persistence.getJournal());
+        for (int i = 0; i < 10; i++) {
+            created.add(service.createOrder("C1").getId());
+        }
+        persistence.close();
+
+        // Al abrir se crea el segmento siguiente; la caída deja en él un registro a medias
+        OrderPersistence.open(directory, FsyncPolicy.ALWAYS, 100).close();
+        List<Path> segments = OrderJournal.listSegments(directory);
+        Path last = segments.get(segments.size() - 1);
+        assertEquals(0L, Files.size(last));
+        Files.write(last, new byte[] {0, 0, 0, 40, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        persistence = OrderPersistence.open(directory, FsyncPolicy.ALWAYS, 100);
+        service = new OrderService(new SnowflakeOrderIdGenerator(2), persistence.getJournal());
+        for (int i = 0; i < 5; i++) {
+            created.add(service.createOrder("C2").getId());
+        }
+        persistence.close();
+
+        OrderPersistence reopened = OrderPersistence.open(directory, FsyncPolicy.ALWAYS, 100);
+        try {
+            Set<String> recovered = new HashSet<>();
+            for (Order order : reopened.getRecoveredOrders()) {
+                recovered.add(order.getId());
+            }
+            assertEquals(created, recovered);
+        } finally {
+            reopened.close();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.repository;
+
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.persistence.OrderArchive;
+import com.tiendaropa.service.OrderService;
+import com.tiendaropa.service.SnowflakeOrderIdGenerator;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de las consultas de OrderRepository con pedidos archivados en disco.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class OrderRepositoryArchiveTest {
+
+    private static final int ORDERS = 20;
+    private static final int HEAP_ORDERS = 200_000;
+
+    private Path directory;
+    private OrderArchive archive;
+    private OrderRepository repository;
+    private OrderService service;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiendaropa-archive");
+        archive = OrderArchive.open(directory.resolve("cold-orders.seg"), 4);
+        repository = new OrderRepository(archive, 2);
+        service = new OrderService(new SnowflakeOrderIdGenerator(7), null, null, null, repository);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        archive.close();
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Los pedidos entregados que pasan a disco siguen en las consultas por
+     * cliente, estado y fecha, en los listados y en los recorridos, igual
+     * que en getOrderCount.
+     */
+    @Test
+    public void archivedOrdersStayInQueriesAndListings() {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < ORDERS; i++) {
+            String orderId = service.createOrder("C1").getId();
+            ids.add(orderId);
+            assertTrue(service.updateOrderStatus(orderId, OrderStatus.PAID));
+            assertTrue(service.updateOrderStatus(orderId, OrderStatus.SHIPPED));
+            assertTrue(service.updateOrderStatus(orderId, OrderStatus.DELIVERED));
+        }
+        String open = service.createOrder("C1").getId();
+        ids.add(open);
+        assertTrue(service.getTierStats().getArchivedOrders() >= ORDERS - 2);
+
+        assertEquals(ids.size(), service.getOrderCount());
+        assertEquals(ids, idsOf(service.getOrdersByCustomer("C1")));
+        assertEquals(ORDERS, service.getOrdersByStatus(OrderStatus.DELIVERED).size());
+        assertEquals(ids, idsOf(service.getOrdersByDateRange(new Date(0L), new Date(Long.MAX_VALUE))));
+        assertEquals(ids, idsOf(service.getAllOrders()));
+        assertEquals(ids, service.streamOrders().map(Order::getId).collect(Collectors.toSet()));
+        assertEquals(ids, idsOf(service.listOrders(null, ORDERS + 1)));
+    }
+
+    /**
+     * Borrar un pedido archivado lo quita de los índices, y traerlo de
+     * vuelta a memoria no lo duplica en ellos.
+     */
+    @Test
+    public void promotedAndDeletedArchivedOrdersKeepIndexesExact() {
+        String[] orderIds = new String[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds[i] = service.createOrder("C2").getId();
+            assertTrue(service.updateOrderStatus(orderIds[i], OrderStatus.CANCELLED));
+        }
+        String promoted = orderIds[0];
+        String deleted = orderIds[1];
+        assertTrue(service.calculateOrderTotal(promoted, "MEMBER") != null);
+        assertTrue(service.deleteOrder(deleted));
+
+        List<Order> cancelled = service.getOrdersByStatus(OrderStatus.CANCELLED);
+        assertEquals(ORDERS - 1, cancelled.size());
+        assertEquals(ORDERS - 1, idsOf(cancelled).size());
+        assertFalse(idsOf(service.getOrdersByCustomer("C2")).contains(deleted));
+        assertTrue(idsOf(service.getOrdersByCustomer("C2")).contains(promoted));
+        assertEquals(ORDERS - 1, service.getOrderCount());
+        assertEquals(ORDERS - 1, service.getAllOrders().size());
+    }
+
+    /**
+     * Si no se puede escribir el archivo, los pedidos quedan en memoria,
+     * el fallo se cuenta y se vuelven a intentar en el siguiente desalojo.
+     */
+    @Test
+    public void failedEvictionKeepsOrderInMemoryAndRetries() throws IOException {
+        archive.close();
+        for (int i = 0; i < 4; i++) {
+            String orderId = service.createOrder("C3").getId();
+            assertTrue(service.updateOrderStatus(orderId, OrderStatus.CANCELLED));
+        }
+        TierStats stats = service.getTierStats();
+        assertEquals(4, stats.getHotOrders());
+        assertEquals(0, stats.getArchivedOrders());
+        assertEquals(0L, stats.getEvictions());
+        // Desde el tercer pedido cada alta y cada cancelación intentan un desalojo
+        assertEquals(4L, stats.getEvictionFailures());
+        assertEquals(4, service.getOrdersByCustomer("C3").size());
+    }
+
+    /**
+     * Un pedido cancelado que se consulta seguido no pasa a disco aunque
+     * sea el más antiguo: la política desaloja antes a los que nadie lee.
+     */
+    @Test
+    public void frequentlyReadOrderStaysInMemory() {
+        String popular = service.createOrder("C4").getId();
+        assertTrue(service.updateOrderStatus(popular, OrderStatus.CANCELLED));
+        for (int i = 0; i < 200; i++) {
+            String orderId = service.createOrder("C4").getId();
+            assertTrue(service.updateOrderStatus(orderId, OrderStatus.CANCELLED));
+            assertEquals(popular, service.getOrder(popular).getId());
+        }
+        assertTrue(repository.values().stream().anyMatch(order -> order.getId().equals(popular)));
+        assertEquals(0L, service.getTierStats().getPromotions());
+        assertTrue(service.getTierStats().getEvictions() >= 199);
+    }
+
+    /**
+     * Con creación sostenida de pedidos que terminan cancelados, el heap
+     * queda plano: de los archivados no queda nada en memoria, ni en los
+     * índices ni en la paginación.
+     */
+    @Test(timeout = 120_000)
+    public void heapStaysFlatWhileOrdersAreArchived() {
+        createCancelled(20_000);
+        long before = usedHeapAfterGc();
+        createCancelled(HEAP_ORDERS);
+        long after = usedHeapAfterGc();
+
+        assertEquals(20_000 + HEAP_ORDERS, service.getOrderCount());
+        assertTrue(service.getTierStats().getHotOrders() <= 2);
+        assertEquals((20_000 + HEAP_ORDERS) / 100, service.getOrdersByCustomer("C7").size());
+        // Con los identificadores en memoria crecería más de 200 bytes por pedido
+        long grown = after - before;
+        assertTrue("El heap crecio " + grown + " bytes", grown < HEAP_ORDERS * 16L);
+    }
+
+    private void createCancelled(int count) {
+        for (int i = 0; i < count; i++) {
+            String orderId = service.createOrder("C" + i % 100).getId();
+            assertTrue(service.updateOrderStatus(orderId, OrderStatus.CANCELLED));
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, memory.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+
+    private static Set<String> idsOf(List<Order> orders) {
+        return orders.stream().map(Order::getId).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.service;
+
+import com.tiendaropa.model.Cart;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.Product;
+import com.tiendaropa.persistence.FsyncPolicy;
+import com.tiendaropa.persistence.OrderPersistence;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de CheckoutPipeline con journal e instantáneas.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class CheckoutPipelineTest {
+
+    private static final Product POLERA = new Product("SKU-1", "Polera", Money.ofClp(9990));
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tiendaropa-checkout");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Hace checkouts desde varios hilos mientras otro toma instantáneas sin
+     * parar; al recuperar deben estar todos los pedidos creados, con sus
+     * líneas, sin importar en qué momento los alcanzó una instantánea.
+     */
+    @Test(timeout = 60_000)
+    public void checkoutsDuringSnapshotsSurviveRecovery() throws Exception {
+        int threads = 4;
+        int perThread = 2_000;
+        Set<String> placed = ConcurrentHashMap.newKeySet();
+        OrderPersistence persistence = OrderPersistence.open(directory, FsyncPolicy.NEVER, 100);
+        OrderService service = new OrderService(new SnowflakeOrderIdGenerator(4), persistence.getJournal());
+        CheckoutPipeline pipeline = new CheckoutPipeline(service, 256, 64);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicBoolean buying = new AtomicBoolean(true);
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            buyers.add(pool.submit(() -> {
+                go.await();
+                for (int i = 0; i < perThread; i++) {
+                    Cart cart = new Cart("C" + thread);
+                    cart.add(POLERA, 2);
+                    CheckoutResult result = pipeline.checkout(cart);
+                    assertTrue(result.toString(), result.isPlaced());
+                    placed.add(result.getOrder().getId());
+                }
+                return null;
+            }));
+        }
+        Future<Integer> snapshots = pool.submit(() -> {
+            go.await();
+            int taken = 0;
+            while (buying.get()) {
+                persistence.snapshot(service);
+                taken++;
+            }
+            return taken;
+        });
+        go.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get();
+        }
+        buying.set(false);
+        assertTrue(snapshots.get() > 0);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        pipeline.close();
+        persistence.close();
+
+        OrderPersistence reopened = OrderPersistence.open(directory, FsyncPolicy.NEVER, 100);
+        try {
+            Map<String, Order> recovered = recoveredById(reopened);
+            assertEquals(threads * perThread, placed.size());
+            assertEquals(placed, recovered.keySet());
+            for (Order order : recovered.values()) {
+                assertEquals(2L, order.getItemCount());
+            }
+        } finally {
+            reopened.close();
+        }
+    }
+
+    /**
+     * Un checkout cuyo identificador ya está en uso falla sin dejar nada
+     * en el journal, así que la recuperación no mezcla sus líneas con el
+     * pedido que ya existía.
+     */
+    @Test(timeout = 60_000)
+    public void repeatedIdLeavesNoJournalRecord() throws Exception {
+        OrderPersistence persistence = OrderPersistence.open(directory, FsyncPolicy.ALWAYS, 100);
+        OrderService service = new OrderService(() -> 7L, persistence.getJournal());
+        String existing = service.createOrder("C1").getId();
+        CheckoutPipeline pipeline = new CheckoutPipeline(service, 16, 16);
+        Cart cart = new Cart("C2");
+        cart.add(POLERA, 3);
+        CheckoutResult result = pipeline.checkout(cart);
+        pipeline.close();
+        persistence.close();
+        assertEquals(CheckoutStatus.FAILED, result.getStatus());
+
+        OrderPersistence reopened = OrderPersistence.open(directory, FsyncPolicy.ALWAYS, 100);
+        try {
+            Order order = recoveredById(reopened).get(existing);
+            assertEquals("C1", order.getCustomerId());
+            assertEquals(0L, order.getItemCount());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private static Map<String, Order> recoveredById(OrderPersistence persistence) {
+        Map<String, Order> recovered = new HashMap<>();
+        for (Order order : persistence.getRecoveredOrders()) {
+            recovered.put(order.getId(), order);
+        }
+        return recovered;
+    }
+}
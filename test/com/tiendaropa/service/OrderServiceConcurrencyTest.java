@@ -0,0 +1,156 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.service;
+
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.Order;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prueba de estrés de OrderService: varios hilos agregan y quitan
+ * productos y cambian el estado de los mismos pedidos a la vez, y al final
+ * las líneas, los totales y los estados deben cuadrar con lo que cada hilo
+ * hizo.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class OrderServiceConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ORDERS = 16;
+    private static final int OPERATIONS = 20_000;
+    private static final OrderStatus[] CHAIN = {OrderStatus.PENDING, OrderStatus.PAID, OrderStatus.SHIPPED};
+
+    /**
+     * Cada hilo usa su propio SKU, así que sabe exactamente cuántas unidades
+     * dejó en cada pedido; los cambios de estado compiten por avanzar la
+     * cadena PENDING, PAID, SHIPPED y cada paso debe tener un solo ganador.
+     * Un cambio de líneas rechazado solo puede deberse a que el pedido ya
+     * salió de PENDING.
+     */
+    @Test(timeout = 60_000)
+    public void concurrentMutationsKeepLinesTotalsAndStatus() throws Exception {
+        OrderService service = new OrderService();
+        String[] orderIds = new String[ORDERS];
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds[i] = service.createOrder("C" + (i % 4)).getId();
+        }
+        Product[] products = new Product[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            products[t] = new Product("SKU-" + t, "Producto " + t, Money.ofClp(1000 + t));
+        }
+        int[][] expected = new int[THREADS][ORDERS];
+        // Ganadores de cada paso de la cadena, por pedido
+        AtomicIntegerArray winners = new AtomicIntegerArray(ORDERS * (CHAIN.length - 1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                go.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Product product = products[thread];
+                int[] mine = expected[thread];
+                for (int i = 0; i < OPERATIONS; i++) {
+                    int o = random.nextInt(ORDERS);
+                    int choice = random.nextInt(10);
+                    // Las líneas solo cambian mientras el pedido está PENDING, y de ahí no vuelve
+                    if (choice < 6) {
+                        int quantity = 1 + random.nextInt(3);
+                        if (service.addProductToOrder(orderIds[o], product, quantity)) {
+                            mine[o] += quantity;
+                        } else {
+                            assertNotPending(service, orderIds[o]);
+                        }
+                    } else if (choice < 8) {
+                        if (service.removeProductFromOrder(orderIds[o], product.getId())) {
+                            assertTrue(mine[o] > 0);
+                            mine[o] = 0;
+                        } else if (mine[o] > 0) {
+                            assertNotPending(service, orderIds[o]);
+                        }
+                    } else if (choice == 8 && mine[o] > 0) {
+                        int quantity = 1 + random.nextInt(5);
+                        if (service.setProductQuantity(orderIds[o], product.getId(), quantity)) {
+                            mine[o] = quantity;
+                        } else {
+                            assertNotPending(service, orderIds[o]);
+                        }
+                    } else if (random.nextInt(64) == 0) {
+                        int step = random.nextInt(CHAIN.length - 1);
+                        if (service.updateOrderStatus(orderIds[o], CHAIN[step], CHAIN[step + 1])) {
+                            winners.incrementAndGet(o * (CHAIN.length - 1) + step);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int o = 0; o < ORDERS; o++) {
+            Order order = service.getOrder(orderIds[o]);
+            long items = 0;
+            long base = 0;
+            int lines = 0;
+            for (int t = 0; t < THREADS; t++) {
+                int quantity = expected[t][o];
+                assertEquals("Cantidad de " + products[t].getId() + " en " + orderIds[o],
+                        quantity, order.getQuantity(products[t].getId()));
+                items += quantity;
+                base += quantity * products[t].getPrice().getAmount();
+                if (quantity > 0) {
+                    lines++;
+                }
+            }
+            assertEquals(lines, order.getLineCount());
+            assertEquals(items, order.getItemCount());
+            assertEquals(base, order.getBaseAmount().getAmount());
+            assertEquals(base, order.getTotalAmount().getAmount());
+
+            // Cada paso se gana una vez como máximo y solo si el anterior se ganó
+            int reached = 0;
+            for (int step = 0; step < CHAIN.length - 1; step++) {
+                int won = winners.get(o * (CHAIN.length - 1) + step);
+                assertTrue("Paso " + CHAIN[step] + " ganado " + won + " veces", won <= 1);
+                if (won == 1) {
+                    assertEquals("Paso " + CHAIN[step] + " sin el anterior", step, reached);
+                    reached++;
+                }
+            }
+            assertEquals(CHAIN[reached], order.getStatus());
+            assertTrue(service.getOrdersByStatus(order.getStatus()).contains(order));
+        }
+        int indexed = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            indexed += service.getOrdersByStatus(status).size();
+        }
+        assertEquals(ORDERS, indexed);
+    }
+
+    private static void assertNotPending(OrderService service, String orderId) {
+        assertTrue(service.getOrder(orderId).getStatus() != OrderStatus.PENDING);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit4TestClass.java to edit this template
+ */
+package com.tiendaropa.service;
+
+import com.tiendaropa.inventory.StockReservations;
+import com.tiendaropa.model.Money;
+import com.tiendaropa.model.OrderStatus;
+import com.tiendaropa.model.Product;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pruebas de OrderService con reservas de stock.
+ *
+ * @author Equipo TiendaRopa
+ */
+public class OrderServiceStockTest {
+
+    /**
+     * Si la reserva de un pedido vence y otro pedido se lleva las unidades,
+     * el primero ya no puede pasar a PAID; si quedan unidades, las vuelve
+     * a reservar al pagar.
+     */
+    @Test
+    public void expiredReservationIsTakenAgainOrRejectedOnPayment() throws Exception {
+        StockReservations inventory = new StockReservations(20);
+        inventory.register("SKU-1", 3);
+        OrderService service = new OrderService(new SnowflakeOrderIdGenerator(3), null, inventory);
+        Product product = new Product("SKU-1", "Polera", Money.ofClp(9990));
+
+        String first = service.createOrder("C1").getId();
+        String late = service.createOrder("C2").getId();
+        assertTrue(service.addProductToOrder(first, product, 2));
+        assertTrue(service.addProductToOrder(late, product, 1));
+        Thread.sleep(50);
+        assertEquals(2, inventory.expire());
+        assertEquals(3, inventory.getAvailable("SKU-1"));
+
+        String second = service.createOrder("C3").getId();
+        assertTrue(service.addProductToOrder(second, product, 2));
+        assertFalse(service.updateOrderStatus(first, OrderStatus.PAID));
+        assertEquals(OrderStatus.PENDING, service.getOrder(first).getStatus());
+
+        assertTrue(service.updateOrderStatus(second, OrderStatus.PAID));
+        assertTrue(service.updateOrderStatus(late, OrderStatus.PENDING, OrderStatus.PAID));
+        assertEquals(3L, inventory.getSold("SKU-1"));
+        assertEquals(0, inventory.getAvailable("SKU-1"));
+        assertEquals(0L, inventory.getReserved("SKU-1"));
+    }
+
+    /**
+     * Un pedido pagado ya no cambia sus líneas, así que no deja reservas
+     * sin confirmar que al vencer revendan unidades vendidas; al cancelarlo,
+     * sus unidades vendidas vuelven al stock.
+     */
+    @Test
+    public void paidOrderKeepsItsLinesAndRefundsOnCancel() {
+        StockReservations inventory = new StockReservations(60_000);
+        inventory.register("SKU-1", 10);
+        inventory.register("SKU-2", 10);
+        OrderService service = new OrderService(new SnowflakeOrderIdGenerator(3), null, inventory);
+        Product polera = new Product("SKU-1", "Polera", Money.ofClp(9990));
+        Product gorro = new Product("SKU-2", "Gorro", Money.ofClp(4990));
+
+        String orderId = service.createOrder("C1").getId();
+        assertTrue(service.addProductToOrder(orderId, polera, 3));
+        assertTrue(service.addProductToOrder(orderId, gorro, 2));
+        assertTrue(service.updateOrderStatus(orderId, OrderStatus.PAID));
+        assertEquals(3L, inventory.getSold("SKU-1"));
+        assertEquals(7, inventory.getAvailable("SKU-1"));
+
+        assertFalse(service.addProductToOrder(orderId, polera, 1));
+        assertFalse(service.setProductQuantity(orderId, "SKU-1", 1));
+        assertFalse(service.removeProductFromOrder(orderId, "SKU-2"));
+        assertEquals(3, service.getOrder(orderId).getQuantity("SKU-1"));
+        assertEquals(2, service.getOrder(orderId).getQuantity("SKU-2"));
+        assertEquals(7, inventory.getAvailable("SKU-1"));
+        assertEquals(0L, inventory.getReserved("SKU-1"));
+        assertEquals(2L, inventory.getSold("SKU-2"));
+        assertEquals(8, inventory.getAvailable("SKU-2"));
+        assertEquals(0, inventory.getPendingOrders());
+
+        assertTrue(service.updateOrderStatus(orderId, OrderStatus.CANCELLED));
+        assertEquals(0L, inventory.getSold("SKU-1"));
+        assertEquals(10, inventory.getAvailable("SKU-1"));
+        assertEquals(0L, inventory.getSold("SKU-2"));
+        assertEquals(10, inventory.getAvailable("SKU-2"));
+        assertEquals(0L, inventory.getReserved("SKU-1"));
+    }
+}